@@ -0,0 +1,137 @@
+package com.example.volunteermanagement.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Egyszerű, korlátos méretű, lejárati idővel rendelkező memória-gyorsítótár.
+ * A null értéket is eltárolja (pl. "ennek a felhasználónak nincs szervezete"),
+ * így az ismételt "üres" lekérdezések sem mennek le az adatbázisba.
+ */
+public class TtlCache<K, V> {
+
+    private record Entry<V>(V value, long expiresAtNanos) {
+        boolean isExpired(long now) {
+            return now - expiresAtNanos >= 0;
+        }
+    }
+
+    private final String name;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final ConcurrentHashMap<K, Entry<V>> map = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public TtlCache(String name, int maxSize, long ttlMillis) {
+        this.name = name;
+        this.maxSize = Math.max(1, maxSize);
+        this.ttlNanos = ttlMillis * 1_000_000L;
+    }
+
+    /**
+     * Visszaadja a gyorsítótárazott értéket, vagy betölti a loaderrel és eltárolja.
+     */
+    public V get(K key, Function<K, V> loader) {
+        long now = System.nanoTime();
+        Entry<V> entry = map.get(key);
+        if (entry != null && !entry.isExpired(now)) {
+            hits.incrementAndGet();
+            return entry.value();
+        }
+        misses.incrementAndGet();
+        V value = loader.apply(key);
+        put(key, value);
+        return value;
+    }
+
+    /**
+     * Csak olvasás: null-t ad vissza, ha nincs (érvényes) bejegyzés.
+     */
+    public V getIfPresent(K key) {
+        Entry<V> entry = map.get(key);
+        if (entry != null && !entry.isExpired(System.nanoTime())) {
+            hits.incrementAndGet();
+            return entry.value();
+        }
+        if (entry != null) map.remove(key, entry);
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public void put(K key, V value) {
+        put(key, value, ttlNanos / 1_000_000L);
+    }
+
+    /**
+     * Egyedi lejárattal tárol (pl. a JWT saját lejárati idejéig), de legfeljebb a cache TTL-jéig.
+     */
+    public void put(K key, V value, long ttlMillis) {
+        long effectiveNanos = Math.min(ttlNanos, Math.max(0, ttlMillis) * 1_000_000L);
+        if (effectiveNanos <= 0) return;
+        if (map.size() >= maxSize) {
+            evict();
+        }
+        map.put(key, new Entry<>(value, System.nanoTime() + effectiveNanos));
+    }
+
+    public void invalidate(K key) {
+        if (key != null) map.remove(key);
+    }
+
+    public void invalidateIf(Predicate<K> predicate) {
+        map.keySet().removeIf(predicate);
+    }
+
+    public void invalidateValues(Predicate<V> predicate) {
+        map.values().removeIf(e -> predicate.test(e.value()));
+    }
+
+    public void clear() {
+        map.clear();
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    // Először a lejártakat dobjuk, ha ez nem elég, a tizedét tetszőleges sorrendben
+    private void evict() {
+        long now = System.nanoTime();
+        map.entrySet().removeIf(e -> {
+            boolean expired = e.getValue().isExpired(now);
+            if (expired) evictions.incrementAndGet();
+            return expired;
+        });
+
+        int toRemove = map.size() - (maxSize - Math.max(1, maxSize / 10));
+        Iterator<K> it = map.keySet().iterator();
+        while (toRemove > 0 && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions.incrementAndGet();
+            toRemove--;
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long h = hits.get();
+        long m = misses.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("name", name);
+        stats.put("size", map.size());
+        stats.put("maxSize", maxSize);
+        stats.put("hits", h);
+        stats.put("misses", m);
+        stats.put("evictions", evictions.get());
+        stats.put("hitRatio", (h + m) == 0 ? 0.0 : (double) h / (h + m));
+        return stats;
+    }
+}
@@ -1,37 +1,91 @@
 package com.example.volunteermanagement.config;
 
+import com.example.volunteermanagement.tenant.SchemaTenantDataSourceProvider;
+import com.example.volunteermanagement.tenant.TenantDataSourceProvider;
+import com.example.volunteermanagement.tenant.TenantPoolManager;
 import com.example.volunteermanagement.tenant.TenantRoutingDataSource;
 import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.annotation.Scheduled;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
+import java.sql.DriverManager;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 @Configuration
+@Slf4j
 public class DataSourceConfig {
 
+    /**
+     * DATABASE: minden bérlő saját adatbázisban (<tenant>_db), saját poollal (alapértelmezett).
+     * SCHEMA: minden bérlő egy közös adatbázis saját sémájában, egyetlen közös poolon.
+     */
+    public enum TenancyMode { DATABASE, SCHEMA }
+
+    private static final String JDBC_BASE_URL = "jdbc:postgresql://localhost:5432/";
+    private static final String DB_USER = "postgres";
+    private static final String DB_PASSWORD = "jelszo";
+
     private final Map<Object, Object> targetDataSources = new ConcurrentHashMap<>();
     private TenantRoutingDataSource tenantRoutingDataSource;
+    private TenantDataSourceProvider tenantDataSourceProvider;
+
+    @Value("${app.tenancy.mode:DATABASE}")
+    private TenancyMode tenancyMode;
+
+    // Séma módban ebben az adatbázisban élnek a bérlői sémák
+    @Value("${app.tenancy.schema-database:master_db}")
+    private String schemaDatabase;
+
+    @Value("${app.tenancy.shared-pool-size:30}")
+    private int sharedPoolSize;
+
+    // --- Bérlői poolok méretezése ---
+    @Value("${app.tenant-pools.min-size:1}")
+    private int tenantPoolMinSize;
+
+    @Value("${app.tenant-pools.initial-size:2}")
+    private int tenantPoolInitialSize;
+
+    @Value("${app.tenant-pools.max-size:10}")
+    private int tenantPoolMaxSize;
+
+    @Value("${app.tenant-pools.max-total-connections:200}")
+    private int tenantPoolMaxTotalConnections;
+
+    @Value("${app.tenant-pools.idle-close-ms:600000}")
+    private long tenantPoolIdleCloseMs;
+
+    @Value("${app.tenant-pools.connection-idle-timeout-ms:60000}")
+    private long tenantConnectionIdleTimeoutMs;
+
+    @Value("${app.tenant-pools.open-wait-ms:5000}")
+    private long tenantPoolOpenWaitMs;
 
     @Bean
     @Primary
     public DataSource dataSource() {
         tenantRoutingDataSource = new TenantRoutingDataSource();
+        tenantDataSourceProvider = createTenantDataSourceProvider();
 
         // 1. A MASTER (Központi) adatbázis inicializálása
-        DataSource masterDb = createDataSource("jdbc:postgresql://localhost:5432/master_db", "postgres", "jelszo");
+        DataSource masterDb = createDataSource(JDBC_BASE_URL + "master_db", DB_USER, DB_PASSWORD);
         targetDataSources.put("master", masterDb);
 
         // 2. ÚJ: Automatikus Bérlő (Tenant) betöltés a Mesterből!
         loadTenantsFromMaster(masterDb);
 
-        // 3. Konfiguráljuk a liftet
+        // 3. Konfiguráljuk a liftet (a bérlői kapcsolatokat a szolgáltató adja)
+        tenantRoutingDataSource.setTenantDataSourceProvider(tenantDataSourceProvider);
         tenantRoutingDataSource.setDefaultTargetDataSource(masterDb);
         tenantRoutingDataSource.setTargetDataSources(targetDataSources);
         tenantRoutingDataSource.afterPropertiesSet();
@@ -39,9 +93,29 @@ public class DataSourceConfig {
         return tenantRoutingDataSource;
     }
 
+    private TenantDataSourceProvider createTenantDataSourceProvider() {
+        if (tenancyMode == TenancyMode.SCHEMA) {
+            HikariDataSource sharedPool = (HikariDataSource) createDataSource(JDBC_BASE_URL + schemaDatabase, DB_USER, DB_PASSWORD);
+            sharedPool.setPoolName("tenant-shared");
+            sharedPool.setMaximumPoolSize(sharedPoolSize);
+            log.info("🏘️ Séma/bérlő mód: minden bérlő a(z) {} adatbázisban, közös poolon.", schemaDatabase);
+            return new SchemaTenantDataSourceProvider(sharedPool);
+        }
+        return new TenantPoolManager(new TenantPoolManager.Settings(
+                tenantPoolMinSize,
+                tenantPoolInitialSize,
+                tenantPoolMaxSize,
+                tenantPoolMaxTotalConnections,
+                tenantPoolIdleCloseMs,
+                tenantConnectionIdleTimeoutMs,
+                tenantPoolOpenWaitMs
+        ));
+    }
+
     // --- ÚJ: Ez olvassa ki induláskor az összes létező adatbázist ---
+    // Csak regisztrálunk, kapcsolatot még nem nyitunk: a pool az első kéréskor jön létre
     private void loadTenantsFromMaster(DataSource masterDb) {
-        System.out.println("🔄 Bérlői (Tenant) adatbázisok keresése a Mesterben...");
+        log.info("🔄 Bérlői (Tenant) adatbázisok keresése a Mesterben...");
         try (Connection conn = masterDb.getConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery("SELECT tenant_id FROM organizations WHERE tenant_id IS NOT NULL")) {
@@ -50,28 +124,28 @@ public class DataSourceConfig {
                 String tenantId = rs.getString("tenant_id");
                 if (tenantId != null && !tenantId.trim().isEmpty()) {
                     String dbName = tenantId + "_db";
-                    DataSource tenantDb = createDataSource("jdbc:postgresql://localhost:5432/" + dbName, "postgres", "jelszo");
-                    targetDataSources.put(tenantId, tenantDb);
-                    System.out.println("✅ Liftbe bekötve: " + tenantId + " -> " + dbName);
+                    registerTenant(tenantId, dbName);
+                    log.info("✅ Liftbe bekötve: {} -> {}", tenantId, dbName);
                 }
             }
         } catch (Exception e) {
-            System.out.println("⚠️ Figyelem (Első indulás?): Nem sikerült kiolvasni a bérlőket. Oka: " + e.getMessage());
+            log.warn("⚠️ Figyelem (Első indulás?): Nem sikerült kiolvasni a bérlőket. Oka: {}", e.getMessage());
         }
     }
 
     // Dinamikus hozzáadás (Regisztrációkor az AuthService hívja)
     public void addTenantDataSource(String tenantId, String dbName) {
-        String url = "jdbc:postgresql://localhost:5432/" + dbName;
-        DataSource newDb = createDataSource(url, "postgres", "jelszo");
+        registerTenant(tenantId, dbName);
+    }
 
-        targetDataSources.put(tenantId, newDb);
-        tenantRoutingDataSource.setTargetDataSources(targetDataSources);
-        tenantRoutingDataSource.afterPropertiesSet();
+    // Végleges szervezet-törléskor: a pool lezárása és a bérlő kivezetése a liftből
+    public void removeTenantDataSource(String tenantId) {
+        tenantDataSourceProvider.unregisterTenant(tenantId);
     }
 
     public DataSource getDataSourceForTenant(String tenantId) {
-        return (DataSource) targetDataSources.get(tenantId);
+        DataSource tenantDataSource = tenantDataSourceProvider.getDataSource(tenantId);
+        return tenantDataSource != null ? tenantDataSource : (DataSource) targetDataSources.get(tenantId);
     }
 
     // --- ÚJ METÓDUS: Hozzáférés a Mester adatbázishoz ---
@@ -79,6 +153,80 @@ public class DataSourceConfig {
         return (DataSource) targetDataSources.get("master");
     }
 
+    public Map<String, Object> getTenantPoolMetrics() {
+        return tenantDataSourceProvider.getMetrics();
+    }
+
+    public boolean isSchemaPerTenant() {
+        return tenancyMode == TenancyMode.SCHEMA;
+    }
+
+    // A bérlő sémájának neve séma módban (a "<tenant>_db" névből a tenant ID)
+    public String getTenantSchemaName(String dbName) {
+        return SchemaTenantDataSourceProvider.toSchemaName(tenantIdFromDbName(dbName));
+    }
+
+    // Kapcsolat a bérlő poolából (séma módban a közös poolból, a bérlő sémájára állítva);
+    // ha a bérlő még nincs bejegyezve (pl. épp most jön létre), közvetlen kapcsolat
+    public Connection openTenantConnection(String dbName) throws SQLException {
+        DataSource pooled = getDataSourceForTenant(tenantIdFromDbName(dbName));
+        return pooled != null ? pooled.getConnection() : openDirectTenantConnection(dbName);
+    }
+
+    public boolean hasOpenTenantPool(String tenantId) {
+        return tenantDataSourceProvider != null && tenantDataSourceProvider.hasOpenPool(tenantId);
+    }
+
+    // Háttérfeladatokhoz: a már nyitott poolt használjuk, de a tétlen (lezárt) bérlő poolját emiatt nem nyitjuk újra
+    public Connection openBackgroundTenantConnection(String dbName) throws SQLException {
+        return hasOpenTenantPool(tenantIdFromDbName(dbName)) ? openTenantConnection(dbName) : openDirectTenantConnection(dbName);
+    }
+
+    // Pool nélküli, közvetlen kapcsolat a bérlőhöz (kiépítéshez, karbantartáshoz) mindkét módban
+    public Connection openDirectTenantConnection(String dbName) throws SQLException {
+        if (tenancyMode != TenancyMode.SCHEMA) {
+            return openDirectConnection(dbName);
+        }
+        Connection conn = openDirectConnection(schemaDatabase);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("SET search_path TO \"" + getTenantSchemaName(dbName) + "\"");
+            return conn;
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
+    }
+
+    // Közvetlen kapcsolat ahhoz az adatbázishoz, ahol a bérlők tárhelye létrejön / megszűnik
+    public Connection openDirectProvisioningConnection() throws SQLException {
+        return openDirectConnection(tenancyMode == TenancyMode.SCHEMA ? schemaDatabase : "master_db");
+    }
+
+    public Connection openDirectConnection(String dbName) throws SQLException {
+        return DriverManager.getConnection(JDBC_BASE_URL + dbName, DB_USER, DB_PASSWORD);
+    }
+
+    // Tétlen poolok lezárása és a kapcsolat-keret újraosztása a friss terhelés alapján
+    @Scheduled(fixedDelayString = "${app.tenant-pools.rebalance-interval-ms:30000}")
+    public void maintainTenantPools() {
+        if (tenantDataSourceProvider != null) {
+            tenantDataSourceProvider.maintain();
+        }
+    }
+
+    private void registerTenant(String tenantId, String dbName) {
+        if (tenantDataSourceProvider instanceof SchemaTenantDataSourceProvider schemaProvider) {
+            schemaProvider.registerTenant(tenantId);
+        } else if (tenantDataSourceProvider instanceof TenantPoolManager poolManager) {
+            poolManager.registerTenant(tenantId,
+                    new TenantPoolManager.TenantTarget(JDBC_BASE_URL + dbName, DB_USER, DB_PASSWORD));
+        }
+    }
+
+    private static String tenantIdFromDbName(String dbName) {
+        return dbName.endsWith("_db") ? dbName.substring(0, dbName.length() - 3) : dbName;
+    }
+
     private DataSource createDataSource(String url, String username, String password) {
         HikariDataSource dataSource = new HikariDataSource();
         dataSource.setJdbcUrl(url);
@@ -87,4 +235,4 @@ public class DataSourceConfig {
         dataSource.setDriverClassName("org.postgresql.Driver");
         return dataSource;
     }
-}
\ No newline at end of file
+}
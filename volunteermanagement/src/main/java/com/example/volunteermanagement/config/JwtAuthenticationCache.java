@@ -0,0 +1,101 @@
+package com.example.volunteermanagement.config;
+
+import com.example.volunteermanagement.cache.TtlCache;
+import com.example.volunteermanagement.model.User;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * A JWT szűrő gyorsítótárai:
+ *  - ellenőrzött tokenek (token SHA-256 lenyomata -> e-mail), legfeljebb a token lejáratáig,
+ *  - bejelentkezett felhasználók (e-mail -> könnyített User másolat), explicit érvénytelenítéssel.
+ * Így egy hitelesített kérés jellemzően se aláírás-ellenőrzést, se adatbázis-lekérdezést nem igényel.
+ */
+@Component
+public class JwtAuthenticationCache {
+
+    @Value("${app.security.token-cache.max-size:50000}")
+    private int tokenCacheMaxSize;
+
+    @Value("${app.security.principal-cache.max-size:10000}")
+    private int principalCacheMaxSize;
+
+    @Value("${app.security.principal-cache.ttl-ms:300000}")
+    private long principalCacheTtlMs;
+
+    private TtlCache<String, String> tokenCache;
+    private TtlCache<String, UserDetails> principalCache;
+
+    @PostConstruct
+    void initCaches() {
+        // A token bejegyzés élettartamát mindig a token saját lejárata szabja meg (max. 24 óra)
+        tokenCache = new TtlCache<>("jwtVerifiedTokens", tokenCacheMaxSize, 24L * 60 * 60 * 1000);
+        principalCache = new TtlCache<>("jwtPrincipals", principalCacheMaxSize, principalCacheTtlMs);
+    }
+
+    /**
+     * A már egyszer ellenőrzött token tulajdonosa, vagy null, ha még nem láttuk (vagy lejárt).
+     */
+    public String getVerifiedSubject(String token) {
+        return tokenCache.getIfPresent(hash(token));
+    }
+
+    public void rememberToken(String token, String subject, Date expiration) {
+        if (subject == null || expiration == null) return;
+        tokenCache.put(hash(token), subject, expiration.getTime() - System.currentTimeMillis());
+    }
+
+    public UserDetails getPrincipal(String email, Function<String, UserDetails> loader) {
+        return principalCache.get(email, key -> snapshot(loader.apply(key)));
+    }
+
+    public void invalidateUser(String email) {
+        if (email == null) return;
+        principalCache.invalidate(email);
+        tokenCache.invalidateValues(subject -> Objects.equals(subject, email));
+    }
+
+    public void invalidateAll() {
+        principalCache.clear();
+        tokenCache.clear();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("tokens", tokenCache.getStats());
+        stats.put("principals", principalCache.getStats());
+        return stats;
+    }
+
+    // Nem a JPA entitást tartjuk a memóriában (lusta kapcsolatok, jelszó-hash), csak a hitelesítéshez kellő mezőket
+    private UserDetails snapshot(UserDetails loaded) {
+        if (!(loaded instanceof User u)) return loaded;
+        return User.builder()
+                .id(u.getId())
+                .name(u.getName())
+                .email(u.getEmail())
+                .role(u.getRole())
+                .build();
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 nem elérhető", e);
+        }
+    }
+}
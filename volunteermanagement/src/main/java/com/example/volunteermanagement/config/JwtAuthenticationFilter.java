@@ -24,6 +24,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final JwtAuthenticationCache jwtAuthenticationCache;
 
     @Override
     protected void doFilterInternal(
@@ -43,23 +44,23 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         try {
             jwt = authHeader.substring(7);
-            userEmail = jwtService.extractUsername(jwt);
 
-            if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-
-                // --- A TRÜKK: Multi-Tenant Biztonsági Híd ---
-                // Eltároljuk az épp aktuális értéket (ha van)
-                String currentTenant = TenantContext.getCurrentTenant();
-
-                // Kényszerítjük a rendszert, hogy a felhasználót a master_db-ben keresse
-                TenantContext.setCurrentTenant(null);
+            // Már ellenőrzött token? Akkor se aláírás-ellenőrzés, se újabb parse nem kell
+            String cachedEmail = jwtAuthenticationCache.getVerifiedSubject(jwt);
+            if (cachedEmail != null) {
+                userEmail = cachedEmail;
+            } else {
+                // Egyetlen parse: az aláírást és a lejáratot a parser maga ellenőrzi
+                JwtService.TokenClaims claims = jwtService.parseToken(jwt);
+                userEmail = claims.subject();
+                jwtAuthenticationCache.rememberToken(jwt, userEmail, claims.expiration());
+            }
 
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
+            if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
 
-                // Ha megvan a felhasználó, visszaállítjuk az eredeti adatbázist
-                TenantContext.setCurrentTenant(currentTenant);
+                UserDetails userDetails = jwtAuthenticationCache.getPrincipal(userEmail, this::loadUserFromMaster);
 
-                if (jwtService.isTokenValid(jwt, userDetails)) {
+                if (userEmail.equals(userDetails.getUsername())) {
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                             userDetails,
                             null,
@@ -86,4 +87,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             response.getWriter().write("{\"error\": \"Érvénytelen token!\"}");
         }
     }
+
+    // --- A TRÜKK: Multi-Tenant Biztonsági Híd ---
+    // Csak gyorsítótár-hiány esetén fut: a felhasználót mindig a master_db-ben keressük
+    private UserDetails loadUserFromMaster(String userEmail) {
+        String currentTenant = TenantContext.getCurrentTenant();
+        try {
+            TenantContext.setCurrentTenant(null);
+            return this.userDetailsService.loadUserByUsername(userEmail);
+        } finally {
+            TenantContext.setCurrentTenant(currentTenant);
+        }
+    }
 }
\ No newline at end of file
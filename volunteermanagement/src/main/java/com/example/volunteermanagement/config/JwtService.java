@@ -1,6 +1,8 @@
 package com.example.volunteermanagement.config;
 
+import com.example.volunteermanagement.model.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
@@ -9,16 +11,67 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import java.security.Key;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Objects;
 import java.util.function.Function;
 
 @Service
 public class JwtService {
 
     // Ez egy generált 256-bites kulcs. Élesben környezeti változóból olvasd!
-    private static final String SECRET_KEY = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+    static final String SECRET_KEY = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+
+    public static final String ROLE_CLAIM = "role";
+
+    // A kulcsot és a parsert egyszer építjük fel: mindkettő szálbiztos és változatlan
+    private static final Key SIGN_IN_KEY = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY));
+    private static final JwtParser PARSER = Jwts.parserBuilder()
+            .setSigningKey(SIGN_IN_KEY)
+            .build();
+
+    /**
+     * Egyszer parse-olt, ellenőrzött token minden szükséges adata egyben.
+     * A token nem hordoz szervezet-listát: a tagságokat mindig az adatbázisból oldjuk fel,
+     * így egy visszavont tagság nem él tovább a token lejáratáig.
+     */
+    public record TokenClaims(
+            String subject,
+            Date issuedAt,
+            Date expiration,
+            String role,
+            Map<String, Object> customClaims
+    ) {
+        public boolean isExpired() {
+            return expiration != null && expiration.before(new Date());
+        }
+    }
+
+    /**
+     * Egyetlen parse: aláírás- és lejárat-ellenőrzés, majd az összes claim egy változatlan objektumban.
+     * Lejárt tokenre ExpiredJwtException-t, hamisítottra JwtException-t dob (mint eddig).
+     */
+    public TokenClaims parseToken(String token) {
+        Claims claims = extractAllClaims(token);
+
+        Map<String, Object> custom = new LinkedHashMap<>(claims);
+        custom.remove(Claims.SUBJECT);
+        custom.remove(Claims.ISSUED_AT);
+        custom.remove(Claims.EXPIRATION);
+
+        Object role = claims.get(ROLE_CLAIM);
+
+        return new TokenClaims(
+                claims.getSubject(),
+                claims.getIssuedAt(),
+                claims.getExpiration(),
+                role != null ? role.toString() : null,
+                Collections.unmodifiableMap(custom)
+        );
+    }
 
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
@@ -30,7 +83,7 @@ public class JwtService {
     }
 
     public String generateToken(UserDetails userDetails) {
-        return generateToken(new HashMap<>(), userDetails);
+        return generateToken(defaultClaims(userDetails), userDetails);
     }
 
     public String generateToken(Map<String, Object> extraClaims, UserDetails userDetails) {
@@ -44,28 +97,24 @@ public class JwtService {
     }
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
-    }
-
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        TokenClaims claims = parseToken(token);
+        return Objects.equals(claims.subject(), userDetails.getUsername()) && !claims.isExpired();
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    // A token a globális szerepkört hordozza
+    private Map<String, Object> defaultClaims(UserDetails userDetails) {
+        Map<String, Object> claims = new HashMap<>();
+        if (userDetails instanceof User user && user.getRole() != null) {
+            claims.put(ROLE_CLAIM, user.getRole().name());
+        }
+        return claims;
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return PARSER.parseClaimsJws(token).getBody();
     }
 
     private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(SECRET_KEY);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return SIGN_IN_KEY;
     }
-}
\ No newline at end of file
+}
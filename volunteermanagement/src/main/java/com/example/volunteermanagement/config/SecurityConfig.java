@@ -1,5 +1,6 @@
 package com.example.volunteermanagement.config;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -42,6 +43,9 @@ public class SecurityConfig {
                         // EZT MOZGATTUK FELJÉBB:
                         .requestMatchers(HttpMethod.GET, "/api/events/public").permitAll()
 
+                        // Az SSE csatorna lezárásakor érkező aszinkron visszahívás (a kérést már a nyitáskor hitelesítettük)
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                         // 2. A legvégén a "Minden más zárt" szabály
                         .anyRequest().authenticated()
                 )
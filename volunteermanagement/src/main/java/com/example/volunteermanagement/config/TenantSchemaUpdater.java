@@ -5,8 +5,11 @@ import com.example.volunteermanagement.repository.OrganizationRepository;
 import com.example.volunteermanagement.tenant.TenantContext;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
 import org.springframework.stereotype.Component;
 
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.List;
 
 @Component
@@ -14,10 +17,12 @@ public class TenantSchemaUpdater implements CommandLineRunner {
 
     private final OrganizationRepository organizationRepository;
     private final JdbcTemplate jdbcTemplate;
+    private final DataSourceConfig dataSourceConfig;
 
-    public TenantSchemaUpdater(OrganizationRepository organizationRepository, JdbcTemplate jdbcTemplate) {
+    public TenantSchemaUpdater(OrganizationRepository organizationRepository, JdbcTemplate jdbcTemplate, DataSourceConfig dataSourceConfig) {
         this.organizationRepository = organizationRepository;
         this.jdbcTemplate = jdbcTemplate;
+        this.dataSourceConfig = dataSourceConfig;
     }
 
     @Override
@@ -30,7 +35,8 @@ public class TenantSchemaUpdater implements CommandLineRunner {
         System.out.println("--> MESTER adatbázis frissítése...");
         try {
             TenantContext.setCurrentTenant(null); // A Mester adatbázisra mutat
-            applyDatabaseUpdates();
+            applyDatabaseUpdates(jdbcTemplate);
+            createMasterTables(jdbcTemplate);
             System.out.println("✅ Séma frissítve a Mester adatbázisban.");
         } catch (Exception e) {
             System.err.println("❌ Hiba a Mester adatbázis frissítésekor: " + e.getMessage());
@@ -46,44 +52,64 @@ public class TenantSchemaUpdater implements CommandLineRunner {
 
             try {
                 System.out.println("--> TENANT frissítése: " + tenantId);
-                TenantContext.setCurrentTenant(tenantId);
-                applyDatabaseUpdates();
+                applyTenantSchema(tenantId + "_db");
                 System.out.println("✅ Séma frissítve a tenantban: " + tenantId);
             } catch (Exception e) {
                 System.err.println("❌ Hiba a tenant frissítésekor (" + tenantId + "): " + e.getMessage());
-            } finally {
-                TenantContext.clear();
             }
         }
 
         System.out.println("🚀 Minden adatbázis séma frissítése sikeresen befejeződött!");
     }
 
+    /**
+     * Egy bérlő (Sziget) sémájának frissítése közvetlen kapcsolaton, mindkét bérlési módban (a bérlő poolját nem nyitja meg).
+     * Induláskor a meglévő bérlőkre fut, kiépítéskor pedig a Hibernate sémagenerálás után az új bérlőre.
+     */
+    public void applyTenantSchema(String dbName) throws SQLException {
+        try (Connection connection = dataSourceConfig.openDirectTenantConnection(dbName)) {
+            applyDatabaseUpdates(new JdbcTemplate(new SingleConnectionDataSource(connection, true)));
+        }
+    }
+
     /**
      * Ez a metódus tartalmazza az összes sémamódosítást.
      * Mindig biztonságos, "IF NOT EXISTS" jellegű műveleteket használj itt!
      */
-    private void applyDatabaseUpdates() {
+    void applyDatabaseUpdates(JdbcTemplate jdbc) {
         // 1. Táblák létrehozása
-        createTables();
+        createTables(jdbc);
 
         // 2. Új oszlopok dinamikus hozzáadása
         // Ezentúl csak ide kell beírnod egy új sort, ha bővíted az Entity-t!
 
         // --- Az új étkezési idősávok bevezetése az Eseményekhez ---
-        addColumnIfNotExists("events", "breakfast_start_time", "TIME");
-        addColumnIfNotExists("events", "breakfast_end_time", "TIME");
-        addColumnIfNotExists("events", "lunch_start_time", "TIME");
-        addColumnIfNotExists("events", "lunch_end_time", "TIME");
-        addColumnIfNotExists("events", "dinner_start_time", "TIME");
-        addColumnIfNotExists("events", "dinner_end_time", "TIME");
+        addColumnIfNotExists(jdbc, "events", "breakfast_start_time", "TIME");
+        addColumnIfNotExists(jdbc, "events", "breakfast_end_time", "TIME");
+        addColumnIfNotExists(jdbc, "events", "lunch_start_time", "TIME");
+        addColumnIfNotExists(jdbc, "events", "lunch_end_time", "TIME");
+        addColumnIfNotExists(jdbc, "events", "dinner_start_time", "TIME");
+        addColumnIfNotExists(jdbc, "events", "dinner_end_time", "TIME");
+
+        // --- A kirakat növekményes egyeztetéséhez: utolsó módosítás ideje (a régi sorok most "változnak") ---
+        addColumnIfNotExists(jdbc, "events", "updated_at", "TIMESTAMP");
+        executeSqlSafely(jdbc, "UPDATE events SET updated_at = CURRENT_TIMESTAMP WHERE updated_at IS NULL;");
+
+        // --- Étkezés kiadás: napi sorszám a párhuzamos dupla kiadás ellen ---
+        addColumnIfNotExists(jdbc, "meal_consumption_log", "meal_date", "DATE");
+        addColumnIfNotExists(jdbc, "meal_consumption_log", "redemption_slot", "INTEGER");
+        addColumnIfNotExists(jdbc, "meal_consumption_log", "client_scan_id", "VARCHAR(100)");
 
         // 3. Egyéb frissítések (pl. Constraint-ek)
-        executeSqlSafely("ALTER TABLE event_team_members DROP CONSTRAINT IF EXISTS event_team_members_role_check;");
-        executeSqlSafely("ALTER TABLE event_team_members ADD CONSTRAINT event_team_members_role_check CHECK (role IN ('ORGANIZER', 'COORDINATOR', 'MEAL_SCANNER'));");
+        executeSqlSafely(jdbc, "ALTER TABLE event_team_members DROP CONSTRAINT IF EXISTS event_team_members_role_check;");
+        executeSqlSafely(jdbc, "ALTER TABLE event_team_members ADD CONSTRAINT event_team_members_role_check CHECK (role IN ('ORGANIZER', 'COORDINATOR', 'MEAL_SCANNER'));");
+
+        // A régi (sorszám nélküli) sorokat a NULL értékek miatt nem érinti
+        executeSqlSafely(jdbc, "CREATE UNIQUE INDEX IF NOT EXISTS ux_meal_log_redemption_slot ON meal_consumption_log (volunteer_id, event_id, meal_type, meal_date, redemption_slot);");
+        executeSqlSafely(jdbc, "CREATE UNIQUE INDEX IF NOT EXISTS ux_meal_log_client_scan_id ON meal_consumption_log (client_scan_id);");
     }
 
-    private void createTables() {
+    private void createTables(JdbcTemplate jdbc) {
         String createTableSql = """
             CREATE TABLE IF NOT EXISTS documents (
                 id BIGSERIAL PRIMARY KEY,
@@ -111,22 +137,121 @@ public class TenantSchemaUpdater implements CommandLineRunner {
             );
         """;
 
-        executeSqlSafely(createTableSql);
-        executeSqlSafely(createMealLogTableSql);
+        // A konyhai összesítő előre számolt tervezett számai (esemény / nap / étkezés / diéta)
+        String createCateringSummaryTableSql = """
+            CREATE TABLE IF NOT EXISTS catering_summary_counters (
+                event_id BIGINT NOT NULL,
+                meal_date DATE NOT NULL,
+                meal_type VARCHAR(20) NOT NULL,
+                diet VARCHAR(20) NOT NULL,
+                planned INTEGER NOT NULL DEFAULT 0,
+                built_at TIMESTAMP NOT NULL,
+                PRIMARY KEY (event_id, meal_date, meal_type, diet)
+            );
+        """;
+
+        // Önkéntesenkénti előre összesített statisztika (teljesített / közelgő műszakok), vízjellel
+        String createVolunteerStatsTableSql = """
+            CREATE TABLE IF NOT EXISTS volunteer_stats (
+                user_id BIGINT PRIMARY KEY,
+                completed_shifts BIGINT NOT NULL DEFAULT 0,
+                completed_minutes BIGINT NOT NULL DEFAULT 0,
+                upcoming_shifts BIGINT NOT NULL DEFAULT 0,
+                rolled_until TIMESTAMP NOT NULL,
+                built_at TIMESTAMP NOT NULL
+            );
+        """;
+
+        executeSqlSafely(jdbc, createTableSql);
+        executeSqlSafely(jdbc, createMealLogTableSql);
+        executeSqlSafely(jdbc, createCateringSummaryTableSql);
+        executeSqlSafely(jdbc, createVolunteerStatsTableSql);
+        // A kirakat (Mester) felé menő esemény-változások, az esemény módosításával egy tranzakcióban
+        executeSqlSafely(jdbc, "CREATE TABLE IF NOT EXISTS event_outbox (id BIGSERIAL PRIMARY KEY, event_id BIGINT NOT NULL, created_at TIMESTAMP NOT NULL);");
+        // A statisztika újraépítése (felhasználónként) és görgetése (lejárt műszakok idősávja) ezekre támaszkodik
+        executeSqlSafely(jdbc, "CREATE INDEX IF NOT EXISTS ix_shift_assignments_user ON shift_assignments (user_id);");
+        executeSqlSafely(jdbc, "CREATE INDEX IF NOT EXISTS ix_shifts_end_time ON shifts (end_time);");
+        // A konyhai összesítő a kiadott adagokat olvasáskor a naplóból számolja (esemény / nap)
+        executeSqlSafely(jdbc, "CREATE INDEX IF NOT EXISTS ix_meal_log_event_consumed ON meal_consumption_log (event_id, consumed_at);");
+    }
+
+    /**
+     * Csak a Mester adatbázisban élő táblák (a Szigeteken nincs rájuk szükség).
+     */
+    private void createMasterTables(JdbcTemplate jdbc) {
+        // Az önkéntesek "Műszakjaim" nézete: felhasználó / bérlő ('' = Mester) partíciónként
+        String createMyShiftViewSql = """
+            CREATE TABLE IF NOT EXISTS my_shift_view (
+                user_id BIGINT NOT NULL,
+                tenant_key VARCHAR(100) NOT NULL,
+                assignment_id BIGINT NOT NULL,
+                shift_id BIGINT NOT NULL,
+                event_id BIGINT,
+                event_name VARCHAR(255),
+                work_area_name VARCHAR(255),
+                shift_name VARCHAR(255),
+                start_time TIMESTAMP NOT NULL,
+                end_time TIMESTAMP NOT NULL,
+                status VARCHAR(20),
+                message TEXT,
+                shift_type VARCHAR(20),
+                description TEXT,
+                co_workers TEXT,
+                PRIMARY KEY (user_id, tenant_key, assignment_id)
+            );
+        """;
+
+        // Partíciónként: mikor épült (az olvasás kezdete) és mikor avult el utoljára
+        String createMyShiftViewPartitionsSql = """
+            CREATE TABLE IF NOT EXISTS my_shift_view_partitions (
+                user_id BIGINT NOT NULL,
+                tenant_key VARCHAR(100) NOT NULL,
+                built_at TIMESTAMP,
+                invalidated_at TIMESTAMP,
+                PRIMARY KEY (user_id, tenant_key)
+            );
+        """;
+
+        // Mester ↔ Sziget replikációs sor: célonként, típusonként és entitásonként egy (összevont) függő változás
+        String createReplicationOutboxSql = """
+            CREATE TABLE IF NOT EXISTS replication_outbox (
+                id BIGSERIAL PRIMARY KEY,
+                target VARCHAR(100) NOT NULL,
+                kind VARCHAR(30) NOT NULL,
+                entity_key VARCHAR(100) NOT NULL,
+                payload TEXT NOT NULL,
+                attempts INTEGER NOT NULL DEFAULT 0,
+                version BIGINT NOT NULL DEFAULT 0,
+                next_attempt_at TIMESTAMP NOT NULL,
+                last_error TEXT,
+                created_at TIMESTAMP NOT NULL,
+                updated_at TIMESTAMP NOT NULL,
+                UNIQUE (target, kind, entity_key)
+            );
+        """;
+
+        executeSqlSafely(jdbc, createMyShiftViewSql);
+        executeSqlSafely(jdbc, createMyShiftViewPartitionsSql);
+        executeSqlSafely(jdbc, "CREATE INDEX IF NOT EXISTS ix_my_shift_view_event ON my_shift_view (tenant_key, event_id);");
+        executeSqlSafely(jdbc, createReplicationOutboxSql);
+        // A kirakat növekményes egyeztetésének vízjele szigetenként
+        executeSqlSafely(jdbc, "CREATE TABLE IF NOT EXISTS event_replication_state (tenant_id VARCHAR(100) PRIMARY KEY, reconciled_until TIMESTAMP NOT NULL);");
+        executeSqlSafely(jdbc, "CREATE INDEX IF NOT EXISTS ix_replication_outbox_due ON replication_outbox (next_attempt_at);");
     }
 
     /**
      * Okos metódus: Csak akkor adja hozzá az oszlopot, ha az még nem létezik.
      */
-    private void addColumnIfNotExists(String tableName, String columnName, String dataType) {
+    private void addColumnIfNotExists(JdbcTemplate jdbc, String tableName, String columnName, String dataType) {
         try {
             // PostgreSQL information_schema lekérdezése az oszlop létezésének ellenőrzésére
-            String checkSql = "SELECT COUNT(*) FROM information_schema.columns WHERE table_name = ? AND column_name = ?";
-            Integer count = jdbcTemplate.queryForObject(checkSql, Integer.class, tableName, columnName);
+            // Csak az aktuális sémát nézzük (séma/bérlő módban több bérlő táblái is egy adatbázisban vannak)
+            String checkSql = "SELECT COUNT(*) FROM information_schema.columns WHERE table_schema = current_schema() AND table_name = ? AND column_name = ?";
+            Integer count = jdbc.queryForObject(checkSql, Integer.class, tableName, columnName);
 
             if (count != null && count == 0) {
                 String alterSql = "ALTER TABLE " + tableName + " ADD COLUMN " + columnName + " " + dataType;
-                jdbcTemplate.execute(alterSql);
+                jdbc.execute(alterSql);
                 System.out.println("  [+] Új oszlop hozzáadva: " + tableName + "." + columnName);
             }
         } catch (Exception e) {
@@ -137,9 +262,9 @@ public class TenantSchemaUpdater implements CommandLineRunner {
     /**
      * Segédmetódus a biztonságos SQL futtatáshoz, amely elnyeli és logolja a hibákat.
      */
-    private void executeSqlSafely(String sql) {
+    private void executeSqlSafely(JdbcTemplate jdbc, String sql) {
         try {
-            jdbcTemplate.execute(sql);
+            jdbc.execute(sql);
         } catch (Exception e) {
             System.err.println("  [!] SQL végrehajtási hiba: " + e.getMessage());
         }
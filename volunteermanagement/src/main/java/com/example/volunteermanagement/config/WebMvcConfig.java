@@ -1,5 +1,6 @@
 package com.example.volunteermanagement.config;
 
+import com.example.volunteermanagement.dto.PartialResult;
 import com.example.volunteermanagement.tenant.TenantInterceptor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Configuration;
@@ -35,6 +36,7 @@ public class WebMvcConfig implements WebMvcConfigurer {
                 .allowedOriginPatterns("*") // Pattern használata a biztonság kedvéért
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
                 .allowedHeaders("*")
+                .exposedHeaders(PartialResult.HEADER) // A böngésző csak így látja a hiányos több-Szigetes válasz jelzését
                 .allowCredentials(false); // Képeknél ez fontos lehet
     }
 }
\ No newline at end of file
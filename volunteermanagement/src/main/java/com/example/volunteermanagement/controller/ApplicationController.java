@@ -1,15 +1,29 @@
 package com.example.volunteermanagement.controller;
 
+import com.example.volunteermanagement.dto.ApplicationListFilter;
 import com.example.volunteermanagement.dto.ApplicationSubmitDTO;
+import com.example.volunteermanagement.dto.BulkStatusResultDTO;
 import com.example.volunteermanagement.dto.BulkEmailRequest;
 import com.example.volunteermanagement.dto.PendingApplicationDTO;
 import com.example.volunteermanagement.model.*;
 import com.example.volunteermanagement.repository.*;
+import com.example.volunteermanagement.service.ApplicationListingService;
+import com.example.volunteermanagement.service.ApplicationStatusService;
+import com.example.volunteermanagement.service.CateringStreamHub;
+import com.example.volunteermanagement.service.CateringSummaryService;
+import com.example.volunteermanagement.service.DietIndex;
 import com.example.volunteermanagement.service.AuditLogService;
 import com.example.volunteermanagement.service.EmailService;
+import com.example.volunteermanagement.service.StatisticsService;
 import com.example.volunteermanagement.service.TenantProvisioningService;
 import com.example.volunteermanagement.tenant.TenantContext;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.transaction.annotation.Transactional;
@@ -20,6 +34,7 @@ import org.springframework.web.multipart.MultipartFile;
 import org.springframework.http.MediaType;
 
 import java.security.Principal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -42,6 +57,12 @@ public class ApplicationController {
     private final OrganizationRepository organizationRepository;
     private final TransactionTemplate transactionTemplate;
     private final EventTeamMemberRepository eventTeamMemberRepository;
+    private final CateringSummaryService cateringSummaryService;
+    private final CateringStreamHub cateringStreamHub;
+    private final DietIndex dietIndex;
+    private final StatisticsService statisticsService;
+    private final ApplicationListingService applicationListingService;
+    private final ApplicationStatusService applicationStatusService;
 
     @PostMapping
     @PreAuthorize("isAuthenticated()")
@@ -78,6 +99,7 @@ public class ApplicationController {
         if (applicationsToSave.isEmpty()) return ResponseEntity.badRequest().body("Ezekre a területekre már jelentkeztél!");
 
         applicationRepository.saveAll(applicationsToSave);
+        dietIndex.invalidateEvent(event.getId());
         auditLogService.logAction(principal.getName(), "EVENT_APPLICATION", "Esemény ID: " + event.getId(), "Sikeresen jelentkezett " + applicationsToSave.size() + " munkaterületre.", event.getOrganization().getId());
         return ResponseEntity.ok("Sikeres jelentkezés!");
     }
@@ -122,7 +144,7 @@ public class ApplicationController {
 
                         // LÁGY SZŰRÉS: Ha Főszervező vagy Koordinátor, eltüntetjük a "Saját jelentkezések" listából is, hiszen ő már a vezetőség része!
                         if (!role.equals("Főszervező") && !role.equals("Koordinátor")) {
-                            dtos.add(mapToDTO(app, user, org, role));
+                            dtos.add(applicationListingService.toDto(app, user, org, role));
                         }
                     }
 
@@ -147,86 +169,25 @@ public class ApplicationController {
             @PathVariable("eventId") Long eventId,
             @RequestParam(value = "status", required = false) ApplicationStatus status) {
 
-        Map<Long, String> eventRoleMap = new java.util.HashMap<>();
-
-        // 1. Jelentkezések és Csapatszerepek lekérése a HELYI (Tenant) adatbázisból!
-        List<Application> applications = transactionTemplate.execute(s -> {
-            List<Application> apps = applicationRepository.findByEventId(eventId);
-            if (status != null) {
-                apps = apps.stream().filter(app -> app.getStatus() == status).collect(Collectors.toList());
-            }
-
-            for (Application app : apps) {
-                Hibernate.initialize(app.getEvent());
-                if (app.getEvent() != null) Hibernate.initialize(app.getEvent().getOrganization());
-                Hibernate.initialize(app.getAssignedWorkArea());
-                Hibernate.initialize(app.getPreferredWorkAreas());
-                Hibernate.initialize(app.getAnswers());
-                if (app.getAnswers() != null) app.getAnswers().forEach(ans -> Hibernate.initialize(ans.getQuestion()));
-            }
-
-            // A szerepköröket is ITT töltjük be, amíg még jó adatbázisban vagyunk!
-            List<EventTeamMember> teamMembers = eventTeamMemberRepository.findByEventId(eventId);
-            for (EventTeamMember tm : teamMembers) {
-                String roleStr = tm.getRole() == EventRole.ORGANIZER ? "Főszervező" : (tm.getRole() == EventRole.COORDINATOR ? "Koordinátor" : "Önkéntes");
-                eventRoleMap.put(tm.getUserId(), roleStr);
-            }
-
-            return apps;
-        });
-
-        if (applications == null || applications.isEmpty()) {
-            return ResponseEntity.ok(List.of());
-        }
-
-        // =========================================================================
-        // LÁGY SZŰRÉS: Ha valaki Főszervező vagy Koordinátor, kiszűrjük a listából!
-        // =========================================================================
-        List<Application> filteredApplications = applications.stream()
-                .filter(app -> {
-                    String role = eventRoleMap.getOrDefault(app.getUserId(), "Önkéntes");
-                    // Ha a jelentkezés APPROVED, és az illető Vezető lett, ELREJTJÜK!
-                    if (status == ApplicationStatus.APPROVED && (role.equals("Főszervező") || role.equals("Koordinátor"))) {
-                        return false;
-                    }
-                    return true;
-                })
-                .collect(Collectors.toList());
-
-        List<Long> userIds = filteredApplications.stream().map(Application::getUserId).distinct().collect(Collectors.toList());
-
-        if (userIds.isEmpty()) {
-            return ResponseEntity.ok(List.of());
-        }
-
-        String currentTenant = TenantContext.getCurrentTenant();
-        Map<Long, User> masterUsersMap = new java.util.HashMap<>();
-
-        // 2. Felhasználók lekérése a MASTER adatbázisból
-        try {
-            TenantContext.setCurrentTenant(null);
-            transactionTemplate.execute(s -> {
-                List<User> users = userRepository.findAllById(userIds);
-                for (User u : users) {
-                    Hibernate.initialize(u.getMemberships());
-                    u.getMemberships().forEach(m -> Hibernate.initialize(m.getOrganization()));
-                    masterUsersMap.put(u.getId(), u);
-                }
-                return null;
-            });
-        } finally {
-            TenantContext.setCurrentTenant(currentTenant);
-        }
-
-        // 3. DTO generálás a kombinált adatokból (Már csak a szűrt listából)
-        List<PendingApplicationDTO> result = filteredApplications.stream().map(app -> {
-            User masterUser = masterUsersMap.get(app.getUserId());
-            Organization org = app.getEvent() != null ? app.getEvent().getOrganization() : null;
-            String role = eventRoleMap.getOrDefault(app.getUserId(), "Önkéntes");
-            return mapToDTO(app, masterUser, org, role);
-        }).collect(Collectors.toList());
+        // A teljes lista (régi kliensek): ugyanaz a szűrés, egyetlen "lapon", ID szerint
+        ApplicationListFilter filter = new ApplicationListFilter(status, null, null, null, null);
+        return ResponseEntity.ok(applicationListingService.listForEvent(eventId, filter, PageRequest.of(0, Integer.MAX_VALUE, Sort.by("id"))).getContent());
+    }
 
-        return ResponseEntity.ok(result);
+    // Lapozott, szűrhető lista (státusz, terület, név/e-mail részlet, beadás dátuma), rendezés: appliedAt, status, id, name, email
+    @GetMapping("/event/{eventId}/page")
+    @PreAuthorize("@eventSecurity.hasPermission(authentication.name, #eventId, 'MANAGE_APPLICATIONS')")
+    public ResponseEntity<Page<PendingApplicationDTO>> getApplicationPageByEvent(
+            @PathVariable("eventId") Long eventId,
+            @RequestParam(value = "status", required = false) ApplicationStatus status,
+            @RequestParam(value = "workAreaId", required = false) Long workAreaId,
+            @RequestParam(value = "q", required = false) String query,
+            @RequestParam(value = "appliedFrom", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate appliedFrom,
+            @RequestParam(value = "appliedTo", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate appliedTo,
+            @PageableDefault(size = 50, sort = "appliedAt", direction = Sort.Direction.DESC) Pageable pageable) {
+
+        ApplicationListFilter filter = new ApplicationListFilter(status, workAreaId, query, appliedFrom, appliedTo);
+        return ResponseEntity.ok(applicationListingService.listForEvent(eventId, filter, pageable));
     }
 
     @PutMapping("/{applicationId}/status")
@@ -291,6 +252,9 @@ public class ApplicationController {
             }
 
             applicationRepository.save(application);
+            cateringSummaryService.invalidateEvent(event.getId());
+            cateringStreamHub.publishResync(event.getId());
+            statisticsService.invalidateEventStats(event.getId());
             auditLogService.logAction(principal.getName(), "UPDATE_APP_STATUS", "Jelentkezés ID: " + applicationId, "Új státusz: " + status.name(), event.getOrganization().getId());
             return ResponseEntity.ok("Státusz frissítve.");
         }
@@ -299,57 +263,13 @@ public class ApplicationController {
 
     @PutMapping("/bulk-status")
     @PreAuthorize("isAuthenticated()")
-    @Transactional
-    public ResponseEntity<?> updateBulkApplicationStatus(
+    public ResponseEntity<BulkStatusResultDTO> updateBulkApplicationStatus(
             @RequestBody List<Long> applicationIds,
             @RequestParam("status") ApplicationStatus status,
             Principal principal) {
 
-        User admin = userRepository.findByEmail(principal.getName()).orElseThrow();
-        boolean isGlobalAdmin = admin.getRole().name().equals("SYS_ADMIN");
-        List<Application> applications = applicationRepository.findAllById(applicationIds);
-        int modifiedCount = 0;
-        Long firstOrgId = null;
-
-        for (Application app : applications) {
-            Organization org = app.getEvent().getOrganization();
-            boolean isOrgAdmin = admin.getMemberships().stream().anyMatch(m -> m.getOrganization().getId().equals(org.getId()) && (m.getRole() == OrganizationRole.ORGANIZER || m.getRole() == OrganizationRole.OWNER));
-
-            if (isGlobalAdmin || isOrgAdmin) {
-                app.setStatus(status);
-
-                if (status == ApplicationStatus.APPROVED) {
-                    User applicant = userRepository.findById(app.getUserId()).orElse(null);
-                    if (applicant != null && org != null) {
-                        OrganizationMember membership = organizationMemberRepository.findByOrganizationAndUser(org, applicant).orElse(null);
-
-                        if (membership == null) {
-                            membership = new OrganizationMember();
-                            membership.setUser(applicant);
-                            membership.setOrganization(org);
-                            membership.setRole(OrganizationRole.VOLUNTEER);
-                            membership.setStatus(MembershipStatus.APPROVED);
-                            membership.setJoinedAt(LocalDateTime.now());
-                            organizationMemberRepository.save(membership);
-                        } else if (membership.getStatus() != MembershipStatus.APPROVED) {
-                            membership.setStatus(MembershipStatus.APPROVED);
-                            organizationMemberRepository.save(membership);
-                        }
-
-                        if (org.getTenantId() != null) {
-                            String dbName = org.getTenantId() + "_db";
-                            tenantProvisioningService.syncUserToTenantDatabase(dbName, applicant, org, membership);
-                        }
-                    }
-                }
-
-                modifiedCount++;
-                if (firstOrgId == null) firstOrgId = org.getId();
-            }
-        }
-        applicationRepository.saveAll(applications);
-        auditLogService.logAction(principal.getName(), "BULK_UPDATE_STATUS", "Érintett jelentkezések: " + modifiedCount + " db", "Tömeges módosítás új státuszra: " + status.name(), firstOrgId);
-        return ResponseEntity.ok("Tömeges módosítás sikeres!");
+        // Lépésenként commitol (státuszok, tagságok, szinkron), az eredmény jelentkezésenként
+        return ResponseEntity.ok(applicationStatusService.updateBulk(applicationIds, status, principal.getName()));
     }
 
     @DeleteMapping("/{applicationId}")
@@ -385,6 +305,9 @@ public class ApplicationController {
                         app.setStatus(ApplicationStatus.WITHDRAWN);
                         app.setWithdrawalReason(reason);
                         applicationRepository.save(app);
+                        cateringSummaryService.invalidateEvent(app.getEvent().getId());
+                        cateringStreamHub.publishResync(app.getEvent().getId());
+                        statisticsService.invalidateEventStats(app.getEvent().getId());
 
                         auditLogService.logAction(user.getEmail(), "WITHDRAW_APPLICATION",
                                 "ID: " + applicationId, "Indok: " + reason, org.getId());
@@ -480,51 +403,4 @@ public class ApplicationController {
 
         return ResponseEntity.ok(Map.of("message", "E-mailek elküldve " + bccEmails.size() + " címzettnek!"));
     }
-
-    private PendingApplicationDTO mapToDTO(Application app, User appUser, Organization org, String eventRole) {
-        String eventOrgName = org != null ? org.getName() : "Ismeretlen szervezet";
-        Long eventOrgId = org != null ? org.getId() : null;
-        Long eventId = app.getEvent() != null ? app.getEvent().getId() : null;
-        String eventTitle = app.getEvent() != null ? app.getEvent().getTitle() : "Ismeretlen esemény";
-        String displayAreaName = "Nincs terület megadva";
-        Long displayAreaId = null;
-
-        if (app.getAssignedWorkArea() != null) {
-            displayAreaId = app.getAssignedWorkArea().getId();
-            displayAreaName = app.getAssignedWorkArea().getName();
-        } else if (app.getPreferredWorkAreas() != null && !app.getPreferredWorkAreas().isEmpty()) {
-            displayAreaName = app.getPreferredWorkAreas().stream().map(WorkArea::getName).collect(Collectors.joining(", "));
-            displayAreaId = app.getPreferredWorkAreas().get(0).getId();
-        }
-
-        java.util.Map<String, String> answersMap = new java.util.HashMap<>();
-        if (app.getAnswers() != null) {
-            for (ApplicationAnswer answer : app.getAnswers()) {
-                answersMap.put(answer.getQuestion().getQuestionText(), answer.getAnswerText());
-            }
-        }
-
-        String appliedAtStr = app.getAppliedAt() != null
-                ? app.getAppliedAt().format(java.time.format.DateTimeFormatter.ofPattern("yyyy. MM. dd. HH:mm"))
-                : "-";
-
-        String safePhoneNumber = appUser != null ? appUser.getPhoneNumber() : "Nincs telefon";
-        if (app.getStatus() == ApplicationStatus.REJECTED || app.getStatus() == ApplicationStatus.WITHDRAWN) {
-            safePhoneNumber = "Rejtett adat (GDPR)";
-        }
-
-        String userAvatar = appUser != null ? appUser.getProfileImageUrl() : null;
-
-        return new PendingApplicationDTO(
-                app.getId(), appUser != null ? appUser.getName() : "Névtelen",
-                appUser != null ? appUser.getEmail() : "Nincs email", safePhoneNumber,
-                eventOrgName, eventOrgId, displayAreaId, displayAreaName,
-                app.getStatus().name(), eventId, eventTitle, answersMap,
-                userAvatar,
-                appliedAtStr,
-                eventRole,
-                app.getAdminNote(),
-                app.getRejectionMessage(), app.getWithdrawalReason()
-        );
-    }
-}
\ No newline at end of file
+}
@@ -4,9 +4,11 @@ import com.example.volunteermanagement.dto.CateringDTO.*;
 import com.example.volunteermanagement.service.MealService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -35,6 +37,15 @@ public class CateringController {
         return ResponseEntity.ok(mealService.routeAndGetDailyVolunteers(eventId, date, auth.getName()));
     }
 
+    // Élő változásfolyam (SSE): az első üzenet RESYNC, utána csak a változások érkeznek
+    @GetMapping(value = "/events/{eventId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamDailyChanges(
+            @PathVariable Long eventId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            Authentication auth) {
+        return mealService.routeAndSubscribeCateringStream(eventId, date, auth.getName());
+    }
+
     @PutMapping("/events/{eventId}/volunteers/{userId}/diet")
     public ResponseEntity<Void> updateDietaryPreference(
             @PathVariable Long eventId,
@@ -96,7 +96,7 @@ public class EventController {
 
     @GetMapping("/my-shifts")
     public ResponseEntity<List<com.example.volunteermanagement.dto.MyShiftDTO>> getMyShifts(Principal principal) {
-        return ResponseEntity.ok(shiftService.getMyShifts(principal.getName()));
+        return shiftService.getMyShifts(principal.getName()).toResponse();
     }
 
     @GetMapping("/{eventId}/my-permissions")
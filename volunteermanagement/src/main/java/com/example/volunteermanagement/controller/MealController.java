@@ -1,5 +1,6 @@
 package com.example.volunteermanagement.controller;
 
+import com.example.volunteermanagement.dto.OfflineScanDTO;
 import com.example.volunteermanagement.dto.QrScanRequest;
 import com.example.volunteermanagement.service.MealService;
 import jakarta.validation.Valid;
@@ -40,10 +41,20 @@ public class MealController {
         }
     }
 
+    // Offline gyűjtött szkennelések kötegelt szinkronizálása (szkennelésenkénti eredménnyel)
+    @PostMapping("/scan/batch")
+    public ResponseEntity<OfflineScanDTO.BatchResponse> scanMealQrBatch(
+            @Valid @RequestBody OfflineScanDTO.BatchRequest request,
+            Authentication authentication
+    ) {
+        String scannerEmail = authentication.getName();
+        return ResponseEntity.ok(mealService.routeAndIngestOfflineScans(request.scans(), scannerEmail));
+    }
+
     @GetMapping("/scanner-events")
     public ResponseEntity<List<Map<String, Object>>> getScannerAllowedEvents(Authentication authentication) {
         String scannerEmail = authentication.getName();
-        return ResponseEntity.ok(mealService.getScannerEvents(scannerEmail));
+        return mealService.getScannerEvents(scannerEmail).toResponse();
     }
 
     @PostMapping("/undo")
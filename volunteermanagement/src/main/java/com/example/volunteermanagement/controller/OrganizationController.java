@@ -10,6 +10,7 @@ import com.example.volunteermanagement.model.Role;
 import com.example.volunteermanagement.model.User;
 import com.example.volunteermanagement.repository.OrganizationRepository;
 import com.example.volunteermanagement.repository.UserRepository;
+import com.example.volunteermanagement.service.EventTenantDirectory;
 import com.example.volunteermanagement.service.FileStorageService;
 import com.example.volunteermanagement.service.OrganizationService;
 import com.example.volunteermanagement.tenant.TenantContext;
@@ -37,6 +38,7 @@ public class OrganizationController {
     private final UserRepository userRepository;
     private final OrganizationRepository organizationRepository;
     private final FileStorageService fileStorageService;
+    private final EventTenantDirectory eventTenantDirectory;
     @Autowired
     private final JwtService jwtService;
 
@@ -183,6 +185,7 @@ public class OrganizationController {
             String fileUrl = fileStorageService.storeFile(file, "logos");
             org.setLogoUrl(fileUrl);
             organizationRepository.save(org);
+            eventTenantDirectory.invalidateOrganization(id);
 
             return ResponseEntity.ok(Map.of("message", "Szervezeti logó sikeresen frissítve!", "imageUrl", fileUrl));
         } catch (Exception e) {
@@ -214,6 +217,7 @@ public class OrganizationController {
 
             org.setLogoUrl(null);
             organizationRepository.save(org);
+            eventTenantDirectory.invalidateOrganization(id);
 
             return ResponseEntity.ok(Map.of("message", "Szervezeti logó sikeresen törölve!"));
         } catch (Exception e) {
@@ -253,6 +257,7 @@ public class OrganizationController {
             String fileUrl = fileStorageService.storeFile(file, "banners");
             org.setBannerUrl(fileUrl);
             organizationRepository.save(org);
+            eventTenantDirectory.invalidateOrganization(id);
 
             return ResponseEntity.ok(Map.of("message", "Szervezeti borítókép sikeresen frissítve!", "imageUrl", fileUrl));
         } catch (Exception e) {
@@ -284,6 +289,7 @@ public class OrganizationController {
 
             org.setBannerUrl(null);
             organizationRepository.save(org);
+            eventTenantDirectory.invalidateOrganization(id);
 
             return ResponseEntity.ok(Map.of("message", "Szervezeti borítókép sikeresen törölve!"));
         } catch (Exception e) {
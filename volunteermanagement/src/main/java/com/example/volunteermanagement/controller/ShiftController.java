@@ -1,7 +1,9 @@
 package com.example.volunteermanagement.controller;
 
 import com.example.volunteermanagement.dto.AssignShiftRequest;
+import com.example.volunteermanagement.dto.RosterDTO;
 import com.example.volunteermanagement.dto.ShiftDTO;
+import com.example.volunteermanagement.service.RosterService;
 import com.example.volunteermanagement.service.ShiftService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -16,6 +18,7 @@ import java.security.Principal;
 public class ShiftController {
 
     private final ShiftService shiftService;
+    private final RosterService rosterService;
 
     // A beosztáshoz a szolgáltatáson belül vagy külön paraméterből kell ellenőrizni,
     // de hagyhatjuk isAuthenticated-en, és a Service eldönti (vagy rátehetjük a zárra, ha a shiftId-ből kinyerjük).
@@ -30,6 +33,27 @@ public class ShiftController {
         return ResponseEntity.ok("Sikeres beosztás!");
     }
 
+    // Automatikus beosztás: javaslat a jóváhagyott jelentkezőkből (nem ment semmit)
+    @PostMapping("/event/{eventId}/roster/preview")
+    @PreAuthorize("@eventSecurity.hasPermission(authentication.name, #eventId, 'MANAGE_SHIFTS')")
+    public ResponseEntity<RosterDTO.RosterPreview> previewRoster(
+            @PathVariable Long eventId,
+            @RequestBody(required = false) RosterDTO.RosterPreviewRequest request,
+            Principal principal) {
+        return ResponseEntity.ok(rosterService.preview(eventId, request, principal.getName()));
+    }
+
+    // A javaslat összes beosztásának mentése egyben (ütközés esetén 409, semmi nem mentődik)
+    @PostMapping("/event/{eventId}/roster/{previewId}/commit")
+    @PreAuthorize("@eventSecurity.hasPermission(authentication.name, #eventId, 'MANAGE_SHIFTS')")
+    public ResponseEntity<String> commitRoster(
+            @PathVariable Long eventId,
+            @PathVariable String previewId,
+            Principal principal) {
+        int created = rosterService.commit(eventId, previewId, principal.getName());
+        return ResponseEntity.ok("Sikeres automatikus beosztás: " + created + " új beosztás.");
+    }
+
     @DeleteMapping("/{shiftId}/remove/{applicationId}")
     @PreAuthorize("@eventSecurity.canManageShift(authentication.name, #shiftId)")
     public ResponseEntity<String> removeUserFromShift(
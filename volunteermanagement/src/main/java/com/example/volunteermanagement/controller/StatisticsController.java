@@ -21,7 +21,7 @@ public class StatisticsController {
     @GetMapping("/me")
     public ResponseEntity<MyStatsDTO> getMyStats(Principal principal) {
         String email = principal.getName();
-        return ResponseEntity.ok(statisticsService.getMyStatistics(email));
+        return statisticsService.getMyStatistics(email).toResponse();
     }
 
     // Szervezői statisztika egy adott eseményről (Portással védve)
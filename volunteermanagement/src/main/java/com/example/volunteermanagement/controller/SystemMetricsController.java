@@ -0,0 +1,71 @@
+package com.example.volunteermanagement.controller;
+
+import com.example.volunteermanagement.config.DataSourceConfig;
+import com.example.volunteermanagement.config.JwtAuthenticationCache;
+import com.example.volunteermanagement.service.AuditLogService;
+import com.example.volunteermanagement.service.AuditLogWriter;
+import com.example.volunteermanagement.service.CateringStreamHub;
+import com.example.volunteermanagement.service.DietIndex;
+import com.example.volunteermanagement.service.EventOutboxRelay;
+import com.example.volunteermanagement.service.EventTenantDirectory;
+import com.example.volunteermanagement.service.MealAllowanceLedger;
+import com.example.volunteermanagement.service.MyShiftView;
+import com.example.volunteermanagement.service.ReplicationOutbox;
+import com.example.volunteermanagement.service.RosterService;
+import com.example.volunteermanagement.service.StatisticsService;
+import com.example.volunteermanagement.service.VolunteerStatsService;
+import com.example.volunteermanagement.tenant.TenantFanOutExecutor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Belső teljesítmény-mutatók (csak Rendszergazdának)
+@RestController
+@RequestMapping("/api/admin/metrics")
+@RequiredArgsConstructor
+@PreAuthorize("hasAuthority('SYS_ADMIN')")
+public class SystemMetricsController {
+
+    private final AuditLogWriter auditLogWriter;
+    private final AuditLogService auditLogService;
+    private final JwtAuthenticationCache jwtAuthenticationCache;
+    private final DataSourceConfig dataSourceConfig;
+    private final TenantFanOutExecutor tenantFanOutExecutor;
+    private final EventTenantDirectory eventTenantDirectory;
+    private final MealAllowanceLedger mealAllowanceLedger;
+    private final CateringStreamHub cateringStreamHub;
+    private final DietIndex dietIndex;
+    private final RosterService rosterService;
+    private final MyShiftView myShiftView;
+    private final VolunteerStatsService volunteerStatsService;
+    private final StatisticsService statisticsService;
+    private final ReplicationOutbox replicationOutbox;
+    private final EventOutboxRelay eventOutboxRelay;
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("auditLog", auditLogWriter.getMetrics());
+        metrics.put("auditUserOrgCache", auditLogService.getUserOrgCacheStats());
+        metrics.put("jwtAuthentication", jwtAuthenticationCache.getStats());
+        metrics.put("tenantPools", dataSourceConfig.getTenantPoolMetrics());
+        metrics.put("tenantFanOut", tenantFanOutExecutor.getMetrics());
+        metrics.put("eventTenantDirectory", eventTenantDirectory.getStats());
+        metrics.put("mealLedger", mealAllowanceLedger.getMetrics());
+        metrics.put("cateringStream", cateringStreamHub.getMetrics());
+        metrics.put("dietIndex", dietIndex.getStats());
+        metrics.put("roster", rosterService.getMetrics());
+        metrics.put("myShiftView", myShiftView.getMetrics());
+        metrics.put("volunteerStats", volunteerStatsService.getMetrics());
+        metrics.put("eventStats", statisticsService.getEventStatsCacheStats());
+        metrics.put("replication", replicationOutbox.getMetrics());
+        metrics.put("eventOutbox", eventOutboxRelay.getMetrics());
+        return ResponseEntity.ok(metrics);
+    }
+}
@@ -4,6 +4,7 @@ import com.example.volunteermanagement.dto.TeamMemberDTO;
 import com.example.volunteermanagement.model.Role;
 import com.example.volunteermanagement.model.User;
 import com.example.volunteermanagement.repository.UserRepository;
+import com.example.volunteermanagement.service.AccessCacheInvalidator;
 import com.example.volunteermanagement.service.AuditLogService;
 import com.example.volunteermanagement.service.EmailService;
 import com.example.volunteermanagement.service.UserService;
@@ -33,6 +34,7 @@ public class UserController {
     private final EmailService emailService;
     private final PasswordEncoder passwordEncoder;
     private final AuditLogService auditLogService;
+    private final AccessCacheInvalidator accessCacheInvalidator;
     private final FileStorageService fileStorageService; // <--- ÚJ: Fájlkezelő szerviz
 
     // 1. Összes felhasználó lekérése (Csak SYS_ADMIN-nak)
@@ -87,6 +89,7 @@ public class UserController {
 
         userToUpdate.setRole(newRoleEnum);
         User savedUser = userRepository.save(userToUpdate);
+        accessCacheInvalidator.invalidateUser(userToUpdate.getEmail());
 
         auditLogService.logAction(
                 principal.getName(),
@@ -0,0 +1,17 @@
+package com.example.volunteermanagement.dto;
+
+import com.example.volunteermanagement.model.ApplicationStatus;
+
+import java.time.LocalDate;
+
+/**
+ * Az esemény jelentkezési listájának szűrői; bármelyik lehet null (= nincs szűrés).
+ * A query a név vagy e-mail cím részletére keres, a dátumok a beadás napjára vonatkoznak (mindkét vég benne van).
+ */
+public record ApplicationListFilter(
+        ApplicationStatus status,
+        Long workAreaId,
+        String query,
+        LocalDate appliedFrom,
+        LocalDate appliedTo
+) {}
@@ -0,0 +1,8 @@
+package com.example.volunteermanagement.dto;
+
+// Egy önkéntes beosztását megakadályozó ok (a tömeges beosztás az összeset egyszerre jelzi)
+public record AssignmentConflictDTO(
+        Long userId,
+        String userName,
+        String reason
+) {}
@@ -0,0 +1,18 @@
+package com.example.volunteermanagement.dto;
+
+import java.util.List;
+
+/**
+ * Tömeges státuszváltás eredménye, jelentkezésenként.
+ * Kimenetek: UPDATED, NOT_FOUND, FORBIDDEN, MEMBERSHIP_FAILED (a státusz átállt, de a tagság nem sikerült),
+ * SYNC_PENDING (a státusz és a tagság rendben, a szigetre másolást a replikációs sor később újrapróbálja).
+ */
+public record BulkStatusResultDTO(
+        String status,
+        int requested,
+        int updated,
+        int failed,
+        List<Item> items
+) {
+    public record Item(Long applicationId, Long userId, String outcome, String message) {}
+}
@@ -4,10 +4,14 @@ import java.util.List;
 
 public class CateringDTO {
 
+    // A tervezett (beosztás szerint járó) és a már kiadott adagok diétánként
     public record CateringSummary(
             MealStats breakfast,
             MealStats lunch,
-            MealStats dinner
+            MealStats dinner,
+            MealStats servedBreakfast,
+            MealStats servedLunch,
+            MealStats servedDinner
     ) {}
 
     public record MealStats(
@@ -26,11 +30,24 @@ public class CateringDTO {
             String scannedByUserName
     ) {}
 
+    // A catering élő csatorna (SSE) egy változása; a típustól függően csak a releváns mezők vannak kitöltve
+    public record CateringStreamEvent(
+            String type,
+            Long volunteerId,
+            String mealType,
+            Long scanId,
+            String scannedAt,
+            String scannedByUserName,
+            String dietaryPreference,
+            List<String> eligibleMealsToday
+    ) {}
+
     public record CateringVolunteer(
             Long userId,
             String name,
             String workAreaName,
             String dietaryPreference,
+            String dietCategory,
             List<String> eligibleMealsToday,
             List<MealScanHistory> scansToday
     ) {}
@@ -1,10 +1,30 @@
 package com.example.volunteermanagement.dto;
 
+import java.time.LocalDate;
+import java.util.List;
 import java.util.Map;
 
 public record EventStatsDTO(
         long totalApprovedVolunteers,
         long totalShifts,
         long fullShifts,
-        Map<String, Long> volunteersPerWorkArea
-) {}
\ No newline at end of file
+        Map<String, Long> volunteersPerWorkArea,
+        List<FillRate> fillRateByWorkArea,
+        List<FillRate> fillRateByDay
+) {
+    /**
+     * Betöltöttség egy csoportra: munkaterületenként (workAreaId/workAreaName) vagy naponként (date).
+     * A megerősített (nem beugró) helyek a létszámkerethez képest; a túltöltött műszak csak a keretéig számít,
+     * így nem takarja el a máshol hiányzó helyeket.
+     */
+    public record FillRate(
+            Long workAreaId,
+            String workAreaName,
+            LocalDate date,
+            long shifts,
+            long fullShifts,
+            long capacity,
+            long filled,
+            double fillRate
+    ) {}
+}
@@ -5,6 +5,7 @@ import java.util.List;
 public record MyShiftDTO(
         Long assignmentId,
         Long shiftId,
+        Long eventId,
         String eventName,
         String workAreaName,
         String shiftName,
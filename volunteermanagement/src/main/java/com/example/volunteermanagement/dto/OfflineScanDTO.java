@@ -0,0 +1,59 @@
+package com.example.volunteermanagement.dto;
+
+import com.example.volunteermanagement.model.MealType;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Az offline gyűjtött szkennelések kötegelt szinkronizálása (a pult tabletje térerő nélkül is rögzít)
+public class OfflineScanDTO {
+
+    public record ScanItem(
+            @NotBlank(message = "Az idempotencia kulcs kötelező")
+            @Size(max = 100, message = "Az idempotencia kulcs legfeljebb 100 karakter lehet")
+            String idempotencyKey,
+
+            @NotNull(message = "Az önkéntes ID-ja nem lehet üres")
+            Long volunteerId,
+
+            @NotNull(message = "Az esemény ID-ja nem lehet üres")
+            Long eventId,
+
+            @NotNull(message = "Az étkezés típusa kötelező (BREAKFAST, LUNCH, DINNER)")
+            MealType mealType,
+
+            @NotNull(message = "A szkennelés időpontja kötelező")
+            LocalDateTime scannedAt
+    ) {}
+
+    public record BatchRequest(
+            @NotEmpty(message = "Legalább egy szkennelést küldeni kell")
+            @Size(max = 1000, message = "Egy kötegben legfeljebb 1000 szkennelés küldhető")
+            List<@Valid ScanItem> scans
+    ) {}
+
+    public enum ScanStatus {
+        ACCEPTED,   // Most került be
+        DUPLICATE,  // Ezt a kulcsot már korábban szinkronizáltuk (nyugodtan törölhető az eszközről)
+        REJECTED    // Nem adható ki (nincs keret, nincs jog, ismeretlen esemény...)
+    }
+
+    public record ScanResult(
+            String idempotencyKey,
+            ScanStatus status,
+            String message,
+            String dietaryPreference
+    ) {}
+
+    public record BatchResponse(
+            int accepted,
+            int duplicates,
+            int rejected,
+            List<ScanResult> results
+    ) {}
+}
@@ -0,0 +1,29 @@
+package com.example.volunteermanagement.dto;
+
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+/**
+ * Több Szigetről összefésült válasz: ha egy bérlő nem válaszolt, az adat hiányos,
+ * és a kimaradt bérlőket a vezérlő az X-Partial-Result fejlécben jelzi a kliensnek.
+ */
+public record PartialResult<T>(T data, List<String> unavailableTenants) {
+
+    public static final String HEADER = "X-Partial-Result";
+
+    public PartialResult {
+        unavailableTenants = List.copyOf(unavailableTenants);
+    }
+
+    public boolean isPartial() {
+        return !unavailableTenants.isEmpty();
+    }
+
+    // 200 OK az adattal; hiányos eredménynél a fejléc felsorolja a kimaradt bérlőket
+    public ResponseEntity<T> toResponse() {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (isPartial()) response.header(HEADER, String.join(",", unavailableTenants));
+        return response.body(data);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.volunteermanagement.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class RosterDTO {
+
+    // Az automatikus beosztás paraméterei; a hiányzó mezőket a konfiguráció alapértékei pótolják
+    public record RosterPreviewRequest(
+            Integer timeBudgetMs,
+            Integer maxShiftsPerVolunteer,
+            Boolean preferredOnly
+    ) {}
+
+    // Egy javasolt új beosztás
+    public record RosterPlacement(
+            Long shiftId,
+            String shiftName,
+            String workAreaName,
+            LocalDateTime startTime,
+            LocalDateTime endTime,
+            Long applicationId,
+            Long userId,
+            String userName,
+            boolean backup,
+            boolean preferred
+    ) {}
+
+    // A javaslat (diff a jelenlegi beosztáshoz képest): csak az új beosztások, a previewId-vel egyben véglegesíthető
+    public record RosterPreview(
+            String previewId,
+            Long eventId,
+            int score,
+            int placedCount,
+            int preferredCount,
+            int backupCount,
+            int openSlotsBefore,
+            int openSlotsAfter,
+            int candidateCount,
+            int volunteersPlaced,
+            int volunteersWithoutOption,
+            int shiftCount,
+            long solveMillis,
+            int workers,
+            long iterations,
+            List<RosterPlacement> placements
+    ) {}
+}
@@ -0,0 +1,23 @@
+package com.example.volunteermanagement.exception;
+
+import com.example.volunteermanagement.dto.AssignmentConflictDTO;
+
+import java.util.List;
+
+/**
+ * Tömeges beosztásnál az összes ütközés egyszerre (semmi nem kerül mentésre).
+ */
+public class AssignmentConflictException extends RuntimeException {
+
+    private final List<AssignmentConflictDTO> conflicts;
+
+    public AssignmentConflictException(List<AssignmentConflictDTO> conflicts) {
+        super(conflicts.size() + " ütközés miatt a beosztás nem menthető: " + String.join(" | ",
+                conflicts.stream().map(c -> c.userName() + ": " + c.reason()).toList()));
+        this.conflicts = List.copyOf(conflicts);
+    }
+
+    public List<AssignmentConflictDTO> getConflicts() {
+        return conflicts;
+    }
+}
@@ -9,6 +9,7 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @RestControllerAdvice
@@ -37,7 +38,24 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(response);
     }
 
-    // 2. Üzleti logikai hibák (pl. "Betelt a műszak", amit a Service-ben dobtunk)
+    // 2. Tömeges beosztás ütközései: az összes érintett önkéntes egyszerre, önkéntesenként az okokkal
+    @ExceptionHandler(AssignmentConflictException.class)
+    public ResponseEntity<ErrorResponse> handleAssignmentConflict(AssignmentConflictException ex) {
+        Map<String, String> conflicts = new LinkedHashMap<>();
+        ex.getConflicts().forEach(c ->
+                conflicts.merge(c.userName() + " (#" + c.userId() + ")", c.reason(), (a, b) -> a + "; " + b));
+
+        ErrorResponse response = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.CONFLICT.value(),
+                "Assignment Conflict",
+                ex.getMessage(),
+                conflicts
+        );
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+    }
+
+    // 3. Üzleti logikai hibák (pl. "Betelt a műszak", amit a Service-ben dobtunk)
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<ErrorResponse> handleBusinessException(RuntimeException ex) {
         // Logolás a konzolra, hogy fejlesztőként lásd
@@ -53,7 +71,7 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
     }
 
-    // 3. Minden egyéb, váratlan hiba (NullPointer, Adatbázis hiba)
+    // 4. Minden egyéb, váratlan hiba (NullPointer, Adatbázis hiba)
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleGeneralException(Exception ex) {
         ex.printStackTrace(); // Kiírjuk a teljes hibát a szerver konzolra
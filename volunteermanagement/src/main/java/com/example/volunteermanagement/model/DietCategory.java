@@ -0,0 +1,42 @@
+package com.example.volunteermanagement.model;
+
+import java.text.Normalizer;
+
+/**
+ * A menü-válasz normalizált kategóriája: a konyhai statisztika ezzel számol, nem a szabad szöveggel.
+ */
+public enum DietCategory {
+    NORMAL("Normál menü"),
+    VEGETARIAN("Vegetáriánus"),
+    VEGAN("Vegán"),
+    GLUTEN_FREE("Gluténmentes"),
+    LACTOSE_FREE("Laktózmentes");
+
+    private final String label;
+
+    DietCategory(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * A szabad szöveges válasz besorolása (kis-/nagybetű és ékezet nélkül, pl. "vegan", "Gluténmentes menü").
+     * Az ismeretlen vagy üres válasz normál menü.
+     */
+    public static DietCategory fromAnswer(String answer) {
+        if (answer == null || answer.isBlank()) return NORMAL;
+        String text = Normalizer.normalize(answer, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase()
+                .trim();
+
+        if (text.contains("vegan")) return VEGAN;
+        if (text.contains("vegetar") || text.equals("vega")) return VEGETARIAN;
+        if (text.contains("gluten")) return GLUTEN_FREE;
+        if (text.contains("laktoz") || text.contains("lactose")) return LACTOSE_FREE;
+        return NORMAL;
+    }
+}
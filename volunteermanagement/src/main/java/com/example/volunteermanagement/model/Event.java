@@ -76,6 +76,11 @@ public class Event {
     @Column(name = "deleted_at")
     private LocalDateTime deletedAt;
 
+    // Utolsó módosítás ideje: a kirakat (Mester) növekményes egyeztetése ehhez igazodik
+    @Column(name = "updated_at")
+    @JsonIgnore
+    private LocalDateTime updatedAt;
+
     @OneToMany(mappedBy = "event", cascade = CascadeType.ALL, orphanRemoval = true)
     @Builder.Default
     @JsonManagedReference
@@ -93,4 +98,10 @@ public class Event {
 
     @Column(name = "banner_url")
     private String bannerUrl;
-}
\ No newline at end of file
+
+    @PrePersist
+    @PreUpdate
+    protected void touch() {
+        this.updatedAt = LocalDateTime.now();
+    }
+}
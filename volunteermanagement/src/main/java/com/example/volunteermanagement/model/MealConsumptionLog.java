@@ -2,6 +2,7 @@ package com.example.volunteermanagement.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
@@ -42,4 +43,16 @@ public class MealConsumptionLog {
     // Ezt a kiadás pillanatában "lefényképezzük" a kérdőívből,
     // hogy meglegyen naplózva, milyen ételt (pl. Vegán) adtunk ki.
     private String dietaryPreference;
+
+    // A kiadás napja és napon belüli sorszáma (1..keret) az adott étkezésből.
+    // Az (önkéntes, esemény, étkezés, nap, sorszám) egyedi index a DB szintű védelem a dupla kiadás ellen.
+    @Column(name = "meal_date")
+    private LocalDate mealDate;
+
+    @Column(name = "redemption_slot")
+    private Integer redemptionSlot;
+
+    // Az offline szkennelő eszköz által generált azonosító: ugyanaz a kiadás kétszer sosem kerül be
+    @Column(name = "client_scan_id", length = 100)
+    private String clientScanId;
 }
\ No newline at end of file
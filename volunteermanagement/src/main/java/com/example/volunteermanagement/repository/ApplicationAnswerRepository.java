@@ -2,8 +2,11 @@ package com.example.volunteermanagement.repository;
 
 import com.example.volunteermanagement.model.ApplicationAnswer;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -11,4 +14,19 @@ public interface ApplicationAnswerRepository extends JpaRepository<ApplicationAn
 
     // Megkeresi egy adott jelentkezéshez tartozó adott kérdésre adott választ
     Optional<ApplicationAnswer> findByApplicationIdAndQuestionId(Long applicationId, Long questionId);
+
+    // Egy kérdésre adott összes válasz (pl. az étkezési igény kérdése): [userId, válasz]
+    @Query("SELECT a.userId, ans.answerText FROM ApplicationAnswer ans " +
+            "JOIN ans.application a " +
+            "WHERE ans.question.id = :questionId " +
+            "ORDER BY a.id")
+    List<Object[]> findAnswerRowsByQuestion(@Param("questionId") Long questionId);
+
+    // Egy esemény összes jelentkezésének válaszai: [userId, kérdés szövege, válasz]
+    @Query("SELECT a.userId, q.questionText, ans.answerText FROM ApplicationAnswer ans " +
+            "JOIN ans.application a " +
+            "JOIN ans.question q " +
+            "WHERE a.event.id = :eventId " +
+            "ORDER BY a.id, ans.id")
+    List<Object[]> findAnswerRowsByEvent(@Param("eventId") Long eventId);
 }
\ No newline at end of file
@@ -2,15 +2,29 @@ package com.example.volunteermanagement.repository;
 
 import com.example.volunteermanagement.model.Application;
 import com.example.volunteermanagement.model.ApplicationStatus;
+import com.example.volunteermanagement.model.EventRole;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface ApplicationRepository extends JpaRepository<Application, Long> {
 
+    // Jelentkezési lista szűrői (esemény, státuszok, kiosztott terület, beadás ideje, vezetők elrejtése).
+    // Null paraméter nincs: a "bármi" esetet a jelzők (anyArea, anyDate, excludeLeaders) kapcsolják ki.
+    String LISTING_FILTER = "WHERE a.event.id = :eventId " +
+            "AND a.status IN :statuses " +
+            "AND (:anyArea = true OR a.assignedWorkArea.id = :workAreaId) " +
+            "AND (:anyDate = true OR (a.appliedAt >= :appliedFrom AND a.appliedAt < :appliedTo)) " +
+            "AND (:excludeLeaders = false OR NOT EXISTS (SELECT 1 FROM EventTeamMember tm " +
+            "     WHERE tm.event.id = :eventId AND tm.userId = a.userId AND tm.role IN :leaderRoles))";
+
     List<Application> findByUserIdAndEventId(Long userId, Long eventId);
     @EntityGraph(attributePaths = {"event"})
     List<Application> findByUserId(Long userId);
@@ -32,4 +46,64 @@ public interface ApplicationRepository extends JpaRepository<Application, Long>
             @Param("eventId") Long eventId,
             @Param("status") ApplicationStatus status
     );
+
+    // Catering dashboard: [userId, név, beosztott munkaterület neve] egyetlen lekérdezésben (N+1 nélkül)
+    @Query("SELECT a.userId, u.name, wa.name FROM Application a " +
+            "JOIN User u ON u.id = a.userId " +
+            "LEFT JOIN a.assignedWorkArea wa " +
+            "WHERE a.event.id = :eventId " +
+            "AND a.status = :status")
+    List<Object[]> findVolunteerRowsByEventAndStatus(
+            @Param("eventId") Long eventId,
+            @Param("status") ApplicationStatus status
+    );
+
+    // Műszaktábla: az esemény összes jelentkezésének azonosítói [userId, jelentkezés ID, státusz], beadási sorrendben
+    @Query("SELECT a.userId, a.id, a.status FROM Application a WHERE a.event.id = :eventId ORDER BY a.id")
+    List<Object[]> findIdRowsByEventId(@Param("eventId") Long eventId);
+
+    // Automatikus beosztás: a jelentkezések preferált területei [jelentkezés ID, terület ID]
+    @Query("SELECT a.id, wa.id FROM Application a JOIN a.preferredWorkAreas wa WHERE a.event.id = :eventId AND a.status = :status")
+    List<Object[]> findPreferredAreaRowsByEventIdAndStatus(@Param("eventId") Long eventId, @Param("status") ApplicationStatus status);
+
+    // Eseménystatisztika: adott státuszú jelentkezések száma a kiosztott terület neve szerint [terület neve (null = nincs), db]
+    @Query("SELECT wa.name, COUNT(a) FROM Application a LEFT JOIN a.assignedWorkArea wa " +
+            "WHERE a.event.id = :eventId AND a.status = :status GROUP BY wa.name")
+    List<Object[]> countByAssignedAreaName(@Param("eventId") Long eventId, @Param("status") ApplicationStatus status);
+
+    // Jelentkezési lista, adatbázis oldali lapozással: csak a lap jelentkezés ID-i (a rendezés a jelentkezés mezőire)
+    @Query(value = "SELECT a.id FROM Application a " + LISTING_FILTER,
+            countQuery = "SELECT COUNT(a) FROM Application a " + LISTING_FILTER)
+    Page<Long> findListingIds(@Param("eventId") Long eventId,
+                              @Param("statuses") Collection<ApplicationStatus> statuses,
+                              @Param("anyArea") boolean anyArea, @Param("workAreaId") Long workAreaId,
+                              @Param("anyDate") boolean anyDate,
+                              @Param("appliedFrom") LocalDateTime appliedFrom, @Param("appliedTo") LocalDateTime appliedTo,
+                              @Param("excludeLeaders") boolean excludeLeaders, @Param("leaderRoles") Collection<EventRole> leaderRoles,
+                              Pageable pageable);
+
+    // Ugyanezek a szűrők lapozás nélkül, csak [jelentkezés ID, felhasználó ID, beadás ideje, státusz] (név/e-mail szerinti keresés és rendezés)
+    @Query("SELECT a.id, a.userId, a.appliedAt, a.status FROM Application a " + LISTING_FILTER)
+    List<Object[]> findListingRows(@Param("eventId") Long eventId,
+                                   @Param("statuses") Collection<ApplicationStatus> statuses,
+                                   @Param("anyArea") boolean anyArea, @Param("workAreaId") Long workAreaId,
+                                   @Param("anyDate") boolean anyDate,
+                                   @Param("appliedFrom") LocalDateTime appliedFrom, @Param("appliedTo") LocalDateTime appliedTo,
+                                   @Param("excludeLeaders") boolean excludeLeaders, @Param("leaderRoles") Collection<EventRole> leaderRoles);
+
+    // Egy lap jelentkezései az eseménnyel, szervezettel és a területekkel (a válaszok külön lekérdezésben, két "bag" nem fér egybe)
+    @Query("SELECT DISTINCT a FROM Application a " +
+            "JOIN FETCH a.event e " +
+            "LEFT JOIN FETCH e.organization " +
+            "LEFT JOIN FETCH a.assignedWorkArea " +
+            "LEFT JOIN FETCH a.preferredWorkAreas " +
+            "WHERE a.id IN :ids")
+    List<Application> findWithAreasByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Ugyanazon jelentkezések válaszai a kérdésekkel (ugyanabban a tranzakcióban a fenti entitásokra töltődnek)
+    @Query("SELECT DISTINCT a FROM Application a " +
+            "LEFT JOIN FETCH a.answers ans " +
+            "LEFT JOIN FETCH ans.question " +
+            "WHERE a.id IN :ids")
+    List<Application> findWithAnswersByIdIn(@Param("ids") Collection<Long> ids);
 }
\ No newline at end of file
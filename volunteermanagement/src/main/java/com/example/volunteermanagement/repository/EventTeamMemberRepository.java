@@ -2,8 +2,11 @@ package com.example.volunteermanagement.repository;
 
 import com.example.volunteermanagement.model.EventTeamMember;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,4 +17,8 @@ public interface EventTeamMemberRepository extends JpaRepository<EventTeamMember
 
     // JAVÍTVA: findByUser helyett findByUserId, és Long paraméter!
     List<EventTeamMember> findByUserId(Long userId);
+
+    // Csapatszerepek a felsorolt felhasználókra, a jogosultságok (EAGER gyűjtemény) betöltése nélkül: [user ID, szerep]
+    @Query("SELECT tm.userId, tm.role FROM EventTeamMember tm WHERE tm.event.id = :eventId AND tm.userId IN :userIds")
+    List<Object[]> findRoleRowsByEventIdAndUserIdIn(@Param("eventId") Long eventId, @Param("userIds") Collection<Long> userIds);
 }
\ No newline at end of file
@@ -41,4 +41,28 @@ public interface MealConsumptionLogRepository extends JpaRepository<MealConsumpt
     // =========================================================================
     // Lekéri az adott nap összes ételkiadását az eseményen (a statisztikához és a listához)
     List<MealConsumptionLog> findByEventIdAndConsumedAtBetween(Long eventId, LocalDateTime startOfDay, LocalDateTime endOfDay);
+
+    // Catering dashboard: a nap kiadásai időrendben [napló ID, önkéntes ID, étkezés, időpont, szkennelő neve]
+    @Query("SELECT m.id, m.volunteer.id, m.mealType, m.consumedAt, s.name FROM MealConsumptionLog m JOIN m.scannedBy s WHERE m.event.id = :eventId AND m.consumedAt >= :startOfDay AND m.consumedAt <= :endOfDay ORDER BY m.consumedAt")
+    List<Object[]> findScanRowsByEventAndDay(
+            @Param("eventId") Long eventId,
+            @Param("startOfDay") LocalDateTime startOfDay,
+            @Param("endOfDay") LocalDateTime endOfDay
+    );
+
+    // Az étkezési főkönyv feltöltéséhez: [önkéntes ID, étkezés típusa, sorszám (régi soroknál null), darabszám, utolsó kiadás ideje]
+    @Query("SELECT m.volunteer.id, m.mealType, m.redemptionSlot, COUNT(m), MAX(m.consumedAt) FROM MealConsumptionLog m WHERE m.event.id = :eventId AND m.consumedAt >= :startOfDay AND m.consumedAt <= :endOfDay GROUP BY m.volunteer.id, m.mealType, m.redemptionSlot")
+    List<Object[]> findSlotRowsPerVolunteerAndType(
+            @Param("eventId") Long eventId,
+            @Param("startOfDay") LocalDateTime startOfDay,
+            @Param("endOfDay") LocalDateTime endOfDay
+    );
+
+    // A catering számlálók újraépítéséhez: [étkezés típusa, rögzített diéta, darabszám]
+    @Query("SELECT m.mealType, m.dietaryPreference, COUNT(m) FROM MealConsumptionLog m WHERE m.event.id = :eventId AND m.consumedAt >= :startOfDay AND m.consumedAt <= :endOfDay GROUP BY m.mealType, m.dietaryPreference")
+    List<Object[]> countServedByMealAndDiet(
+            @Param("eventId") Long eventId,
+            @Param("startOfDay") LocalDateTime startOfDay,
+            @Param("endOfDay") LocalDateTime endOfDay
+    );
 }
\ No newline at end of file
@@ -6,8 +6,11 @@ import com.example.volunteermanagement.model.OrganizationRole;
 import com.example.volunteermanagement.model.User;
 import com.example.volunteermanagement.model.MembershipStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -33,4 +36,11 @@ public interface OrganizationMemberRepository extends JpaRepository<Organization
 
     // Szervezőnek: visszaadja azokat a tagokat a saját szervezeteiből, akik a megadott státuszokkal rendelkeznek
     List<OrganizationMember> findByStatusInAndOrganizationIdIn(List<MembershipStatus> statuses, List<Long> organizationIds);
+
+    // Tömeges jóváhagyás: a szigetre másolandó adatok egy lekérdezésben
+    // [user ID, e-mail, név, jelszó, rendszerszerep, tagság ID, szervezeti szerep, tagsági státusz]
+    @Query("SELECT u.id, u.email, u.name, u.password, u.role, m.id, m.role, m.status FROM OrganizationMember m " +
+            "JOIN m.user u WHERE m.organization.id = :organizationId AND u.id IN :userIds")
+    List<Object[]> findSyncRowsByOrganizationIdAndUserIdIn(@Param("organizationId") Long organizationId,
+                                                           @Param("userIds") Collection<Long> userIds);
 }
\ No newline at end of file
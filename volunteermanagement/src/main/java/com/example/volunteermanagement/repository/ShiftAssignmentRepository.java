@@ -9,6 +9,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,6 +19,10 @@ public interface ShiftAssignmentRepository extends JpaRepository<ShiftAssignment
     List<ShiftAssignment> findByUserId(Long userId);
     Optional<ShiftAssignment> findByShiftIdAndUserId(Long shiftId, Long userId);
 
+    // A jelöltek összes meglévő beosztása egy lekérdezéssel, a műszakkal együtt (tömeges ütközésvizsgálat)
+    @Query("SELECT sa FROM ShiftAssignment sa JOIN FETCH sa.shift s LEFT JOIN FETCH s.workArea WHERE sa.userId IN :userIds")
+    List<ShiftAssignment> findWithShiftByUserIdIn(@Param("userIds") Collection<Long> userIds);
+
     @Query("SELECT COALESCE(SUM(sa.shift.providedBreakfasts), 0) FROM ShiftAssignment sa WHERE sa.userId = :userId AND sa.shift.event.id = :eventId AND sa.status = :status AND sa.shift.startTime >= :startOfDay AND sa.shift.startTime <= :endOfDay")
     int sumBreakfastsForUserToday(@Param("userId") Long userId, @Param("eventId") Long eventId, @Param("startOfDay") LocalDateTime startOfDay, @Param("endOfDay") LocalDateTime endOfDay, @Param("status") AssignmentStatus status);
 
@@ -26,4 +31,12 @@ public interface ShiftAssignmentRepository extends JpaRepository<ShiftAssignment
 
     @Query("SELECT COALESCE(SUM(sa.shift.providedDinners), 0) FROM ShiftAssignment sa WHERE sa.userId = :userId AND sa.shift.event.id = :eventId AND sa.status = :status AND sa.shift.startTime >= :startOfDay AND sa.shift.startTime <= :endOfDay")
     int sumDinnersForUserToday(@Param("userId") Long userId, @Param("eventId") Long eventId, @Param("startOfDay") LocalDateTime startOfDay, @Param("endOfDay") LocalDateTime endOfDay, @Param("status") AssignmentStatus status);
+
+    // Egy esemény egy napjának összes étkezési kerete egyetlen lekérdezésben: [userId, reggeli, ebéd, vacsora]
+    @Query("SELECT sa.userId, COALESCE(SUM(sa.shift.providedBreakfasts), 0), COALESCE(SUM(sa.shift.providedLunches), 0), COALESCE(SUM(sa.shift.providedDinners), 0) FROM ShiftAssignment sa WHERE sa.shift.event.id = :eventId AND sa.status = :status AND sa.shift.startTime >= :startOfDay AND sa.shift.startTime <= :endOfDay GROUP BY sa.userId")
+    List<Object[]> sumMealsPerUserForDay(@Param("eventId") Long eventId, @Param("startOfDay") LocalDateTime startOfDay, @Param("endOfDay") LocalDateTime endOfDay, @Param("status") AssignmentStatus status);
+
+    // Egy önkéntes összes beosztásának étkezései az eseményen (a catering számlálók frissítéséhez): [kezdés, reggeli, ebéd, vacsora]
+    @Query("SELECT sa.shift.startTime, sa.shift.providedBreakfasts, sa.shift.providedLunches, sa.shift.providedDinners FROM ShiftAssignment sa WHERE sa.userId = :userId AND sa.shift.event.id = :eventId AND sa.status = :status")
+    List<Object[]> findMealRowsForUser(@Param("userId") Long userId, @Param("eventId") Long eventId, @Param("status") AssignmentStatus status);
 }
\ No newline at end of file
@@ -1,10 +1,13 @@
 package com.example.volunteermanagement.repository;
 
+import com.example.volunteermanagement.model.AssignmentStatus;
 import com.example.volunteermanagement.model.Shift;
+import com.example.volunteermanagement.model.ShiftType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ShiftRepository extends JpaRepository<Shift, Long> {
@@ -12,4 +15,30 @@ public interface ShiftRepository extends JpaRepository<Shift, Long> {
     // Lekéri az egy eseményhez tartozó összes műszakot (a workArea-n keresztül)
     @Query("SELECT s FROM Shift s WHERE s.workArea.event.id = :eventId ORDER BY s.startTime ASC")
     List<Shift> findByEventId(@Param("eventId") Long eventId);
+
+    // Műszaktábla: az esemény összes műszaka (munkaterületi és gyűlés) a területtel és a beosztásokkal együtt, egy lekérdezésben
+    @Query("SELECT DISTINCT s FROM Shift s " +
+            "LEFT JOIN FETCH s.workArea wa " +
+            "LEFT JOIN FETCH s.assignments " +
+            "WHERE wa.event.id = :eventId OR s.event.id = :eventId " +
+            "ORDER BY s.id")
+    List<Shift> findBoardByEventId(@Param("eventId") Long eventId);
+
+    // Adott típusú műszakok (pl. személyes), amelyekben a felsoroltak közül valaki be van osztva, az összes beosztásukkal
+    @Query("SELECT DISTINCT s FROM Shift s " +
+            "LEFT JOIN FETCH s.assignments " +
+            "WHERE s.type = :type " +
+            "AND EXISTS (SELECT 1 FROM ShiftAssignment sa WHERE sa.shift = s AND sa.userId IN :userIds) " +
+            "ORDER BY s.id")
+    List<Shift> findByTypeWithAssignmentsForUsers(@Param("type") ShiftType type, @Param("userIds") Collection<Long> userIds);
+
+    // Eseménystatisztika: a terület adott típusú műszakjai a megerősített, nem beugró beosztások számával
+    // [műszak ID, terület ID, terület neve, kezdés, létszámkeret, megerősítettek]
+    @Query("SELECT s.id, wa.id, wa.name, s.startTime, s.maxVolunteers, COUNT(sa) FROM Shift s " +
+            "JOIN s.workArea wa " +
+            "LEFT JOIN s.assignments sa ON sa.status = :status AND sa.isBackup = false " +
+            "WHERE wa.event.id = :eventId AND s.type = :type " +
+            "GROUP BY s.id, wa.id, wa.name, s.startTime, s.maxVolunteers")
+    List<Object[]> findFillRowsByEventId(@Param("eventId") Long eventId, @Param("type") ShiftType type,
+                                         @Param("status") AssignmentStatus status);
 }
\ No newline at end of file
@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,4 +20,8 @@ public interface UserRepository extends JpaRepository<User, Long> {
     // Visszaadja azokat a usereket, akik tagjai a megadott szervezetek valamelyikének
     @Query("SELECT DISTINCT u FROM User u JOIN u.memberships m WHERE m.organization.id IN :orgIds")
     List<User> findUsersByOrganizationIds(@Param("orgIds") List<Long> orgIds);
+
+    // Több felhasználó neve és e-mailje egyetlen lekérdezésben: [id, név, e-mail]
+    @Query("SELECT u.id, u.name, u.email FROM User u WHERE u.id IN :ids")
+    List<Object[]> findContactRowsByIdIn(@Param("ids") Collection<Long> ids);
 }
\ No newline at end of file
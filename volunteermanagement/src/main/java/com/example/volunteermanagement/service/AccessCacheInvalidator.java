@@ -0,0 +1,46 @@
+package com.example.volunteermanagement.service;
+
+import com.example.volunteermanagement.config.JwtAuthenticationCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Egy helyen érvényteleníti a felhasználóhoz kötött gyorsítótárakat
+ * (JWT principal, napló-szervezet), ha a szerepköre vagy a tagságai változnak.
+ */
+@Service
+@RequiredArgsConstructor
+public class AccessCacheInvalidator {
+
+    private final JwtAuthenticationCache jwtAuthenticationCache;
+    private final AuditLogService auditLogService;
+
+    public void invalidateUser(String email) {
+        runNowAndAfterCommit(() -> {
+            jwtAuthenticationCache.invalidateUser(email);
+            auditLogService.invalidateUserOrgCache(email);
+        });
+    }
+
+    public void invalidateAll() {
+        runNowAndAfterCommit(() -> {
+            jwtAuthenticationCache.invalidateAll();
+            auditLogService.invalidateAllUserOrgCache();
+        });
+    }
+
+    // Commit után újra ürítünk, hogy egy közben párhuzamosan betöltött régi állapot se ragadjon bent
+    private void runNowAndAfterCommit(Runnable invalidation) {
+        invalidation.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidation.run();
+                }
+            });
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.example.volunteermanagement.dto.AnnouncementDTO;
 import com.example.volunteermanagement.model.*;
 import com.example.volunteermanagement.repository.*;
 import com.example.volunteermanagement.tenant.TenantContext;
+import com.example.volunteermanagement.tenant.TenantFanOutExecutor;
 import lombok.RequiredArgsConstructor;
 import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -35,6 +36,7 @@ public class AnnouncementService {
     private final ApplicationRepository applicationRepository;
     private final EventTeamMemberRepository eventTeamMemberRepository;
     private final TransactionTemplate transactionTemplate;
+    private final TenantFanOutExecutor tenantFanOutExecutor;
 
     @Autowired
     @Lazy
@@ -235,20 +237,20 @@ public class AnnouncementService {
                 .filter(m -> m.getOrganization() != null && m.getStatus() == MembershipStatus.APPROVED)
                 .forEach(m -> orgIds.add(m.getOrganization().getId()));
 
-        String originalTenant = TenantContext.getCurrentTenant();
+        // Minden Szigetet párhuzamosan kérdezünk le (a hibás/lassú bérlőt a fan-out kihagyja)
+        Map<String, Long> orgIdByTenant = new LinkedHashMap<>();
         for (Organization org : organizationRepository.findAll()) {
-            if (org.getTenantId() == null) continue;
-            try {
-                TenantContext.setCurrentTenant(org.getTenantId());
-                Map<String, Set<Long>> tenantContextIds = self.collectVisibleIdsInTenant(user, org.getId());
-                eventIds.addAll(tenantContextIds.get("events"));
-                areaIds.addAll(tenantContextIds.get("areas"));
-                if (!tenantContextIds.get("events").isEmpty()) orgIds.add(org.getId());
-            } catch (Exception e) {} finally {
-                TenantContext.setCurrentTenant(originalTenant);
-            }
+            if (org.getTenantId() != null) orgIdByTenant.putIfAbsent(org.getTenantId(), org.getId());
         }
 
+        tenantFanOutExecutor.runPerTenant(orgIdByTenant.keySet(), t -> self.collectVisibleIdsInTenant(user, orgIdByTenant.get(t)))
+                .results()
+                .forEach((tenantId, tenantContextIds) -> {
+                    eventIds.addAll(tenantContextIds.get("events"));
+                    areaIds.addAll(tenantContextIds.get("areas"));
+                    if (!tenantContextIds.get("events").isEmpty()) orgIds.add(orgIdByTenant.get(tenantId));
+                });
+
         List<Map<String, String>> allowedTargets = getAllowedPostTargets(userEmail);
         for (Map<String, String> target : allowedTargets) {
             String value = target.get("value");
@@ -0,0 +1,273 @@
+package com.example.volunteermanagement.service;
+
+import com.example.volunteermanagement.dto.ApplicationListFilter;
+import com.example.volunteermanagement.dto.PendingApplicationDTO;
+import com.example.volunteermanagement.model.*;
+import com.example.volunteermanagement.repository.ApplicationRepository;
+import com.example.volunteermanagement.repository.EventTeamMemberRepository;
+import com.example.volunteermanagement.repository.UserRepository;
+import com.example.volunteermanagement.tenant.TenantContext;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Az esemény jelentkezési listája (szervezői nézet), adatbázis oldali szűréssel és lapozással.
+ * <p>
+ * A szűrés (státusz, terület, beadás ideje, vezetők elrejtése) a Sziget lekérdezésében történik, és csak a lap
+ * jelentkezés ID-i jönnek vissza; ezután csak a lap jelentkezései, válaszai és Mester felhasználói töltődnek be.
+ * A név/e-mail a Mesterben van: ha ezekre keresnek vagy rendeznek, a szűrt lista [ID, felhasználó] párjait a Mester
+ * névjegyeivel egészítjük ki, és a memóriában szűrünk, rendezünk és vágunk lapot (a teljes jelentkezést nem töltjük be).
+ */
+@Service
+@RequiredArgsConstructor
+public class ApplicationListingService {
+
+    private static final Set<String> SORTABLE = Set.of("appliedAt", "status", "id", "name", "email");
+    private static final Set<String> CONTACT_SORTS = Set.of("name", "email");
+    private static final List<EventRole> LEADER_ROLES = List.of(EventRole.ORGANIZER, EventRole.COORDINATOR);
+    private static final DateTimeFormatter APPLIED_AT_FORMAT = DateTimeFormatter.ofPattern("yyyy. MM. dd. HH:mm");
+
+    private record ListingRow(Long applicationId, Long userId, LocalDateTime appliedAt, ApplicationStatus status,
+                              String name, String email) {}
+
+    public record PageContent(List<Application> applications, Map<Long, String> rolesByUser) {}
+
+    private final ApplicationRepository applicationRepository;
+    private final UserRepository userRepository;
+    private final EventTeamMemberRepository eventTeamMemberRepository;
+
+    @Autowired
+    @Lazy
+    private ApplicationListingService self;
+
+    public Page<PendingApplicationDTO> listForEvent(Long eventId, ApplicationListFilter filter, Pageable pageable) {
+        for (Sort.Order order : pageable.getSort()) {
+            if (!SORTABLE.contains(order.getProperty())) {
+                throw new RuntimeException("Ismeretlen rendezési szempont: " + order.getProperty() + " (lehetséges: " + String.join(", ", SORTABLE) + ")");
+            }
+        }
+
+        String query = filter.query() != null && !filter.query().isBlank() ? filter.query().trim().toLowerCase(Locale.ROOT) : null;
+        boolean byContact = query != null || pageable.getSort().stream().anyMatch(o -> CONTACT_SORTS.contains(o.getProperty()));
+
+        // 1. A lap jelentkezés ID-i (Sziget), szükség esetén a Mester névjegyeivel
+        Page<Long> ids = byContact
+                ? pageByContact(eventId, filter, query, pageable)
+                : self.findPageIds(eventId, filter, withTieBreak(pageable));
+        if (ids.isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, ids.getTotalElements());
+        }
+
+        // 2. Csak a lap jelentkezései és csapatszerepei (Sziget), majd a felhasználói (Mester)
+        PageContent content = self.loadPage(eventId, ids.getContent());
+        Set<Long> userIds = content.applications().stream().map(Application::getUserId).collect(Collectors.toSet());
+        Map<Long, User> users = inMaster(() -> self.fetchUsersInMaster(userIds));
+
+        Map<Long, Application> byId = content.applications().stream()
+                .collect(Collectors.toMap(Application::getId, Function.identity()));
+        List<PendingApplicationDTO> result = new ArrayList<>();
+        for (Long id : ids.getContent()) {
+            Application app = byId.get(id);
+            if (app == null) continue;
+            Organization org = app.getEvent() != null ? app.getEvent().getOrganization() : null;
+            result.add(toDto(app, users.get(app.getUserId()), org, content.rolesByUser().getOrDefault(app.getUserId(), "Önkéntes")));
+        }
+        return new PageImpl<>(result, pageable, ids.getTotalElements());
+    }
+
+    // Azonos kulcsú sorok (pl. egyszerre beadott jelentkezések) miatt az ID mindig utolsó rendezési szempont: a lapok nem fedik egymást
+    private Pageable withTieBreak(Pageable pageable) {
+        if (pageable.isUnpaged() || pageable.getSort().getOrderFor("id") != null) return pageable;
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), pageable.getSort().and(Sort.by("id")));
+    }
+
+    private Page<Long> pageByContact(Long eventId, ApplicationListFilter filter, String query, Pageable pageable) {
+        List<Object[]> rows = self.findListingRows(eventId, filter);
+        if (rows.isEmpty()) return Page.empty(pageable);
+
+        Set<Long> userIds = rows.stream().map(r -> (Long) r[1]).collect(Collectors.toSet());
+        Map<Long, Object[]> contacts = inMaster(() -> self.fetchContactsInMaster(userIds));
+
+        List<ListingRow> matching = new ArrayList<>();
+        for (Object[] r : rows) {
+            Object[] contact = contacts.get((Long) r[1]);
+            String name = contact != null ? (String) contact[1] : null;
+            String email = contact != null ? (String) contact[2] : null;
+            if (query != null && !contains(name, query) && !contains(email, query)) continue;
+            matching.add(new ListingRow((Long) r[0], (Long) r[1], (LocalDateTime) r[2], (ApplicationStatus) r[3], name, email));
+        }
+
+        matching.sort(comparator(pageable.getSort()));
+        int from = pageable.isPaged() ? (int) Math.min(pageable.getOffset(), matching.size()) : 0;
+        int to = pageable.isPaged() ? Math.min(from + pageable.getPageSize(), matching.size()) : matching.size();
+        List<Long> pageIds = matching.subList(from, to).stream().map(ListingRow::applicationId).toList();
+        return new PageImpl<>(pageIds, pageable, matching.size());
+    }
+
+    private static boolean contains(String value, String query) {
+        return value != null && value.toLowerCase(Locale.ROOT).contains(query);
+    }
+
+    private static Comparator<ListingRow> comparator(Sort sort) {
+        Comparator<ListingRow> comparator = null;
+        for (Sort.Order order : sort) {
+            Comparator<ListingRow> next = switch (order.getProperty()) {
+                case "name" -> Comparator.comparing(ListingRow::name, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+                case "email" -> Comparator.comparing(ListingRow::email, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+                case "appliedAt" -> Comparator.comparing(ListingRow::appliedAt, Comparator.nullsLast(Comparator.naturalOrder()));
+                case "status" -> Comparator.comparing(r -> r.status().name());
+                default -> Comparator.comparing(ListingRow::applicationId);
+            };
+            if (order.isDescending()) next = next.reversed();
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        Comparator<ListingRow> byId = Comparator.comparing(ListingRow::applicationId);
+        return comparator == null ? byId : comparator.thenComparing(byId);
+    }
+
+    // --- Sziget lekérdezések (a hívó bérlőjén) ---
+
+    @Transactional(readOnly = true)
+    public Page<Long> findPageIds(Long eventId, ApplicationListFilter filter, Pageable pageable) {
+        return applicationRepository.findListingIds(eventId, statuses(filter), filter.workAreaId() == null,
+                filter.workAreaId() != null ? filter.workAreaId() : -1L, isAnyDate(filter), appliedFrom(filter), appliedTo(filter),
+                excludeLeaders(filter), LEADER_ROLES, pageable);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Object[]> findListingRows(Long eventId, ApplicationListFilter filter) {
+        return applicationRepository.findListingRows(eventId, statuses(filter), filter.workAreaId() == null,
+                filter.workAreaId() != null ? filter.workAreaId() : -1L, isAnyDate(filter), appliedFrom(filter), appliedTo(filter),
+                excludeLeaders(filter), LEADER_ROLES);
+    }
+
+    @Transactional(readOnly = true)
+    public PageContent loadPage(Long eventId, List<Long> applicationIds) {
+        List<Application> applications = applicationRepository.findWithAreasByIdIn(applicationIds);
+        // Ugyanebben a tranzakcióban a fenti entitások válaszai (és kérdései) is betöltődnek
+        applicationRepository.findWithAnswersByIdIn(applicationIds);
+
+        Set<Long> userIds = applications.stream().map(Application::getUserId).collect(Collectors.toSet());
+        Map<Long, String> roles = new HashMap<>();
+        for (Object[] row : eventTeamMemberRepository.findRoleRowsByEventIdAndUserIdIn(eventId, userIds)) {
+            roles.put((Long) row[0], roleLabel((EventRole) row[1]));
+        }
+        return new PageContent(applications, roles);
+    }
+
+    // --- Mester lekérdezések ---
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public Map<Long, User> fetchUsersInMaster(Collection<Long> userIds) {
+        return userRepository.findAllById(userIds).stream().collect(Collectors.toMap(User::getId, Function.identity()));
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public Map<Long, Object[]> fetchContactsInMaster(Collection<Long> userIds) {
+        Map<Long, Object[]> contacts = new HashMap<>();
+        for (Object[] row : userRepository.findContactRowsByIdIn(userIds)) {
+            contacts.put((Long) row[0], row);
+        }
+        return contacts;
+    }
+
+    private static <T> T inMaster(Supplier<T> action) {
+        String originalTenant = TenantContext.getCurrentTenant();
+        try {
+            TenantContext.setCurrentTenant(null);
+            return action.get();
+        } finally {
+            TenantContext.setCurrentTenant(originalTenant);
+        }
+    }
+
+    // --- Szűrő paraméterek (a lekérdezésben nincs null) ---
+
+    private static List<ApplicationStatus> statuses(ApplicationListFilter filter) {
+        return filter.status() != null ? List.of(filter.status()) : List.of(ApplicationStatus.values());
+    }
+
+    private static boolean isAnyDate(ApplicationListFilter filter) {
+        return filter.appliedFrom() == null && filter.appliedTo() == null;
+    }
+
+    private static LocalDateTime appliedFrom(ApplicationListFilter filter) {
+        return filter.appliedFrom() != null ? filter.appliedFrom().atStartOfDay() : LocalDateTime.of(1970, 1, 1, 0, 0);
+    }
+
+    private static LocalDateTime appliedTo(ApplicationListFilter filter) {
+        return filter.appliedTo() != null ? filter.appliedTo().plusDays(1).atStartOfDay() : LocalDateTime.of(9999, 1, 1, 0, 0);
+    }
+
+    // A jóváhagyottak közül a vezetőség (Főszervező, Koordinátor) tagjait elrejtjük: ők már nem önkéntesként szerepelnek
+    private static boolean excludeLeaders(ApplicationListFilter filter) {
+        return filter.status() == ApplicationStatus.APPROVED;
+    }
+
+    private static String roleLabel(EventRole role) {
+        return role == EventRole.ORGANIZER ? "Főszervező" : (role == EventRole.COORDINATOR ? "Koordinátor" : "Önkéntes");
+    }
+
+    // --- DTO ---
+
+    public PendingApplicationDTO toDto(Application app, User appUser, Organization org, String eventRole) {
+        String eventOrgName = org != null ? org.getName() : "Ismeretlen szervezet";
+        Long eventOrgId = org != null ? org.getId() : null;
+        Long eventId = app.getEvent() != null ? app.getEvent().getId() : null;
+        String eventTitle = app.getEvent() != null ? app.getEvent().getTitle() : "Ismeretlen esemény";
+        String displayAreaName = "Nincs terület megadva";
+        Long displayAreaId = null;
+
+        if (app.getAssignedWorkArea() != null) {
+            displayAreaId = app.getAssignedWorkArea().getId();
+            displayAreaName = app.getAssignedWorkArea().getName();
+        } else if (app.getPreferredWorkAreas() != null && !app.getPreferredWorkAreas().isEmpty()) {
+            displayAreaName = app.getPreferredWorkAreas().stream().map(WorkArea::getName).collect(Collectors.joining(", "));
+            displayAreaId = app.getPreferredWorkAreas().get(0).getId();
+        }
+
+        Map<String, String> answersMap = new HashMap<>();
+        if (app.getAnswers() != null) {
+            for (ApplicationAnswer answer : app.getAnswers()) {
+                answersMap.put(answer.getQuestion().getQuestionText(), answer.getAnswerText());
+            }
+        }
+
+        String appliedAtStr = app.getAppliedAt() != null ? app.getAppliedAt().format(APPLIED_AT_FORMAT) : "-";
+
+        String safePhoneNumber = appUser != null ? appUser.getPhoneNumber() : "Nincs telefon";
+        if (app.getStatus() == ApplicationStatus.REJECTED || app.getStatus() == ApplicationStatus.WITHDRAWN) {
+            safePhoneNumber = "Rejtett adat (GDPR)";
+        }
+
+        String userAvatar = appUser != null ? appUser.getProfileImageUrl() : null;
+
+        return new PendingApplicationDTO(
+                app.getId(), appUser != null ? appUser.getName() : "Névtelen",
+                appUser != null ? appUser.getEmail() : "Nincs email", safePhoneNumber,
+                eventOrgName, eventOrgId, displayAreaId, displayAreaName,
+                app.getStatus().name(), eventId, eventTitle, answersMap,
+                userAvatar,
+                appliedAtStr,
+                eventRole,
+                app.getAdminNote(),
+                app.getRejectionMessage(), app.getWithdrawalReason()
+        );
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.volunteermanagement.service;
+
+import com.example.volunteermanagement.dto.BulkStatusResultDTO;
+import com.example.volunteermanagement.model.*;
+import com.example.volunteermanagement.repository.ApplicationRepository;
+import com.example.volunteermanagement.repository.OrganizationMemberRepository;
+import com.example.volunteermanagement.repository.OrganizationRepository;
+import com.example.volunteermanagement.repository.UserRepository;
+import com.example.volunteermanagement.tenant.TenantContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Jelentkezések tömeges státuszváltása, három lépésben:
+ * <ol>
+ *     <li>a Szigeten egy tranzakcióban a jogosultság-ellenőrzés és a státuszok átállítása,</li>
+ *     <li>jóváhagyásnál szervezetenként a Mesterben egyetlen kötegelt upsert a tagságokra
+ *     (a hiányzók létrejönnek, a többiek jóváhagyottak lesznek),</li>
+ *     <li>az érintett tagok kötegelt másolása a szervezet szigetére, a replikációs soron át
+ *     (ami nem megy át, azt a sor később újrapróbálja).</li>
+ * </ol>
+ * Az eredmény jelentkezésenként jelzi, mi történt; egy tag hibája nem akasztja meg a többit.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ApplicationStatusService {
+
+    // A (user_id, organization_id) egyedi kulcsra: új tag önkéntesként, a meglévő csak a státuszát kapja meg
+    private static final String APPROVE_MEMBERSHIP_SQL = "INSERT INTO organization_members " +
+            "(user_id, organization_id, role, status, joined_at) VALUES (?, ?, 'VOLUNTEER', 'APPROVED', ?) " +
+            "ON CONFLICT (user_id, organization_id) DO UPDATE SET status = 'APPROVED' " +
+            "WHERE organization_members.status <> 'APPROVED'";
+    private static final int MEMBERSHIP_BATCH_SIZE = 500;
+
+    public static final String UPDATED = "UPDATED";
+    public static final String NOT_FOUND = "NOT_FOUND";
+    public static final String FORBIDDEN = "FORBIDDEN";
+    public static final String MEMBERSHIP_FAILED = "MEMBERSHIP_FAILED";
+    public static final String SYNC_PENDING = "SYNC_PENDING";
+
+    /**
+     * Az első lépés eredménye: a kimenetek (jelentkezés ID szerint, a kérés sorrendjében)
+     * és a jóváhagyott tagok szervezetenként (user ID -> a jelentkezései).
+     */
+    public record StatusStage(Map<Long, BulkStatusResultDTO.Item> items, Map<Long, Map<Long, List<Long>>> approvalsByOrg) {}
+
+    public record MemberBatch(Organization organization, List<TenantProvisioningService.MemberSync> members) {}
+
+    private final ApplicationRepository applicationRepository;
+    private final UserRepository userRepository;
+    private final OrganizationRepository organizationRepository;
+    private final OrganizationMemberRepository organizationMemberRepository;
+    private final TenantProvisioningService tenantProvisioningService;
+    private final AccessCacheInvalidator accessCacheInvalidator;
+    private final AuditLogService auditLogService;
+    private final CateringSummaryService cateringSummaryService;
+    private final CateringStreamHub cateringStreamHub;
+    private final StatisticsService statisticsService;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    @Lazy
+    private ApplicationStatusService self;
+
+    public BulkStatusResultDTO updateBulk(List<Long> applicationIds, ApplicationStatus status, String adminEmail) {
+        // 1. Sziget: státuszok (commitol, mielőtt a tagságokhoz nyúlnánk)
+        StatusStage stage = self.applyStatuses(applicationIds, status, adminEmail);
+        Map<Long, BulkStatusResultDTO.Item> items = stage.items();
+
+        // 2-3. Mester tagságok + szinkron a szigetre, szervezetenként
+        stage.approvalsByOrg().forEach((orgId, applicationsByUser) -> {
+            Map<Long, String> failures = new HashMap<>();
+            Set<Long> pendingSync = new HashSet<>();
+            try {
+                MemberBatch batch = inMaster(() -> self.approveMembershipsInMaster(orgId, applicationsByUser.keySet()));
+                Set<Long> approved = batch.members().stream().map(TenantProvisioningService.MemberSync::userId).collect(Collectors.toSet());
+                applicationsByUser.keySet().stream()
+                        .filter(userId -> !approved.contains(userId))
+                        .forEach(userId -> failures.put(userId, "A felhasználó vagy a szervezet nem található a Mester adatbázisban!"));
+
+                // A másolatok már a tagságokkal egy tranzakcióban a replikációs sorba kerültek, itt csak kézbesítünk
+                Organization org = batch.organization();
+                if (org != null && org.getTenantId() != null) {
+                    tenantProvisioningService.deliverMembers(org.getTenantId() + "_db", org, batch.members())
+                            .forEach(pendingSync::add);
+                }
+            } catch (RuntimeException e) {
+                applicationsByUser.keySet().forEach(userId -> failures.put(userId, "A tagság jóváhagyása nem sikerült: " + e.getMessage()));
+                log.warn("⚠️ Tömeges jóváhagyás: a tagságok mentése elbukott (szervezet #{}): {}", orgId, e.getMessage());
+            }
+
+            pendingSync.stream().filter(userId -> !failures.containsKey(userId)).forEach(userId -> {
+                for (Long applicationId : applicationsByUser.getOrDefault(userId, List.of())) {
+                    items.put(applicationId, new BulkStatusResultDTO.Item(applicationId, userId, SYNC_PENDING,
+                            "A tagság jóváhagyva, a szervezet adatbázisába másolás függőben (automatikusan újrapróbáljuk)."));
+                }
+            });
+            failures.forEach((userId, message) -> {
+                for (Long applicationId : applicationsByUser.getOrDefault(userId, List.of())) {
+                    items.put(applicationId, new BulkStatusResultDTO.Item(applicationId, userId, MEMBERSHIP_FAILED, message));
+                }
+            });
+        });
+
+        List<BulkStatusResultDTO.Item> result = new ArrayList<>(items.values());
+        int updated = (int) result.stream().filter(i -> UPDATED.equals(i.outcome()) || SYNC_PENDING.equals(i.outcome())).count();
+        return new BulkStatusResultDTO(status.name(), result.size(), updated, result.size() - updated, result);
+    }
+
+    @Transactional
+    public StatusStage applyStatuses(List<Long> applicationIds, ApplicationStatus status, String adminEmail) {
+        User admin = userRepository.findByEmail(adminEmail).orElseThrow();
+        boolean isGlobalAdmin = admin.getRole() == Role.SYS_ADMIN;
+        Set<Long> managedOrgIds = admin.getMemberships().stream()
+                .filter(m -> m.getOrganization() != null
+                        && (m.getRole() == OrganizationRole.ORGANIZER || m.getRole() == OrganizationRole.OWNER))
+                .map(m -> m.getOrganization().getId())
+                .collect(Collectors.toSet());
+
+        Map<Long, Application> found = applicationRepository.findAllById(applicationIds).stream()
+                .collect(Collectors.toMap(Application::getId, Function.identity()));
+
+        Map<Long, BulkStatusResultDTO.Item> items = new LinkedHashMap<>();
+        Map<Long, Map<Long, List<Long>>> approvalsByOrg = new LinkedHashMap<>();
+        List<Application> changed = new ArrayList<>();
+        Set<Long> eventIds = new LinkedHashSet<>();
+        Long firstOrgId = null;
+
+        for (Long applicationId : new LinkedHashSet<>(applicationIds)) {
+            Application app = found.get(applicationId);
+            if (app == null) {
+                items.put(applicationId, new BulkStatusResultDTO.Item(applicationId, null, NOT_FOUND, "Jelentkezés nem található!"));
+                continue;
+            }
+
+            Organization org = app.getEvent().getOrganization();
+            if (!isGlobalAdmin && (org == null || !managedOrgIds.contains(org.getId()))) {
+                items.put(applicationId, new BulkStatusResultDTO.Item(applicationId, app.getUserId(), FORBIDDEN,
+                        "Nincs jogosultságod a státusz módosításához!"));
+                continue;
+            }
+
+            app.setStatus(status);
+            if (status == ApplicationStatus.APPROVED) {
+                app.setRejectionMessage(null);
+                if (org != null) {
+                    approvalsByOrg.computeIfAbsent(org.getId(), id -> new LinkedHashMap<>())
+                            .computeIfAbsent(app.getUserId(), id -> new ArrayList<>())
+                            .add(applicationId);
+                }
+            }
+            changed.add(app);
+            eventIds.add(app.getEvent().getId());
+            if (firstOrgId == null && org != null) firstOrgId = org.getId();
+            items.put(applicationId, new BulkStatusResultDTO.Item(applicationId, app.getUserId(), UPDATED, null));
+        }
+
+        applicationRepository.saveAll(changed);
+        eventIds.forEach(eventId -> {
+            cateringSummaryService.invalidateEvent(eventId);
+            cateringStreamHub.publishResync(eventId);
+            statisticsService.invalidateEventStats(eventId);
+        });
+        auditLogService.logAction(adminEmail, "BULK_UPDATE_STATUS", "Érintett jelentkezések: " + changed.size() + " db",
+                "Tömeges módosítás új státuszra: " + status.name(), firstOrgId);
+
+        return new StatusStage(items, approvalsByOrg);
+    }
+
+    /**
+     * Egy szervezet jóváhagyott jelentkezőinek tagságai egyetlen kötegelt upserttel,
+     * majd a szigetre másolandó adataik egyetlen lekérdezéssel. A Mesterben fut (TenantContext = null);
+     * a másolatok ugyanebben a tranzakcióban kerülnek a replikációs sorba, így a jóváhagyással együtt commitolnak.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public MemberBatch approveMembershipsInMaster(Long organizationId, Collection<Long> userIds) {
+        Organization org = organizationRepository.findById(organizationId).orElse(null);
+        if (org == null) return new MemberBatch(null, List.of());
+
+        // Csak a létező (nem törölt) felhasználóknak
+        List<Long> existingUserIds = userRepository.findContactRowsByIdIn(userIds).stream()
+                .map(row -> (Long) row[0])
+                .toList();
+        if (existingUserIds.isEmpty()) return new MemberBatch(org, List.of());
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(APPROVE_MEMBERSHIP_SQL, existingUserIds, MEMBERSHIP_BATCH_SIZE, (ps, userId) -> {
+            ps.setLong(1, userId);
+            ps.setLong(2, organizationId);
+            ps.setTimestamp(3, now);
+        });
+
+        List<TenantProvisioningService.MemberSync> members = new ArrayList<>();
+        for (Object[] row : organizationMemberRepository.findSyncRowsByOrganizationIdAndUserIdIn(organizationId, existingUserIds)) {
+            members.add(new TenantProvisioningService.MemberSync((Long) row[0], (String) row[1], (String) row[2], (String) row[3],
+                    ((Role) row[4]).name(), (Long) row[5], ((OrganizationRole) row[6]).name(), ((MembershipStatus) row[7]).name()));
+            // A tagságok változtak: a bejelentkezési és napló gyorsítótárak elavultak
+            accessCacheInvalidator.invalidateUser((String) row[1]);
+        }
+        if (org.getTenantId() != null) {
+            tenantProvisioningService.enqueueMembersInCurrentTransaction(org.getTenantId() + "_db", org, members);
+        }
+        return new MemberBatch(org, members);
+    }
+
+    private static <T> T inMaster(Supplier<T> action) {
+        String originalTenant = TenantContext.getCurrentTenant();
+        try {
+            TenantContext.setCurrentTenant(null);
+            return action.get();
+        } finally {
+            TenantContext.setCurrentTenant(originalTenant);
+        }
+    }
+}
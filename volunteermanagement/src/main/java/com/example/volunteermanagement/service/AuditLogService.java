@@ -1,13 +1,16 @@
 package com.example.volunteermanagement.service;
 
+import com.example.volunteermanagement.cache.TtlCache;
 import com.example.volunteermanagement.tenant.TenantContext;
 import com.example.volunteermanagement.model.AuditLog;
 import com.example.volunteermanagement.model.Organization;
 import com.example.volunteermanagement.repository.AuditLogRepository;
 import com.example.volunteermanagement.repository.OrganizationRepository;
 import com.example.volunteermanagement.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
@@ -15,6 +18,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -23,11 +27,26 @@ public class AuditLogService {
     private final AuditLogRepository auditLogRepository;
     private final OrganizationRepository organizationRepository;
     private final UserRepository userRepository;
+    private final AuditLogWriter auditLogWriter;
 
     @Autowired
     @Lazy
     private AuditLogService self;
 
+    @Value("${app.audit.org-cache.max-size:10000}")
+    private int orgCacheMaxSize;
+
+    @Value("${app.audit.org-cache.ttl-ms:300000}")
+    private long orgCacheTtlMs;
+
+    // E-mail -> "vezetett" szervezet ID-ja (null is érvényes érték: Rendszergazda / nincs ilyen tagság)
+    private TtlCache<String, Long> userOrgCache;
+
+    @PostConstruct
+    void initCaches() {
+        userOrgCache = new TtlCache<>("auditUserOrg", orgCacheMaxSize, orgCacheTtlMs);
+    }
+
     // A régi metódust meghagyjuk, hogy a kód többi része ne törjön el
     public void logAction(String userEmail, String action, String target, String details, Long orgId) {
         logActionWithOrgName(userEmail, action, target, details, orgId, null);
@@ -87,13 +106,22 @@ public class AuditLogService {
             String originalTenant = TenantContext.getCurrentTenant();
             try {
                 TenantContext.clear();
-                orgId = self.findUserOrgIdSafe(userEmail);
+                orgId = userOrgCache.get(userEmail, self::findUserOrgIdSafe);
             } finally {
                 TenantContext.setCurrentTenant(originalTenant);
             }
         }
 
-        logAction(userEmail, action, "API Forgalom", details, orgId);
+        // A forgalmi napló nem a kérés szálán íródik: a háttér-író kötegelve menti a Mesterbe
+        // (a szervezet nevét is ott pótolja, kötegenként egyetlen lekérdezéssel)
+        auditLogWriter.submit(AuditLog.builder()
+                .timestamp(LocalDateTime.now())
+                .userEmail(userEmail)
+                .action(action)
+                .target("API Forgalom")
+                .details(details)
+                .organizationId(orgId)
+                .build());
     }
 
     @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
@@ -114,6 +142,19 @@ public class AuditLogService {
         return null;
     }
 
+    // Tagság/szerepkör változáskor hívandó, hogy a napló a friss szervezetet lássa
+    public void invalidateUserOrgCache(String userEmail) {
+        userOrgCache.invalidate(userEmail);
+    }
+
+    public void invalidateAllUserOrgCache() {
+        userOrgCache.clear();
+    }
+
+    public Map<String, Object> getUserOrgCacheStats() {
+        return userOrgCache.getStats();
+    }
+
     @Transactional(readOnly = true)
     public List<AuditLog> getAllLogs() {
         return auditLogRepository.findAllByOrderByTimestampDesc();
@@ -0,0 +1,272 @@
+package com.example.volunteermanagement.service;
+
+import com.example.volunteermanagement.config.DataSourceConfig;
+import com.example.volunteermanagement.model.AuditLog;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Háttérben futó, kötegelt naplóíró a forgalmi (API GET) naplókhoz.
+ * A kérés szála csak beteszi a bejegyzést egy korlátos sorba, a mentést
+ * egy külön szál végzi JDBC batch-ekben, közvetlenül a Mester adatbázisba.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AuditLogWriter {
+
+    /**
+     * Mit tegyünk, ha a sor megtelt (pl. fesztivál csúcsidőben).
+     */
+    public enum OverflowPolicy {
+        DROP_NEWEST,  // Az új bejegyzést eldobjuk (a kérés sosem lassul)
+        DROP_OLDEST,  // A legrégebbi várakozót dobjuk ki, hogy az új beférjen
+        BLOCK,        // Rövid ideig várunk helyre, utána eldobjuk
+        CALLER_RUNS   // A kérés szála maga menti el (a régi, szinkron viselkedés)
+    }
+
+    private static final String INSERT_SQL = "INSERT INTO audit_log " +
+            "(timestamp, user_email, action, target, organization_id, organization_name, details) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final DataSourceConfig dataSourceConfig;
+
+    @Value("${app.audit.async.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.audit.async.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.audit.async.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    @Value("${app.audit.async.overflow-policy:DROP_NEWEST}")
+    private OverflowPolicy overflowPolicy;
+
+    @Value("${app.audit.async.block-timeout-ms:50}")
+    private long blockTimeoutMs;
+
+    private BlockingQueue<AuditLog> queue;
+    private Thread writerThread;
+    private volatile boolean running;
+    private JdbcTemplate masterJdbcTemplate;
+
+    // --- Metrikák ---
+    private final AtomicLong enqueuedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong totalFlushNanos = new AtomicLong();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+    private final AtomicLong lastFlushNanos = new AtomicLong();
+
+    @PostConstruct
+    void start() {
+        queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        running = true;
+        writerThread = new Thread(this::runLoop, "audit-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("📝 Aszinkron naplóíró elindult (sor: {}, köteg: {}, időköz: {} ms, túlcsordulás: {})",
+                queueCapacity, batchSize, flushIntervalMs, overflowPolicy);
+    }
+
+    /**
+     * Leállításkor kiürítjük a sort, hogy egyetlen bejegyzés se vesszen el.
+     */
+    @PreDestroy
+    void stop() {
+        running = false;
+        if (writerThread != null) {
+            writerThread.interrupt();
+            try {
+                writerThread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        drainAndFlushRemaining();
+        log.info("📝 Aszinkron naplóíró leállt. Kiírva: {}, eldobva: {}", writtenCount.get(), droppedCount.get());
+    }
+
+    /**
+     * Beteszi a bejegyzést a sorba. Soha nem dob kivételt a hívó felé.
+     */
+    public void submit(AuditLog entry) {
+        if (entry == null) return;
+
+        boolean accepted;
+        switch (overflowPolicy) {
+            case DROP_OLDEST:
+                accepted = queue.offer(entry);
+                while (!accepted) {
+                    if (queue.poll() != null) droppedCount.incrementAndGet();
+                    accepted = queue.offer(entry);
+                }
+                break;
+            case BLOCK:
+                try {
+                    accepted = queue.offer(entry, blockTimeoutMs, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    accepted = false;
+                }
+                break;
+            case CALLER_RUNS:
+                accepted = queue.offer(entry);
+                if (!accepted) {
+                    flush(List.of(entry));
+                    return;
+                }
+                break;
+            case DROP_NEWEST:
+            default:
+                accepted = queue.offer(entry);
+                break;
+        }
+
+        if (accepted) {
+            enqueuedCount.incrementAndGet();
+        } else {
+            droppedCount.incrementAndGet();
+        }
+    }
+
+    private void runLoop() {
+        List<AuditLog> batch = new ArrayList<>(batchSize);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+
+        while (running) {
+            try {
+                long waitNanos = deadline - System.nanoTime();
+                AuditLog first = waitNanos > 0 ? queue.poll(waitNanos, TimeUnit.NANOSECONDS) : null;
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+
+                // Méret- vagy időalapú kiírás
+                if (batch.size() >= batchSize || System.nanoTime() >= deadline) {
+                    if (!batch.isEmpty()) {
+                        flush(batch);
+                        batch.clear();
+                    }
+                    deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                }
+            } catch (InterruptedException e) {
+                // Leállítás: a maradékot a stop() írja ki
+                break;
+            } catch (Exception e) {
+                log.error("⚠️ Váratlan hiba az aszinkron naplóíróban: {}", e.getMessage());
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            flush(batch);
+        }
+    }
+
+    private void drainAndFlushRemaining() {
+        List<AuditLog> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        for (int from = 0; from < remaining.size(); from += batchSize) {
+            flush(remaining.subList(from, Math.min(from + batchSize, remaining.size())));
+        }
+    }
+
+    private void flush(List<AuditLog> batch) {
+        long started = System.nanoTime();
+        try {
+            JdbcTemplate jdbc = masterJdbc();
+            Map<Long, String> orgNames = resolveMissingOrgNames(jdbc, batch);
+
+            jdbc.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, entry) -> {
+                ps.setTimestamp(1, Timestamp.valueOf(entry.getTimestamp()));
+                ps.setString(2, entry.getUserEmail());
+                ps.setString(3, entry.getAction());
+                ps.setString(4, entry.getTarget());
+                if (entry.getOrganizationId() != null) ps.setLong(5, entry.getOrganizationId());
+                else ps.setNull(5, Types.BIGINT);
+                String orgName = entry.getOrganizationName() != null
+                        ? entry.getOrganizationName()
+                        : (entry.getOrganizationId() != null ? orgNames.getOrDefault(entry.getOrganizationId(), "Ismeretlen szervezet") : null);
+                ps.setString(6, orgName);
+                ps.setString(7, entry.getDetails());
+            });
+            writtenCount.addAndGet(batch.size());
+        } catch (Exception e) {
+            failedCount.addAndGet(batch.size());
+            log.error("⚠️ Nem sikerült kiírni {} forgalmi naplóbejegyzést: {}", batch.size(), e.getMessage());
+        } finally {
+            long elapsed = System.nanoTime() - started;
+            flushCount.incrementAndGet();
+            totalFlushNanos.addAndGet(elapsed);
+            lastFlushNanos.set(elapsed);
+            maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+        }
+    }
+
+    // Egyetlen lekérdezéssel pótoljuk a köteg összes hiányzó szervezetnevét
+    private Map<Long, String> resolveMissingOrgNames(JdbcTemplate jdbc, List<AuditLog> batch) {
+        List<Long> missingIds = batch.stream()
+                .filter(e -> e.getOrganizationName() == null)
+                .map(AuditLog::getOrganizationId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+
+        if (missingIds.isEmpty()) return Collections.emptyMap();
+
+        String placeholders = String.join(",", Collections.nCopies(missingIds.size(), "?"));
+        Map<Long, String> names = new HashMap<>();
+        jdbc.query("SELECT id, name FROM organizations WHERE id IN (" + placeholders + ")",
+                rs -> { names.put(rs.getLong("id"), rs.getString("name")); },
+                missingIds.toArray());
+        return names;
+    }
+
+    private JdbcTemplate masterJdbc() {
+        if (masterJdbcTemplate == null) {
+            masterJdbcTemplate = new JdbcTemplate(dataSourceConfig.getMasterDataSource());
+        }
+        return masterJdbcTemplate;
+    }
+
+    public Map<String, Object> getMetrics() {
+        long flushes = flushCount.get();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("queueDepth", queue != null ? queue.size() : 0);
+        metrics.put("queueCapacity", queueCapacity);
+        metrics.put("overflowPolicy", overflowPolicy.name());
+        metrics.put("enqueued", enqueuedCount.get());
+        metrics.put("dropped", droppedCount.get());
+        metrics.put("written", writtenCount.get());
+        metrics.put("failed", failedCount.get());
+        metrics.put("flushes", flushes);
+        metrics.put("lastFlushMs", TimeUnit.NANOSECONDS.toMillis(lastFlushNanos.get()));
+        metrics.put("maxFlushMs", TimeUnit.NANOSECONDS.toMillis(maxFlushNanos.get()));
+        metrics.put("avgFlushMs", flushes == 0 ? 0.0 : (totalFlushNanos.get() / (double) flushes) / 1_000_000.0);
+        return metrics;
+    }
+}
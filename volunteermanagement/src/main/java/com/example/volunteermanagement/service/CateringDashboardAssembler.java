@@ -0,0 +1,89 @@
+package com.example.volunteermanagement.service;
+
+import com.example.volunteermanagement.dto.CateringDTO;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * A catering dashboard napi listájának összeállítása a csoportosított lekérdezések soraiból.
+ * Minden forrást egyszer járunk be és azonosító szerint hash-elünk, így a költség
+ * önkéntesek + szkennelések + válaszok arányú (nem önkéntesek × szkennelések).
+ */
+final class CateringDashboardAssembler {
+
+    private static final String[] DIET_KEYWORDS = {"étkezés", "menü", "diéta", "allergia", "érzékenység"};
+
+    /** Jóváhagyott jelentkező: [userId, név, beosztott munkaterület neve] */
+    record VolunteerRow(Long userId, String name, String workAreaName) {}
+
+    /** Egy jelentkezési válasz: [userId, kérdés szövege, válasz] (a válaszok sorrendjében; csak a megjelölt kérdés nélküli eseményeknél) */
+    record AnswerRow(Long userId, String questionText, String answerText) {}
+
+    /** Egy napi kiadás: [napló ID, önkéntes, étkezés, időpont, szkennelő neve] (időrendben) */
+    record ScanRow(Long id, Long volunteerId, String mealType, LocalDateTime consumedAt, String scannedByName) {}
+
+    private CateringDashboardAssembler() {
+    }
+
+    /**
+     * @param allowances önkéntes -> [reggeli, ebéd, vacsora] aznapi keret
+     * @param diets      önkéntes -> menü (a diéta-indexből; aki hiányzik, normál menüt kap)
+     */
+    static List<CateringDTO.CateringVolunteer> assemble(List<VolunteerRow> volunteers,
+                                                        Map<Long, int[]> allowances,
+                                                        Map<Long, DietIndex.DietEntry> diets,
+                                                        List<ScanRow> scans) {
+        Map<Long, List<CateringDTO.MealScanHistory>> scansByVolunteer = new HashMap<>();
+        for (ScanRow scan : scans) {
+            scansByVolunteer.computeIfAbsent(scan.volunteerId(), id -> new ArrayList<>())
+                    .add(new CateringDTO.MealScanHistory(scan.id(), scan.mealType(), scan.consumedAt().toString(), scan.scannedByName()));
+        }
+
+        List<CateringDTO.CateringVolunteer> result = new ArrayList<>(volunteers.size());
+        for (VolunteerRow volunteer : volunteers) {
+            int[] allowance = allowances.get(volunteer.userId());
+
+            List<String> eligibleMeals = new ArrayList<>(3);
+            if (allowance != null) {
+                if (allowance[0] > 0) eligibleMeals.add("BREAKFAST");
+                if (allowance[1] > 0) eligibleMeals.add("LUNCH");
+                if (allowance[2] > 0) eligibleMeals.add("DINNER");
+            }
+
+            DietIndex.DietEntry diet = diets.getOrDefault(volunteer.userId(), DietIndex.DietEntry.DEFAULT);
+            result.add(new CateringDTO.CateringVolunteer(
+                    volunteer.userId(),
+                    volunteer.name(),
+                    volunteer.workAreaName() != null ? volunteer.workAreaName() : "Nincs beosztva",
+                    diet.label(),
+                    diet.category().name(),
+                    eligibleMeals,
+                    scansByVolunteer.getOrDefault(volunteer.userId(), List.of())
+            ));
+        }
+        return result;
+    }
+
+    // Önkéntesenként az első nem üres, étkezésre vonatkozó válasz (kulcsszavas felismerés a régi eseményekhez)
+    static Map<Long, String> dietsByUser(List<AnswerRow> answers) {
+        Map<Long, String> diets = new HashMap<>();
+        for (AnswerRow answer : answers) {
+            if (diets.containsKey(answer.userId()) || !isDietQuestion(answer.questionText())) continue;
+            String pref = answer.answerText();
+            if (pref != null && !pref.trim().isEmpty()) {
+                diets.put(answer.userId(), pref);
+            }
+        }
+        return diets;
+    }
+
+    static boolean isDietQuestion(String questionText) {
+        if (questionText == null) return false;
+        String text = questionText.toLowerCase();
+        for (String keyword : DIET_KEYWORDS) {
+            if (text.contains(keyword)) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,257 @@
+package com.example.volunteermanagement.service;
+
+import com.example.volunteermanagement.dto.CateringDTO;
+import com.example.volunteermanagement.tenant.TenantContext;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A catering dashboard élő csatornája (Server-Sent Events) eseményenként és naponként.
+ * A kliens feliratkozik, megkapja a RESYNC jelzést (ekkor egyszer lekéri a listát és az összesítőt),
+ * utána csak a változásokat kapja: kiadás, visszavonás, diéta-módosítás, jogosultság-változás.
+ *
+ * Minden feliratkozónak korlátos puffere van; ha egy lassú kijelző lemarad, a puffert eldobjuk
+ * és egyetlen RESYNC-et küldünk helyette, így egy lassú kliens sem a memóriát, sem a többieket nem fogja vissza.
+ * A küldés saját szálakon történik, a szkennelő kérést sosem tartja fel.
+ * A változásokat csak a sikeres commit után tesszük ki (egy visszagörgetett kiadás nem jelenik meg).
+ * A csatorna példányonkénti: több alkalmazáspéldánynál a feliratkozó csak a saját példánya változásait látja.
+ */
+@Service
+@Slf4j
+public class CateringStreamHub {
+
+    public static final String SCAN_RECORDED = "SCAN_RECORDED";
+    public static final String SCAN_UNDONE = "SCAN_UNDONE";
+    public static final String DIET_CHANGED = "DIET_CHANGED";
+    public static final String ELIGIBILITY_CHANGED = "ELIGIBILITY_CHANGED";
+    public static final String RESYNC = "RESYNC";
+
+    private static final CateringDTO.CateringStreamEvent RESYNC_EVENT =
+            new CateringDTO.CateringStreamEvent(RESYNC, null, null, null, null, null, null, null);
+
+    private record StreamKey(String tenantId, Long eventId, LocalDate day) {}
+
+    @Value("${app.catering-stream.buffer-size:256}")
+    private int bufferSize;
+
+    @Value("${app.catering-stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${app.catering-stream.sender-threads:2}")
+    private int senderThreads;
+
+    private final Map<StreamKey, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor sender;
+
+    private final AtomicLong eventsPublished = new AtomicLong();
+    private final AtomicLong eventsSent = new AtomicLong();
+    private final AtomicLong overflows = new AtomicLong();
+
+    @PostConstruct
+    void start() {
+        AtomicInteger threadCounter = new AtomicInteger();
+        // Feliratkozónként legfeljebb egy küldő feladat van a sorban, így a sor mérete a feliratkozók számával korlátos
+        sender = new ThreadPoolExecutor(
+                senderThreads, senderThreads,
+                60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "catering-stream-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        sender.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    void stop() {
+        sender.shutdownNow();
+        subscribers.values().forEach(set -> set.forEach(s -> s.emitter.complete()));
+        subscribers.clear();
+    }
+
+    // =========================================================================
+    // FELIRATKOZÁS (a hívó már a helyes Szigeten áll, a jogosultságot ellenőrizte)
+    // =========================================================================
+    public SseEmitter subscribe(Long eventId, LocalDate day) {
+        StreamKey key = new StreamKey(TenantContext.getCurrentTenant(), eventId, day);
+        Subscriber subscriber = new Subscriber(key, new SseEmitter(timeoutMs), Math.max(1, bufferSize));
+
+        subscriber.emitter.onCompletion(() -> remove(subscriber));
+        subscriber.emitter.onTimeout(() -> remove(subscriber));
+        subscriber.emitter.onError(e -> remove(subscriber));
+
+        subscribers.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(subscriber);
+
+        // Az első üzenet mindig RESYNC: a kliens ekkor tölti be a kiinduló állapotot
+        subscriber.resyncPending.set(true);
+        subscriber.schedule();
+        return subscriber.emitter;
+    }
+
+    // =========================================================================
+    // KÖZZÉTÉTEL (a hívó tranzakciójának sikeres commitja után)
+    // =========================================================================
+    public void publish(Long eventId, LocalDate day, CateringDTO.CateringStreamEvent event) {
+        StreamKey key = new StreamKey(TenantContext.getCurrentTenant(), eventId, day);
+        afterCommit(() -> deliver(subscribers.get(key), event));
+    }
+
+    /**
+     * Az esemény minden nyitott napjára (pl. diéta-módosítás, ami napfüggetlen).
+     */
+    public void publishToEvent(Long eventId, CateringDTO.CateringStreamEvent event) {
+        String tenantId = TenantContext.getCurrentTenant();
+        afterCommit(() -> subscribers.forEach((key, set) -> {
+            if (Objects.equals(key.tenantId(), tenantId) && key.eventId().equals(eventId)) {
+                deliver(set, event);
+            }
+        }));
+    }
+
+    /**
+     * Tömeges változás után (műszak módosítása, offline köteg): a kliensek újratöltenek.
+     */
+    public void publishResync(Long eventId, LocalDate day) {
+        StreamKey key = new StreamKey(TenantContext.getCurrentTenant(), eventId, day);
+        afterCommit(() -> Optional.ofNullable(subscribers.get(key)).ifPresent(set -> set.forEach(Subscriber::requestResync)));
+    }
+
+    public void publishResync(Long eventId) {
+        String tenantId = TenantContext.getCurrentTenant();
+        afterCommit(() -> subscribers.forEach((key, set) -> {
+            if (Objects.equals(key.tenantId(), tenantId) && key.eventId().equals(eventId)) {
+                set.forEach(Subscriber::requestResync);
+            }
+        }));
+    }
+
+    public static CateringDTO.CateringStreamEvent event(String type, Long volunteerId) {
+        return new CateringDTO.CateringStreamEvent(type, volunteerId, null, null, null, null, null, null);
+    }
+
+    private void deliver(Set<Subscriber> set, CateringDTO.CateringStreamEvent event) {
+        if (set == null || set.isEmpty()) return;
+        eventsPublished.incrementAndGet();
+        set.forEach(subscriber -> subscriber.offer(event));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.key, (k, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    // A proxyk és böngészők ne zárják le a csendes kapcsolatot; a halott klienseket is így vesszük észre
+    @Scheduled(fixedDelayString = "${app.catering-stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        subscribers.values().forEach(set -> set.forEach(subscriber -> {
+            try {
+                subscriber.emitter.send(SseEmitter.event().comment("ping"));
+            } catch (IOException | IllegalStateException e) {
+                remove(subscriber);
+            }
+        }));
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("streams", subscribers.size());
+        metrics.put("subscribers", subscribers.values().stream().mapToInt(Set::size).sum());
+        metrics.put("eventsPublished", eventsPublished.get());
+        metrics.put("eventsSent", eventsSent.get());
+        metrics.put("overflows", overflows.get());
+        return metrics;
+    }
+
+    private final class Subscriber {
+        private final StreamKey key;
+        private final SseEmitter emitter;
+        private final ArrayBlockingQueue<CateringDTO.CateringStreamEvent> buffer;
+        private final AtomicBoolean resyncPending = new AtomicBoolean();
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        Subscriber(StreamKey key, SseEmitter emitter, int capacity) {
+            this.key = key;
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(capacity);
+        }
+
+        void offer(CateringDTO.CateringStreamEvent event) {
+            if (!buffer.offer(event)) {
+                // Lemaradt: a részletek helyett egyetlen RESYNC (a kliens úgyis újratölt)
+                buffer.clear();
+                resyncPending.set(true);
+                overflows.incrementAndGet();
+            }
+            schedule();
+        }
+
+        void requestResync() {
+            buffer.clear();
+            resyncPending.set(true);
+            schedule();
+        }
+
+        void schedule() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    sender.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                while (true) {
+                    CateringDTO.CateringStreamEvent next = resyncPending.getAndSet(false) ? RESYNC_EVENT : buffer.poll();
+                    if (next == null) break;
+                    emitter.send(SseEmitter.event().name(next.type()).data(next));
+                    eventsSent.incrementAndGet();
+                }
+            } catch (IOException | IllegalStateException e) {
+                // A kliens bontotta a kapcsolatot
+                remove(this);
+                return;
+            } finally {
+                draining.set(false);
+            }
+            // A drain vége és a draining=false között érkezett üzenet se ragadjon a pufferben
+            if (!buffer.isEmpty() || resyncPending.get()) {
+                schedule();
+            }
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.volunteermanagement.service;
+
+import com.example.volunteermanagement.dto.CateringDTO;
+import com.example.volunteermanagement.model.ApplicationStatus;
+import com.example.volunteermanagement.model.AssignmentStatus;
+import com.example.volunteermanagement.model.DietCategory;
+import com.example.volunteermanagement.model.MealType;
+import com.example.volunteermanagement.repository.ApplicationRepository;
+import com.example.volunteermanagement.repository.MealConsumptionLogRepository;
+import com.example.volunteermanagement.repository.ShiftAssignmentRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * A konyha összesítő képernyőjének számai (esemény / nap / étkezés / diéta):
+ *  - planned: hány jóváhagyott önkéntesnek jár aznap az adott étkezés,
+ *  - served: hány adagot adtunk már ki.
+ * A tervezett számokat a változásoknál (beosztás megerősítése, diéta-módosítás) inkrementálisan
+ * frissítjük a catering_summary_counters táblában; a tömeges változásoknál (műszak módosítása,
+ * jelentkezés státusza) csak eldobjuk a nap sorait, és az első olvasás újraépíti őket.
+ * A kiadott adagokat olvasáskor a naplóból számoljuk (egy csoportosított lekérdezés), így a szkennelés
+ * tranzakciója nem ír közös számlálósort, és a párhuzamos kiadások nem sorosodnak rajta.
+ * Minden metódus a hívó bérlőjén (Szigetén) és tranzakciójában fut.
+ */
+@Service
+@RequiredArgsConstructor
+public class CateringSummaryService {
+
+    private static final DietCategory[] DIETS = DietCategory.values();
+    private static final List<MealType> MEALS = List.of(MealType.BREAKFAST, MealType.LUNCH, MealType.DINNER);
+
+    private static final String SELECT_SQL = "SELECT meal_type, diet, planned, built_at FROM catering_summary_counters " +
+            "WHERE event_id = ? AND meal_date = ?";
+    private static final String INSERT_SQL = "INSERT INTO catering_summary_counters " +
+            "(event_id, meal_date, meal_type, diet, planned, built_at) VALUES (?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (event_id, meal_date, meal_type, diet) DO NOTHING";
+    private static final String ADD_PLANNED_SQL = "UPDATE catering_summary_counters SET planned = GREATEST(planned + ?, 0) " +
+            "WHERE event_id = ? AND meal_date = ? AND meal_type = ? AND diet = ?";
+
+    /**
+     * Egy önkéntes hozzájárulása a tervezett számokhoz (a változás előtt és után felvéve).
+     */
+    public record VolunteerMealSnapshot(Long userId, boolean approved, DietCategory diet, Map<LocalDate, int[]> allowancesByDay) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationRepository applicationRepository;
+    private final DietIndex dietIndex;
+    private final ShiftAssignmentRepository shiftAssignmentRepository;
+    private final MealConsumptionLogRepository mealLogRepository;
+
+    // Ennyi idő után olvasáskor akkor is újraépítjük a napot, ha nem jött értesítés (pl. egy elveszett frissítés miatt)
+    @Value("${app.catering-summary.rebuild-interval-ms:600000}")
+    private long rebuildIntervalMs;
+
+    // --- Olvasás ---
+
+    public CateringDTO.CateringSummary getSummary(Long eventId, LocalDate day) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(SELECT_SQL, eventId, Date.valueOf(day));
+        if (rows.isEmpty() || isStale(rows)) {
+            rebuild(eventId, day);
+            rows = jdbcTemplate.queryForList(SELECT_SQL, eventId, Date.valueOf(day));
+        }
+
+        int[][] planned = new int[MEALS.size()][DIETS.length];
+        for (Map<String, Object> row : rows) {
+            int meal = MEALS.indexOf(MealType.valueOf((String) row.get("meal_type")));
+            if (meal < 0) continue;
+            int diet = DietCategory.valueOf((String) row.get("diet")).ordinal();
+            planned[meal][diet] = ((Number) row.get("planned")).intValue();
+        }
+        int[][] served = countServed(eventId, day);
+
+        return new CateringDTO.CateringSummary(
+                toStats(planned[0]), toStats(planned[1]), toStats(planned[2]),
+                toStats(served[0]), toStats(served[1]), toStats(served[2])
+        );
+    }
+
+    private boolean isStale(List<Map<String, Object>> rows) {
+        LocalDateTime limit = LocalDateTime.now().minusNanos(rebuildIntervalMs * 1_000_000L);
+        return rows.stream()
+                .map(row -> ((Timestamp) row.get("built_at")).toLocalDateTime())
+                .anyMatch(builtAt -> builtAt.isBefore(limit));
+    }
+
+    // A naplóban a kiadáskori menü szövege van: ezt soroljuk be
+    private int[][] countServed(Long eventId, LocalDate day) {
+        int[][] served = new int[MEALS.size()][DIETS.length];
+        for (Object[] row : mealLogRepository.countServedByMealAndDiet(eventId, day.atStartOfDay(), day.atTime(LocalTime.MAX))) {
+            int meal = MEALS.indexOf((MealType) row[0]);
+            if (meal < 0) continue;
+            served[meal][DietCategory.fromAnswer((String) row[1]).ordinal()] += ((Number) row[2]).intValue();
+        }
+        return served;
+    }
+
+    private static CateringDTO.MealStats toStats(int[] byDiet) {
+        int total = Arrays.stream(byDiet).sum();
+        return new CateringDTO.MealStats(
+                byDiet[DietCategory.NORMAL.ordinal()],
+                byDiet[DietCategory.VEGETARIAN.ordinal()],
+                byDiet[DietCategory.VEGAN.ordinal()],
+                byDiet[DietCategory.GLUTEN_FREE.ordinal()],
+                byDiet[DietCategory.LACTOSE_FREE.ordinal()],
+                total);
+    }
+
+    // --- Teljes újraépítés (csak az első olvasáskor vagy tömeges változás után) ---
+
+    public void rebuild(Long eventId, LocalDate day) {
+        LocalDateTime startOfDay = day.atStartOfDay();
+        LocalDateTime endOfDay = day.atTime(LocalTime.MAX);
+
+        Set<Long> approvedUsers = new HashSet<>();
+        for (Object[] row : applicationRepository.findVolunteerRowsByEventAndStatus(eventId, ApplicationStatus.APPROVED)) {
+            approvedUsers.add((Long) row[0]);
+        }
+
+        Map<Long, DietIndex.DietEntry> diets = dietIndex.entries(eventId);
+
+        int[][] planned = new int[MEALS.size()][DIETS.length];
+        for (Object[] row : shiftAssignmentRepository.sumMealsPerUserForDay(eventId, startOfDay, endOfDay, AssignmentStatus.CONFIRMED)) {
+            Long userId = (Long) row[0];
+            if (!approvedUsers.contains(userId)) continue;
+            int diet = diets.getOrDefault(userId, DietIndex.DietEntry.DEFAULT).category().ordinal();
+            for (int meal = 0; meal < MEALS.size(); meal++) {
+                if (((Number) row[meal + 1]).intValue() > 0) planned[meal][diet]++;
+            }
+        }
+
+        Timestamp builtAt = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> inserts = new ArrayList<>();
+        for (int meal = 0; meal < MEALS.size(); meal++) {
+            for (int diet = 0; diet < DIETS.length; diet++) {
+                inserts.add(new Object[]{eventId, Date.valueOf(day), MEALS.get(meal).name(), DIETS[diet].name(),
+                        planned[meal][diet], builtAt});
+            }
+        }
+
+        invalidateDay(eventId, day);
+        jdbcTemplate.batchUpdate(INSERT_SQL, inserts);
+    }
+
+    // --- Inkrementális frissítés ---
+
+    /**
+     * Egy önkéntes aktuális hozzájárulása a tervezett számokhoz (jóváhagyott-e, diéta, napi keretek).
+     */
+    public VolunteerMealSnapshot snapshot(Long eventId, Long userId) {
+        boolean approved = applicationRepository.findByUserIdAndEventId(userId, eventId).stream()
+                .anyMatch(app -> app.getStatus() == ApplicationStatus.APPROVED);
+
+        Map<LocalDate, int[]> byDay = new HashMap<>();
+        for (Object[] row : shiftAssignmentRepository.findMealRowsForUser(userId, eventId, AssignmentStatus.CONFIRMED)) {
+            int[] sums = byDay.computeIfAbsent(((LocalDateTime) row[0]).toLocalDate(), d -> new int[MEALS.size()]);
+            for (int meal = 0; meal < MEALS.size(); meal++) {
+                sums[meal] += ((Number) row[meal + 1]).intValue();
+            }
+        }
+        return new VolunteerMealSnapshot(userId, approved, dietIndex.dietOf(eventId, userId).category(), byDay);
+    }
+
+    /**
+     * A két pillanatkép különbségét vezeti át a tervezett számlálókon (csak a már felépített napokon).
+     */
+    public void applyChange(Long eventId, VolunteerMealSnapshot before, VolunteerMealSnapshot after) {
+        Set<LocalDate> days = new HashSet<>(before.allowancesByDay().keySet());
+        days.addAll(after.allowancesByDay().keySet());
+
+        List<Object[]> updates = new ArrayList<>();
+        for (LocalDate day : days) {
+            for (int meal = 0; meal < MEALS.size(); meal++) {
+                boolean wasEligible = isEligible(before, day, meal);
+                boolean isEligible = isEligible(after, day, meal);
+                boolean sameDiet = Objects.equals(before.diet(), after.diet());
+
+                if (wasEligible && !(isEligible && sameDiet)) {
+                    updates.add(new Object[]{-1, eventId, Date.valueOf(day), MEALS.get(meal).name(), before.diet().name()});
+                }
+                if (isEligible && !(wasEligible && sameDiet)) {
+                    updates.add(new Object[]{1, eventId, Date.valueOf(day), MEALS.get(meal).name(), after.diet().name()});
+                }
+            }
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(ADD_PLANNED_SQL, updates);
+        }
+    }
+
+    /**
+     * Az önkéntesnek az adott napon járó étkezések (az élő csatorna jogosultság-üzenetéhez).
+     */
+    public static List<String> eligibleMeals(VolunteerMealSnapshot snapshot, LocalDate day) {
+        List<String> meals = new ArrayList<>(MEALS.size());
+        for (int meal = 0; meal < MEALS.size(); meal++) {
+            if (isEligible(snapshot, day, meal)) meals.add(MEALS.get(meal).name());
+        }
+        return meals;
+    }
+
+    private static boolean isEligible(VolunteerMealSnapshot snapshot, LocalDate day, int meal) {
+        int[] sums = snapshot.allowancesByDay().get(day);
+        return snapshot.approved() && sums != null && sums[meal] > 0;
+    }
+
+    // --- Érvénytelenítés (az első olvasás újraépít) ---
+
+    public void invalidateDay(Long eventId, LocalDate day) {
+        if (eventId == null || day == null) return;
+        jdbcTemplate.update("DELETE FROM catering_summary_counters WHERE event_id = ? AND meal_date = ?", eventId, Date.valueOf(day));
+    }
+
+    public void invalidateEvent(Long eventId) {
+        if (eventId == null) return;
+        jdbcTemplate.update("DELETE FROM catering_summary_counters WHERE event_id = ?", eventId);
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.volunteermanagement.service;
 
+import com.example.volunteermanagement.config.DataSourceConfig;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -8,7 +9,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.Statement;
 import java.util.List;
 import java.util.Map;
@@ -19,6 +19,8 @@ import java.util.Map;
 public class DataCleanupService {
 
     private final JdbcTemplate jdbcTemplate;
+    private final DataSourceConfig dataSourceConfig;
+    private final EventTenantDirectory eventTenantDirectory;
 
     // Cron kifejezés: Minden éjjel 02:00-kor lefut
     @Scheduled(cron = "0 0 2 * * ?")
@@ -59,11 +61,13 @@ public class DataCleanupService {
 
             log.warn("⚠️ SZERVEZET VÉGLEGES TÖRLÉSE INDUL: {} (Adatbázis: {})", org.get("name"), dbName);
 
-            // A) Sziget felrobbantása (Drop Database)
+            // A) Sziget felrobbantása (Drop Database) - előtte a saját poolunkat is lezárjuk
+            dataSourceConfig.removeTenantDataSource(tenantId);
             dropTenantDatabase(dbName);
 
             // B) Szervezet törlése a Mesterből
             jdbcTemplate.update("DELETE FROM organizations WHERE id = ?", orgId);
+            eventTenantDirectory.invalidateOrganization(orgId);
             log.info("✅ Szervezet eltávolítva a Mester adatbázisból is: {}", orgId);
         }
 
@@ -71,7 +75,8 @@ public class DataCleanupService {
     }
 
     private void cleanUpTenantDatabaseEvents(String dbName) {
-        try (Connection conn = DriverManager.getConnection("jdbc:postgresql://localhost:5432/" + dbName, "postgres", "jelszo");
+        // A sziget poolját használjuk (nem nyitunk minden szigethez új, közvetlen kapcsolatot)
+        try (Connection conn = dataSourceConfig.openTenantConnection(dbName);
              Statement stmt = conn.createStatement()) {
             int deleted = stmt.executeUpdate("DELETE FROM events WHERE deleted_at < CURRENT_TIMESTAMP - INTERVAL '30 days'");
             if (deleted > 0) {
@@ -83,9 +88,17 @@ public class DataCleanupService {
     }
 
     private void dropTenantDatabase(String dbName) {
-        try (Connection connection = DriverManager.getConnection("jdbc:postgresql://localhost:5432/master_db", "postgres", "jelszo");
+        try (Connection connection = dataSourceConfig.openDirectProvisioningConnection();
              Statement statement = connection.createStatement()) {
 
+            // Séma módban csak a bérlő sémáját töröljük a közös adatbázisból
+            if (dataSourceConfig.isSchemaPerTenant()) {
+                String schema = dataSourceConfig.getTenantSchemaName(dbName);
+                statement.execute("DROP SCHEMA IF EXISTS \"" + schema + "\" CASCADE");
+                log.info("💥 Bérlői séma sikeresen megsemmisítve: {}", schema);
+                return;
+            }
+
             // Hogy biztosan ki lehessen törölni a szigetet, erőszakkal kiléptetünk mindenkit (nyitott kapcsolatok lezárása)
             statement.execute("SELECT pg_terminate_backend(pg_stat_activity.pid) FROM pg_stat_activity WHERE pg_stat_activity.datname = '" + dbName + "' AND pid <> pg_backend_pid()");
 
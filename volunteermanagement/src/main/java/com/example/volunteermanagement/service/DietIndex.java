@@ -0,0 +1,144 @@
+package com.example.volunteermanagement.service;
+
+import com.example.volunteermanagement.cache.TtlCache;
+import com.example.volunteermanagement.model.DietCategory;
+import com.example.volunteermanagement.model.EventQuestion;
+import com.example.volunteermanagement.model.QuestionPurpose;
+import com.example.volunteermanagement.repository.ApplicationAnswerRepository;
+import com.example.volunteermanagement.repository.EventQuestionRepository;
+import com.example.volunteermanagement.tenant.TenantContext;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Eseményenkénti diéta-index: önkéntes -> menü (a válasz szövege és a normalizált kategória).
+ * Az esemény DIETARY_PREFERENCE céllal megjelölt kérdéséből épül, egyetlen lekérdezéssel,
+ * így a szkennelés és a dashboard nem járja be a jelentkezések válaszait és nem keres kulcsszavakat.
+ * Régi (megjelölt kérdés nélküli) eseménynél a kérdés szövegéből próbáljuk kitalálni a menü kérdést.
+ * A hívó bérlőjén (Szigetén) és tranzakciójában töltődik.
+ */
+@Service
+@RequiredArgsConstructor
+public class DietIndex {
+
+    /**
+     * Egy önkéntes menüje: a kiírt szöveg (ahogy a jelentkezési lapon szerepel) és a kategóriája.
+     */
+    public record DietEntry(String label, DietCategory category) {
+        public static final DietEntry DEFAULT = new DietEntry(DietCategory.NORMAL.getLabel(), DietCategory.NORMAL);
+
+        static DietEntry of(String answer) {
+            if (answer == null || answer.isBlank()) return DEFAULT;
+            return new DietEntry(answer, DietCategory.fromAnswer(answer));
+        }
+    }
+
+    private record IndexKey(String tenantId, Long eventId) {}
+
+    private final ApplicationAnswerRepository applicationAnswerRepository;
+    private final EventQuestionRepository eventQuestionRepository;
+
+    @Value("${app.diet-index.max-size:1000}")
+    private int maxSize;
+
+    @Value("${app.diet-index.ttl-ms:600000}")
+    private long ttlMs;
+
+    private TtlCache<IndexKey, Map<Long, DietEntry>> indexes;
+
+    @PostConstruct
+    void init() {
+        indexes = new TtlCache<>("dietIndex", maxSize, ttlMs);
+    }
+
+    // --- Olvasás ---
+
+    public DietEntry dietOf(Long eventId, Long userId) {
+        return index(eventId).getOrDefault(userId, DietEntry.DEFAULT);
+    }
+
+    /**
+     * Az esemény összes ismert menüje (akinek nincs válasza, az hiányzik: neki DietEntry.DEFAULT jár).
+     */
+    public Map<Long, DietEntry> entries(Long eventId) {
+        return Collections.unmodifiableMap(index(eventId));
+    }
+
+    private Map<Long, DietEntry> index(Long eventId) {
+        return indexes.get(new IndexKey(TenantContext.getCurrentTenant(), eventId), key -> load(key.eventId()));
+    }
+
+    private Map<Long, DietEntry> load(Long eventId) {
+        Map<Long, DietEntry> index = new ConcurrentHashMap<>();
+        Optional<EventQuestion> dietQuestion = eventQuestionRepository.findByEventIdAndPurpose(eventId, QuestionPurpose.DIETARY_PREFERENCE);
+
+        if (dietQuestion.isPresent()) {
+            // Több jelentkezés (munkaterület) esetén az első nem üres válasz számít
+            for (Object[] row : applicationAnswerRepository.findAnswerRowsByQuestion(dietQuestion.get().getId())) {
+                String answer = (String) row[1];
+                if (answer != null && !answer.isBlank()) {
+                    index.putIfAbsent((Long) row[0], DietEntry.of(answer));
+                }
+            }
+        } else {
+            List<CateringDashboardAssembler.AnswerRow> answers = applicationAnswerRepository.findAnswerRowsByEvent(eventId).stream()
+                    .map(row -> new CateringDashboardAssembler.AnswerRow((Long) row[0], (String) row[1], (String) row[2]))
+                    .toList();
+            CateringDashboardAssembler.dietsByUser(answers).forEach((userId, answer) -> index.put(userId, DietEntry.of(answer)));
+        }
+        return index;
+    }
+
+    // --- Frissítés ---
+
+    /**
+     * Egy válasz módosult: az indexet azonnal frissítjük (a tranzakció további lépései már az új menüt látják);
+     * ha a tranzakció mégsem commitol, az esemény indexét eldobjuk.
+     */
+    public void update(Long eventId, Long userId, String answer) {
+        IndexKey key = new IndexKey(TenantContext.getCurrentTenant(), eventId);
+        Map<Long, DietEntry> index = indexes.getIfPresent(key);
+        if (index != null) {
+            DietEntry entry = DietEntry.of(answer);
+            if (entry == DietEntry.DEFAULT) index.remove(userId); else index.put(userId, entry);
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) indexes.invalidate(key);
+                }
+            });
+        }
+    }
+
+    /**
+     * Új jelentkezés vagy módosított kérdéssor: az esemény indexe a következő olvasáskor újraépül.
+     */
+    public void invalidateEvent(Long eventId) {
+        if (eventId == null) return;
+        IndexKey key = new IndexKey(TenantContext.getCurrentTenant(), eventId);
+        indexes.invalidate(key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Commit után újra ürítünk, hogy egy közben párhuzamosan betöltött régi index se ragadjon bent
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    indexes.invalidate(key);
+                }
+            });
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        return indexes.getStats();
+    }
+}
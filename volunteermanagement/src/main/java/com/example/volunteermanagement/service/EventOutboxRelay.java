@@ -0,0 +1,338 @@
+package com.example.volunteermanagement.service;
+
+import com.example.volunteermanagement.config.DataSourceConfig;
+import com.example.volunteermanagement.tenant.TenantContext;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A Szigeten élő események kirakat-másolatának (Mester "events") frissítése, a kérés útvonalán kívül.
+ * <ul>
+ *     <li>Az esemény módosításával egy tranzakcióban egy sor kerül a Sziget "event_outbox" táblájába
+ *     (ami nem commitol, az a kirakatba sem jut el).</li>
+ *     <li>Commit után a háttérben futó relé kiolvassa a sort, az esemény aktuális állapotát
+ *     (vagy a törlését) kötegben a {@link ReplicationOutbox}-ba adja, ami idempotens upsertekkel,
+ *     újrapróbálkozással viszi át a Mesterbe.</li>
+ *     <li>Egy ritkább egyeztetés a változási időbélyegek (updated_at / deleted_at) alapján pótolja,
+ *     ami mégis kimaradt (pl. a relé előtt leállt az alkalmazás), a teljes újramásolás helyett.</li>
+ * </ul>
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EventOutboxRelay {
+
+    private static final String EVENT_COLUMNS = "id, organization_id, title, description, location, start_time, end_time, " +
+            "application_deadline, is_registration_open, banner_url, breakfast_start_time, breakfast_end_time, " +
+            "lunch_start_time, lunch_end_time, dinner_start_time, dinner_end_time, updated_at, deleted_at";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceConfig dataSourceConfig;
+    private final ReplicationOutbox replicationOutbox;
+
+    @Value("${app.event-outbox.batch-size:500}")
+    private int batchSize;
+
+    // Az egyeztetés ennyivel a legutóbbi futás kezdete elé néz vissza (a később commitoló tranzakciók miatt)
+    @Value("${app.event-outbox.reconcile-overlap-ms:60000}")
+    private long reconcileOverlapMs;
+
+    private final Set<String> dirtyTenants = ConcurrentHashMap.newKeySet();
+    private ExecutorService relayExecutor;
+    private JdbcTemplate masterJdbcTemplate;
+
+    // --- Metrikák ---
+    private final AtomicLong recordedCount = new AtomicLong();
+    private final AtomicLong relayedCount = new AtomicLong();
+    private final AtomicLong relayFailureCount = new AtomicLong();
+    private final AtomicLong reconciledCount = new AtomicLong();
+    private final AtomicLong reconcileRunCount = new AtomicLong();
+    private final AtomicReference<LocalDateTime> lastReconcileAt = new AtomicReference<>();
+
+    @PostConstruct
+    void start() {
+        masterJdbcTemplate = new JdbcTemplate(dataSourceConfig.getMasterDataSource());
+        relayExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "event-outbox-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        relayExecutor.shutdown();
+        relayExecutor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Egy esemény változásának rögzítése a hívó (Sziget) tranzakciójában. A Mesterben élő eseményeknek
+     * nincs külön kirakat-másolata, ott nincs teendő.
+     */
+    public void record(Long eventId) {
+        String tenantId = TenantContext.getCurrentTenant();
+        if (tenantId == null || eventId == null) return;
+
+        jdbcTemplate.update("INSERT INTO event_outbox (event_id, created_at) VALUES (?, ?)",
+                eventId, Timestamp.valueOf(LocalDateTime.now()));
+        recordedCount.incrementAndGet();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    trigger(tenantId);
+                }
+            });
+        } else {
+            trigger(tenantId);
+        }
+    }
+
+    private void trigger(String tenantId) {
+        dirtyTenants.add(tenantId);
+        try {
+            relayExecutor.execute(this::relayDirty);
+        } catch (Exception e) {
+            // Leállás közben: a sor megmarad, a következő indulás utáni söprés viszi át
+            log.debug("Kirakat relé: az indítás kihagyva: {}", e.getMessage());
+        }
+    }
+
+    // Biztonsági söprés (pl. ha egy jelzés elveszett, vagy több példány fut): csak a nyitott poolú szigeteket nézi át,
+    // hogy a tétlen bérlők poolját ne tartsa életben. A zárt poolú szigeten maradt sort az egyeztetés pótolja.
+    @Scheduled(fixedDelayString = "${app.event-outbox.sweep-interval-ms:60000}")
+    public void sweep() {
+        try {
+            activeTenants().stream().filter(dataSourceConfig::hasOpenTenantPool).forEach(dirtyTenants::add);
+            if (!dirtyTenants.isEmpty()) relayExecutor.execute(this::relayDirty);
+        } catch (Exception e) {
+            log.debug("Kirakat relé: a söprés kihagyva: {}", e.getMessage());
+        }
+    }
+
+    private void relayDirty() {
+        for (String tenantId : new ArrayList<>(dirtyTenants)) {
+            dirtyTenants.remove(tenantId);
+            try {
+                relayTenant(tenantId);
+            } catch (Exception e) {
+                relayFailureCount.incrementAndGet();
+                log.warn("⚠️ Kirakat relé: a(z) {} sziget kimenő sorát nem sikerült átvinni: {}", tenantId, e.getMessage());
+            }
+        }
+        replicationOutbox.deliver(ReplicationOutbox.MASTER);
+    }
+
+    private void relayTenant(String tenantId) throws SQLException {
+        try (Connection conn = dataSourceConfig.openTenantConnection(tenantId + "_db")) {
+            while (true) {
+                List<Long> outboxIds = new ArrayList<>();
+                Set<Long> eventIds = new LinkedHashSet<>();
+                try (PreparedStatement ps = conn.prepareStatement("SELECT id, event_id FROM event_outbox ORDER BY id LIMIT ?")) {
+                    ps.setInt(1, batchSize);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            outboxIds.add(rs.getLong(1));
+                            eventIds.add(rs.getLong(2));
+                        }
+                    }
+                }
+                if (outboxIds.isEmpty()) return;
+
+                // Ugyanannak az eseménynek több változása egyetlen (aktuális) állapottá olvad össze
+                List<ReplicationOutbox.Change> changes;
+                try (PreparedStatement ps = conn.prepareStatement("SELECT " + EVENT_COLUMNS + " FROM events WHERE id = ANY(?)")) {
+                    ps.setArray(1, conn.createArrayOf("bigint", eventIds.toArray()));
+                    changes = readChanges(ps);
+                }
+
+                // Előbb a Mester tartós sorába, csak utána töröljük a Szigetről (legrosszabb esetben kétszer megy át)
+                replicationOutbox.enqueue(ReplicationOutbox.MASTER, changes);
+                try (PreparedStatement ps = conn.prepareStatement("DELETE FROM event_outbox WHERE id = ANY(?)")) {
+                    ps.setArray(1, conn.createArrayOf("bigint", outboxIds.toArray()));
+                    ps.executeUpdate();
+                }
+                relayedCount.addAndGet(changes.size());
+                if (outboxIds.size() < batchSize) return;
+            }
+        }
+    }
+
+    /**
+     * Növekményes egyeztetés: szigetenként csak a legutóbbi futás óta változott (vagy törölt)
+     * eseményeket adja a replikációs sorba. Az első futás (még nincs vízjel) mindent átvisz.
+     * A relé szálán fut (az ütemező szála csak elindítja), a zárt poolú szigetekhez pool nélküli kapcsolattal.
+     */
+    @Scheduled(initialDelayString = "${app.event-outbox.reconcile-initial-delay-ms:120000}",
+            fixedDelayString = "${app.event-outbox.reconcile-interval-ms:900000}")
+    public void reconcileScheduled() {
+        try {
+            relayExecutor.execute(() -> {
+                try {
+                    reconcileInRelay();
+                } catch (Exception e) {
+                    log.warn("⚠️ Kirakat egyeztetés elbukott: {}", e.getMessage());
+                }
+            });
+        } catch (Exception e) {
+            log.debug("Kirakat egyeztetés kihagyva: {}", e.getMessage());
+        }
+    }
+
+    // Kézi indítás (admin): ugyanazon a szálon, mint a relé, így nem fut párhuzamosan az ütemezett egyeztetéssel
+    public String reconcileAll() {
+        try {
+            return relayExecutor.submit(this::reconcileInRelay).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("A kirakat egyeztetés megszakadt!", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw new RuntimeException("A kirakat egyeztetés nem sikerült: " + cause.getMessage(), cause);
+        }
+    }
+
+    private String reconcileInRelay() {
+        int reconciled = 0;
+        int failedTenants = 0;
+        StringBuilder errorLog = new StringBuilder();
+
+        for (String tenantId : activeTenants()) {
+            try {
+                reconciled += reconcileTenant(tenantId);
+            } catch (Exception e) {
+                failedTenants++;
+                errorLog.append("[Sziget: ").append(tenantId).append(" - ").append(e.getMessage()).append("] ");
+                log.warn("⚠️ Kirakat egyeztetés: a(z) {} szigetet nem sikerült egyeztetni: {}", tenantId, e.getMessage());
+            }
+        }
+        int pending = replicationOutbox.deliver(ReplicationOutbox.MASTER).size();
+        reconcileRunCount.incrementAndGet();
+        lastReconcileAt.set(LocalDateTime.now());
+
+        return "Egyeztetés kész! \n" +
+                "🔄 Változott események: " + reconciled + " db \n" +
+                "⏳ Függőben (a replikációs sor újrapróbálja): " + pending + " db \n" +
+                "❌ Hibás szigetek: " + failedTenants + " db \n" +
+                (failedTenants > 0 ? "Hibák részletei: " + errorLog : "");
+    }
+
+    private int reconcileTenant(String tenantId) throws SQLException {
+        LocalDateTime startedAt = LocalDateTime.now();
+        List<Timestamp> watermarks = masterJdbcTemplate.queryForList(
+                "SELECT reconciled_until FROM event_replication_state WHERE tenant_id = ?", Timestamp.class, tenantId);
+        Timestamp since = watermarks.isEmpty() ? null : watermarks.get(0);
+
+        String sql = "SELECT " + EVENT_COLUMNS + " FROM events WHERE id > ? " +
+                (since != null ? "AND (updated_at > ? OR deleted_at > ?) " : "") + "ORDER BY id LIMIT ?";
+        int count = 0;
+        long lastId = 0;
+        try (Connection conn = dataSourceConfig.openBackgroundTenantConnection(tenantId + "_db");
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            while (true) {
+                int index = 1;
+                ps.setLong(index++, lastId);
+                if (since != null) {
+                    ps.setTimestamp(index++, since);
+                    ps.setTimestamp(index++, since);
+                }
+                ps.setInt(index, batchSize);
+
+                List<ReplicationOutbox.Change> changes = readChanges(ps);
+                if (changes.isEmpty()) break;
+                replicationOutbox.enqueue(ReplicationOutbox.MASTER, changes);
+                count += changes.size();
+                lastId = Long.parseLong(changes.get(changes.size() - 1).entityKey());
+                if (changes.size() < batchSize) break;
+            }
+        }
+
+        // Minden sor a sorban van: a vízjel a futás kezdete (átfedéssel), nem a látott legnagyobb időbélyeg
+        Timestamp until = Timestamp.valueOf(startedAt.minusNanos(reconcileOverlapMs * 1_000_000));
+        masterJdbcTemplate.update("INSERT INTO event_replication_state (tenant_id, reconciled_until) VALUES (?, ?) " +
+                "ON CONFLICT (tenant_id) DO UPDATE SET reconciled_until = EXCLUDED.reconciled_until", tenantId, until);
+        reconciledCount.addAndGet(count);
+        return count;
+    }
+
+    // Az események (a törölteket is beleértve) kirakat-változásként, id szerinti sorrendben
+    private List<ReplicationOutbox.Change> readChanges(PreparedStatement ps) throws SQLException {
+        List<ReplicationOutbox.Change> changes = new ArrayList<>();
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                long id = rs.getLong("id");
+                Timestamp deletedAt = rs.getTimestamp("deleted_at");
+                if (deletedAt != null) {
+                    changes.add(ReplicationOutbox.Change.eventDeletion(id, deletedAt.toLocalDateTime()));
+                    continue;
+                }
+                changes.add(ReplicationOutbox.Change.event(new ReplicationOutbox.EventCopy(id, rs.getLong("organization_id"),
+                        rs.getString("title"), rs.getString("description"), rs.getString("location"),
+                        toDateTime(rs.getTimestamp("start_time")), toDateTime(rs.getTimestamp("end_time")),
+                        toDateTime(rs.getTimestamp("application_deadline")),
+                        rs.getBoolean("is_registration_open"), rs.getString("banner_url"),
+                        toTime(rs.getTime("breakfast_start_time")), toTime(rs.getTime("breakfast_end_time")),
+                        toTime(rs.getTime("lunch_start_time")), toTime(rs.getTime("lunch_end_time")),
+                        toTime(rs.getTime("dinner_start_time")), toTime(rs.getTime("dinner_end_time")))));
+            }
+        }
+        return changes;
+    }
+
+    private List<String> activeTenants() {
+        return masterJdbcTemplate.queryForList(
+                "SELECT tenant_id FROM organizations WHERE deleted_at IS NULL AND tenant_id IS NOT NULL AND tenant_id <> ''",
+                String.class);
+    }
+
+    private static LocalDateTime toDateTime(Timestamp value) {
+        return value != null ? value.toLocalDateTime() : null;
+    }
+
+    private static LocalTime toTime(Time value) {
+        return value != null ? value.toLocalTime() : null;
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("recorded", recordedCount.get());
+        metrics.put("relayed", relayedCount.get());
+        metrics.put("relayFailures", relayFailureCount.get());
+        metrics.put("dirtyTenants", dirtyTenants.size());
+        metrics.put("reconcileRuns", reconcileRunCount.get());
+        metrics.put("reconciled", reconciledCount.get());
+        metrics.put("lastReconcileAt", lastReconcileAt.get() != null ? lastReconcileAt.get().toString() : null);
+        return metrics;
+    }
+}
@@ -35,6 +35,13 @@ public class EventService {
     private final ShiftRepository shiftRepository;
     private final EventTeamMemberRepository eventTeamMemberRepository;
     private final TransactionTemplate transactionTemplate;
+    private final EventTenantDirectory eventTenantDirectory;
+    private final MealAllowanceLedger mealAllowanceLedger;
+    private final DietIndex dietIndex;
+    private final MyShiftView myShiftView;
+    private final VolunteerStatsService volunteerStatsService;
+    private final StatisticsService statisticsService;
+    private final EventOutboxRelay eventOutboxRelay;
 
     @Autowired
     @Lazy
@@ -113,7 +120,8 @@ public class EventService {
         }
 
         Event savedEvent = eventRepository.save(event);
-        syncEventToMaster(savedEvent, org.getId());
+        eventOutboxRelay.record(savedEvent.getId());
+        eventTenantDirectory.invalidateEvent(savedEvent.getId());
 
         EventTeamMember teamMember = EventTeamMember.builder()
                 .event(savedEvent)
@@ -249,27 +257,21 @@ public class EventService {
 
     @Transactional(readOnly = true)
     public EventDTO getEventDTOById(Long id) {
+        // Az útvonalat (és a szervezet adatait) a címtárból vesszük, nem kérdezzük a Mestert minden hívásnál
+        EventTenantDirectory.EventRoute route = eventTenantDirectory.resolve(id)
+                .orElseThrow(() -> new RuntimeException("Esemény nem található!"));
+
         String originalTenant = TenantContext.getCurrentTenant();
         try {
-            TenantContext.setCurrentTenant(null);
-            Event masterEvent = eventRepository.findById(id)
-                    .orElseThrow(() -> new RuntimeException("Esemény nem található!"));
-
-            Organization org = masterEvent.getOrganization();
-
-            if (org != null && org.getTenantId() != null && !org.getTenantId().trim().isEmpty()) {
-                TenantContext.setCurrentTenant(org.getTenantId());
-                return self.fetchFullEventDTOInTenant(id, org);
-            }
-
-            return convertToDTOWithOrg(masterEvent, org);
+            TenantContext.setCurrentTenant(route.hasTenant() ? route.tenantId() : null);
+            return self.fetchFullEventDTOInTenant(id, route.organization());
         } finally {
             TenantContext.setCurrentTenant(originalTenant);
         }
     }
 
     @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
-    public EventDTO fetchFullEventDTOInTenant(Long id, Organization org) {
+    public EventDTO fetchFullEventDTOInTenant(Long id, OrganizationDTO org) {
         Event event = eventRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Esemény nem található a bérlőben!"));
         return convertToDTOWithOrg(event, org);
@@ -317,6 +319,10 @@ public class EventService {
 
         if (dto.workAreas() != null) {
             List<Long> incomingWaIds = dto.workAreas().stream().filter(w -> w.id() != null).map(WorkAreaDTO::id).collect(Collectors.toList());
+            if (event.getWorkAreas().stream().anyMatch(existingWa -> !incomingWaIds.contains(existingWa.getId()))) {
+                // A törölt területek műszakjai a beosztásokkal együtt törlődnek: az érintettek statisztikája újraépül
+                volunteerStatsService.invalidateEvent(event.getId());
+            }
             event.getWorkAreas().removeIf(existingWa -> !incomingWaIds.contains(existingWa.getId()));
 
             for (WorkAreaDTO waDto : dto.workAreas()) {
@@ -364,7 +370,13 @@ public class EventService {
         }
 
         Event updatedEvent = eventRepository.save(event);
-        updateEventInMaster(updatedEvent);
+        // A menü kérdés (DIETARY_PREFERENCE) változhatott: a diéta-index újraépül
+        dietIndex.invalidateEvent(updatedEvent.getId());
+        // Az eseménycím és a területnevek a "Műszakjaim" nézetben is szerepelnek
+        myShiftView.invalidateEvent(updatedEvent.getId());
+        // Törölt/új területek és műszakok: a betöltöttségi statisztika is elavul
+        statisticsService.invalidateEventStats(updatedEvent.getId());
+        eventOutboxRelay.record(updatedEvent.getId());
 
         auditLogService.logAction(requesterEmail, "EVENT_UPDATED", "Esemény: " + updatedEvent.getTitle(), "Módosult.", orgId);
 
@@ -377,8 +389,13 @@ public class EventService {
         Long orgId = event.getOrganization().getId();
         String eventTitle = event.getTitle();
 
+        myShiftView.invalidateEvent(id);
+        volunteerStatsService.invalidateEvent(id);
         eventRepository.deleteById(id);
-        deleteEventFromMaster(id);
+        eventOutboxRelay.record(id);
+        eventTenantDirectory.invalidateEvent(id);
+        mealAllowanceLedger.invalidateEvent(id);
+        statisticsService.invalidateEventStats(id);
 
         auditLogService.logAction(requesterEmail, "EVENT_DELETED", "Esemény: " + eventTitle, "Véglegesen törölve.", orgId);
     }
@@ -405,6 +422,10 @@ public class EventService {
     }
 
     private EventDTO convertToDTOWithOrg(Event event, Organization org) {
+        return convertToDTOWithOrg(event, new OrganizationDTO(org.getId(), org.getName(), org.getTenantId(), org.getAddress(), org.getDescription(), org.getEmail(), org.getPhone(), org.getLogoUrl(), org.getBannerUrl(), org.getCui()));
+    }
+
+    private EventDTO convertToDTOWithOrg(Event event, OrganizationDTO orgDto) {
         return new EventDTO(
                 event.getId(), event.getTitle(), event.getDescription(), event.getLocation(),
                 event.getStartTime(), event.getEndTime(),
@@ -421,25 +442,20 @@ public class EventService {
                         List.of()
                 )).toList(),
                 event.getQuestions().stream().map(q -> new EventQuestionDTO(q.getId(), q.getQuestionText(), q.getQuestionType(), q.getPurpose(), q.getOptions(), q.isRequired())).toList(),
-                new OrganizationDTO(org.getId(), org.getName(), org.getTenantId(), org.getAddress(), org.getDescription(), org.getEmail(), org.getPhone(), org.getLogoUrl(), org.getBannerUrl(), org.getCui())
+                orgDto
         );
     }
 
     @Transactional(readOnly = true)
     public List<WorkAreaDTO> getWorkAreasByEventId(Long eventId) {
+        EventTenantDirectory.EventRoute route = eventTenantDirectory.resolve(eventId)
+                .orElseThrow(() -> new RuntimeException("Esemény nem található!"));
+        if (!route.hasTenant()) return List.of();
+
         String originalTenant = TenantContext.getCurrentTenant();
         try {
-            TenantContext.setCurrentTenant(null);
-            Event masterEvent = eventRepository.findById(eventId)
-                    .orElseThrow(() -> new RuntimeException("Esemény nem található!"));
-
-            Organization org = masterEvent.getOrganization();
-
-            if (org != null && org.getTenantId() != null && !org.getTenantId().trim().isEmpty()) {
-                TenantContext.setCurrentTenant(org.getTenantId());
-                return self.fetchWorkAreasInTenant(eventId);
-            }
-            return List.of();
+            TenantContext.setCurrentTenant(route.tenantId());
+            return self.fetchWorkAreasInTenant(eventId);
         } finally {
             TenantContext.setCurrentTenant(originalTenant);
         }
@@ -458,227 +474,14 @@ public class EventService {
                 .collect(Collectors.toList());
     }
 
-    private void syncEventToMaster(Event event, Long orgId) {
-        try (java.sql.Connection conn = java.sql.DriverManager.getConnection("jdbc:postgresql://localhost:5432/master_db", "postgres", "jelszo")) {
-            // JAVÍTOTT SQL (16 oszlop összesen)
-            String sql = "INSERT INTO events (id, title, description, location, start_time, end_time, application_deadline, is_registration_open, organization_id, banner_url, breakfast_start_time, breakfast_end_time, lunch_start_time, lunch_end_time, dinner_start_time, dinner_end_time) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-            try (java.sql.PreparedStatement ps = conn.prepareStatement(sql)) {
-                ps.setLong(1, event.getId());
-                ps.setString(2, event.getTitle());
-                ps.setString(3, event.getDescription());
-                ps.setString(4, event.getLocation());
-                ps.setTimestamp(5, java.sql.Timestamp.valueOf(event.getStartTime()));
-                ps.setTimestamp(6, java.sql.Timestamp.valueOf(event.getEndTime()));
-
-                if (event.getApplicationDeadline() != null) {
-                    ps.setTimestamp(7, java.sql.Timestamp.valueOf(event.getApplicationDeadline()));
-                } else {
-                    ps.setNull(7, java.sql.Types.TIMESTAMP);
-                }
-
-                ps.setBoolean(8, event.isRegistrationOpen());
-                ps.setLong(9, orgId);
-
-                if (event.getBannerUrl() != null) {
-                    ps.setString(10, event.getBannerUrl());
-                } else {
-                    ps.setNull(10, java.sql.Types.VARCHAR);
-                }
-
-                // --- ÚJ IDŐSÁVOK MENTÉSE ---
-                if (event.getBreakfastStartTime() != null) ps.setTime(11, java.sql.Time.valueOf(event.getBreakfastStartTime()));
-                else ps.setNull(11, java.sql.Types.TIME);
-
-                if (event.getBreakfastEndTime() != null) ps.setTime(12, java.sql.Time.valueOf(event.getBreakfastEndTime()));
-                else ps.setNull(12, java.sql.Types.TIME);
-
-                if (event.getLunchStartTime() != null) ps.setTime(13, java.sql.Time.valueOf(event.getLunchStartTime()));
-                else ps.setNull(13, java.sql.Types.TIME);
-
-                if (event.getLunchEndTime() != null) ps.setTime(14, java.sql.Time.valueOf(event.getLunchEndTime()));
-                else ps.setNull(14, java.sql.Types.TIME);
-
-                if (event.getDinnerStartTime() != null) ps.setTime(15, java.sql.Time.valueOf(event.getDinnerStartTime()));
-                else ps.setNull(15, java.sql.Types.TIME);
-
-                if (event.getDinnerEndTime() != null) ps.setTime(16, java.sql.Time.valueOf(event.getDinnerEndTime()));
-                else ps.setNull(16, java.sql.Types.TIME);
-
-                ps.executeUpdate();
-                System.out.println("✅ Esemény (Kirakat) sikeresen átmásolva a Mester DB-be!");
-            }
-        } catch (Exception e) {
-            System.err.println("⚠️ Hiba a Mester DB szinkronizációban (Create): " + e.getMessage());
-        }
-    }
-
+    // A kirakat (Mester) frissítése a hívó Sziget-tranzakciójában a kimenő sorba kerül; átvinni a háttérben futó relé viszi
     public void updateEventInMaster(Event event) {
-        try (java.sql.Connection conn = java.sql.DriverManager.getConnection("jdbc:postgresql://localhost:5432/master_db", "postgres", "jelszo")) {
-            // JAVÍTOTT SQL: hozzáadtuk az Update részhez is
-            String sql = "UPDATE events SET title=?, description=?, location=?, start_time=?, end_time=?, application_deadline=?, is_registration_open=?, banner_url=?, breakfast_start_time=?, breakfast_end_time=?, lunch_start_time=?, lunch_end_time=?, dinner_start_time=?, dinner_end_time=? WHERE id=?";
-            try (java.sql.PreparedStatement ps = conn.prepareStatement(sql)) {
-                ps.setString(1, event.getTitle());
-                ps.setString(2, event.getDescription());
-                ps.setString(3, event.getLocation());
-                ps.setTimestamp(4, java.sql.Timestamp.valueOf(event.getStartTime()));
-                ps.setTimestamp(5, java.sql.Timestamp.valueOf(event.getEndTime()));
-
-                if (event.getApplicationDeadline() != null) {
-                    ps.setTimestamp(6, java.sql.Timestamp.valueOf(event.getApplicationDeadline()));
-                } else {
-                    ps.setNull(6, java.sql.Types.TIMESTAMP);
-                }
-
-                ps.setBoolean(7, event.isRegistrationOpen());
-
-                if (event.getBannerUrl() != null) {
-                    ps.setString(8, event.getBannerUrl());
-                } else {
-                    ps.setNull(8, java.sql.Types.VARCHAR);
-                }
-
-                // --- ÚJ IDŐSÁVOK FRISSÍTÉSE ---
-                if (event.getBreakfastStartTime() != null) ps.setTime(9, java.sql.Time.valueOf(event.getBreakfastStartTime()));
-                else ps.setNull(9, java.sql.Types.TIME);
-
-                if (event.getBreakfastEndTime() != null) ps.setTime(10, java.sql.Time.valueOf(event.getBreakfastEndTime()));
-                else ps.setNull(10, java.sql.Types.TIME);
-
-                if (event.getLunchStartTime() != null) ps.setTime(11, java.sql.Time.valueOf(event.getLunchStartTime()));
-                else ps.setNull(11, java.sql.Types.TIME);
-
-                if (event.getLunchEndTime() != null) ps.setTime(12, java.sql.Time.valueOf(event.getLunchEndTime()));
-                else ps.setNull(12, java.sql.Types.TIME);
-
-                if (event.getDinnerStartTime() != null) ps.setTime(13, java.sql.Time.valueOf(event.getDinnerStartTime()));
-                else ps.setNull(13, java.sql.Types.TIME);
-
-                if (event.getDinnerEndTime() != null) ps.setTime(14, java.sql.Time.valueOf(event.getDinnerEndTime()));
-                else ps.setNull(14, java.sql.Types.TIME);
-
-                // Az ID megy az utolsó (15.) helyre
-                ps.setLong(15, event.getId());
-
-                ps.executeUpdate();
-                System.out.println("✅ Esemény (Kirakat) sikeresen frissítve a Mester DB-ben!");
-            }
-        } catch (Exception e) {
-            System.err.println("⚠️ Hiba a Mester DB szinkronizációban (Update): " + e.getMessage());
-        }
-    }
-
-    private void deleteEventFromMaster(Long eventId) {
-        try (java.sql.Connection conn = java.sql.DriverManager.getConnection("jdbc:postgresql://localhost:5432/master_db", "postgres", "jelszo")) {
-            String sql = "UPDATE events SET deleted_at = CURRENT_TIMESTAMP WHERE id=?";
-            try (java.sql.PreparedStatement ps = conn.prepareStatement(sql)) {
-                ps.setLong(1, eventId);
-                ps.executeUpdate();
-                System.out.println("✅ Esemény (Kirakat) logikailag törölve a Mester DB-ből!");
-            }
-        } catch (Exception e) {
-            System.err.println("⚠️ Hiba a Mester DB szinkronizációban (Soft Delete): " + e.getMessage());
-        }
+        eventOutboxRelay.record(event.getId());
     }
 
-    @Transactional
+    // A teljes újramásolás helyett növekményes egyeztetés (csak a legutóbbi futás óta változott események)
     public String syncAllLegacyEventsToMaster() {
-        List<Organization> orgs = organizationRepository.findAll();
-        int syncedCount = 0;
-        int failedCount = 0;
-        int skippedOrgCount = 0;
-        StringBuilder errorLog = new StringBuilder();
-        String originalTenant = TenantContext.getCurrentTenant();
-
-        try (java.sql.Connection conn = java.sql.DriverManager.getConnection("jdbc:postgresql://localhost:5432/master_db", "postgres", "jelszo")) {
-
-            // JAVÍTOTT UPSERT SQL: Mind a 16 oszlop benne van az INSERT-ben és az UPDATE-ben is
-            String sql = "INSERT INTO events (id, title, description, location, start_time, end_time, application_deadline, is_registration_open, organization_id, banner_url, breakfast_start_time, breakfast_end_time, lunch_start_time, lunch_end_time, dinner_start_time, dinner_end_time) " +
-                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
-                    "ON CONFLICT (id) DO UPDATE SET " +
-                    "title = EXCLUDED.title, description = EXCLUDED.description, location = EXCLUDED.location, " +
-                    "start_time = EXCLUDED.start_time, end_time = EXCLUDED.end_time, " +
-                    "application_deadline = EXCLUDED.application_deadline, is_registration_open = EXCLUDED.is_registration_open, " +
-                    "organization_id = EXCLUDED.organization_id, banner_url = EXCLUDED.banner_url, " +
-                    "breakfast_start_time = EXCLUDED.breakfast_start_time, breakfast_end_time = EXCLUDED.breakfast_end_time, " +
-                    "lunch_start_time = EXCLUDED.lunch_start_time, lunch_end_time = EXCLUDED.lunch_end_time, " +
-                    "dinner_start_time = EXCLUDED.dinner_start_time, dinner_end_time = EXCLUDED.dinner_end_time";
-
-            for (Organization org : orgs) {
-                if (org.getTenantId() != null && !org.getTenantId().trim().isEmpty()) {
-                    TenantContext.setCurrentTenant(org.getTenantId());
-
-                    List<Event> tenantEvents = self.getAllEventsForSync();
-
-                    for (Event event : tenantEvents) {
-                        try (java.sql.PreparedStatement ps = conn.prepareStatement(sql)) {
-                            ps.setLong(1, event.getId());
-                            ps.setString(2, event.getTitle());
-                            ps.setString(3, event.getDescription());
-                            ps.setString(4, event.getLocation());
-                            ps.setTimestamp(5, java.sql.Timestamp.valueOf(event.getStartTime()));
-                            ps.setTimestamp(6, java.sql.Timestamp.valueOf(event.getEndTime()));
-
-                            if (event.getApplicationDeadline() != null) {
-                                ps.setTimestamp(7, java.sql.Timestamp.valueOf(event.getApplicationDeadline()));
-                            } else {
-                                ps.setNull(7, java.sql.Types.TIMESTAMP);
-                            }
-
-                            ps.setBoolean(8, event.isRegistrationOpen());
-                            ps.setLong(9, org.getId());
-
-                            if (event.getBannerUrl() != null) {
-                                ps.setString(10, event.getBannerUrl());
-                            } else {
-                                ps.setNull(10, java.sql.Types.VARCHAR);
-                            }
-
-                            // --- ÚJ IDŐSÁVOK MENTÉSE (11-16) ---
-                            if (event.getBreakfastStartTime() != null) ps.setTime(11, java.sql.Time.valueOf(event.getBreakfastStartTime()));
-                            else ps.setNull(11, java.sql.Types.TIME);
-
-                            if (event.getBreakfastEndTime() != null) ps.setTime(12, java.sql.Time.valueOf(event.getBreakfastEndTime()));
-                            else ps.setNull(12, java.sql.Types.TIME);
-
-                            if (event.getLunchStartTime() != null) ps.setTime(13, java.sql.Time.valueOf(event.getLunchStartTime()));
-                            else ps.setNull(13, java.sql.Types.TIME);
-
-                            if (event.getLunchEndTime() != null) ps.setTime(14, java.sql.Time.valueOf(event.getLunchEndTime()));
-                            else ps.setNull(14, java.sql.Types.TIME);
-
-                            if (event.getDinnerStartTime() != null) ps.setTime(15, java.sql.Time.valueOf(event.getDinnerStartTime()));
-                            else ps.setNull(15, java.sql.Types.TIME);
-
-                            if (event.getDinnerEndTime() != null) ps.setTime(16, java.sql.Time.valueOf(event.getDinnerEndTime()));
-                            else ps.setNull(16, java.sql.Types.TIME);
-
-                            ps.executeUpdate();
-                            syncedCount++;
-                        } catch (Exception ex) {
-                            failedCount++;
-                            errorLog.append("[Esemény ID: ").append(event.getId()).append(" - ").append(ex.getMessage()).append("] ");
-                        }
-                    }
-                } else {
-                    skippedOrgCount++;
-                }
-            }
-        } catch (Exception e) {
-            return "Kritikus hiba a szinkronizálás során: " + e.getMessage();
-        } finally {
-            TenantContext.setCurrentTenant(originalTenant);
-        }
-
-        return "Szinkronizáció kész! \n" +
-                "✅ Sikeres: " + syncedCount + " db \n" +
-                "❌ Hibás: " + failedCount + " db \n" +
-                "⏭️ Kihagyott szervezetek (nincs tenant_id): " + skippedOrgCount + " db \n" +
-                (failedCount > 0 ? "Hibák részletei: " + errorLog.toString() : "");
-    }
-
-    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
-    public List<Event> getAllEventsForSync() {
-        return eventRepository.findAll();
+        return eventOutboxRelay.reconcileAll();
     }
 
     public List<Map<String, Object>> getEventContacts(Long eventId) {
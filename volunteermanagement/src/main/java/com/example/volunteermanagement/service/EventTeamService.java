@@ -26,6 +26,8 @@ public class EventTeamService {
     private final AuditLogService auditLogService;
     private final ApplicationRepository applicationRepository;
     private final DataSourceConfig dataSourceConfig;
+    private final MealAllowanceLedger mealAllowanceLedger;
+    private final MyShiftView myShiftView;
 
     private final OrganizationMemberRepository organizationMemberRepository;
 
@@ -169,6 +171,11 @@ public class EventTeamService {
         }
         workAreaRepository.saveAll(workAreas);
 
+        // A szervezői/szkenner szerep az étkezési keretet és a szkennelési jogot is érinti
+        mealAllowanceLedger.invalidateAllowances(eventId);
+        // A szervezők/koordinátorok saját műszakjai nem jelennek meg a "Műszakjaim" nézetben
+        myShiftView.invalidateUsers(List.of(user.getId()));
+
         auditLogService.logAction(adminEmail, "UPDATE_EVENT_TEAM",
                 "Esemény: " + event.getTitle(),
                 "Felhasználó (" + user.getEmail() + ") jogosultságai frissítve.",
@@ -0,0 +1,137 @@
+package com.example.volunteermanagement.service;
+
+import com.example.volunteermanagement.cache.TtlCache;
+import com.example.volunteermanagement.dto.OrganizationDTO;
+import com.example.volunteermanagement.model.Event;
+import com.example.volunteermanagement.model.Organization;
+import com.example.volunteermanagement.repository.EventRepository;
+import com.example.volunteermanagement.tenant.TenantContext;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Esemény -> bérlő (Sziget) útvonal-címtár.
+ * A "karmester" metódusoknak csak azt kell tudniuk, melyik Szigetre váltsanak: ezt egyszer
+ * kikeressük a Mester adatbázisból, utána a memóriából szolgáljuk ki (korlátos, TTL-es).
+ * Esemény létrehozásakor/törlésekor és szervezet módosításakor/törlésekor érvénytelenítjük.
+ */
+@Service
+@RequiredArgsConstructor
+public class EventTenantDirectory {
+
+    /**
+     * Egy esemény útvonala: a szervezete és annak Szigete (null = nincs saját Sziget, Mesteren marad).
+     */
+    public record EventRoute(Long eventId, Long organizationId, String tenantId, OrganizationDTO organization) {
+        public boolean hasTenant() {
+            return tenantId != null && !tenantId.trim().isEmpty();
+        }
+    }
+
+    private final EventRepository eventRepository;
+
+    @Autowired
+    @Lazy
+    private EventTenantDirectory self;
+
+    @Value("${app.event-directory.max-size:20000}")
+    private int maxSize;
+
+    @Value("${app.event-directory.ttl-ms:600000}")
+    private long ttlMs;
+
+    private TtlCache<Long, EventRoute> routes;
+
+    @PostConstruct
+    void init() {
+        routes = new TtlCache<>("eventTenantDirectory", maxSize, ttlMs);
+    }
+
+    /**
+     * Az esemény útvonala; a nem létező eseményt nem jegyezzük meg (egy később létrehozott ugyanilyen ID-t ne takarjon el).
+     */
+    public Optional<EventRoute> resolve(Long eventId) {
+        if (eventId == null) return Optional.empty();
+
+        EventRoute cached = routes.getIfPresent(eventId);
+        if (cached != null) return Optional.of(cached);
+
+        EventRoute loaded = loadFromMaster(eventId);
+        if (loaded != null) routes.put(eventId, loaded);
+        return Optional.ofNullable(loaded);
+    }
+
+    /**
+     * Csak a Sziget azonosítója (null, ha az esemény a Mesteren marad).
+     */
+    public Optional<String> resolveTenantId(Long eventId) {
+        return resolve(eventId).map(EventRoute::tenantId);
+    }
+
+    private EventRoute loadFromMaster(Long eventId) {
+        String originalTenant = TenantContext.getCurrentTenant();
+        try {
+            TenantContext.setCurrentTenant(null);
+            return self.findRouteInMaster(eventId);
+        } finally {
+            TenantContext.setCurrentTenant(originalTenant);
+        }
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public EventRoute findRouteInMaster(Long eventId) {
+        Event event = eventRepository.findById(eventId).orElse(null);
+        if (event == null) return null;
+
+        Organization org = event.getOrganization();
+        if (org == null) return new EventRoute(eventId, null, null, null);
+
+        OrganizationDTO orgDto = new OrganizationDTO(org.getId(), org.getName(), org.getTenantId(), org.getAddress(),
+                org.getDescription(), org.getEmail(), org.getPhone(), org.getLogoUrl(), org.getBannerUrl(), org.getCui());
+        return new EventRoute(eventId, org.getId(), org.getTenantId(), orgDto);
+    }
+
+    // --- Érvénytelenítés ---
+
+    public void invalidateEvent(Long eventId) {
+        if (eventId == null) return;
+        runNowAndAfterCommit(() -> routes.invalidate(eventId));
+    }
+
+    public void invalidateOrganization(Long orgId) {
+        if (orgId == null) return;
+        runNowAndAfterCommit(() -> routes.invalidateValues(route -> orgId.equals(route.organizationId())));
+    }
+
+    public void invalidateAll() {
+        runNowAndAfterCommit(routes::clear);
+    }
+
+    // Commit után újra ürítünk, hogy egy közben párhuzamosan betöltött régi útvonal se ragadjon bent
+    private void runNowAndAfterCommit(Runnable invalidation) {
+        invalidation.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidation.run();
+                }
+            });
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        return routes.getStats();
+    }
+}
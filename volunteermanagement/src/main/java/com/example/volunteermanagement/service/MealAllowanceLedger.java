@@ -0,0 +1,387 @@
+package com.example.volunteermanagement.service;
+
+import com.example.volunteermanagement.model.*;
+import com.example.volunteermanagement.repository.*;
+import com.example.volunteermanagement.tenant.TenantContext;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Étkezési keret-főkönyv: eseményenként és naponként a memóriában tartja, kinek mennyi
+ * reggeli/ebéd/vacsora jár, és mennyit kapott már meg.
+ *  - Első használatkor egyszer töltjük fel a beosztásokból és a mai étkezési naplóból
+ *    (így újraindítás után is a valós állapotból indulunk).
+ *  - Egy szkennelés ezután egyetlen memóriabeli, atomikus ellenőrzés + egy INSERT.
+ *    Az ellenőrzést önkéntesenkénti (csíkozott) zár védi; az INSERT a kiosztott sorszámmal
+ *    ("slot") megy, amit a DB egyedi index véd, így több példány sem adhat ki többet a keretnél.
+ *    A sorszám a ténylegesen foglalt sorszámok közül a legkisebb szabad (nem darabszám + 1),
+ *    így egy visszagörgetés vagy visszavonás hagyta "lyuk" sem vezet ütközéshez.
+ *  - Visszagörgetett mentésnél és visszavonásnál az adott sorszám szabadul fel.
+ *  - Beosztás- vagy csapatváltozáskor csak a kereteket töltjük újra, a kiadott darabszámot nem.
+ * A hívónak a helyes bérlőn (Szigeten), a saját tranzakciójában kell futnia.
+ */
+@Service
+@RequiredArgsConstructor
+public class MealAllowanceLedger {
+
+    private static final List<MealType> COUNTED_MEALS = List.of(MealType.BREAKFAST, MealType.LUNCH, MealType.DINNER);
+    private static final int LOCK_STRIPES = 64;
+
+    /**
+     * A szkenner adatai (jogosultság-ellenőrzéshez és a scanned_by mezőhöz).
+     */
+    public record ScannerInfo(Long userId, String name, boolean sysAdmin) {}
+
+    /**
+     * Egy szkennelés eredménye. Elfogadáskor a 'consumed' már a most kiadott adagot is tartalmazza,
+     * a 'slot' pedig a kiadás sorszáma a napon belül (elutasításkor 0).
+     */
+    public record ScanDecision(boolean accepted, int allowance, int consumed, int slot, LocalDateTime lastConsumedAt) {}
+
+    private record LedgerKey(String tenantId, Long eventId, LocalDate day) {}
+
+    private final ShiftAssignmentRepository shiftAssignmentRepository;
+    private final MealConsumptionLogRepository mealLogRepository;
+    private final EventTeamMemberRepository eventTeamMemberRepository;
+    private final EventRepository eventRepository;
+    private final UserRepository userRepository;
+
+    // A kereteket (beosztás, csapat) ennyi idő után akkor is újratöltjük, ha nem jött értesítés
+    // (pl. egy másik példányon történt módosítás)
+    @Value("${app.meal-ledger.refresh-ms:300000}")
+    private long refreshMs;
+
+    private final Map<LedgerKey, DayLedger> ledgers = new ConcurrentHashMap<>();
+    private final StripedLocks volunteerLocks = new StripedLocks(LOCK_STRIPES);
+
+    private final AtomicLong ledgerLoads = new AtomicLong();
+    private final AtomicLong allowanceReloads = new AtomicLong();
+    private final AtomicLong scansAccepted = new AtomicLong();
+    private final AtomicLong scansRejected = new AtomicLong();
+    private final AtomicLong rollbacks = new AtomicLong();
+    private final AtomicLong resyncs = new AtomicLong();
+
+    // --- Szkennelés ---
+
+    /**
+     * A szkenner azonosítása e-mail alapján (a főkönyvben megjegyezve), vagy null, ha nem létezik.
+     */
+    public ScannerInfo resolveScanner(Long eventId, String scannerEmail) {
+        return ledger(eventId, LocalDate.now()).resolveScanner(scannerEmail);
+    }
+
+    public boolean canScan(Long eventId, ScannerInfo scanner) {
+        if (scanner == null) return false;
+        if (scanner.sysAdmin()) return true;
+        EventRole role = ledger(eventId, LocalDate.now()).teamRole(scanner.userId());
+        return role == EventRole.ORGANIZER || role == EventRole.COORDINATOR || role == EventRole.MEAL_SCANNER;
+    }
+
+    /**
+     * Atomikusan lefoglal egy adagot a mai keretből. Elfogadás esetén a tranzakció
+     * visszagörgetésekor az adag automatikusan visszakerül a keretbe.
+     */
+    public ScanDecision tryConsume(Long eventId, Long volunteerId, MealType mealType) {
+        return tryConsumeAt(eventId, volunteerId, mealType, LocalDateTime.now());
+    }
+
+    /**
+     * Mint a tryConsume, de egy korábban (pl. offline) rögzített időpont napjának keretéből foglal.
+     */
+    public ScanDecision tryConsumeAt(Long eventId, Long volunteerId, MealType mealType, LocalDateTime scannedAt) {
+        DayLedger ledger = ledger(eventId, scannedAt.toLocalDate());
+        ScanDecision decision = ledger.tryConsume(volunteerId, mealType, scannedAt);
+
+        if (!decision.accepted()) {
+            scansRejected.incrementAndGet();
+            return decision;
+        }
+        scansAccepted.incrementAndGet();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        rollbacks.incrementAndGet();
+                        ledger.release(volunteerId, mealType, decision.slot());
+                    }
+                }
+            });
+        }
+        return decision;
+    }
+
+    /**
+     * Egy kiadás visszavonása: a sikeres commit után a törölt sor sorszáma (régi, sorszám nélküli
+     * sornál null) felszabadul, az adag visszakerül a keretbe.
+     */
+    public void releaseAfterCommit(Long eventId, Long volunteerId, MealType mealType, LocalDate day, Integer slot) {
+        DayLedger ledger = ledgers.get(new LedgerKey(TenantContext.getCurrentTenant(), eventId, day));
+        if (ledger == null) return; // Ha nincs betöltve, a következő betöltés úgyis a DB-ből számol
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    ledger.release(volunteerId, mealType, slot);
+                }
+            });
+        } else {
+            ledger.release(volunteerId, mealType, slot);
+        }
+    }
+
+    // --- Érvénytelenítés ---
+
+    /**
+     * A beosztások / a csapat / a diéták változtak: a kereteket a következő szkenneléskor újratöltjük
+     * (a már kiadott adagok száma megmarad).
+     */
+    public void invalidateAllowances(Long eventId) {
+        if (eventId == null) return;
+        runNowAndAfterCommit(() -> ledgers.forEach((key, ledger) -> {
+            if (key.eventId().equals(eventId)) ledger.markStale();
+        }));
+    }
+
+    /**
+     * A DB egyedi indexe visszadobott egy kiadást (egy másik példány már kiadta ezt a sorszámot):
+     * a mai főkönyvet eldobjuk, a következő szkennelés már a DB valós állapotából indul.
+     */
+    public void resync(Long eventId) {
+        resync(eventId, LocalDate.now());
+    }
+
+    public void resync(Long eventId, LocalDate day) {
+        resyncs.incrementAndGet();
+        ledgers.remove(new LedgerKey(TenantContext.getCurrentTenant(), eventId, day));
+    }
+
+    public void invalidateEvent(Long eventId) {
+        if (eventId == null) return;
+        ledgers.keySet().removeIf(key -> key.eventId().equals(eventId));
+    }
+
+    private void runNowAndAfterCommit(Runnable invalidation) {
+        invalidation.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidation.run();
+                }
+            });
+        }
+    }
+
+    // A tegnapi (és régebbi) napok főkönyveire már nincs szükség
+    @Scheduled(cron = "0 5 0 * * *")
+    public void evictPastDays() {
+        LocalDate today = LocalDate.now();
+        ledgers.keySet().removeIf(key -> key.day().isBefore(today));
+    }
+
+    private DayLedger ledger(Long eventId, LocalDate day) {
+        LedgerKey key = new LedgerKey(TenantContext.getCurrentTenant(), eventId, day);
+        DayLedger ledger = ledgers.computeIfAbsent(key, DayLedger::new);
+        ledger.ensureLoaded();
+        return ledger;
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("ledgers", ledgers.size());
+        metrics.put("ledgerLoads", ledgerLoads.get());
+        metrics.put("allowanceReloads", allowanceReloads.get());
+        metrics.put("scansAccepted", scansAccepted.get());
+        metrics.put("scansRejected", scansRejected.get());
+        metrics.put("rollbacks", rollbacks.get());
+        metrics.put("resyncs", resyncs.get());
+        metrics.put("lockStripes", volunteerLocks.size());
+        return metrics;
+    }
+
+    // =========================================================================
+    // Egy esemény egy napjának főkönyve
+    // =========================================================================
+    private final class DayLedger {
+
+        private final LedgerKey key;
+
+        // Keretek (újratölthetők): önkéntes -> [reggeli, ebéd, vacsora]
+        private volatile Map<Long, int[]> allowances = Map.of();
+        private volatile Map<Long, EventRole> teamRoles = Map.of();
+        private final Map<String, ScannerInfo> scanners = new ConcurrentHashMap<>();
+
+        // Kiadott adagok (csak a betöltéskor jönnek a DB-ből, utána itt vezetjük)
+        private final Map<Long, Counters> consumed = new ConcurrentHashMap<>();
+
+        private volatile boolean loaded;
+        private volatile boolean stale;
+        private volatile long allowancesLoadedAtNanos;
+
+        DayLedger(LedgerKey key) {
+            this.key = key;
+        }
+
+        void ensureLoaded() {
+            if (loaded && !stale && System.nanoTime() - allowancesLoadedAtNanos < TimeUnit.MILLISECONDS.toNanos(refreshMs)) {
+                return;
+            }
+            synchronized (this) {
+                if (!loaded) {
+                    if (!eventRepository.existsById(key.eventId())) {
+                        throw new RuntimeException("Esemény nem található!");
+                    }
+                    loadAllowances();
+                    loadConsumed();
+                    loaded = true;
+                    ledgerLoads.incrementAndGet();
+                } else if (stale || System.nanoTime() - allowancesLoadedAtNanos >= TimeUnit.MILLISECONDS.toNanos(refreshMs)) {
+                    loadAllowances();
+                    allowanceReloads.incrementAndGet();
+                }
+            }
+        }
+
+        void markStale() {
+            stale = true;
+        }
+
+        private void loadAllowances() {
+            stale = false;
+            LocalDateTime startOfDay = key.day().atStartOfDay();
+            LocalDateTime endOfDay = key.day().atTime(LocalTime.MAX);
+
+            Map<Long, int[]> loadedAllowances = new HashMap<>();
+            for (Object[] row : shiftAssignmentRepository.sumMealsPerUserForDay(
+                    key.eventId(), startOfDay, endOfDay, AssignmentStatus.CONFIRMED)) {
+                loadedAllowances.put((Long) row[0], new int[]{
+                        ((Number) row[1]).intValue(), ((Number) row[2]).intValue(), ((Number) row[3]).intValue()
+                });
+            }
+
+            Map<Long, EventRole> loadedRoles = new HashMap<>();
+            for (EventTeamMember tm : eventTeamMemberRepository.findByEventId(key.eventId())) {
+                loadedRoles.put(tm.getUserId(), tm.getRole());
+                // Szervezőknek és koordinátoroknak minden étkezésből napi 1 jár (a beosztásuktól függetlenül)
+                if (tm.getRole() == EventRole.ORGANIZER || tm.getRole() == EventRole.COORDINATOR) {
+                    loadedAllowances.put(tm.getUserId(), new int[]{1, 1, 1});
+                }
+            }
+
+            allowances = loadedAllowances;
+            teamRoles = loadedRoles;
+            scanners.clear();
+            allowancesLoadedAtNanos = System.nanoTime();
+        }
+
+        private void loadConsumed() {
+            LocalDateTime startOfDay = key.day().atStartOfDay();
+            LocalDateTime endOfDay = key.day().atTime(LocalTime.MAX);
+
+            for (Object[] row : mealLogRepository.findSlotRowsPerVolunteerAndType(key.eventId(), startOfDay, endOfDay)) {
+                int index = COUNTED_MEALS.indexOf((MealType) row[1]);
+                if (index < 0) continue;
+                Counters counters = consumed.computeIfAbsent((Long) row[0], id -> new Counters());
+                Integer slot = (Integer) row[2];
+                int rows = ((Number) row[3]).intValue();
+                if (slot != null && slot > 0) {
+                    counters.slots[index].set(slot);
+                    // Ugyanazon a sorszámon nem lehet több sor (egyedi index); ha mégis, a többlet is számít
+                    counters.unslotted[index] += rows - 1;
+                } else {
+                    counters.unslotted[index] += rows;
+                }
+                LocalDateTime lastAt = (LocalDateTime) row[4];
+                if (counters.lastAt[index] == null || (lastAt != null && lastAt.isAfter(counters.lastAt[index]))) {
+                    counters.lastAt[index] = lastAt;
+                }
+            }
+        }
+
+        ScannerInfo resolveScanner(String email) {
+            ScannerInfo cached = scanners.get(email);
+            if (cached != null) return cached;
+            ScannerInfo info = userRepository.findByEmail(email)
+                    .map(u -> new ScannerInfo(u.getId(), u.getName(), u.getRole() == Role.SYS_ADMIN))
+                    .orElse(null);
+            if (info != null) scanners.put(email, info);
+            return info;
+        }
+
+        EventRole teamRole(Long userId) {
+            return teamRoles.get(userId);
+        }
+
+        ScanDecision tryConsume(Long volunteerId, MealType mealType, LocalDateTime now) {
+            int index = COUNTED_MEALS.indexOf(mealType);
+            int[] userAllowance = allowances.get(volunteerId);
+            int allowance = (index < 0 || userAllowance == null) ? 0 : userAllowance[index];
+            if (allowance == 0) return new ScanDecision(false, 0, 0, 0, null);
+
+            Counters counters = consumed.computeIfAbsent(volunteerId, id -> new Counters());
+            ReentrantLock lock = volunteerLocks.lockFor(volunteerId);
+            lock.lock();
+            try {
+                int used = counters.count(index);
+                if (used >= allowance) {
+                    return new ScanDecision(false, allowance, used, 0, counters.lastAt[index]);
+                }
+                int slot = counters.slots[index].nextClearBit(1);
+                counters.slots[index].set(slot);
+                counters.lastAt[index] = now;
+                return new ScanDecision(true, allowance, used + 1, slot, now);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void release(Long volunteerId, MealType mealType, Integer slot) {
+            int index = COUNTED_MEALS.indexOf(mealType);
+            Counters counters = consumed.get(volunteerId);
+            if (index < 0 || counters == null) return;
+            ReentrantLock lock = volunteerLocks.lockFor(volunteerId);
+            lock.lock();
+            try {
+                if (slot != null && slot > 0 && counters.slots[index].get(slot)) {
+                    counters.slots[index].clear(slot);
+                } else if (counters.unslotted[index] > 0) {
+                    counters.unslotted[index]--;
+                }
+                // A korábbi kiadás idejét nem ismerjük: elutasításkor a hívó a DB-ből pótolja
+                counters.lastAt[index] = null;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Étkezésenként a foglalt sorszámok, és a sorszám nélküli (régi) kiadások száma
+    private static final class Counters {
+        private final BitSet[] slots = new BitSet[COUNTED_MEALS.size()];
+        private final int[] unslotted = new int[COUNTED_MEALS.size()];
+        private final LocalDateTime[] lastAt = new LocalDateTime[COUNTED_MEALS.size()];
+
+        Counters() {
+            for (int i = 0; i < slots.length; i++) slots[i] = new BitSet();
+        }
+
+        int count(int index) {
+            return slots[index].cardinality() + unslotted[index];
+        }
+    }
+}
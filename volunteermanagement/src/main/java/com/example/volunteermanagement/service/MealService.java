@@ -1,22 +1,29 @@
 package com.example.volunteermanagement.service;
 
 import com.example.volunteermanagement.dto.CateringDTO;
+import com.example.volunteermanagement.dto.OfflineScanDTO;
+import com.example.volunteermanagement.dto.PartialResult;
 import com.example.volunteermanagement.tenant.TenantContext;
+import com.example.volunteermanagement.tenant.TenantFanOutExecutor;
+import com.example.volunteermanagement.tenant.TenantFanOutResult;
 import com.example.volunteermanagement.model.*;
 import com.example.volunteermanagement.repository.*;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
@@ -32,6 +39,23 @@ public class MealService {
     private final OrganizationRepository organizationRepository;
     private final ApplicationAnswerRepository applicationAnswerRepository;
     private final EventQuestionRepository eventQuestionRepository;
+    private final TenantFanOutExecutor tenantFanOutExecutor;
+    private final EventTenantDirectory eventTenantDirectory;
+    private final MealAllowanceLedger mealAllowanceLedger;
+    private final DietIndex dietIndex;
+    private final CateringSummaryService cateringSummaryService;
+    private final CateringStreamHub cateringStreamHub;
+    private final JdbcTemplate jdbcTemplate;
+
+    private static final String OFFLINE_INSERT_SQL = "INSERT INTO meal_consumption_log " +
+            "(volunteer_id, event_id, scanned_by_id, meal_type, consumed_at, dietary_preference, meal_date, redemption_slot, client_scan_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Ennyivel "előre járhat" a tablet órája
+    private static final long OFFLINE_CLOCK_SKEW_MINUTES = 5;
+
+    @Value("${app.meal-offline.max-age-hours:48}")
+    private long offlineMaxAgeHours;
 
     @Autowired
     @Lazy
@@ -41,24 +65,25 @@ public class MealService {
     // KARMESTER METÓDUS (Tenant útválasztás - Ahogy a statisztikában is van!)
     // =========================================================================
     public Map<String, Object> routeAndProcessQrScan(Long volunteerId, Long eventId, String scannerEmail, MealType mealType) {
+        // 1. Az esemény Szigetét a címtárból kérjük (csak gyorsítótár-hiánynál megy a Mesterhez)
+        EventTenantDirectory.EventRoute route = eventTenantDirectory.resolve(eventId)
+                .orElseThrow(() -> new RuntimeException("Esemény nem található a Mester adatbázisban!"));
+
         String originalTenant = TenantContext.getCurrentTenant();
 
         try {
-            // 1. Átváltunk a Master adatbázisra, hogy biztosan megtaláljuk az Eseményt
-            TenantContext.setCurrentTenant(null);
-
-            Event event = eventRepository.findById(eventId)
-                    .orElseThrow(() -> new RuntimeException("Esemény nem található a Mester adatbázisban!"));
-
-            Organization org = event.getOrganization();
-
             // 2. Ha az eseményhez tartozó szervezetnek van saját Tenant adatbázisa, átkapcsolunk arra!
-            if (org != null && org.getTenantId() != null && !org.getTenantId().trim().isEmpty()) {
-                TenantContext.setCurrentTenant(org.getTenantId());
-            }
+            TenantContext.setCurrentTenant(route.hasTenant() ? route.tenantId() : null);
 
             // 3. A helyes Tenanton állva elindítjuk a tényleges szkennelést egy ÚJ tranzakcióban!
-            return self.processQrScanInTenant(volunteerId, eventId, scannerEmail, mealType);
+            try {
+                return self.processQrScanInTenant(volunteerId, eventId, scannerEmail, mealType);
+            } catch (DataIntegrityViolationException e) {
+                // Ezt a sorszámot közben máshol (másik példányon) már kiadták: a főkönyvet a DB-ből
+                // újratöltjük és egyszer újrapróbáljuk, ami már a valós keret szerint dönt
+                mealAllowanceLedger.resync(eventId);
+                return self.processQrScanInTenant(volunteerId, eventId, scannerEmail, mealType);
+            }
 
         } finally {
             // Visszaállítjuk az eredeti állapotot, hogy más API kéréseket ne zavarjunk
@@ -72,118 +97,227 @@ public class MealService {
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public Map<String, Object> processQrScanInTenant(Long volunteerId, Long eventId, String scannerEmail, MealType mealType) {
 
-        User volunteer = userRepository.findById(volunteerId)
-                .orElseThrow(() -> new RuntimeException("Felhasználó nem található!"));
-        User scanner = userRepository.findByEmail(scannerEmail)
-                .orElseThrow(() -> new RuntimeException("Szkenner felhasználó nem található!"));
-        Event event = eventRepository.findById(eventId)
-                .orElseThrow(() -> new RuntimeException("Esemény nem található!"));
-
-        boolean isSysAdmin = scanner.getRole() != null && scanner.getRole().name().equals("SYS_ADMIN");
-
-        Optional<EventTeamMember> scannerMembership = eventTeamMemberRepository.findByEventId(eventId).stream()
-                .filter(tm -> tm.getUserId().equals(scanner.getId()))
-                .findFirst();
-
-        boolean hasEventPermission = scannerMembership.isPresent() &&
-                (scannerMembership.get().getRole() == EventRole.ORGANIZER ||
-                        scannerMembership.get().getRole() == EventRole.COORDINATOR ||
-                        scannerMembership.get().getRole() == EventRole.MEAL_SCANNER);
-
-        if (!isSysAdmin && !hasEventPermission) {
-            return Map.of("success", false, "message", "Nincs jogosultságod ételt osztani ezen az eseményen!");
+        // A jogosultság, a keret és a menü a napi főkönyvből jön (csak az első szkenneléskor megy a DB-hez)
+        MealAllowanceLedger.ScannerInfo scanner = mealAllowanceLedger.resolveScanner(eventId, scannerEmail);
+        if (scanner == null) {
+            throw new RuntimeException("Szkenner felhasználó nem található!");
         }
 
-        LocalDateTime startOfDay = LocalDate.now().atStartOfDay();
-        LocalDateTime endOfDay = LocalDate.now().atTime(LocalTime.MAX);
-
-        int allowanceForThisMealType = 0;
-
-        Optional<EventTeamMember> teamMembership = eventTeamMemberRepository.findByEventId(eventId).stream()
-                .filter(tm -> tm.getUserId().equals(volunteerId))
-                .findFirst();
-
-        if (teamMembership.isPresent() &&
-                (teamMembership.get().getRole() == EventRole.ORGANIZER || teamMembership.get().getRole() == EventRole.COORDINATOR)) {
-            allowanceForThisMealType = 1; // Szervezőknek végtelenített is lehet, de most napi 1-re van állítva
-        } else {
-            if (mealType == MealType.BREAKFAST) {
-                allowanceForThisMealType = shiftAssignmentRepository.sumBreakfastsForUserToday(
-                        volunteerId, eventId, startOfDay, endOfDay, AssignmentStatus.CONFIRMED);
-            } else if (mealType == MealType.LUNCH) {
-                allowanceForThisMealType = shiftAssignmentRepository.sumLunchesForUserToday(
-                        volunteerId, eventId, startOfDay, endOfDay, AssignmentStatus.CONFIRMED);
-            } else if (mealType == MealType.DINNER) {
-                allowanceForThisMealType = shiftAssignmentRepository.sumDinnersForUserToday(
-                        volunteerId, eventId, startOfDay, endOfDay, AssignmentStatus.CONFIRMED);
-            }
+        if (!mealAllowanceLedger.canScan(eventId, scanner)) {
+            return Map.of("success", false, "message", "Nincs jogosultságod ételt osztani ezen az eseményen!");
         }
 
         String mealName = translateMealType(mealType);
 
-        if (allowanceForThisMealType == 0) {
+        // Atomikus foglalás a memóriában: ha a mentés elszáll, a tranzakció végén visszakerül a keretbe
+        MealAllowanceLedger.ScanDecision decision = mealAllowanceLedger.tryConsume(eventId, volunteerId, mealType);
+
+        if (decision.allowance() == 0) {
             return Map.of("success", false, "message", "Ma nincs olyan beosztásod, amihez " + mealName + " járna.");
         }
 
-        long consumedTodayOfThisType = mealLogRepository.countMealsConsumedTodayByType(
-                volunteerId, eventId, mealType, startOfDay, endOfDay);
-
-        if (consumedTodayOfThisType >= allowanceForThisMealType) {
-            // --- ÚJ: Megkeressük a legutóbbi kiadás idejét ---
-            Optional<MealConsumptionLog> lastLog = mealLogRepository.findFirstByVolunteerIdAndEventIdAndMealTypeAndConsumedAtBetweenOrderByConsumedAtDesc(
-                    volunteerId, eventId, mealType, startOfDay, endOfDay);
+        if (!decision.accepted()) {
+            LocalDateTime lastConsumedAt = decision.lastConsumedAt();
+            if (lastConsumedAt == null) {
+                // Visszavonás után nem tudjuk fejből az előző kiadás idejét: ritka eset, megkérdezzük a DB-t
+                lastConsumedAt = mealLogRepository.findFirstByVolunteerIdAndEventIdAndMealTypeAndConsumedAtBetweenOrderByConsumedAtDesc(
+                        volunteerId, eventId, mealType, LocalDate.now().atStartOfDay(), LocalDate.now().atTime(LocalTime.MAX))
+                        .map(MealConsumptionLog::getConsumedAt)
+                        .orElse(null);
+            }
 
-            String timeStr = lastLog.map(log -> log.getConsumedAt().format(java.time.format.DateTimeFormatter.ofPattern("HH:mm")))
-                    .orElse("ismeretlen időpontban");
+            String timeStr = lastConsumedAt != null
+                    ? lastConsumedAt.format(java.time.format.DateTimeFormatter.ofPattern("HH:mm"))
+                    : "ismeretlen időpontban";
 
-            return Map.of("success", false, "message", "A mai " + mealName + " keretedet (" + allowanceForThisMealType + "/" + allowanceForThisMealType + ") már teljesen felhasználtad!\n(Legutóbb kiadva: " + timeStr + ")");
+            return Map.of("success", false, "message", "A mai " + mealName + " keretedet (" + decision.allowance() + "/" + decision.allowance() + ") már teljesen felhasználtad!\n(Legutóbb kiadva: " + timeStr + ")");
         }
 
-        String dietaryPref = getDietaryPreference(volunteer, event);
+        DietIndex.DietEntry diet = dietIndex.dietOf(eventId, volunteerId);
+        String dietaryPref = diet.label();
 
+        // Referenciákkal mentünk: a felhasználókat és az eseményt nem kell betölteni egy INSERT-hez
         MealConsumptionLog log = MealConsumptionLog.builder()
-                .volunteer(volunteer)
-                .event(event)
-                .scannedBy(scanner)
+                .volunteer(userRepository.getReferenceById(volunteerId))
+                .event(eventRepository.getReferenceById(eventId))
+                .scannedBy(userRepository.getReferenceById(scanner.userId()))
                 .mealType(mealType)
-                .consumedAt(LocalDateTime.now())
+                .consumedAt(decision.lastConsumedAt())
                 .dietaryPreference(dietaryPref)
+                .mealDate(decision.lastConsumedAt().toLocalDate())
+                .redemptionSlot(decision.slot())
                 .build();
 
         mealLogRepository.save(log);
+        cateringStreamHub.publish(eventId, log.getMealDate(), new CateringDTO.CateringStreamEvent(
+                CateringStreamHub.SCAN_RECORDED, volunteerId, mealType.name(), log.getId(),
+                log.getConsumedAt().toString(), scanner.name(), dietaryPref, null));
 
         return Map.of(
                 "success", true,
-                "message", "Sikeres csekkolás! Jó étvágyat a(z) " + mealName + "hoz! (" + (consumedTodayOfThisType + 1) + "/" + allowanceForThisMealType + ")",
+                "message", "Sikeres csekkolás! Jó étvágyat a(z) " + mealName + "hoz! (" + decision.consumed() + "/" + decision.allowance() + ")",
                 "dietaryPreference", dietaryPref
         );
     }
 
-    private String getDietaryPreference(User volunteer, Event event) {
-        Optional<Application> appOpt = applicationRepository.findByUserIdAndEventId(volunteer.getId(), event.getId())
-                .stream().findFirst();
+    // =========================================================================
+    // OFFLINE KÖTEG: a térerő nélkül rögzített szkennelések egyben szinkronizálva
+    // =========================================================================
+    public OfflineScanDTO.BatchResponse routeAndIngestOfflineScans(List<OfflineScanDTO.ScanItem> scans, String scannerEmail) {
+        OfflineScanDTO.ScanResult[] results = new OfflineScanDTO.ScanResult[scans.size()];
 
-        if (appOpt.isPresent()) {
-            Application app = appOpt.get();
+        // Eseményenként egy menet: egy útvonal-feloldás, egy tranzakció, egy JDBC batch
+        Map<Long, List<Integer>> indexesByEvent = new LinkedHashMap<>();
+        for (int i = 0; i < scans.size(); i++) {
+            indexesByEvent.computeIfAbsent(scans.get(i).eventId(), id -> new ArrayList<>()).add(i);
+        }
 
-            for (ApplicationAnswer answer : app.getAnswers()) {
-                String questionText = answer.getQuestion().getQuestionText().toLowerCase();
+        indexesByEvent.forEach((eventId, indexes) -> {
+            List<OfflineScanDTO.ScanItem> eventScans = indexes.stream().map(scans::get).toList();
+            List<OfflineScanDTO.ScanResult> eventResults = ingestOfflineScansForEvent(eventId, eventScans, scannerEmail);
+            for (int i = 0; i < indexes.size(); i++) {
+                results[indexes.get(i)] = eventResults.get(i);
+            }
+        });
+
+        List<OfflineScanDTO.ScanResult> resultList = Arrays.asList(results);
+        return new OfflineScanDTO.BatchResponse(
+                countByStatus(resultList, OfflineScanDTO.ScanStatus.ACCEPTED),
+                countByStatus(resultList, OfflineScanDTO.ScanStatus.DUPLICATE),
+                countByStatus(resultList, OfflineScanDTO.ScanStatus.REJECTED),
+                resultList
+        );
+    }
 
-                if (questionText.contains("étkezés") ||
-                        questionText.contains("menü") ||
-                        questionText.contains("diéta") ||
-                        questionText.contains("allergia") ||
-                        questionText.contains("érzékenység")) {
+    private List<OfflineScanDTO.ScanResult> ingestOfflineScansForEvent(Long eventId, List<OfflineScanDTO.ScanItem> scans, String scannerEmail) {
+        Optional<EventTenantDirectory.EventRoute> route = eventTenantDirectory.resolve(eventId);
+        if (route.isEmpty()) {
+            return rejectAll(scans, "Esemény nem található!");
+        }
 
-                    String pref = answer.getAnswerText();
-                    if (pref != null && !pref.trim().isEmpty()) {
-                        return pref;
-                    }
-                }
+        String originalTenant = TenantContext.getCurrentTenant();
+        try {
+            TenantContext.setCurrentTenant(route.get().tenantId());
+            try {
+                return self.ingestOfflineScansInTenant(eventId, scans, scannerEmail);
+            } catch (DataIntegrityViolationException e) {
+                // Közben máshol is rögzítettek: a főkönyvet a DB-ből újratöltjük és egyszer újrapróbáljuk
+                scans.stream().map(scan -> scan.scannedAt().toLocalDate()).distinct()
+                        .forEach(day -> mealAllowanceLedger.resync(eventId, day));
+                return self.ingestOfflineScansInTenant(eventId, scans, scannerEmail);
             }
+        } catch (RuntimeException e) {
+            // Egy esemény hibája ne akassza meg a köteg többi eseményét: ezeket az eszköz később újraküldi
+            return rejectAll(scans, e.getMessage());
+        } finally {
+            TenantContext.setCurrentTenant(originalTenant);
+        }
+    }
+
+    private record PendingOfflineScan(OfflineScanDTO.ScanItem scan, int slot, DietIndex.DietEntry diet) {}
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public List<OfflineScanDTO.ScanResult> ingestOfflineScansInTenant(Long eventId, List<OfflineScanDTO.ScanItem> scans, String scannerEmail) {
+        MealAllowanceLedger.ScannerInfo scanner = mealAllowanceLedger.resolveScanner(eventId, scannerEmail);
+        if (scanner == null) {
+            throw new RuntimeException("Szkenner felhasználó nem található!");
+        }
+        if (!mealAllowanceLedger.canScan(eventId, scanner)) {
+            return rejectAll(scans, "Nincs jogosultságod ételt osztani ezen az eseményen!");
         }
 
-        return "Normál menü";
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime latestAllowed = now.plusMinutes(OFFLINE_CLOCK_SKEW_MINUTES);
+        LocalDateTime oldestAllowed = now.minusHours(offlineMaxAgeHours);
+
+        Set<String> alreadySynced = findSyncedClientScanIds(scans);
+        Set<String> seenInBatch = new HashSet<>();
+
+        // Időrendben foglalunk a keretből, ahogy a pultnál is történt
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < scans.size(); i++) order.add(i);
+        order.sort(Comparator.comparing(i -> scans.get(i).scannedAt()));
+
+        OfflineScanDTO.ScanResult[] results = new OfflineScanDTO.ScanResult[scans.size()];
+        List<PendingOfflineScan> pending = new ArrayList<>();
+
+        for (int i : order) {
+            OfflineScanDTO.ScanItem scan = scans.get(i);
+            String key = scan.idempotencyKey();
+            String mealName = translateMealType(scan.mealType());
+
+            if (alreadySynced.contains(key) || !seenInBatch.add(key)) {
+                results[i] = new OfflineScanDTO.ScanResult(key, OfflineScanDTO.ScanStatus.DUPLICATE, "Ez a szkennelés már szinkronizálva lett.", null);
+                continue;
+            }
+            if (scan.scannedAt().isAfter(latestAllowed)) {
+                results[i] = rejected(key, "A szkennelés időpontja a jövőben van, ellenőrizd az eszköz óráját!");
+                continue;
+            }
+            if (scan.scannedAt().isBefore(oldestAllowed)) {
+                results[i] = rejected(key, "A szkennelés túl régi (" + offlineMaxAgeHours + " óránál régebbi), nem szinkronizálható!");
+                continue;
+            }
+
+            MealAllowanceLedger.ScanDecision decision = mealAllowanceLedger.tryConsumeAt(eventId, scan.volunteerId(), scan.mealType(), scan.scannedAt());
+            if (decision.allowance() == 0) {
+                results[i] = rejected(key, "Ezen a napon nincs olyan beosztása, amihez " + mealName + " járna.");
+                continue;
+            }
+            if (!decision.accepted()) {
+                results[i] = rejected(key, "A napi " + mealName + " keret (" + decision.allowance() + "/" + decision.allowance() + ") már elfogyott!");
+                continue;
+            }
+
+            DietIndex.DietEntry diet = dietIndex.dietOf(eventId, scan.volunteerId());
+            pending.add(new PendingOfflineScan(scan, decision.slot(), diet));
+            results[i] = new OfflineScanDTO.ScanResult(key, OfflineScanDTO.ScanStatus.ACCEPTED,
+                    "Sikeres csekkolás: " + mealName + " (" + decision.consumed() + "/" + decision.allowance() + ")", diet.label());
+        }
+
+        // Az összes elfogadott kiadás egyetlen JDBC batch-ben (a tranzakció végén a főkönyv hiba esetén visszaáll)
+        if (!pending.isEmpty()) {
+            Long scannerId = scanner.userId();
+            jdbcTemplate.batchUpdate(OFFLINE_INSERT_SQL, pending, pending.size(), (ps, p) -> {
+                OfflineScanDTO.ScanItem scan = p.scan();
+                ps.setLong(1, scan.volunteerId());
+                ps.setLong(2, eventId);
+                ps.setLong(3, scannerId);
+                ps.setString(4, scan.mealType().name());
+                ps.setTimestamp(5, Timestamp.valueOf(scan.scannedAt()));
+                ps.setString(6, p.diet().label());
+                ps.setObject(7, scan.scannedAt().toLocalDate());
+                ps.setInt(8, p.slot());
+                ps.setString(9, scan.idempotencyKey());
+            });
+
+            // Egy köteg akár több száz kiadás: az élő kijelzők tételes üzenetek helyett egyszer újratöltenek
+            pending.stream().map(p -> p.scan().scannedAt().toLocalDate()).distinct()
+                    .forEach(day -> cateringStreamHub.publishResync(eventId, day));
+        }
+
+        return Arrays.asList(results);
+    }
+
+    // Egyetlen lekérdezéssel: mely kulcsokat szinkronizálta már korábban az eszköz
+    private Set<String> findSyncedClientScanIds(List<OfflineScanDTO.ScanItem> scans) {
+        List<String> keys = scans.stream().map(OfflineScanDTO.ScanItem::idempotencyKey).distinct().toList();
+        String placeholders = String.join(",", Collections.nCopies(keys.size(), "?"));
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT client_scan_id FROM meal_consumption_log WHERE client_scan_id IN (" + placeholders + ")",
+                String.class, keys.toArray()));
+    }
+
+    private static List<OfflineScanDTO.ScanResult> rejectAll(List<OfflineScanDTO.ScanItem> scans, String message) {
+        return scans.stream().map(scan -> rejected(scan.idempotencyKey(), message)).toList();
+    }
+
+    private static OfflineScanDTO.ScanResult rejected(String key, String message) {
+        return new OfflineScanDTO.ScanResult(key, OfflineScanDTO.ScanStatus.REJECTED, message, null);
+    }
+
+    private static int countByStatus(List<OfflineScanDTO.ScanResult> results, OfflineScanDTO.ScanStatus status) {
+        return (int) results.stream().filter(r -> r.status() == status).count();
     }
 
     private String translateMealType(MealType type) {
@@ -200,7 +334,7 @@ public class MealService {
     // ÚJ: SZKENNER JOGOSULTSÁGÚ ESEMÉNYEK LEKÉRDEZÉSE (A Frontendnek)
     // =========================================================================
     @Transactional(readOnly = true)
-    public List<Map<String, Object>> getScannerEvents(String scannerEmail) {
+    public PartialResult<List<Map<String, Object>>> getScannerEvents(String scannerEmail) {
         String originalTenant = TenantContext.getCurrentTenant();
 
         try {
@@ -223,17 +357,20 @@ public class MealService {
 
             java.util.List<Map<String, Object>> scannerEvents = new java.util.ArrayList<>();
 
-            // Belenézünk minden egyes szervezetbe (Tenant)
-            for (Organization org : userOrgs) {
-                if (org.getTenantId() != null && !org.getTenantId().trim().isEmpty()) {
-                    TenantContext.setCurrentTenant(org.getTenantId());
+            // Belenézünk minden egyes szervezetbe (Tenant) - párhuzamosan, REQUIRES_NEW-vel
+            List<String> tenantIds = userOrgs.stream()
+                    .map(Organization::getTenantId)
+                    .filter(t -> t != null && !t.trim().isEmpty())
+                    .distinct()
+                    .collect(Collectors.toList());
+            Long scannerId = scanner.getId();
 
-                    // REQUIRES_NEW-vel lekérdezzük a Tenantban levő eseményeit!
-                    scannerEvents.addAll(self.fetchScannerEventsInTenant(scanner.getId(), isSysAdmin));
-                }
-            }
+            // A nem válaszoló Szigetek eseményei hiányoznak: ezt a hívó a kimaradt bérlőkből látja
+            TenantFanOutResult<List<Map<String, Object>>> fanOut =
+                    tenantFanOutExecutor.runPerTenant(tenantIds, t -> self.fetchScannerEventsInTenant(scannerId, isSysAdmin));
+            fanOut.results().values().forEach(scannerEvents::addAll);
 
-            return scannerEvents;
+            return new PartialResult<>(scannerEvents, fanOut.failedTenants());
 
         } finally {
             TenantContext.setCurrentTenant(originalTenant);
@@ -279,15 +416,12 @@ public class MealService {
     // VISSZAVONÁS: Karmester metódus
     // =========================================================================
     public Map<String, Object> routeAndUndoLastScan(Long volunteerId, Long eventId, String scannerEmail, MealType mealType) {
+        EventTenantDirectory.EventRoute route = eventTenantDirectory.resolve(eventId)
+                .orElseThrow(() -> new RuntimeException("Esemény nem található!"));
+
         String originalTenant = TenantContext.getCurrentTenant();
         try {
-            TenantContext.setCurrentTenant(null);
-            Event event = eventRepository.findById(eventId)
-                    .orElseThrow(() -> new RuntimeException("Esemény nem található!"));
-
-            if (event.getOrganization() != null && event.getOrganization().getTenantId() != null) {
-                TenantContext.setCurrentTenant(event.getOrganization().getTenantId());
-            }
+            TenantContext.setCurrentTenant(route.tenantId());
             return self.undoLastScanInTenant(volunteerId, eventId, scannerEmail, mealType);
         } finally {
             TenantContext.setCurrentTenant(originalTenant);
@@ -320,7 +454,12 @@ public class MealService {
             return Map.of("success", false, "message", "Nincs mai " + translateMealType(mealType) + " beolvasás, amit vissza lehetne vonni.");
         }
 
-        mealLogRepository.delete(lastLog.get());
+        MealConsumptionLog undone = lastLog.get();
+        mealLogRepository.delete(undone);
+        // A törölt sor saját sorszáma szabadul fel (offline szinkron után nem feltétlenül a legnagyobb)
+        mealAllowanceLedger.releaseAfterCommit(eventId, volunteerId, mealType, undone.getConsumedAt().toLocalDate(), undone.getRedemptionSlot());
+        cateringStreamHub.publish(eventId, undone.getConsumedAt().toLocalDate(), new CateringDTO.CateringStreamEvent(
+                CateringStreamHub.SCAN_UNDONE, volunteerId, mealType.name(), undone.getId(), null, null, null, null));
         return Map.of("success", true, "message", "Sikeresen visszavontad az utolsó " + translateMealType(mealType) + " kiadását!");
     }
 
@@ -328,13 +467,11 @@ public class MealService {
     // CATERING DASHBOARD: Napi lista lekérése (Karmester)
     // =========================================================================
     public List<CateringDTO.CateringVolunteer> routeAndGetDailyVolunteers(Long eventId, LocalDate date, String requesterEmail) {
+        EventTenantDirectory.EventRoute route = eventTenantDirectory.resolve(eventId).orElseThrow();
+
         String originalTenant = TenantContext.getCurrentTenant();
         try {
-            TenantContext.setCurrentTenant(null);
-            Event event = eventRepository.findById(eventId).orElseThrow();
-            if (event.getOrganization() != null && event.getOrganization().getTenantId() != null) {
-                TenantContext.setCurrentTenant(event.getOrganization().getTenantId());
-            }
+            TenantContext.setCurrentTenant(route.tenantId());
             return self.getDailyVolunteersInTenant(eventId, date, requesterEmail);
         } finally {
             TenantContext.setCurrentTenant(originalTenant);
@@ -344,103 +481,92 @@ public class MealService {
     @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
     public List<CateringDTO.CateringVolunteer> getDailyVolunteersInTenant(Long eventId, LocalDate date, String requesterEmail) {
         User requester = userRepository.findByEmail(requesterEmail).orElseThrow();
-        EventTeamMember coordinator = eventTeamMemberRepository.findByEventId(eventId).stream()
-                .filter(tm -> tm.getUserId().equals(requester.getId()))
-                .findFirst().orElseThrow(() -> new RuntimeException("Nem vagy szervező!"));
-
-        // JAVÍTÁS 1: Egyelőre kikapcsoljuk a lokális munkaterület-szűrést, amíg az EventTeamMember
-        // entitásba be nem kerül a 'managedWorkAreas' mező.
-        boolean isGlobal = true;
-
-        // A te meglévő metódusod hívása:
-        List<Application> apps = applicationRepository.findActiveApplicationsByEventAndStatus(eventId, ApplicationStatus.APPROVED);
+        eventTeamMemberRepository.findByUserIdAndEventId(requester.getId(), eventId)
+                .orElseThrow(() -> new RuntimeException("Nem vagy szervező!"));
 
+        // Állandó számú csoportosított lekérdezés (jelentkezők, keretek, kiadások; a menük a diéta-indexből),
+        // az összefésülés a memóriában, azonosító szerinti hash-eléssel történik
         LocalDateTime startOfDay = date.atStartOfDay();
         LocalDateTime endOfDay = date.atTime(LocalTime.MAX);
-        List<MealConsumptionLog> dailyLogs = mealLogRepository.findByEventIdAndConsumedAtBetween(eventId, startOfDay, endOfDay);
-
-        List<CateringDTO.CateringVolunteer> result = new java.util.ArrayList<>();
-
-        for (Application app : apps) {
-            User volunteer = userRepository.findById(app.getUserId()).orElse(null);
-            if (volunteer == null) continue;
-
-            String diet = getDietaryPreference(volunteer, app.getEvent());
-
-            // JAVÍTÁS 2: Használjuk a te MEGLÉVŐ repó metódusaidat a műszakok ellenőrzésére!
-            int breakfasts = shiftAssignmentRepository.sumBreakfastsForUserToday(volunteer.getId(), eventId, startOfDay, endOfDay, AssignmentStatus.CONFIRMED);
-            int lunches = shiftAssignmentRepository.sumLunchesForUserToday(volunteer.getId(), eventId, startOfDay, endOfDay, AssignmentStatus.CONFIRMED);
-            int dinners = shiftAssignmentRepository.sumDinnersForUserToday(volunteer.getId(), eventId, startOfDay, endOfDay, AssignmentStatus.CONFIRMED);
-
-            List<String> eligibleMeals = new java.util.ArrayList<>();
-            if (breakfasts > 0) eligibleMeals.add("BREAKFAST");
-            if (lunches > 0) eligibleMeals.add("LUNCH");
-            if (dinners > 0) eligibleMeals.add("DINNER");
-
-            List<CateringDTO.MealScanHistory> userScans = dailyLogs.stream()
-                    .filter(log -> log.getVolunteer().getId().equals(volunteer.getId()))
-                    .map(log -> new CateringDTO.MealScanHistory(
-                            log.getId(),
-                            log.getMealType().name(),
-                            log.getConsumedAt().toString(),
-                            log.getScannedBy().getName()
-                    ))
-                    .collect(Collectors.toList());
 
-            result.add(new CateringDTO.CateringVolunteer(
-                    volunteer.getId(),
-                    volunteer.getName(),
-                    app.getAssignedWorkArea() != null ? app.getAssignedWorkArea().getName() : "Nincs beosztva",
-                    diet,
-                    eligibleMeals,
-                    userScans
-            ));
+        List<CateringDashboardAssembler.VolunteerRow> volunteers = applicationRepository
+                .findVolunteerRowsByEventAndStatus(eventId, ApplicationStatus.APPROVED).stream()
+                .map(row -> new CateringDashboardAssembler.VolunteerRow((Long) row[0], (String) row[1], (String) row[2]))
+                .toList();
+
+        Map<Long, int[]> allowances = new HashMap<>();
+        for (Object[] row : shiftAssignmentRepository.sumMealsPerUserForDay(eventId, startOfDay, endOfDay, AssignmentStatus.CONFIRMED)) {
+            allowances.put((Long) row[0], new int[]{
+                    ((Number) row[1]).intValue(), ((Number) row[2]).intValue(), ((Number) row[3]).intValue()
+            });
         }
-        return result;
+
+        List<CateringDashboardAssembler.ScanRow> scans = mealLogRepository
+                .findScanRowsByEventAndDay(eventId, startOfDay, endOfDay).stream()
+                .map(row -> new CateringDashboardAssembler.ScanRow((Long) row[0], (Long) row[1], ((MealType) row[2]).name(), (LocalDateTime) row[3], (String) row[4]))
+                .toList();
+
+        return CateringDashboardAssembler.assemble(volunteers, allowances, dietIndex.entries(eventId), scans);
     }
 
     // =========================================================================
     // CATERING DASHBOARD: Statisztikák lekérése (Karmester)
     // =========================================================================
     public CateringDTO.CateringSummary routeAndGetDailySummary(Long eventId, LocalDate date, String requesterEmail) {
-        // A statisztika ugyanarra a Tenant-os logikára és leszűrt listára épül!
-        List<CateringDTO.CateringVolunteer> volunteers = routeAndGetDailyVolunteers(eventId, date, requesterEmail);
+        EventTenantDirectory.EventRoute route = eventTenantDirectory.resolve(eventId).orElseThrow();
 
-        return new CateringDTO.CateringSummary(
-                calculateStats(volunteers, "BREAKFAST"),
-                calculateStats(volunteers, "LUNCH"),
-                calculateStats(volunteers, "DINNER")
-        );
+        String originalTenant = TenantContext.getCurrentTenant();
+        try {
+            TenantContext.setCurrentTenant(route.tenantId());
+            return self.getDailySummaryInTenant(eventId, date, requesterEmail);
+        } finally {
+            TenantContext.setCurrentTenant(originalTenant);
+        }
     }
 
-    private CateringDTO.MealStats calculateStats(List<CateringDTO.CateringVolunteer> volunteers, String mealType) {
-        int normal = 0, vega = 0, vegan = 0, gluten = 0, lactose = 0;
-
-        for (CateringDTO.CateringVolunteer v : volunteers) {
-            if (v.eligibleMealsToday().contains(mealType)) {
-                switch (v.dietaryPreference().toLowerCase()) {
-                    case "vegetáriánus": vega++; break;
-                    case "vegán": vegan++; break;
-                    case "gluténmentes": gluten++; break;
-                    case "laktózmentes": lactose++; break;
-                    default: normal++; break;
-                }
-            }
+    // Az összesítő az előre számolt számlálókból jön (pár sor), így a konyhai képernyő sűrűn frissítheti
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public CateringDTO.CateringSummary getDailySummaryInTenant(Long eventId, LocalDate date, String requesterEmail) {
+        User requester = userRepository.findByEmail(requesterEmail).orElseThrow();
+        eventTeamMemberRepository.findByUserIdAndEventId(requester.getId(), eventId)
+                .orElseThrow(() -> new RuntimeException("Nem vagy szervező!"));
+
+        return cateringSummaryService.getSummary(eventId, date);
+    }
+
+    // =========================================================================
+    // CATERING DASHBOARD: Élő csatorna (SSE) a lekérdezgetés helyett
+    // =========================================================================
+    public SseEmitter routeAndSubscribeCateringStream(Long eventId, LocalDate date, String requesterEmail) {
+        EventTenantDirectory.EventRoute route = eventTenantDirectory.resolve(eventId).orElseThrow();
+
+        String originalTenant = TenantContext.getCurrentTenant();
+        try {
+            TenantContext.setCurrentTenant(route.tenantId());
+            self.checkCateringAccessInTenant(eventId, requesterEmail);
+            // A feliratkozás a Sziget kulcsán történik, ugyanott, ahol a változások keletkeznek
+            return cateringStreamHub.subscribe(eventId, date);
+        } finally {
+            TenantContext.setCurrentTenant(originalTenant);
         }
-        return new CateringDTO.MealStats(normal, vega, vegan, gluten, lactose, normal + vega + vegan + gluten + lactose);
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void checkCateringAccessInTenant(Long eventId, String requesterEmail) {
+        User requester = userRepository.findByEmail(requesterEmail).orElseThrow();
+        eventTeamMemberRepository.findByUserIdAndEventId(requester.getId(), eventId)
+                .orElseThrow(() -> new RuntimeException("Nem vagy szervező!"));
     }
 
     // =========================================================================
     // CATERING DASHBOARD: Menü (diéta) manuális átírása
     // =========================================================================
     public void routeAndUpdateDiet(Long eventId, Long userId, String newDiet, String requesterEmail) {
+        EventTenantDirectory.EventRoute route = eventTenantDirectory.resolve(eventId).orElseThrow();
+
         String originalTenant = TenantContext.getCurrentTenant();
         try {
-            TenantContext.setCurrentTenant(null);
-            Event event = eventRepository.findById(eventId).orElseThrow();
-            if (event.getOrganization() != null && event.getOrganization().getTenantId() != null) {
-                TenantContext.setCurrentTenant(event.getOrganization().getTenantId());
-            }
+            TenantContext.setCurrentTenant(route.tenantId());
             self.updateDietInTenant(eventId, userId, newDiet, requesterEmail);
         } finally {
             TenantContext.setCurrentTenant(originalTenant);
@@ -458,6 +584,8 @@ public class MealService {
         EventQuestion dietQuestion = eventQuestionRepository.findByEventIdAndPurpose(eventId, QuestionPurpose.DIETARY_PREFERENCE)
                 .orElseThrow(() -> new RuntimeException("Ebben az eseményben nincs étkezési igény kérdés beállítva!"));
 
+        CateringSummaryService.VolunteerMealSnapshot before = cateringSummaryService.snapshot(eventId, userId);
+
         // Megkeressük a korábbi választ, vagy létrehozunk egy újat, ha eddig nem volt
         ApplicationAnswer answer = applicationAnswerRepository.findByApplicationIdAndQuestionId(app.getId(), dietQuestion.getId())
                 .orElse(ApplicationAnswer.builder()
@@ -468,5 +596,9 @@ public class MealService {
         // Felülírjuk és mentjük
         answer.setAnswerText(newDiet);
         applicationAnswerRepository.save(answer);
+        dietIndex.update(eventId, userId, newDiet);
+        cateringSummaryService.applyChange(eventId, before, cateringSummaryService.snapshot(eventId, userId));
+        cateringStreamHub.publishToEvent(eventId, new CateringDTO.CateringStreamEvent(
+                CateringStreamHub.DIET_CHANGED, userId, null, null, null, null, newDiet, null));
     }
 }
\ No newline at end of file
@@ -0,0 +1,341 @@
+package com.example.volunteermanagement.service;
+
+import com.example.volunteermanagement.dto.MyShiftDTO;
+import com.example.volunteermanagement.tenant.TenantContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Az önkéntesek "Műszakjaim" nézete előre kiszámolva, a Mester adatbázisban (my_shift_view).
+ * A nézet felhasználónként és bérlőnként (partíció; a Mester személyes elfoglaltságai a '' kulcs alatt) épül fel:
+ * az olvasás egyetlen indexelt lekérdezés, csak a hiányzó vagy elavult partíciókért megyünk le a Szigetekre.
+ * <p>
+ * Karbantartás: a beosztások változásakor (létrehozás, státusz, törlés, műszak módosítása, esemény/csapat módosítása)
+ * a commit után az érintett felhasználók partícióit érvénytelennek jelöljük (invalidated_at), a következő olvasás
+ * újraépíti őket. Az újraépítés csak akkor írja ki az eredményt, ha az olvasás az utolsó érvénytelenítés után indult,
+ * így egy párhuzamos módosítás nem íródik felül régi adattal. A munkatársak nevének változását nem követjük:
+ * ezt az app.my-shifts.max-age-ms utáni újraépítés hozza be.
+ * <p>
+ * Ha az érvénytelenítés a commit után elbukik (pl. a Mester épp nem elérhető), a jelölést megjegyezzük:
+ * amíg át nem megy, az érintett partíciókat olvasáskor elavultnak tekintjük, és minden olvasás újrapróbálja.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MyShiftView {
+
+    // A Mester (személyes elfoglaltságok) partíciójának kulcsa
+    private static final String MASTER_KEY = "";
+    private static final String CO_WORKER_SEPARATOR = "\n";
+    // Ennél több függő érvénytelenítést nem tartunk meg: a legrégebbit a max-age szerinti újraépítés pótolja
+    private static final int MAX_FAILED_INVALIDATIONS = 10_000;
+
+    private static final String READ_SQL = "SELECT p.tenant_key, p.built_at, p.invalidated_at, v.assignment_id, v.shift_id, " +
+            "v.event_id, v.event_name, v.work_area_name, v.shift_name, v.start_time, v.end_time, v.status, v.message, v.shift_type, " +
+            "v.description, v.co_workers FROM my_shift_view_partitions p " +
+            "LEFT JOIN my_shift_view v ON v.user_id = p.user_id AND v.tenant_key = p.tenant_key " +
+            "WHERE p.user_id = ? ORDER BY p.tenant_key, v.start_time, v.assignment_id";
+    private static final String CLAIM_SQL = "INSERT INTO my_shift_view_partitions (user_id, tenant_key, built_at) VALUES (?, ?, ?) " +
+            "ON CONFLICT (user_id, tenant_key) DO UPDATE SET built_at = EXCLUDED.built_at " +
+            "WHERE my_shift_view_partitions.invalidated_at IS NULL OR my_shift_view_partitions.invalidated_at < EXCLUDED.built_at";
+    private static final String DELETE_ROWS_SQL = "DELETE FROM my_shift_view WHERE user_id = ? AND tenant_key = ?";
+    private static final String INSERT_ROW_SQL = "INSERT INTO my_shift_view (user_id, tenant_key, assignment_id, shift_id, event_id, event_name, " +
+            "work_area_name, shift_name, start_time, end_time, status, message, shift_type, description, co_workers) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INVALIDATE_USER_SQL = "INSERT INTO my_shift_view_partitions (user_id, tenant_key, invalidated_at) VALUES (?, ?, ?) " +
+            "ON CONFLICT (user_id, tenant_key) DO UPDATE SET invalidated_at = EXCLUDED.invalidated_at";
+    private static final String INVALIDATE_EVENT_SQL = "UPDATE my_shift_view_partitions SET invalidated_at = ? " +
+            "WHERE tenant_key = ? AND user_id IN (SELECT v.user_id FROM my_shift_view v WHERE v.tenant_key = ? AND v.event_id = ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    @Lazy
+    private MyShiftView self;
+
+    // Ennyi idő után akkor is újraépítjük a partíciót, ha nem jött érvénytelenítés (pl. munkatárs nevének változása)
+    @Value("${app.my-shifts.max-age-ms:21600000}")
+    private long maxAgeMs;
+
+    private final AtomicLong partitionHits = new AtomicLong();
+    private final AtomicLong partitionMisses = new AtomicLong();
+    private final AtomicLong partitionsStored = new AtomicLong();
+    private final AtomicLong staleStoresSkipped = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong invalidationRetries = new AtomicLong();
+
+    /**
+     * Egy commit után elbukott érvénytelenítés: vagy felhasználók (userIds) egy partíciója, vagy egy esemény (eventId)
+     * összes érintettje a partícióban. Az eredeti időbélyeggel próbáljuk újra, így egy közben lefutott újraépítés érvényes marad.
+     */
+    private record FailedInvalidation(String sql, List<Object[]> args, String key, Set<Long> userIds, Long eventId) {}
+
+    private final Queue<FailedInvalidation> failedInvalidations = new ConcurrentLinkedQueue<>();
+
+    // --- Olvasás / újraépítés ---
+
+    /**
+     * A felhasználó friss partíciói (bérlő -> műszakok; null = Mester). Ami hiányzik, azt a hívónak kell újraépítenie.
+     */
+    public Map<String, List<MyShiftDTO>> readFresh(Long userId, Collection<String> tenantIds) {
+        retryFailedInvalidations();
+        String originalTenant = TenantContext.getCurrentTenant();
+        List<Map<String, Object>> rows;
+        try {
+            TenantContext.setCurrentTenant(null);
+            rows = self.readRowsInMaster(userId);
+        } catch (Exception e) {
+            // Nézet nélkül is kiszolgálunk: minden partíció újraépül a Szigetekről
+            log.warn("⚠️ Műszakjaim nézet olvasási hiba ({}): {}", userId, e.getMessage());
+            rows = List.of();
+        } finally {
+            TenantContext.setCurrentTenant(originalTenant);
+        }
+
+        Set<String> wantedKeys = new HashSet<>();
+        tenantIds.forEach(t -> wantedKeys.add(keyOf(t)));
+        LocalDateTime oldestAccepted = LocalDateTime.now().minusNanos(maxAgeMs * 1_000_000L);
+
+        Map<String, List<MyShiftDTO>> fresh = new HashMap<>();
+        Set<String> rejected = pendingInvalidationKeys(userId, rows);
+        for (Map<String, Object> row : rows) {
+            String key = (String) row.get("tenant_key");
+            if (!wantedKeys.contains(key) || rejected.contains(key)) continue;
+
+            String tenantId = tenantOf(key);
+            if (!fresh.containsKey(tenantId)) {
+                if (!isFresh((Timestamp) row.get("built_at"), (Timestamp) row.get("invalidated_at"), oldestAccepted)) {
+                    rejected.add(key);
+                    continue;
+                }
+                fresh.put(tenantId, new ArrayList<>());
+            }
+            if (row.get("assignment_id") != null) {
+                fresh.get(tenantId).add(toDto(row, tenantId));
+            }
+        }
+
+        partitionHits.addAndGet(fresh.size());
+        partitionMisses.addAndGet(wantedKeys.size() - fresh.size());
+        return fresh;
+    }
+
+    /**
+     * Az újraépített partíciók kiírása.
+     *
+     * @param readStartedAt az újraépítés (a Szigetek olvasásának) kezdete: az ennél későbbi érvénytelenítés nyer
+     */
+    public void store(Long userId, Map<String, List<MyShiftDTO>> partitions, LocalDateTime readStartedAt) {
+        if (partitions.isEmpty()) return;
+        String originalTenant = TenantContext.getCurrentTenant();
+        try {
+            TenantContext.setCurrentTenant(null);
+            self.storeInMaster(userId, partitions, readStartedAt);
+        } catch (Exception e) {
+            // A nézet csak gyorsítás: hiba esetén a következő olvasás újra próbálja
+            log.warn("⚠️ Műszakjaim nézet mentési hiba ({}): {}", userId, e.getMessage());
+        } finally {
+            TenantContext.setCurrentTenant(originalTenant);
+        }
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public List<Map<String, Object>> readRowsInMaster(Long userId) {
+        return jdbcTemplate.queryForList(READ_SQL, userId);
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void storeInMaster(Long userId, Map<String, List<MyShiftDTO>> partitions, LocalDateTime readStartedAt) {
+        Timestamp builtAt = Timestamp.valueOf(readStartedAt);
+        for (Map.Entry<String, List<MyShiftDTO>> partition : partitions.entrySet()) {
+            String key = keyOf(partition.getKey());
+            // A partíció sorát zároljuk; ha közben érvénytelenítették, a régi olvasást eldobjuk
+            if (jdbcTemplate.update(CLAIM_SQL, userId, key, builtAt) == 0) {
+                staleStoresSkipped.incrementAndGet();
+                continue;
+            }
+
+            jdbcTemplate.update(DELETE_ROWS_SQL, userId, key);
+            List<Object[]> rows = new ArrayList<>(partition.getValue().size());
+            for (MyShiftDTO shift : partition.getValue()) {
+                rows.add(new Object[]{userId, key, shift.assignmentId(), shift.shiftId(), shift.eventId(), shift.eventName(),
+                        shift.workAreaName(), shift.shiftName(),
+                        Timestamp.valueOf(LocalDateTime.parse(shift.startTime())), Timestamp.valueOf(LocalDateTime.parse(shift.endTime())),
+                        shift.status(), shift.message(), shift.type(), shift.description(),
+                        String.join(CO_WORKER_SEPARATOR, shift.coWorkers())});
+            }
+            if (!rows.isEmpty()) jdbcTemplate.batchUpdate(INSERT_ROW_SQL, rows);
+            partitionsStored.incrementAndGet();
+        }
+    }
+
+    // --- Érvénytelenítés (a hívó bérlőjén történt változás után) ---
+
+    /**
+     * Az érintett felhasználók partíciója a hívó bérlőjében (Mesterben: a személyes elfoglaltságaik) a commit után elavul.
+     */
+    public void invalidateUsers(Collection<Long> userIds) {
+        if (userIds.isEmpty()) return;
+        String key = keyOf(TenantContext.getCurrentTenant());
+        List<Long> ids = List.copyOf(new LinkedHashSet<>(userIds));
+        runAfterCommit(() -> {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            List<Object[]> args = new ArrayList<>(ids.size());
+            ids.forEach(id -> args.add(new Object[]{id, key, now}));
+            invalidate(new FailedInvalidation(INVALIDATE_USER_SQL, args, key, Set.copyOf(ids), null));
+        });
+    }
+
+    /**
+     * Az esemény adatai (cím, területek) változtak: mindenki partíciója elavul, akinek van műszakja az eseményen.
+     */
+    public void invalidateEvent(Long eventId) {
+        String key = keyOf(TenantContext.getCurrentTenant());
+        runAfterCommit(() -> {
+            List<Object[]> args = new ArrayList<>();
+            args.add(new Object[]{Timestamp.valueOf(LocalDateTime.now()), key, key, eventId});
+            invalidate(new FailedInvalidation(INVALIDATE_EVENT_SQL, args, key, Set.of(), eventId));
+        });
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void invalidateInMaster(String sql, List<Object[]> args) {
+        jdbcTemplate.batchUpdate(sql, args);
+        invalidations.addAndGet(args.size());
+    }
+
+    // Az érvénytelenítés a Mesterben; ha elbukik, megjegyezzük és a következő olvasások újrapróbálják
+    private void invalidate(FailedInvalidation invalidation) {
+        retryFailedInvalidations();
+        if (tryInvalidate(invalidation)) return;
+
+        failedInvalidations.add(invalidation);
+        while (failedInvalidations.size() > MAX_FAILED_INVALIDATIONS) {
+            FailedInvalidation dropped = failedInvalidations.poll();
+            if (dropped != null) {
+                log.error("❌ Műszakjaim nézet: túl sok függő érvénytelenítés, a legrégebbit eldobjuk (partíció: '{}')", dropped.key());
+            }
+        }
+    }
+
+    private void retryFailedInvalidations() {
+        for (FailedInvalidation invalidation : failedInvalidations) {
+            invalidationRetries.incrementAndGet();
+            // A Mester még mindig nem elérhető: a többivel sem próbálkozunk most
+            if (!tryInvalidate(invalidation)) return;
+            failedInvalidations.remove(invalidation);
+        }
+    }
+
+    private boolean tryInvalidate(FailedInvalidation invalidation) {
+        String originalTenant = TenantContext.getCurrentTenant();
+        try {
+            TenantContext.setCurrentTenant(null);
+            self.invalidateInMaster(invalidation.sql(), invalidation.args());
+            return true;
+        } catch (Exception e) {
+            log.warn("⚠️ Műszakjaim nézet érvénytelenítési hiba (partíció: '{}'), később újrapróbáljuk: {}", invalidation.key(), e.getMessage());
+            return false;
+        } finally {
+            TenantContext.setCurrentTenant(originalTenant);
+        }
+    }
+
+    // A felhasználó azon partíciói, amelyekre még függő érvénytelenítés vonatkozik (közvetlenül, vagy egy esemény révén)
+    private Set<String> pendingInvalidationKeys(Long userId, List<Map<String, Object>> rows) {
+        Set<String> keys = new HashSet<>();
+        if (failedInvalidations.isEmpty()) return keys;
+        for (FailedInvalidation invalidation : failedInvalidations) {
+            if (invalidation.userIds().contains(userId)) {
+                keys.add(invalidation.key());
+            } else if (invalidation.eventId() != null) {
+                for (Map<String, Object> row : rows) {
+                    Object eventId = row.get("event_id");
+                    if (invalidation.key().equals(row.get("tenant_key")) && eventId != null
+                            && ((Number) eventId).longValue() == invalidation.eventId()) {
+                        keys.add(invalidation.key());
+                        break;
+                    }
+                }
+            }
+        }
+        return keys;
+    }
+
+    // A módosítás commitja után jelölünk, különben egy közben induló újraépítés még a régi adatot olvasná be
+    private void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    // --- Segédek ---
+
+    private static boolean isFresh(Timestamp builtAt, Timestamp invalidatedAt, LocalDateTime oldestAccepted) {
+        if (builtAt == null) return false;
+        LocalDateTime built = builtAt.toLocalDateTime();
+        return built.isAfter(oldestAccepted) && (invalidatedAt == null || invalidatedAt.toLocalDateTime().isBefore(built));
+    }
+
+    private static MyShiftDTO toDto(Map<String, Object> row, String tenantId) {
+        String coWorkers = (String) row.get("co_workers");
+        return new MyShiftDTO(
+                ((Number) row.get("assignment_id")).longValue(),
+                ((Number) row.get("shift_id")).longValue(),
+                row.get("event_id") != null ? ((Number) row.get("event_id")).longValue() : null,
+                (String) row.get("event_name"),
+                (String) row.get("work_area_name"),
+                (String) row.get("shift_name"),
+                ((Timestamp) row.get("start_time")).toLocalDateTime().toString(),
+                ((Timestamp) row.get("end_time")).toLocalDateTime().toString(),
+                (String) row.get("status"),
+                (String) row.get("message"),
+                (String) row.get("shift_type"),
+                (String) row.get("description"),
+                coWorkers == null || coWorkers.isEmpty() ? List.of() : List.of(coWorkers.split(CO_WORKER_SEPARATOR)),
+                tenantId
+        );
+    }
+
+    private static String keyOf(String tenantId) {
+        return tenantId == null ? MASTER_KEY : tenantId;
+    }
+
+    private static String tenantOf(String key) {
+        return MASTER_KEY.equals(key) ? null : key;
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("partitionHits", partitionHits.get());
+        metrics.put("partitionMisses", partitionMisses.get());
+        metrics.put("partitionsStored", partitionsStored.get());
+        metrics.put("staleStoresSkipped", staleStoresSkipped.get());
+        metrics.put("invalidations", invalidations.get());
+        metrics.put("invalidationRetries", invalidationRetries.get());
+        metrics.put("pendingInvalidations", failedInvalidations.size());
+        return metrics;
+    }
+}
@@ -28,7 +28,9 @@ public class OrganizationService {
     private final OrganizationRepository organizationRepository;
     private final OrganizationMemberRepository organizationMemberRepository;
     private final AuditLogService auditLogService;
+    private final AccessCacheInvalidator accessCacheInvalidator;
     private final DataSourceConfig dataSourceConfig;
+    private final EventTenantDirectory eventTenantDirectory;
 
     @Autowired
     private TenantProvisioningService tenantProvisioningService;
@@ -118,6 +120,7 @@ public class OrganizationService {
             OrganizationRole oldRole = member.getRole();
             member.setRole(newRole);
             organizationMemberRepository.save(member);
+            accessCacheInvalidator.invalidateUser(targetUser.getEmail());
 
             auditLogService.logAction(adminEmail, "ROLE_UPDATE", "Felhasználó: " + targetUser.getEmail(), "Szerepkör módosítva: " + oldRole + " -> " + newRole, orgId);
         } finally {
@@ -248,6 +251,7 @@ public class OrganizationService {
             }
 
             organizationMemberRepository.save(member);
+            accessCacheInvalidator.invalidateUser(member.getUser().getEmail());
         } finally {
             TenantContext.setCurrentTenant(originalTenant);
         }
@@ -270,6 +274,7 @@ public class OrganizationService {
 
             member.setStatus(MembershipStatus.LEFT);
             organizationMemberRepository.save(member);
+            accessCacheInvalidator.invalidateUser(userEmail);
 
             auditLogService.logAction(userEmail, "LEAVE_ORGANIZATION", "Szervezet ID: " + orgId, "A felhasználó kilépett a szervezetből.", orgId);
         } finally {
@@ -304,6 +309,7 @@ public class OrganizationService {
             memberToRemove.setStatus(MembershipStatus.REMOVED);
             memberToRemove.setRejectionMessage(reason);
             organizationMemberRepository.save(memberToRemove);
+            accessCacheInvalidator.invalidateUser(userToRemove.getEmail());
 
             if (org.getTenantId() != null) {
                 String dbName = org.getTenantId() + "_db";
@@ -348,6 +354,7 @@ public class OrganizationService {
                 memberToRestore.setRole(OrganizationRole.VOLUNTEER);
             }
             organizationMemberRepository.save(memberToRestore);
+            accessCacheInvalidator.invalidateUser(memberToRestore.getUser().getEmail());
 
             if (org.getTenantId() != null) {
                 String dbName = org.getTenantId() + "_db";
@@ -440,6 +447,8 @@ public class OrganizationService {
             org.setCui(dto.cui());
 
             organizationRepository.save(org);
+            // Az események útvonalában a szervezet adatai is benne vannak
+            eventTenantDirectory.invalidateOrganization(orgId);
 
             auditLogService.logAction(requesterEmail, "ORG_UPDATED", "Szervezet: " + org.getName(), "Szervezeti adatok frissítve.", orgId);
         } finally {
@@ -516,6 +525,7 @@ public class OrganizationService {
                                         m.setStatus(MembershipStatus.APPROVED);
                                         organizationMemberRepository.save(m);
                                     });
+                            accessCacheInvalidator.invalidateUser(userEmail);
 
                             auditLogService.logActionWithOrgName(userEmail, "RESTORE_ORGANIZATION", "Szervezet: " + existingOrg.getName(), "Törölt szervezet visszaállítva és frissítve.", existingOrg.getId(), existingOrg.getName());
 
@@ -585,6 +595,7 @@ public class OrganizationService {
 
             // Új bérlői adatbázis (Sziget) felépítése
             tenantProvisioningService.createNewTenantDatabase(tenantId, dbName, savedOrg, user, savedOwner);
+            accessCacheInvalidator.invalidateUser(userEmail);
 
             auditLogService.logActionWithOrgName(userEmail, "CREATE_ORGANIZATION", "Szervezet: " + savedOrg.getName(), "Új szervezet és bérlői adatbázis létrehozva.", savedOrg.getId(), savedOrg.getName());
 
@@ -634,6 +645,10 @@ public class OrganizationService {
             // A modelleden lévő @SQLDelete miatt ez nem töröl, hanem beállítja a deleted_at időbélyeget a DB-ben!
             organizationRepository.delete(org);
 
+            // Minden tag elvesztette a tagságát: a felhasználói gyorsítótárakat teljesen ürítjük
+            accessCacheInvalidator.invalidateAll();
+            eventTenantDirectory.invalidateOrganization(orgId);
+
             auditLogService.logAction(requesterEmail, "DELETE_ORGANIZATION", "Szervezet: " + org.getName(), "Szervezet logikai törlése (Soft Delete) megtörtént, tagságok deaktiválva.", orgId);
         } finally {
             TenantContext.setCurrentTenant(originalTenant);
@@ -0,0 +1,531 @@
+package com.example.volunteermanagement.service;
+
+import com.example.volunteermanagement.config.DataSourceConfig;
+import com.example.volunteermanagement.model.Organization;
+import com.example.volunteermanagement.tenant.TenantContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mester ↔ Sziget másolatok (felhasználók, szervezetek, tagságok, kirakat események) szinkronizálása
+ * egy tartós kimenő sorral (a Mester "replication_outbox" táblája).
+ * <p>
+ * A változás először a sorba kerül: a cél (Mester vagy egy sziget) + típus + entitás kulcsra
+ * upsertelünk, így ugyanannak az entitásnak a még ki nem küldött változásai egyetlen sorrá
+ * olvadnak össze (mindig a legfrissebb állapot megy ki). A kézbesítés célonként, típusonként
+ * kötegelt upsertekkel, a {@link DataSourceConfig} poolozott kapcsolatain történik. Ami nem ment
+ * át (pl. épp nem elérhető a sziget), az exponenciálisan növekvő várakozással újra próbálkozik,
+ * így a másolatok a kiesés után is összeérnek.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReplicationOutbox {
+
+    public static final String MASTER = "master";
+
+    /**
+     * A sorban tárolt változások típusai, a kézbesítés sorrendjében
+     * (a tagság a felhasználóra és a szervezetre hivatkozik, ezért utánuk jön).
+     */
+    public enum Kind {
+        ORGANIZATION(OrganizationCopy.class),
+        USER(UserCopy.class),
+        MEMBERSHIP(MembershipCopy.class),
+        EVENT(EventCopy.class),
+        EVENT_DELETE(EventDeletion.class);
+
+        private final Class<?> payloadType;
+
+        Kind(Class<?> payloadType) {
+            this.payloadType = payloadType;
+        }
+    }
+
+    public record OrganizationCopy(Long id, String name, String tenantId) {}
+
+    public record UserCopy(Long id, String email, String name, String password, String role) {}
+
+    public record MembershipCopy(Long id, Long organizationId, Long userId, String role, String status) {}
+
+    public record EventCopy(Long id, Long organizationId, String title, String description, String location,
+                            LocalDateTime startTime, LocalDateTime endTime, LocalDateTime applicationDeadline,
+                            boolean registrationOpen, String bannerUrl,
+                            LocalTime breakfastStartTime, LocalTime breakfastEndTime,
+                            LocalTime lunchStartTime, LocalTime lunchEndTime,
+                            LocalTime dinnerStartTime, LocalTime dinnerEndTime) {}
+
+    public record EventDeletion(Long id, LocalDateTime deletedAt) {}
+
+    /**
+     * Egy sorba teendő változás: típus, entitás kulcs és az entitás (másolandó) állapota.
+     */
+    public record Change(Kind kind, String entityKey, Object payload) {
+
+        public static Change organization(Organization org) {
+            return new Change(Kind.ORGANIZATION, String.valueOf(org.getId()),
+                    new OrganizationCopy(org.getId(), org.getName(), org.getTenantId()));
+        }
+
+        public static Change user(Long id, String email, String name, String password, String role) {
+            return new Change(Kind.USER, String.valueOf(id), new UserCopy(id, email, name, password, role));
+        }
+
+        public static Change membership(Long id, Long organizationId, Long userId, String role, String status) {
+            return new Change(Kind.MEMBERSHIP, String.valueOf(id), new MembershipCopy(id, organizationId, userId, role, status));
+        }
+
+        public static Change event(EventCopy copy) {
+            return new Change(Kind.EVENT, String.valueOf(copy.id()), copy);
+        }
+
+        public static Change eventDeletion(Long eventId, LocalDateTime deletedAt) {
+            return new Change(Kind.EVENT_DELETE, String.valueOf(eventId), new EventDeletion(eventId, deletedAt));
+        }
+
+        public String key() {
+            return kind.name() + ":" + entityKey;
+        }
+    }
+
+    private record OutboxRow(long id, String target, Kind kind, String entityKey, String payload, int attempts, long version) {}
+
+    // Az összevonás: ugyanarra a kulcsra az új állapot felülírja a régit (a verzió jelzi a kézbesítőnek, hogy közben változott).
+    // Egy visszatartott (hibás) sor nem kerül előrébb: a sziget úgyis épp nem elérhető.
+    private static final String ENQUEUE_SQL = "INSERT INTO replication_outbox " +
+            "(target, kind, entity_key, payload, attempts, version, next_attempt_at, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, 0, 0, ?, ?, ?) " +
+            "ON CONFLICT (target, kind, entity_key) DO UPDATE SET payload = EXCLUDED.payload, " +
+            "version = replication_outbox.version + 1, updated_at = EXCLUDED.updated_at, " +
+            "next_attempt_at = GREATEST(replication_outbox.next_attempt_at, EXCLUDED.next_attempt_at)";
+
+    // Lefoglalás: a kiválasztott sorok a bérlet idejére "eltűnnek" a többi kézbesítő elől, zárolás nélkül
+    private static final String CLAIM_SQL = "UPDATE replication_outbox SET next_attempt_at = ? WHERE id IN (" +
+            "SELECT id FROM replication_outbox WHERE next_attempt_at <= ? %s ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED) " +
+            "RETURNING id, target, kind, entity_key, payload, attempts, version";
+
+    // A másolat minden replikált oszlopa a forrás állapotát követi (pl. e-mail csere, jelszóváltás, átnevezés)
+    private static final String USER_SQL = "INSERT INTO users (id, email, name, password, role) VALUES (?, ?, ?, ?, ?) " +
+            "ON CONFLICT (id) DO UPDATE SET email = EXCLUDED.email, name = EXCLUDED.name, " +
+            "password = EXCLUDED.password, role = EXCLUDED.role";
+    private static final String ORGANIZATION_SQL = "INSERT INTO organizations (id, name, tenant_id) VALUES (?, ?, ?) " +
+            "ON CONFLICT (id) DO UPDATE SET name = EXCLUDED.name, tenant_id = EXCLUDED.tenant_id";
+    private static final String MEMBERSHIP_SQL = "INSERT INTO organization_members (id, organization_id, user_id, role, status) " +
+            "VALUES (?, ?, ?, ?, ?) ON CONFLICT (id) DO UPDATE SET role = EXCLUDED.role, status = EXCLUDED.status";
+    private static final String EVENT_SQL = "INSERT INTO events (id, title, description, location, start_time, end_time, " +
+            "application_deadline, is_registration_open, organization_id, banner_url, breakfast_start_time, breakfast_end_time, " +
+            "lunch_start_time, lunch_end_time, dinner_start_time, dinner_end_time) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (id) DO UPDATE SET " +
+            "title = EXCLUDED.title, description = EXCLUDED.description, location = EXCLUDED.location, " +
+            "start_time = EXCLUDED.start_time, end_time = EXCLUDED.end_time, " +
+            "application_deadline = EXCLUDED.application_deadline, is_registration_open = EXCLUDED.is_registration_open, " +
+            "organization_id = EXCLUDED.organization_id, banner_url = EXCLUDED.banner_url, " +
+            "breakfast_start_time = EXCLUDED.breakfast_start_time, breakfast_end_time = EXCLUDED.breakfast_end_time, " +
+            "lunch_start_time = EXCLUDED.lunch_start_time, lunch_end_time = EXCLUDED.lunch_end_time, " +
+            "dinner_start_time = EXCLUDED.dinner_start_time, dinner_end_time = EXCLUDED.dinner_end_time";
+    private static final String EVENT_DELETE_SQL = "UPDATE events SET deleted_at = ? WHERE id = ? AND deleted_at IS NULL";
+
+    private final DataSourceConfig dataSourceConfig;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.replication.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.replication.retry-interval-ms:5000}")
+    private long retryIntervalMs;
+
+    @Value("${app.replication.max-backoff-ms:300000}")
+    private long maxBackoffMs;
+
+    @Value("${app.replication.lease-ms:120000}")
+    private long leaseMs;
+
+    private JdbcTemplate masterJdbcTemplate;
+    private ExecutorService deliveryExecutor;
+    private final AtomicBoolean backgroundDelivery = new AtomicBoolean();
+
+    // --- Metrikák ---
+    private final AtomicLong enqueuedCount = new AtomicLong();
+    private final AtomicLong deliveredCount = new AtomicLong();
+    private final AtomicLong failedAttemptCount = new AtomicLong();
+    private final AtomicLong batchFallbackCount = new AtomicLong();
+    private final AtomicLong drainCount = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        // Saját (tranzakción kívüli) Mester JdbcTemplate: a sorba írás nem függ a hívó tranzakciójától és bérlőjétől
+        masterJdbcTemplate = new JdbcTemplate(dataSourceConfig.getMasterDataSource());
+        // A háttér-kézbesítés saját szálon fut, hogy ne foglalja a közös ütemező szálát (SSE életjel, pool újraosztás, görgetés)
+        deliveryExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "replication-outbox");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        deliveryExecutor.shutdown();
+        deliveryExecutor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Változások a sziget másolatára, majd azonnali kézbesítési kísérlet.
+     *
+     * @return a célhoz még függőben lévő változások kulcsai ("TÍPUS:kulcs"), pl. ha a sziget nem elérhető
+     */
+    public Set<String> replicateToTenant(String dbName, List<Change> changes) {
+        enqueue(dbName, changes);
+        return deliver(dbName);
+    }
+
+    /**
+     * Változások a Mester kirakatába, majd azonnali kézbesítési kísérlet.
+     */
+    public Set<String> replicateToMaster(List<Change> changes) {
+        enqueue(MASTER, changes);
+        return deliver(MASTER);
+    }
+
+    public void enqueue(String target, List<Change> changes) {
+        enqueue(masterJdbcTemplate, target, changes);
+    }
+
+    /**
+     * Változások sorba írása a hívó Mester tranzakciójában: a forrás módosításával együtt commitolnak
+     * (vagy vesznek el rollbacknél). A kézbesítést a hívó commit után indítja ({@link #deliver}),
+     * ha pedig ez elmarad, a háttér-kézbesítés viszi át.
+     */
+    public void enqueueInCurrentTransaction(String target, List<Change> changes) {
+        if (TenantContext.getCurrentTenant() != null || !TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("A replikációs sorba írás csak aktív Mester tranzakcióban lehetséges!");
+        }
+        enqueue(jdbcTemplate, target, changes);
+    }
+
+    private void enqueue(JdbcTemplate jdbc, String target, List<Change> changes) {
+        if (changes.isEmpty()) return;
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbc.batchUpdate(ENQUEUE_SQL, changes, batchSize, (ps, change) -> {
+            ps.setString(1, target);
+            ps.setString(2, change.kind().name());
+            ps.setString(3, change.entityKey());
+            ps.setString(4, toJson(change.payload()));
+            ps.setTimestamp(5, now);
+            ps.setTimestamp(6, now);
+            ps.setTimestamp(7, now);
+        });
+        enqueuedCount.addAndGet(changes.size());
+    }
+
+    /**
+     * Egy cél esedékes változásainak kézbesítése a hívó szálán.
+     *
+     * @return a célhoz utána is függőben lévő változások kulcsai
+     */
+    public Set<String> deliver(String target) {
+        try {
+            drain(target);
+        } catch (Exception e) {
+            log.warn("⚠️ Replikáció: a(z) {} célhoz nem sikerült kézbesíteni: {}", target, e.getMessage());
+        }
+        Set<String> pending = new LinkedHashSet<>();
+        try {
+            masterJdbcTemplate.query("SELECT kind, entity_key FROM replication_outbox WHERE target = ?",
+                    rs -> { pending.add(rs.getString(1) + ":" + rs.getString(2)); }, target);
+        } catch (Exception e) {
+            log.warn("⚠️ Replikáció: a függő változások lekérdezése nem sikerült: {}", e.getMessage());
+        }
+        return pending;
+    }
+
+    // A háttérben az összes célra újrapróbáljuk, ami esedékes (az azonnali kísérlet elbukott, vagy lejárt a várakozás).
+    // Az ütemező csak elindítja a kört a saját szálon; amíg az előző kör fut, újat nem indít.
+    @Scheduled(fixedDelayString = "${app.replication.retry-interval-ms:5000}")
+    public void deliverDue() {
+        if (!backgroundDelivery.compareAndSet(false, true)) return;
+        try {
+            deliveryExecutor.execute(() -> {
+                try {
+                    // Teli kötegek után folytatjuk; a lefoglalt (bérelt) sorok nem jönnek vissza, így a ciklus véget ér
+                    int claimed;
+                    do {
+                        claimed = drain(null);
+                    } while (claimed >= batchSize);
+                } catch (Exception e) {
+                    log.debug("Replikáció: a háttér-kézbesítés kihagyva: {}", e.getMessage());
+                } finally {
+                    backgroundDelivery.set(false);
+                }
+            });
+        } catch (Exception e) {
+            // Leállás közben: a sor megmarad, a következő indulás után megy ki
+            backgroundDelivery.set(false);
+            log.debug("Replikáció: a háttér-kézbesítés indítása kihagyva: {}", e.getMessage());
+        }
+    }
+
+    private int drain(String onlyTarget) {
+        List<OutboxRow> rows = claim(onlyTarget);
+        if (rows.isEmpty()) return 0;
+        drainCount.incrementAndGet();
+
+        Map<String, List<OutboxRow>> byTarget = new LinkedHashMap<>();
+        rows.forEach(row -> byTarget.computeIfAbsent(row.target(), t -> new ArrayList<>()).add(row));
+
+        byTarget.forEach((target, targetRows) -> {
+            Map<Long, String> failures = apply(target, targetRows);
+            List<OutboxRow> delivered = targetRows.stream().filter(row -> !failures.containsKey(row.id())).toList();
+            List<OutboxRow> failed = targetRows.stream().filter(row -> failures.containsKey(row.id())).toList();
+            complete(delivered);
+            reschedule(failed, failures);
+            deliveredCount.addAndGet(delivered.size());
+            failedAttemptCount.addAndGet(failed.size());
+        });
+        return rows.size();
+    }
+
+    private List<OutboxRow> claim(String onlyTarget) {
+        LocalDateTime now = LocalDateTime.now();
+        String sql = String.format(CLAIM_SQL, onlyTarget != null ? "AND target = ?" : "");
+        List<Object> args = new ArrayList<>(List.of(Timestamp.valueOf(now.plusNanos(leaseMs * 1_000_000)), Timestamp.valueOf(now)));
+        if (onlyTarget != null) args.add(onlyTarget);
+        args.add(batchSize);
+
+        return masterJdbcTemplate.query(sql, (rs, i) -> new OutboxRow(rs.getLong("id"), rs.getString("target"),
+                Kind.valueOf(rs.getString("kind")), rs.getString("entity_key"), rs.getString("payload"),
+                rs.getInt("attempts"), rs.getLong("version")), args.toArray());
+    }
+
+    // Sikeres kézbesítés: a sor törlődik, hacsak közben nem jött újabb állapot (annak azonnal újra kell mennie)
+    private void complete(List<OutboxRow> rows) {
+        if (rows.isEmpty()) return;
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int[][] deleted = masterJdbcTemplate.batchUpdate("DELETE FROM replication_outbox WHERE id = ? AND version = ?",
+                rows, batchSize, (ps, row) -> {
+                    ps.setLong(1, row.id());
+                    ps.setLong(2, row.version());
+                });
+
+        List<OutboxRow> changedMeanwhile = new ArrayList<>();
+        int index = 0;
+        for (int[] batch : deleted) {
+            for (int count : batch) {
+                if (count == 0) changedMeanwhile.add(rows.get(index));
+                index++;
+            }
+        }
+        if (!changedMeanwhile.isEmpty()) {
+            masterJdbcTemplate.batchUpdate("UPDATE replication_outbox SET attempts = 0, last_error = NULL, next_attempt_at = ? WHERE id = ?",
+                    changedMeanwhile, batchSize, (ps, row) -> {
+                        ps.setTimestamp(1, now);
+                        ps.setLong(2, row.id());
+                    });
+        }
+    }
+
+    private void reschedule(List<OutboxRow> rows, Map<Long, String> failures) {
+        if (rows.isEmpty()) return;
+        LocalDateTime now = LocalDateTime.now();
+        masterJdbcTemplate.batchUpdate("UPDATE replication_outbox SET attempts = attempts + 1, next_attempt_at = ?, last_error = ? WHERE id = ?",
+                rows, batchSize, (ps, row) -> {
+                    ps.setTimestamp(1, Timestamp.valueOf(now.plusNanos(backoffMs(row.attempts()) * 1_000_000)));
+                    ps.setString(2, failures.get(row.id()));
+                    ps.setLong(3, row.id());
+                });
+    }
+
+    private long backoffMs(int attempts) {
+        long delay = retryIntervalMs << Math.min(attempts, 16);
+        return Math.min(delay, maxBackoffMs);
+    }
+
+    /**
+     * Egy cél sorainak kiírása egy tranzakcióban, típusonként kötegelve. Ha a köteg elbukik,
+     * soronként újrapróbáljuk, hogy egy hibás sor ne tartsa vissza a többit.
+     *
+     * @return a sikertelen sorok (ID -> hibaüzenet)
+     */
+    private Map<Long, String> apply(String target, List<OutboxRow> rows) {
+        List<OutboxRow> ordered = rows.stream()
+                .sorted(Comparator.comparing(OutboxRow::kind).thenComparingLong(OutboxRow::id))
+                .toList();
+        Map<Long, String> failures = new LinkedHashMap<>();
+
+        try (Connection conn = openTarget(target)) {
+            boolean autoCommit = conn.getAutoCommit();
+            try {
+                conn.setAutoCommit(false);
+                write(conn, ordered);
+                conn.commit();
+            } catch (Exception batchError) {
+                conn.rollback();
+                batchFallbackCount.incrementAndGet();
+                log.warn("⚠️ Replikáció: a kötegelt kézbesítés elbukott ({}), soronként újrapróbáljuk: {}", target, batchError.getMessage());
+                for (OutboxRow row : ordered) {
+                    try {
+                        write(conn, List.of(row));
+                        conn.commit();
+                    } catch (Exception e) {
+                        conn.rollback();
+                        failures.put(row.id(), e.getMessage());
+                        log.warn("⚠️ Replikáció: {}:{} nem ment át ({}): {}", row.kind(), row.entityKey(), target, e.getMessage());
+                    }
+                }
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (Exception e) {
+            log.warn("⚠️ Replikáció: a(z) {} cél nem elérhető, később újrapróbáljuk: {}", target, e.getMessage());
+            rows.forEach(row -> failures.put(row.id(), e.getMessage()));
+        }
+        return failures;
+    }
+
+    private Connection openTarget(String target) throws SQLException {
+        return MASTER.equals(target)
+                ? dataSourceConfig.getMasterDataSource().getConnection()
+                : dataSourceConfig.openTenantConnection(target);
+    }
+
+    // Az egymást követő azonos típusú sorok egy közös kötegbe kerülnek
+    private void write(Connection conn, List<OutboxRow> rows) throws Exception {
+        int start = 0;
+        while (start < rows.size()) {
+            Kind kind = rows.get(start).kind();
+            int end = start;
+            while (end < rows.size() && rows.get(end).kind() == kind) end++;
+
+            try (PreparedStatement ps = conn.prepareStatement(sqlFor(kind))) {
+                for (OutboxRow row : rows.subList(start, end)) {
+                    bind(ps, objectMapper.readValue(row.payload(), kind.payloadType));
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            start = end;
+        }
+    }
+
+    private static String sqlFor(Kind kind) {
+        return switch (kind) {
+            case ORGANIZATION -> ORGANIZATION_SQL;
+            case USER -> USER_SQL;
+            case MEMBERSHIP -> MEMBERSHIP_SQL;
+            case EVENT -> EVENT_SQL;
+            case EVENT_DELETE -> EVENT_DELETE_SQL;
+        };
+    }
+
+    private static void bind(PreparedStatement ps, Object payload) throws SQLException {
+        if (payload instanceof OrganizationCopy org) {
+            ps.setLong(1, org.id());
+            ps.setString(2, org.name());
+            ps.setString(3, org.tenantId());
+        } else if (payload instanceof UserCopy user) {
+            ps.setLong(1, user.id());
+            ps.setString(2, user.email());
+            ps.setString(3, user.name());
+            ps.setString(4, user.password());
+            ps.setString(5, user.role());
+        } else if (payload instanceof MembershipCopy member) {
+            ps.setLong(1, member.id());
+            ps.setLong(2, member.organizationId());
+            ps.setLong(3, member.userId());
+            ps.setString(4, member.role());
+            ps.setString(5, member.status());
+        } else if (payload instanceof EventCopy event) {
+            ps.setLong(1, event.id());
+            ps.setString(2, event.title());
+            ps.setString(3, event.description());
+            ps.setString(4, event.location());
+            setTimestamp(ps, 5, event.startTime());
+            setTimestamp(ps, 6, event.endTime());
+            setTimestamp(ps, 7, event.applicationDeadline());
+            ps.setBoolean(8, event.registrationOpen());
+            ps.setLong(9, event.organizationId());
+            ps.setString(10, event.bannerUrl());
+            setTime(ps, 11, event.breakfastStartTime());
+            setTime(ps, 12, event.breakfastEndTime());
+            setTime(ps, 13, event.lunchStartTime());
+            setTime(ps, 14, event.lunchEndTime());
+            setTime(ps, 15, event.dinnerStartTime());
+            setTime(ps, 16, event.dinnerEndTime());
+        } else if (payload instanceof EventDeletion deletion) {
+            setTimestamp(ps, 1, deletion.deletedAt());
+            ps.setLong(2, deletion.id());
+        }
+    }
+
+    private static void setTimestamp(PreparedStatement ps, int index, LocalDateTime value) throws SQLException {
+        if (value != null) ps.setTimestamp(index, Timestamp.valueOf(value));
+        else ps.setNull(index, Types.TIMESTAMP);
+    }
+
+    private static void setTime(PreparedStatement ps, int index, LocalTime value) throws SQLException {
+        if (value != null) ps.setTime(index, java.sql.Time.valueOf(value));
+        else ps.setNull(index, Types.TIME);
+    }
+
+    private String toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (Exception e) {
+            throw new RuntimeException("A replikációs változás nem szerializálható: " + e.getMessage(), e);
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enqueued", enqueuedCount.get());
+        metrics.put("delivered", deliveredCount.get());
+        metrics.put("failedAttempts", failedAttemptCount.get());
+        metrics.put("batchFallbacks", batchFallbackCount.get());
+        metrics.put("drains", drainCount.get());
+        try {
+            masterJdbcTemplate.query("SELECT target, COUNT(*), MIN(created_at), MAX(attempts) FROM replication_outbox GROUP BY target",
+                    rs -> {
+                        @SuppressWarnings("unchecked")
+                        Map<String, Object> pending = (Map<String, Object>) metrics.computeIfAbsent("pending", k -> new LinkedHashMap<String, Object>());
+                        Map<String, Object> target = new LinkedHashMap<>();
+                        target.put("count", rs.getLong(2));
+                        target.put("oldest", rs.getTimestamp(3) != null ? rs.getTimestamp(3).toLocalDateTime().toString() : null);
+                        target.put("maxAttempts", rs.getInt(4));
+                        pending.put(rs.getString(1), target);
+                    });
+        } catch (Exception e) {
+            metrics.put("pendingError", e.getMessage());
+        }
+        return metrics;
+    }
+}
@@ -0,0 +1,293 @@
+package com.example.volunteermanagement.service;
+
+import com.example.volunteermanagement.cache.TtlCache;
+import com.example.volunteermanagement.dto.RosterDTO;
+import com.example.volunteermanagement.model.*;
+import com.example.volunteermanagement.repository.*;
+import com.example.volunteermanagement.tenant.TenantContext;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Period;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Automatikus beosztás: javaslat (preview) készítése és egyben véglegesítése.
+ * A bemenetet (jóváhagyott jelentkezők, preferált területek, szabad helyek, meglévő és személyes elfoglaltságok,
+ * éjszakai műszakok korhatára) egy rövid olvasó tranzakcióban töltjük be, a keresés már adatbázis-kapcsolat nélkül,
+ * a tervező saját szálkészletén fut. A kész javaslatot previewId alatt tároljuk; a véglegesítés ezt írja ki
+ * egy tranzakcióban, újraellenőrzés után (lásd ShiftService.commitRosterPlacements).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RosterService {
+
+    private record StoredPreview(String tenantId, Long eventId, RosterDTO.RosterPreview preview) {}
+
+    // A tervező bemenete, a tranzakción kívül már csak memóriában használjuk
+    record RosterProblem(List<RosterSolver.ShiftSlot> shifts, List<RosterSolver.Candidate> candidates, int volunteersWithoutOption) {}
+
+    private final EventRepository eventRepository;
+    private final ShiftRepository shiftRepository;
+    private final ApplicationRepository applicationRepository;
+    private final UserRepository userRepository;
+    private final ShiftAssignmentRepository shiftAssignmentRepository;
+    private final EventTeamMemberRepository eventTeamMemberRepository;
+    private final ShiftService shiftService;
+
+    @Autowired
+    @Lazy
+    private RosterService self;
+
+    @Value("${app.roster.time-budget-ms:2000}")
+    private long defaultTimeBudgetMs;
+
+    @Value("${app.roster.max-time-budget-ms:10000}")
+    private long maxTimeBudgetMs;
+
+    @Value("${app.roster.solver-threads:0}")
+    private int solverThreads;
+
+    @Value("${app.roster.max-shifts-per-volunteer:3}")
+    private int defaultMaxShiftsPerVolunteer;
+
+    @Value("${app.roster.preview-max-size:200}")
+    private int previewMaxSize;
+
+    @Value("${app.roster.preview-ttl-ms:900000}")
+    private long previewTtlMs;
+
+    private ThreadPoolExecutor executor;
+    private TtlCache<String, StoredPreview> previews;
+    // Az épp véglegesítés alatt álló javaslatok: ugyanaz a javaslat párhuzamosan nem írható ki kétszer
+    private final Set<String> committing = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong previewsCreated = new AtomicLong();
+    private final AtomicLong previewsCommitted = new AtomicLong();
+    private final AtomicLong placementsCommitted = new AtomicLong();
+    private final AtomicLong lastSolveMillis = new AtomicLong();
+
+    @PostConstruct
+    void start() {
+        // 0 = annyi szál, ahány mag; egy javaslat ennyi független keresést futtat párhuzamosan
+        if (solverThreads <= 0) solverThreads = Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCounter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(
+                solverThreads, solverThreads,
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(solverThreads * 4),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "roster-solver-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        previews = new TtlCache<>("rosterPreviews", previewMaxSize, previewTtlMs);
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    public RosterDTO.RosterPreview preview(Long eventId, RosterDTO.RosterPreviewRequest request, String requesterEmail) {
+        long budgetMs = Math.max(100, Math.min(maxTimeBudgetMs,
+                request != null && request.timeBudgetMs() != null ? request.timeBudgetMs() : defaultTimeBudgetMs));
+        int maxShifts = request != null && request.maxShiftsPerVolunteer() != null && request.maxShiftsPerVolunteer() > 0
+                ? request.maxShiftsPerVolunteer() : defaultMaxShiftsPerVolunteer;
+        boolean preferredOnly = request != null && Boolean.TRUE.equals(request.preferredOnly());
+
+        RosterProblem problem = self.loadProblem(eventId, preferredOnly);
+
+        long started = System.nanoTime();
+        RosterSolver.Result result = new RosterSolver(problem.shifts(), problem.candidates(), maxShifts)
+                .solve(executor, solverThreads, started + budgetMs * 1_000_000L, ThreadLocalRandom.current().nextLong());
+        long solveMillis = (System.nanoTime() - started) / 1_000_000L;
+        lastSolveMillis.set(solveMillis);
+
+        List<RosterDTO.RosterPlacement> placements = new ArrayList<>(result.placements().size());
+        Set<Long> placedUsers = new HashSet<>();
+        int preferredCount = 0;
+        int backupCount = 0;
+        for (RosterSolver.Placement placement : result.placements()) {
+            RosterSolver.ShiftSlot shift = problem.shifts().get(placement.shift());
+            RosterSolver.Candidate candidate = problem.candidates().get(placement.candidate());
+            placements.add(new RosterDTO.RosterPlacement(shift.shiftId(), shift.name(), shift.workAreaName(),
+                    shift.start(), shift.end(), candidate.applicationId(), candidate.userId(), candidate.name(),
+                    placement.backup(), placement.preferred()));
+            placedUsers.add(candidate.userId());
+            if (placement.preferred()) preferredCount++;
+            if (placement.backup()) backupCount++;
+        }
+        int openSlots = problem.shifts().stream().mapToInt(s -> s.freeNormal() + s.freeBackup()).sum();
+
+        String previewId = UUID.randomUUID().toString();
+        RosterDTO.RosterPreview preview = new RosterDTO.RosterPreview(previewId, eventId, result.score(),
+                placements.size(), preferredCount, backupCount, openSlots, openSlots - placements.size(),
+                problem.candidates().size() + problem.volunteersWithoutOption(), placedUsers.size(),
+                problem.volunteersWithoutOption(), problem.shifts().size(), solveMillis, result.workers(),
+                result.iterations(), placements);
+
+        previews.put(previewId, new StoredPreview(TenantContext.getCurrentTenant(), eventId, preview));
+        previewsCreated.incrementAndGet();
+        log.info("🧩 Beosztás-javaslat ({}): esemény {}, {} beosztás / {} szabad hely, {} preferált, {} ms, {} szál",
+                requesterEmail, eventId, placements.size(), openSlots, preferredCount, solveMillis, result.workers());
+        return preview;
+    }
+
+    /**
+     * A javaslat véglegesítése egy tranzakcióban. Egy javaslat csak egyszer írható ki: sikeres kiírás után törlődik,
+     * elutasításnál (pl. ütközés miatti 409) viszont megmarad, így a tervező a javítás után újra véglegesítheti.
+     *
+     * @return a létrehozott beosztások száma
+     */
+    public int commit(Long eventId, String previewId, String requesterEmail) {
+        StoredPreview stored = previews.getIfPresent(previewId);
+        if (stored == null || !Objects.equals(stored.tenantId(), TenantContext.getCurrentTenant()) || !stored.eventId().equals(eventId)) {
+            throw new RuntimeException("A beosztási javaslat lejárt vagy nem található, kérlek készíts újat!");
+        }
+        if (!committing.add(previewId)) {
+            throw new RuntimeException("Ez a beosztási javaslat épp véglegesítés alatt áll!");
+        }
+
+        try {
+            // A két ellenőrzés között egy párhuzamos kérés már kiírhatta
+            if (previews.getIfPresent(previewId) == null) {
+                throw new RuntimeException("A beosztási javaslat lejárt vagy nem található, kérlek készíts újat!");
+            }
+            int created = shiftService.commitRosterPlacements(eventId, stored.preview().placements(), requesterEmail);
+            previews.invalidate(previewId);
+            previewsCommitted.incrementAndGet();
+            placementsCommitted.addAndGet(created);
+            return created;
+        } finally {
+            committing.remove(previewId);
+        }
+    }
+
+    /**
+     * A tervező bemenete néhány lekérdezéssel: jelentkezések, preferenciák, műszakok a beosztásokkal,
+     * a jelöltek adatai és összes meglévő beosztásuk, valamint a személyes elfoglaltságaik (Mester).
+     * A jelöltenként beosztható műszakokat itt szűrjük (ütközés, éjszakai korhatár, már bent van).
+     */
+    @Transactional(readOnly = true)
+    public RosterProblem loadProblem(Long eventId, boolean preferredOnly) {
+        eventRepository.findById(eventId).orElseThrow(() -> new RuntimeException("Esemény nem található!"));
+
+        // A szervezőket/koordinátorokat nem osztjuk be automatikusan (a műszaktáblán sem látszanak)
+        Set<Long> leaderIds = eventTeamMemberRepository.findByEventId(eventId).stream()
+                .filter(tm -> tm.getRole() == EventRole.ORGANIZER || tm.getRole() == EventRole.COORDINATOR)
+                .map(EventTeamMember::getUserId)
+                .collect(Collectors.toSet());
+
+        Map<Long, Long> applicationIds = new LinkedHashMap<>();
+        for (Object[] row : applicationRepository.findIdRowsByEventId(eventId)) {
+            if (row[2] == ApplicationStatus.APPROVED && !leaderIds.contains((Long) row[0])) {
+                applicationIds.putIfAbsent((Long) row[0], (Long) row[1]);
+            }
+        }
+        Map<Long, Set<Long>> preferredAreas = new HashMap<>();
+        for (Object[] row : applicationRepository.findPreferredAreaRowsByEventIdAndStatus(eventId, ApplicationStatus.APPROVED)) {
+            preferredAreas.computeIfAbsent((Long) row[0], id -> new HashSet<>()).add((Long) row[1]);
+        }
+
+        // Csak a jövőbeli munkaműszakok, amelyekben van még szabad hely
+        LocalDateTime now = LocalDateTime.now();
+        List<Shift> shifts = new ArrayList<>();
+        List<RosterSolver.ShiftSlot> slots = new ArrayList<>();
+        for (Shift shift : shiftRepository.findBoardByEventId(eventId)) {
+            if ((shift.getType() != null && shift.getType() != ShiftType.WORK) || !shift.getStartTime().isAfter(now)) continue;
+            int freeNormal = shift.getMaxVolunteers() - (int) shift.getAssignments().stream().filter(a -> !a.isBackup()).count();
+            int freeBackup = shift.getMaxBackupVolunteers() - (int) shift.getAssignments().stream().filter(ShiftAssignment::isBackup).count();
+            if (freeNormal <= 0 && freeBackup <= 0) continue;
+
+            shifts.add(shift);
+            slots.add(new RosterSolver.ShiftSlot(shift.getId(), shift.getName(),
+                    shift.getWorkArea() != null ? shift.getWorkArea().getId() : null,
+                    shift.getWorkArea() != null ? shift.getWorkArea().getName() : "Globális",
+                    shift.getStartTime(), shift.getEndTime(), Math.max(0, freeNormal), Math.max(0, freeBackup)));
+        }
+        if (applicationIds.isEmpty() || slots.isEmpty()) {
+            return new RosterProblem(slots, List.of(), applicationIds.size());
+        }
+
+        Set<Long> userIds = applicationIds.keySet();
+        Map<Long, User> users = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, u -> u));
+        ShiftIntervalIndex busy = ShiftIntervalIndex.of(shiftAssignmentRepository.findWithShiftByUserIdIn(userIds))
+                .addAll(shiftService.loadPersonalCommitments(userIds));
+        boolean[] night = new boolean[shifts.size()];
+        for (int s = 0; s < shifts.size(); s++) {
+            night[s] = ShiftService.isNightShift(shifts.get(s).getStartTime(), shifts.get(s).getEndTime());
+        }
+
+        List<RosterSolver.Candidate> candidates = new ArrayList<>();
+        int withoutOption = 0;
+        for (Map.Entry<Long, Long> entry : applicationIds.entrySet()) {
+            User user = users.get(entry.getKey());
+            if (user == null) {
+                withoutOption++;
+                continue;
+            }
+            Set<Long> areas = preferredAreas.getOrDefault(entry.getValue(), Set.of());
+
+            List<Integer> eligible = new ArrayList<>();
+            BitSet preferred = new BitSet(shifts.size());
+            for (int s = 0; s < shifts.size(); s++) {
+                Shift shift = shifts.get(s);
+                boolean isPreferred = shift.getWorkArea() != null && areas.contains(shift.getWorkArea().getId());
+                if (preferredOnly && !isPreferred) continue;
+                if (night[s] && !isAdultAt(user.getDateOfBirth(), shift.getStartTime().toLocalDate())) continue;
+                // A meglévő beosztás a saját műszakjával is átfed, így a már bent lévők is kiesnek
+                if (!busy.overlapping(user.getId(), shift.getStartTime(), shift.getEndTime()).isEmpty()) continue;
+
+                if (isPreferred) preferred.set(s);
+                eligible.add(s);
+            }
+
+            if (eligible.isEmpty()) {
+                withoutOption++;
+                continue;
+            }
+            candidates.add(new RosterSolver.Candidate(user.getId(), entry.getValue(), user.getName(),
+                    eligible.stream().mapToInt(Integer::intValue).toArray(), preferred));
+        }
+
+        return new RosterProblem(slots, candidates, withoutOption);
+    }
+
+    private static boolean isAdultAt(LocalDate dateOfBirth, LocalDate day) {
+        return dateOfBirth != null && Period.between(dateOfBirth, day).getYears() >= 18;
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("solverThreads", solverThreads);
+        metrics.put("activeSolverThreads", executor.getActiveCount());
+        metrics.put("previewsCreated", previewsCreated.get());
+        metrics.put("previewsCommitted", previewsCommitted.get());
+        metrics.put("placementsCommitted", placementsCommitted.get());
+        metrics.put("lastSolveMillis", lastSolveMillis.get());
+        metrics.put("previews", previews.getStats());
+        return metrics;
+    }
+}
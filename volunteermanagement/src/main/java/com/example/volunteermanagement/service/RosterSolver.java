@@ -0,0 +1,351 @@
+package com.example.volunteermanagement.service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Automatikus beosztás-tervező: jelöltek -> műszakok hozzárendelése, ütközésmentesen, a preferenciák maximalizálásával.
+ * A bemenet már szűrt (a jelöltenként beosztható műszakokból a meglévő elfoglaltságok és a munkajogi tiltások kimaradtak),
+ * itt csak a létszámkeretre, a jelöltenkénti műszakszámra és az egymással átfedő új beosztásokra kell figyelni.
+ * <p>
+ * Pontozás beosztásonként: rendes hely 2, beugró hely 1, preferált terület +5.
+ * Minden szál (worker) saját seeddel véletlenített mohó kezdőmegoldást épít (körönként jelöltenként egy műszak,
+ * hogy a helyek egyenletesen oszoljanak el), majd a határidőig lokális kereséssel javít
+ * (beszúrás, áthelyezés, csere két jelölt között, preferáló jelölt betétele a nem preferáló helyére).
+ * A szálak közül a legjobb pontszámú megoldás nyer; a szálak nem osztanak meg állapotot.
+ */
+final class RosterSolver {
+
+    static final int NORMAL_SLOT_POINTS = 2;
+    static final int BACKUP_SLOT_POINTS = 1;
+    static final int PREFERENCE_POINTS = 5;
+
+    // Ennyi javítás nélküli lépés után a szál leáll a határidő előtt is (beállt a megoldás)
+    private static final int STAGNATION_LIMIT = 200_000;
+
+    /** Egy beosztható műszak a még szabad helyeivel */
+    record ShiftSlot(Long shiftId, String name, Long workAreaId, String workAreaName,
+                     LocalDateTime start, LocalDateTime end, int freeNormal, int freeBackup) {}
+
+    /**
+     * Egy jelölt.
+     *
+     * @param eligibleShifts  a számára beosztható műszakok indexei (a shifts listában)
+     * @param preferredShifts ezek közül a preferált területhez tartozók
+     */
+    record Candidate(Long userId, Long applicationId, String name, int[] eligibleShifts, BitSet preferredShifts) {}
+
+    record Placement(int shift, int candidate, boolean backup, boolean preferred) {}
+
+    record Result(List<Placement> placements, int score, int workers, long iterations) {}
+
+    private final List<ShiftSlot> shifts;
+    private final List<Candidate> candidates;
+    private final int maxShiftsPerCandidate;
+
+    private final BitSet[] overlaps;
+    private final BitSet[] eligible;
+    private final int[][] preferrers;
+
+    RosterSolver(List<ShiftSlot> shifts, List<Candidate> candidates, int maxShiftsPerCandidate) {
+        this.shifts = shifts;
+        this.candidates = candidates;
+        this.maxShiftsPerCandidate = Math.max(1, maxShiftsPerCandidate);
+        this.overlaps = buildOverlaps(shifts);
+
+        this.eligible = new BitSet[candidates.size()];
+        List<List<Integer>> preferring = new ArrayList<>(shifts.size());
+        for (int s = 0; s < shifts.size(); s++) preferring.add(new ArrayList<>());
+        for (int c = 0; c < candidates.size(); c++) {
+            eligible[c] = new BitSet(shifts.size());
+            for (int s : candidates.get(c).eligibleShifts()) {
+                eligible[c].set(s);
+                if (candidates.get(c).preferredShifts().get(s)) preferring.get(s).add(c);
+            }
+        }
+        this.preferrers = new int[shifts.size()][];
+        for (int s = 0; s < shifts.size(); s++) {
+            preferrers[s] = preferring.get(s).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    // Kezdés szerint rendezve csak addig nézünk előre, amíg a következő műszak a mostani vége előtt kezdődik
+    private static BitSet[] buildOverlaps(List<ShiftSlot> shifts) {
+        BitSet[] result = new BitSet[shifts.size()];
+        Integer[] order = new Integer[shifts.size()];
+        for (int i = 0; i < shifts.size(); i++) {
+            result[i] = new BitSet(shifts.size());
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(i -> shifts.get(i).start()));
+        for (int a = 0; a < order.length; a++) {
+            ShiftSlot first = shifts.get(order[a]);
+            for (int b = a + 1; b < order.length && shifts.get(order[b]).start().isBefore(first.end()); b++) {
+                if (shifts.get(order[b]).end().isAfter(first.start())) {
+                    result[order[a]].set(order[b]);
+                    result[order[b]].set(order[a]);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Párhuzamos keresés a határidőig; a legjobb megoldást adja vissza (egyenlő pontszámnál az alacsonyabb sorszámú szálét).
+     */
+    Result solve(ExecutorService executor, int workers, long deadlineNanos, long seed) {
+        if (shifts.isEmpty() || candidates.isEmpty()) {
+            return new Result(List.of(), 0, 0, 0);
+        }
+
+        int workerCount = Math.max(1, workers);
+        List<Callable<Search>> tasks = new ArrayList<>(workerCount);
+        for (int w = 0; w < workerCount; w++) {
+            long workerSeed = seed + w * 0x9E3779B97F4A7C15L;
+            tasks.add(() -> {
+                Search search = new Search(new SplittableRandom(workerSeed));
+                search.construct();
+                search.improve(deadlineNanos);
+                return search;
+            });
+        }
+
+        Search best = null;
+        long iterations = 0;
+        try {
+            for (Future<Search> future : executor.invokeAll(tasks)) {
+                Search search = future.get();
+                iterations += search.iterations;
+                if (best == null || search.score > best.score) best = search;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("A beosztás-tervezés megszakadt!");
+        } catch (ExecutionException e) {
+            throw new RuntimeException("A beosztás-tervezés hibára futott: " + e.getCause().getMessage(), e.getCause());
+        }
+
+        return new Result(best.placements(), best.score, workerCount, iterations);
+    }
+
+    private int points(int candidate, int shift, boolean backup) {
+        return (backup ? BACKUP_SLOT_POINTS : NORMAL_SLOT_POINTS)
+                + (candidates.get(candidate).preferredShifts().get(shift) ? PREFERENCE_POINTS : 0);
+    }
+
+    /** Egy szál saját keresési állapota */
+    private final class Search {
+        private final SplittableRandom random;
+        private final int[] normalUsed = new int[shifts.size()];
+        private final int[] backupUsed = new int[shifts.size()];
+        private final int[][] assigned = new int[candidates.size()][maxShiftsPerCandidate];
+        private final boolean[][] assignedBackup = new boolean[candidates.size()][maxShiftsPerCandidate];
+        private final int[] count = new int[candidates.size()];
+        private int score;
+        private long iterations;
+
+        Search(SplittableRandom random) {
+            this.random = random;
+        }
+
+        // --- Állapot ---
+
+        /** 0 = rendes hely, 1 = beugró hely, -1 = betelt */
+        private int freeSlotType(int shift) {
+            if (normalUsed[shift] < shifts.get(shift).freeNormal()) return 0;
+            if (backupUsed[shift] < shifts.get(shift).freeBackup()) return 1;
+            return -1;
+        }
+
+        private int remainingFree(int shift) {
+            ShiftSlot slot = shifts.get(shift);
+            return (slot.freeNormal() - normalUsed[shift]) + (slot.freeBackup() - backupUsed[shift]);
+        }
+
+        /** A jelölt felvehető-e a műszakba a többi beosztása mellett (a skipPosition helyén lévőt nem számítva) */
+        private boolean fits(int candidate, int shift, int skipPosition) {
+            for (int k = 0; k < count[candidate]; k++) {
+                if (k == skipPosition) continue;
+                int other = assigned[candidate][k];
+                if (other == shift || overlaps[shift].get(other)) return false;
+            }
+            return true;
+        }
+
+        private void add(int candidate, int shift, boolean backup) {
+            int position = count[candidate]++;
+            assigned[candidate][position] = shift;
+            assignedBackup[candidate][position] = backup;
+            if (backup) backupUsed[shift]++; else normalUsed[shift]++;
+            score += points(candidate, shift, backup);
+        }
+
+        private void removeAt(int candidate, int position) {
+            int shift = assigned[candidate][position];
+            boolean backup = assignedBackup[candidate][position];
+            if (backup) backupUsed[shift]--; else normalUsed[shift]--;
+            score -= points(candidate, shift, backup);
+
+            int last = --count[candidate];
+            assigned[candidate][position] = assigned[candidate][last];
+            assignedBackup[candidate][position] = assignedBackup[candidate][last];
+        }
+
+        // --- Kezdőmegoldás ---
+
+        void construct() {
+            // Először a kevés lehetőséggel rendelkezők választanak, egyenlőknél véletlen sorrendben
+            Integer[] order = new Integer[candidates.size()];
+            for (int i = 0; i < order.length; i++) order[i] = i;
+            for (int i = order.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                Integer tmp = order[i];
+                order[i] = order[j];
+                order[j] = tmp;
+            }
+            Arrays.sort(order, Comparator.comparingInt(c -> candidates.get(c).eligibleShifts().length));
+
+            for (int round = 0; round < maxShiftsPerCandidate; round++) {
+                boolean placedAny = false;
+                for (int candidate : order) {
+                    if (count[candidate] != round) continue;
+
+                    int bestShift = -1;
+                    boolean bestBackup = false;
+                    long bestKey = Long.MIN_VALUE;
+                    for (int shift : candidates.get(candidate).eligibleShifts()) {
+                        int type = freeSlotType(shift);
+                        if (type < 0 || !fits(candidate, shift, -1)) continue;
+                        // Pont, majd a legtöbb szabad hely (egyenletes feltöltés), végül véletlen
+                        long key = points(candidate, shift, type == 1) * 1_000_000L + remainingFree(shift) * 1_000L + random.nextInt(1_000);
+                        if (key > bestKey) {
+                            bestKey = key;
+                            bestShift = shift;
+                            bestBackup = type == 1;
+                        }
+                    }
+                    if (bestShift >= 0) {
+                        add(candidate, bestShift, bestBackup);
+                        placedAny = true;
+                    }
+                }
+                if (!placedAny) break;
+            }
+        }
+
+        // --- Lokális javítás ---
+
+        void improve(long deadlineNanos) {
+            int sinceImprovement = 0;
+            while (sinceImprovement < STAGNATION_LIMIT) {
+                if ((++iterations & 255) == 0 && System.nanoTime() - deadlineNanos >= 0) break;
+
+                int before = score;
+                switch (random.nextInt(4)) {
+                    case 0 -> tryInsert();
+                    case 1 -> tryRelocate();
+                    case 2 -> tryReplace();
+                    default -> trySwap();
+                }
+                sinceImprovement = score > before ? 0 : sinceImprovement + 1;
+            }
+        }
+
+        private boolean acceptSideways() {
+            return random.nextInt(4) == 0;
+        }
+
+        private void tryInsert() {
+            int candidate = random.nextInt(candidates.size());
+            int[] options = candidates.get(candidate).eligibleShifts();
+            if (count[candidate] >= maxShiftsPerCandidate || options.length == 0) return;
+
+            int shift = options[random.nextInt(options.length)];
+            int type = freeSlotType(shift);
+            if (type >= 0 && fits(candidate, shift, -1)) {
+                add(candidate, shift, type == 1);
+            }
+        }
+
+        private void tryRelocate() {
+            int candidate = random.nextInt(candidates.size());
+            int[] options = candidates.get(candidate).eligibleShifts();
+            if (count[candidate] == 0 || options.length < 2) return;
+
+            int position = random.nextInt(count[candidate]);
+            int current = assigned[candidate][position];
+            int target = options[random.nextInt(options.length)];
+            int type = freeSlotType(target);
+            if (target == current || type < 0 || !fits(candidate, target, position)) return;
+
+            int delta = points(candidate, target, type == 1) - points(candidate, current, assignedBackup[candidate][position]);
+            if (delta > 0 || (delta == 0 && acceptSideways())) {
+                removeAt(candidate, position);
+                add(candidate, target, type == 1);
+            }
+        }
+
+        // Nem preferáló jelölt helyére olyat teszünk, aki ezt a területet preferálja
+        private void tryReplace() {
+            int leaving = random.nextInt(candidates.size());
+            if (count[leaving] == 0) return;
+
+            int position = random.nextInt(count[leaving]);
+            int shift = assigned[leaving][position];
+            if (candidates.get(leaving).preferredShifts().get(shift) || preferrers[shift].length == 0) return;
+
+            int joining = preferrers[shift][random.nextInt(preferrers[shift].length)];
+            if (joining == leaving || count[joining] >= maxShiftsPerCandidate || !fits(joining, shift, -1)) return;
+
+            boolean backup = assignedBackup[leaving][position];
+            removeAt(leaving, position);
+            add(joining, shift, backup);
+        }
+
+        private void trySwap() {
+            int first = random.nextInt(candidates.size());
+            int second = random.nextInt(candidates.size());
+            if (first == second || count[first] == 0 || count[second] == 0) return;
+
+            int firstPosition = random.nextInt(count[first]);
+            int secondPosition = random.nextInt(count[second]);
+            int firstShift = assigned[first][firstPosition];
+            int secondShift = assigned[second][secondPosition];
+            if (firstShift == secondShift
+                    || !eligible[first].get(secondShift) || !eligible[second].get(firstShift)
+                    || !fits(first, secondShift, firstPosition) || !fits(second, firstShift, secondPosition)) return;
+
+            // A helyek típusa (rendes/beugró) a műszaknál marad, csak az emberek cserélnek
+            boolean firstBackup = assignedBackup[first][firstPosition];
+            boolean secondBackup = assignedBackup[second][secondPosition];
+            int delta = points(first, secondShift, secondBackup) + points(second, firstShift, firstBackup)
+                    - points(first, firstShift, firstBackup) - points(second, secondShift, secondBackup);
+            if (delta > 0 || (delta == 0 && acceptSideways())) {
+                assigned[first][firstPosition] = secondShift;
+                assignedBackup[first][firstPosition] = secondBackup;
+                assigned[second][secondPosition] = firstShift;
+                assignedBackup[second][secondPosition] = firstBackup;
+                score += delta;
+            }
+        }
+
+        List<Placement> placements() {
+            List<Placement> result = new ArrayList<>();
+            for (int candidate = 0; candidate < candidates.size(); candidate++) {
+                for (int k = 0; k < count[candidate]; k++) {
+                    int shift = assigned[candidate][k];
+                    result.add(new Placement(shift, candidate, assignedBackup[candidate][k],
+                            candidates.get(candidate).preferredShifts().get(shift)));
+                }
+            }
+            result.sort(Comparator.comparingInt(Placement::shift)
+                    .thenComparing(Placement::backup)
+                    .thenComparingInt(Placement::candidate));
+            return result;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.volunteermanagement.service;
+
+import com.example.volunteermanagement.dto.AssignedUserDTO;
+import com.example.volunteermanagement.dto.ShiftDTO;
+import com.example.volunteermanagement.model.Shift;
+import com.example.volunteermanagement.model.ShiftAssignment;
+import com.example.volunteermanagement.model.ShiftType;
+
+import java.util.*;
+
+/**
+ * A műszaktábla összeállítása előre (egy-egy lekérdezéssel) betöltött adatokból.
+ * A felhasználók és a jelentkezések azonosító szerinti hash-ből jönnek, így a költség
+ * műszakok + beosztások arányú, és nincs beosztásonkénti lekérdezés.
+ */
+final class ShiftBoardAssembler {
+
+    /** Egy felhasználó a táblához: [id, név, e-mail] */
+    record UserRow(Long id, String name, String email) {}
+
+    private ShiftBoardAssembler() {
+    }
+
+    static Map<Long, UserRow> usersById(List<Object[]> rows) {
+        Map<Long, UserRow> users = new HashMap<>(rows.size() * 2);
+        for (Object[] row : rows) {
+            users.put((Long) row[0], new UserRow((Long) row[0], (String) row[1], (String) row[2]));
+        }
+        return users;
+    }
+
+    /**
+     * A műszakokban beosztott felhasználók (a kihagyottak nélkül), a névlekérdezéshez.
+     */
+    static Set<Long> assignedUserIds(List<Shift> shifts, Set<Long> excludedUserIds) {
+        Set<Long> userIds = new HashSet<>();
+        for (Shift shift : shifts) {
+            for (ShiftAssignment assignment : shift.getAssignments()) {
+                if (!excludedUserIds.contains(assignment.getUserId())) userIds.add(assignment.getUserId());
+            }
+        }
+        return userIds;
+    }
+
+    /**
+     * Az esemény műszakjai; a szervezők/koordinátorok (hiddenUserIds) beosztásai nem jelennek meg.
+     *
+     * @param applicationIds felhasználó -> jelentkezés ID az eseményen
+     */
+    static List<ShiftDTO> eventBoard(List<Shift> shifts, Set<Long> hiddenUserIds,
+                                     Map<Long, UserRow> users, Map<Long, Long> applicationIds) {
+        List<ShiftDTO> result = new ArrayList<>(shifts.size());
+        for (Shift shift : shifts) {
+            List<AssignedUserDTO> assignedUsers = new ArrayList<>(shift.getAssignments().size());
+            for (ShiftAssignment assignment : shift.getAssignments()) {
+                if (hiddenUserIds.contains(assignment.getUserId())) continue;
+                assignedUsers.add(toAssignedUser(assignment, users, applicationIds));
+            }
+
+            result.add(new ShiftDTO(shift.getId(), shift.getWorkArea() != null ? shift.getWorkArea().getId() : null,
+                    shift.getWorkArea() != null ? shift.getWorkArea().getName() : (shift.getType() == ShiftType.PERSONAL ? "Személyes" : "Globális"),
+                    shift.getName(), shift.getStartTime(), shift.getEndTime(), shift.getMaxVolunteers(), shift.getMaxBackupVolunteers(),
+                    shift.getProvidedBreakfasts(), shift.getProvidedLunches(), shift.getProvidedDinners(),
+                    shift.getType() != null ? shift.getType().name() : "WORK", shift.getDescription(), assignedUsers));
+        }
+        return result;
+    }
+
+    /**
+     * A jóváhagyott önkéntesek személyes elfoglaltságai (a Mesterből).
+     *
+     * @param approvedApplicationIds felhasználó -> jóváhagyott jelentkezés ID az eseményen
+     */
+    static List<ShiftDTO> personalBoard(List<Shift> shifts, Map<Long, UserRow> users, Map<Long, Long> approvedApplicationIds) {
+        List<ShiftDTO> result = new ArrayList<>(shifts.size());
+        for (Shift shift : shifts) {
+            List<AssignedUserDTO> assignedUsers = new ArrayList<>(shift.getAssignments().size());
+            for (ShiftAssignment assignment : shift.getAssignments()) {
+                assignedUsers.add(toAssignedUser(assignment, users, approvedApplicationIds));
+            }
+
+            result.add(new ShiftDTO(
+                    shift.getId(), null, "Személyes elfoglaltság", shift.getName(), shift.getStartTime(), shift.getEndTime(),
+                    shift.getMaxVolunteers(), shift.getMaxBackupVolunteers(),
+                    shift.getProvidedBreakfasts(), shift.getProvidedLunches(), shift.getProvidedDinners(),
+                    "PERSONAL", shift.getDescription(), assignedUsers
+            ));
+        }
+        return result;
+    }
+
+    private static AssignedUserDTO toAssignedUser(ShiftAssignment assignment, Map<Long, UserRow> users, Map<Long, Long> applicationIds) {
+        UserRow user = users.get(assignment.getUserId());
+        return new AssignedUserDTO(applicationIds.get(assignment.getUserId()), assignment.getUserId(),
+                user != null ? user.name() : "Ismeretlen",
+                user != null ? user.email() : "Ismeretlen",
+                assignment.getStatus().name(), assignment.getMessage(), assignment.isBackup());
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.volunteermanagement.service;
+
+import com.example.volunteermanagement.model.Shift;
+import com.example.volunteermanagement.model.ShiftAssignment;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Felhasználónkénti időintervallum-index a meglévő beosztásokra (ütközésvizsgálathoz).
+ * Felhasználónként kezdés szerint rendezett tömb, mellette a befejezések futó maximuma:
+ * egy [start, end) kérdésnél bináris kereséssel megtaláljuk az utolsó, end előtt kezdődő műszakot,
+ * és onnan visszafelé csak addig lépkedünk, amíg a futó maximum még a start után ér véget.
+ * Így egy lekérdezés O(log n + találatok), a sok műszakos felhasználónál sem kell mindent bejárni.
+ * Az add után a következő kérdés újrarendez, így menet közben felvett műszakok is ütköztethetők.
+ */
+final class ShiftIntervalIndex {
+
+    private static final class UserIntervals {
+        private final List<Shift> shifts = new ArrayList<>();
+        private LocalDateTime[] starts;
+        private LocalDateTime[] maxEnds;
+
+        void add(Shift shift) {
+            shifts.add(shift);
+            starts = null;
+        }
+
+        private void build() {
+            shifts.sort(Comparator.comparing(Shift::getStartTime));
+            starts = new LocalDateTime[shifts.size()];
+            maxEnds = new LocalDateTime[shifts.size()];
+            LocalDateTime maxEnd = null;
+            for (int i = 0; i < shifts.size(); i++) {
+                Shift shift = shifts.get(i);
+                starts[i] = shift.getStartTime();
+                maxEnd = maxEnd == null || shift.getEndTime().isAfter(maxEnd) ? shift.getEndTime() : maxEnd;
+                maxEnds[i] = maxEnd;
+            }
+        }
+
+        List<Shift> overlapping(LocalDateTime start, LocalDateTime end) {
+            if (starts == null) build();
+
+            // Az utolsó olyan index, ahol a kezdés < end
+            int low = 0, high = starts.length - 1, last = -1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (starts[mid].isBefore(end)) {
+                    last = mid;
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+
+            List<Shift> result = new ArrayList<>();
+            for (int i = last; i >= 0 && maxEnds[i].isAfter(start); i--) {
+                Shift shift = shifts.get(i);
+                if (shift.getEndTime().isAfter(start)) {
+                    result.add(shift);
+                }
+            }
+            Collections.reverse(result);
+            return result;
+        }
+    }
+
+    private final Map<Long, UserIntervals> byUser = new HashMap<>();
+
+    static ShiftIntervalIndex of(Collection<ShiftAssignment> assignments) {
+        return new ShiftIntervalIndex().addAll(assignments);
+    }
+
+    ShiftIntervalIndex addAll(Collection<ShiftAssignment> assignments) {
+        for (ShiftAssignment assignment : assignments) {
+            add(assignment.getUserId(), assignment.getShift());
+        }
+        return this;
+    }
+
+    void add(Long userId, Shift shift) {
+        byUser.computeIfAbsent(userId, id -> new UserIntervals()).add(shift);
+    }
+
+    /**
+     * A felhasználó azon műszakjai, amelyek átfednek a [start, end) idősávval (kezdés szerint rendezve).
+     */
+    List<Shift> overlapping(Long userId, LocalDateTime start, LocalDateTime end) {
+        UserIntervals intervals = byUser.get(userId);
+        return intervals == null ? List.of() : intervals.overlapping(start, end);
+    }
+}
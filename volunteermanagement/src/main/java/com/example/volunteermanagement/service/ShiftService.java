@@ -1,7 +1,10 @@
 package com.example.volunteermanagement.service;
 
 import com.example.volunteermanagement.tenant.TenantContext;
+import com.example.volunteermanagement.tenant.TenantFanOutExecutor;
+import com.example.volunteermanagement.tenant.TenantFanOutResult;
 import com.example.volunteermanagement.dto.*;
+import com.example.volunteermanagement.exception.AssignmentConflictException;
 import com.example.volunteermanagement.model.*;
 import com.example.volunteermanagement.repository.*;
 import lombok.RequiredArgsConstructor;
@@ -15,7 +18,13 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.Period;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,8 +38,15 @@ public class ShiftService {
     private final UserRepository userRepository;
     private final ShiftAssignmentRepository shiftAssignmentRepository;
     private final EventRepository eventRepository;
+    private final MealAllowanceLedger mealAllowanceLedger;
+    private final CateringSummaryService cateringSummaryService;
+    private final CateringStreamHub cateringStreamHub;
     private final OrganizationRepository organizationRepository;
     private final EventTeamMemberRepository eventTeamMemberRepository;
+    private final TenantFanOutExecutor tenantFanOutExecutor;
+    private final MyShiftView myShiftView;
+    private final VolunteerStatsService volunteerStatsService;
+    private final StatisticsService statisticsService;
 
     @Autowired
     @Lazy
@@ -39,48 +55,38 @@ public class ShiftService {
     @Transactional(readOnly = true)
     public List<ShiftDTO> getShiftsByEvent(Long eventId) {
         String originalTenant = TenantContext.getCurrentTenant();
-        List<ShiftDTO> resultDtos = new ArrayList<>();
 
-        List<Application> approvedApps = applicationRepository.findByEventId(eventId).stream()
-                .filter(app -> app.getStatus() == ApplicationStatus.APPROVED)
-                .collect(Collectors.toList());
+        // Állandó számú lekérdezés a műszakok és beosztások számától függetlenül:
+        // jelentkezések (azonosítók), csapat, műszakok a beosztásokkal, a beosztottak nevei
+        Map<Long, Long> applicationIds = new HashMap<>();
+        Map<Long, Long> approvedApplicationIds = new HashMap<>();
+        for (Object[] row : applicationRepository.findIdRowsByEventId(eventId)) {
+            applicationIds.putIfAbsent((Long) row[0], (Long) row[1]);
+            if (row[2] == ApplicationStatus.APPROVED) {
+                approvedApplicationIds.putIfAbsent((Long) row[0], (Long) row[1]);
+            }
+        }
 
-        List<Long> approvedUserIds = approvedApps.stream()
-                .map(Application::getUserId)
-                .collect(Collectors.toList());
+        Set<Long> leaderIds = eventTeamMemberRepository.findByEventId(eventId).stream()
+                .filter(tm -> tm.getRole() == EventRole.ORGANIZER || tm.getRole() == EventRole.COORDINATOR)
+                .map(EventTeamMember::getUserId)
+                .collect(Collectors.toSet());
 
-        List<Shift> tenantShifts = shiftRepository.findAll().stream()
-                .filter(s -> (s.getWorkArea() != null && s.getWorkArea().getEvent().getId().equals(eventId)) ||
-                        (s.getEvent() != null && s.getEvent().getId().equals(eventId)))
-                .collect(Collectors.toList());
+        List<Shift> tenantShifts = shiftRepository.findBoardByEventId(eventId);
+        Set<Long> assignedUserIds = ShiftBoardAssembler.assignedUserIds(tenantShifts, leaderIds);
+        Map<Long, ShiftBoardAssembler.UserRow> users = assignedUserIds.isEmpty()
+                ? Map.of()
+                : ShiftBoardAssembler.usersById(userRepository.findContactRowsByIdIn(assignedUserIds));
 
-        resultDtos.addAll(mapShiftsToDTOs(tenantShifts, eventId));
+        List<ShiftDTO> resultDtos = new ArrayList<>(ShiftBoardAssembler.eventBoard(tenantShifts, leaderIds, users, applicationIds));
+
+        if (approvedApplicationIds.isEmpty()) {
+            return resultDtos;
+        }
 
         try {
             TenantContext.setCurrentTenant(null);
-
-            List<ShiftDTO> personalShifts = self.fetchPersonalShiftsForUsers(approvedUserIds);
-
-            for (ShiftDTO shiftDto : personalShifts) {
-                List<AssignedUserDTO> updatedUsers = new ArrayList<>();
-                for (AssignedUserDTO au : shiftDto.assignedUsers()) {
-                    Long appId = approvedApps.stream()
-                            .filter(app -> app.getUserId().equals(au.userId()))
-                            .map(Application::getId)
-                            .findFirst()
-                            .orElse(null);
-
-                    updatedUsers.add(new AssignedUserDTO(appId, au.userId(), au.name(), au.email(), au.status(), au.message(), au.isBackup()));
-                }
-
-                resultDtos.add(new ShiftDTO(
-                        shiftDto.id(), null, "Személyes elfoglaltság", shiftDto.name(), shiftDto.startTime(), shiftDto.endTime(),
-                        shiftDto.maxVolunteers(), shiftDto.maxBackupVolunteers(),
-                        shiftDto.providedBreakfasts(), shiftDto.providedLunches(), shiftDto.providedDinners(),
-                        "PERSONAL", shiftDto.description(), updatedUsers
-                ));
-            }
-
+            resultDtos.addAll(self.fetchPersonalShiftsForUsers(approvedApplicationIds));
         } catch (Exception e) {
             System.err.println("Globális személyes műszakok olvasása hiba: " + e.getMessage());
             e.printStackTrace();
@@ -91,69 +97,24 @@ public class ShiftService {
         return resultDtos;
     }
 
+    /**
+     * A jóváhagyott önkéntesek személyes elfoglaltságai a Mesterből (két lekérdezés: műszakok a beosztásokkal, nevek).
+     *
+     * @param approvedApplicationIds felhasználó -> jóváhagyott jelentkezés ID az eseményen
+     */
     @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
-    public List<ShiftDTO> fetchPersonalShiftsForUsers(List<Long> userIds) {
-        List<Shift> personalShifts = shiftRepository.findAll().stream()
-                .filter(s -> s.getType() == ShiftType.PERSONAL)
-                .filter(s -> s.getAssignments().stream().anyMatch(a -> userIds.contains(a.getUserId())))
-                .collect(Collectors.toList());
-
-        return personalShifts.stream().map(shift -> {
-            List<AssignedUserDTO> assignedUsers = shift.getAssignments().stream()
-                    .map(assignment -> {
-                        User user = userRepository.findById(assignment.getUserId()).orElse(null);
-                        return new AssignedUserDTO(
-                                null,
-                                assignment.getUserId(),
-                                user != null ? user.getName() : "Ismeretlen",
-                                user != null ? user.getEmail() : "Ismeretlen",
-                                assignment.getStatus().name(),
-                                assignment.getMessage(),
-                                assignment.isBackup()
-                        );
-                    }).collect(Collectors.toList());
-
-            return new ShiftDTO(
-                    shift.getId(), null, "Személyes", shift.getName(), shift.getStartTime(), shift.getEndTime(),
-                    shift.getMaxVolunteers(), shift.getMaxBackupVolunteers(),
-                    shift.getProvidedBreakfasts(), shift.getProvidedLunches(), shift.getProvidedDinners(),
-                    "PERSONAL", shift.getDescription(), assignedUsers
-            );
-        }).collect(Collectors.toList());
-    }
-
-    private List<ShiftDTO> mapShiftsToDTOs(List<Shift> shifts, Long eventId) {
+    public List<ShiftDTO> fetchPersonalShiftsForUsers(Map<Long, Long> approvedApplicationIds) {
+        List<Shift> personalShifts = shiftRepository.findByTypeWithAssignmentsForUsers(ShiftType.PERSONAL, approvedApplicationIds.keySet());
+        if (personalShifts.isEmpty()) return List.of();
 
-        List<EventTeamMember> teamMembers = eventTeamMemberRepository.findByEventId(eventId);
-        List<Long> leaderIds = teamMembers.stream()
-                .filter(tm -> tm.getRole() == EventRole.ORGANIZER || tm.getRole() == EventRole.COORDINATOR)
-                .map(EventTeamMember::getUserId)
-                .collect(Collectors.toList());
+        Set<Long> assignedUserIds = ShiftBoardAssembler.assignedUserIds(personalShifts, Set.of());
+        Map<Long, ShiftBoardAssembler.UserRow> users = ShiftBoardAssembler.usersById(userRepository.findContactRowsByIdIn(assignedUserIds));
 
-        return shifts.stream().map(shift -> {
-            List<AssignedUserDTO> assignedUsers = shift.getAssignments().stream()
-                    .filter(assignment -> !leaderIds.contains(assignment.getUserId()))
-                    .map(assignment -> {
-                        User user = userRepository.findById(assignment.getUserId()).orElse(null);
-                        Long appId = applicationRepository.findByUserIdAndEventId(assignment.getUserId(), eventId).stream()
-                                .map(Application::getId).findFirst().orElse(null);
-
-                        return new AssignedUserDTO(appId, assignment.getUserId(),
-                                user != null ? user.getName() : "Ismeretlen",
-                                user != null ? user.getEmail() : "Ismeretlen",
-                                assignment.getStatus().name(), assignment.getMessage(), assignment.isBackup());
-                    }).collect(Collectors.toList());
-
-            return new ShiftDTO(shift.getId(), shift.getWorkArea() != null ? shift.getWorkArea().getId() : null,
-                    shift.getWorkArea() != null ? shift.getWorkArea().getName() : (shift.getType() == ShiftType.PERSONAL ? "Személyes" : "Globális"),
-                    shift.getName(), shift.getStartTime(), shift.getEndTime(), shift.getMaxVolunteers(), shift.getMaxBackupVolunteers(),
-                    shift.getProvidedBreakfasts(), shift.getProvidedLunches(), shift.getProvidedDinners(),
-                    shift.getType() != null ? shift.getType().name() : "WORK", shift.getDescription(), assignedUsers);
-        }).collect(Collectors.toList());
+        return ShiftBoardAssembler.personalBoard(personalShifts, users, approvedApplicationIds);
     }
 
     @Transactional(readOnly = true)
-    public List<MyShiftDTO> getMyShifts(String userEmail) {
+    public PartialResult<List<MyShiftDTO>> getMyShifts(String userEmail) {
         User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new RuntimeException("Felhasználó nem található!"));
 
@@ -168,24 +129,33 @@ public class ShiftService {
                     .collect(Collectors.toList());
         }
 
-        List<MyShiftDTO> allMyShifts = new ArrayList<>();
-        String originalTenant = TenantContext.getCurrentTenant();
-
-        try {
-            TenantContext.setCurrentTenant(null);
-            allMyShifts.addAll(self.fetchMyShiftsForTenant(user));
-
-            for (Organization org : userOrgs) {
-                if (org.getTenantId() != null && !org.getTenantId().trim().isEmpty()) {
-                    TenantContext.setCurrentTenant(org.getTenantId());
-                    allMyShifts.addAll(self.fetchMyShiftsForTenant(user));
-                }
-            }
-        } finally {
-            TenantContext.setCurrentTenant(originalTenant);
+        // Mester (személyes műszakok) + a felhasználó összes Szigete, párhuzamosan
+        List<String> tenantIds = new ArrayList<>();
+        tenantIds.add(null);
+        userOrgs.stream()
+                .map(Organization::getTenantId)
+                .filter(t -> t != null && !t.trim().isEmpty())
+                .distinct()
+                .forEach(tenantIds::add);
+
+        // Az előre kiszámolt nézetből (egy Mester-lekérdezés); csak a hiányzó/elavult partíciókért megyünk a Szigetekre
+        Map<String, List<MyShiftDTO>> partitions = new HashMap<>(myShiftView.readFresh(user.getId(), tenantIds));
+        List<String> missing = tenantIds.stream().filter(t -> !partitions.containsKey(t)).collect(Collectors.toList());
+        List<String> unavailable = List.of();
+        if (!missing.isEmpty()) {
+            LocalDateTime readStartedAt = LocalDateTime.now();
+            // Csak a sikeresen lekérdezett partíciókat tároljuk; a kimaradtak a következő olvasáskor újra próbálkoznak
+            TenantFanOutResult<List<MyShiftDTO>> rebuilt = tenantFanOutExecutor.runPerTenant(missing, t -> self.fetchMyShiftsForTenant(user));
+            myShiftView.store(user.getId(), rebuilt.results(), readStartedAt);
+            partitions.putAll(rebuilt.results());
+            unavailable = rebuilt.failedTenants();
         }
 
-        return allMyShifts;
+        List<MyShiftDTO> allMyShifts = new ArrayList<>();
+        for (String tenantId : tenantIds) {
+            allMyShifts.addAll(partitions.getOrDefault(tenantId, List.of()));
+        }
+        return new PartialResult<>(allMyShifts, unavailable);
     }
 
     @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
@@ -207,10 +177,21 @@ public class ShiftService {
 
                     return eventId == null || !leaderEventIds.contains(eventId);
                 })
+                .sorted(Comparator.comparing((ShiftAssignment a) -> a.getShift().getStartTime()).thenComparing(ShiftAssignment::getId))
                 .collect(Collectors.toList());
 
+        // A munkatársak nevei egy lekérdezéssel
+        Set<Long> coWorkerIds = new HashSet<>();
+        assignments.forEach(a -> a.getShift().getAssignments().forEach(other -> coWorkerIds.add(other.getUserId())));
+        coWorkerIds.remove(user.getId());
+        Map<Long, ShiftBoardAssembler.UserRow> coWorkerRows = coWorkerIds.isEmpty()
+                ? Map.of()
+                : ShiftBoardAssembler.usersById(userRepository.findContactRowsByIdIn(coWorkerIds));
+
         return assignments.stream().map(assignment -> {
             Shift shift = assignment.getShift();
+            Long eventId = shift.getEvent() != null ? shift.getEvent().getId() :
+                    (shift.getWorkArea() != null ? shift.getWorkArea().getEvent().getId() : null);
 
             String eventTitle = null;
             if (shift.getType() != ShiftType.PERSONAL) {
@@ -222,8 +203,8 @@ public class ShiftService {
             List<String> coWorkers = shift.getAssignments().stream()
                     .filter(a -> !a.getUserId().equals(user.getId()))
                     .map(a -> {
-                        User coWorker = userRepository.findById(a.getUserId()).orElse(null);
-                        String name = coWorker != null ? coWorker.getName() : "Ismeretlen";
+                        ShiftBoardAssembler.UserRow coWorker = coWorkerRows.get(a.getUserId());
+                        String name = coWorker != null ? coWorker.name() : "Ismeretlen";
                         return name + (a.isBackup() ? " (Beugró)" : "");
                     })
                     .collect(Collectors.toList());
@@ -231,6 +212,7 @@ public class ShiftService {
             return new MyShiftDTO(
                     assignment.getId(),
                     shift.getId(),
+                    shift.getType() != ShiftType.PERSONAL ? eventId : null,
                     eventTitle,
                     workAreaName,
                     shift.getName(),
@@ -258,10 +240,31 @@ public class ShiftService {
             throw new RuntimeException("Nincs jogosultságod módosítani ezt a beosztást!");
         }
 
+        Long eventId = assignment.getShift().getEvent() != null ? assignment.getShift().getEvent().getId() : null;
+        CateringSummaryService.VolunteerMealSnapshot before = eventId != null ? cateringSummaryService.snapshot(eventId, user.getId()) : null;
+
+        AssignmentStatus previousStatus = assignment.getStatus();
         assignment.setStatus(AssignmentStatus.valueOf(request.status()));
         assignment.setMessage(request.message());
 
         shiftAssignmentRepository.save(assignment);
+        volunteerStatsService.onStatusChange(assignment.getShift(), user.getId(), previousStatus, assignment.getStatus());
+        myShiftView.invalidateUsers(List.of(user.getId()));
+        statisticsService.invalidateEventStats(eventId);
+        if (eventId != null) {
+            // Egyetlen önkéntes változott: a konyhai számlálókat elég a különbséggel léptetni
+            mealAllowanceLedger.invalidateAllowances(eventId);
+            CateringSummaryService.VolunteerMealSnapshot after = cateringSummaryService.snapshot(eventId, user.getId());
+            cateringSummaryService.applyChange(eventId, before, after);
+
+            Set<LocalDate> days = new HashSet<>(before.allowancesByDay().keySet());
+            days.addAll(after.allowancesByDay().keySet());
+            for (LocalDate day : days) {
+                cateringStreamHub.publish(eventId, day, new CateringDTO.CateringStreamEvent(
+                        CateringStreamHub.ELIGIBILITY_CHANGED, user.getId(), null, null, null, null, null,
+                        CateringSummaryService.eligibleMeals(after, day)));
+            }
+        }
 
         Long orgId = assignment.getShift().getEvent() != null ? assignment.getShift().getEvent().getOrganization().getId() : null;
 
@@ -299,24 +302,46 @@ public class ShiftService {
             }
         }
 
+        // Egy lekérdezés a jelöltekre és egy a meglévő beosztásaikra; minden ütközést egy menetben gyűjtünk,
+        // és ha van bármelyik, semmit nem mentünk, hanem az összeset egyszerre jelezzük
+        Set<Long> candidateIds = allApps.stream().map(Application::getUserId).collect(Collectors.toSet());
+        Map<Long, User> users = userRepository.findAllById(candidateIds).stream()
+                .collect(Collectors.toMap(User::getId, u -> u));
+        ShiftIntervalIndex index = ShiftIntervalIndex.of(shiftAssignmentRepository.findWithShiftByUserIdIn(candidateIds));
+        Set<Long> alreadyOnShift = shift.getAssignments().stream()
+                .map(ShiftAssignment::getUserId).collect(Collectors.toSet());
+
         boolean isNight = isNightShift(shift.getStartTime(), shift.getEndTime());
+        List<AssignmentConflictDTO> conflicts = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+
+        for (Application app : normalApps) {
+            collectConflicts(shift, app.getUserId(), users.get(app.getUserId()), isNight, index, alreadyOnShift, seen, conflicts);
+        }
+        for (Application app : backupApps) {
+            collectConflicts(shift, app.getUserId(), users.get(app.getUserId()), isNight, index, alreadyOnShift, seen, conflicts);
+        }
+
+        if (!conflicts.isEmpty()) {
+            throw new AssignmentConflictException(conflicts);
+        }
 
         for (Application app : normalApps) {
-            User user = userRepository.findById(app.getUserId()).orElseThrow();
-            processAssignment(shift, user, false, isNight);
+            addPendingAssignment(shift, app.getUserId(), false);
         }
         for (Application app : backupApps) {
-            User user = userRepository.findById(app.getUserId()).orElseThrow();
-            processAssignment(shift, user, true, isNight);
+            addPendingAssignment(shift, app.getUserId(), true);
         }
 
         shiftRepository.save(shift);
+        refreshMealAllowances(shift);
+        refreshMyShiftViews(shift);
 
         String normalNames = normalApps.stream()
-                .map(a -> userRepository.findById(a.getUserId()).map(User::getName).orElse("Ismeretlen"))
+                .map(a -> users.containsKey(a.getUserId()) ? users.get(a.getUserId()).getName() : "Ismeretlen")
                 .collect(Collectors.joining(", "));
         String backupNames = backupApps.stream()
-                .map(a -> userRepository.findById(a.getUserId()).map(User::getName).orElse("Ismeretlen"))
+                .map(a -> users.containsKey(a.getUserId()) ? users.get(a.getUserId()).getName() : "Ismeretlen")
                 .collect(Collectors.joining(", "));
 
         Long orgId = shift.getEvent() != null ? shift.getEvent().getOrganization().getId() : null;
@@ -328,37 +353,52 @@ public class ShiftService {
         auditLogService.logAction(requesterEmail, "ASSIGN_SHIFT", "Beosztás: " + areaName, logMessage, orgId);
     }
 
-    private void processAssignment(Shift shift, User user, boolean isBackup, boolean isNight) {
-        List<ShiftAssignment> userAssignments = shiftAssignmentRepository.findByUserId(user.getId());
-
-        for (ShiftAssignment assignment : userAssignments) {
-            Shift existingShift = assignment.getShift();
-            boolean isOverlapping = existingShift.getStartTime().isBefore(shift.getEndTime()) &&
-                    existingShift.getEndTime().isAfter(shift.getStartTime());
+    /**
+     * Egy jelölt összes akadálya (ütköző műszakok, munkajogi korlát, dupla beosztás) hozzáadva a listához.
+     * A kérésen belüli ismétlést a seen halmaz szűri; a cél műszakban már bent lévők az átfedésvizsgálatig el sem jutnak.
+     */
+    private void collectConflicts(Shift shift, Long userId, User user, boolean isNight, ShiftIntervalIndex index,
+                                  Set<Long> alreadyOnShift, Set<Long> seen, List<AssignmentConflictDTO> conflicts) {
+        if (user == null) {
+            conflicts.add(new AssignmentConflictDTO(userId, "Ismeretlen", "A felhasználó nem található!"));
+            return;
+        }
+        if (alreadyOnShift.contains(userId)) {
+            conflicts.add(new AssignmentConflictDTO(userId, user.getName(), "Már be van osztva ebbe a műszakba!"));
+            return;
+        }
+        if (!seen.add(userId)) {
+            conflicts.add(new AssignmentConflictDTO(userId, user.getName(), "Többször szerepel a beosztásban!"));
+            return;
+        }
 
-            if (isOverlapping) {
-                String areaName = existingShift.getWorkArea() != null ? existingShift.getWorkArea().getName() : "Más elfoglaltság";
-                throw new RuntimeException("Időpont ütközés! " + user.getName() +
-                        " már be van osztva máshova ebben az időszakban: " + areaName +
-                        " (" + existingShift.getStartTime().toLocalTime() + " - " +
-                        existingShift.getEndTime().toLocalTime() + ")");
-            }
+        for (Shift existingShift : index.overlapping(userId, shift.getStartTime(), shift.getEndTime())) {
+            String areaName = existingShift.getWorkArea() != null ? existingShift.getWorkArea().getName() : "Más elfoglaltság";
+            conflicts.add(new AssignmentConflictDTO(userId, user.getName(),
+                    "Időpont ütközés! Már be van osztva máshova ebben az időszakban: " + areaName +
+                            " (" + existingShift.getStartTime().toLocalTime() + " - " +
+                            existingShift.getEndTime().toLocalTime() + ")"));
         }
 
         if (isNight) {
             if (user.getDateOfBirth() == null) {
-                throw new RuntimeException("Munkajogi hiba: " + user.getName() + " profiljában nincs megadva születési dátum!");
-            }
-            LocalDate shiftDate = shift.getStartTime().toLocalDate();
-            int ageAtShift = Period.between(user.getDateOfBirth(), shiftDate).getYears();
-            if (ageAtShift < 18) {
-                throw new RuntimeException("Munkajogi hiba: Kiskorú önkéntes (" + user.getName() + ") nem osztható be éjszakai műszakba!");
+                conflicts.add(new AssignmentConflictDTO(userId, user.getName(),
+                        "Munkajogi hiba: a profilban nincs megadva születési dátum!"));
+            } else {
+                LocalDate shiftDate = shift.getStartTime().toLocalDate();
+                int ageAtShift = Period.between(user.getDateOfBirth(), shiftDate).getYears();
+                if (ageAtShift < 18) {
+                    conflicts.add(new AssignmentConflictDTO(userId, user.getName(),
+                            "Munkajogi hiba: Kiskorú önkéntes nem osztható be éjszakai műszakba!"));
+                }
             }
         }
+    }
 
+    private void addPendingAssignment(Shift shift, Long userId, boolean isBackup) {
         ShiftAssignment newAssignment = ShiftAssignment.builder()
                 .shift(shift)
-                .userId(user.getId())
+                .userId(userId)
                 .status(AssignmentStatus.PENDING)
                 .isBackup(isBackup)
                 .build();
@@ -366,6 +406,114 @@ public class ShiftService {
         shift.getAssignments().add(newAssignment);
     }
 
+    /**
+     * Automatikus beosztás véglegesítése: a javaslat összes új beosztása egy tranzakcióban.
+     * A javaslat óta változhatott a helyzet, ezért mindent újra ellenőrzünk (státusz, létszám, ütközés, munkajog);
+     * ha bármi nem stimmel, semmi nem kerül mentésre, és az összes ütközést egyszerre jelezzük.
+     *
+     * @return a létrehozott beosztások száma
+     */
+    @Transactional
+    public int commitRosterPlacements(Long eventId, List<RosterDTO.RosterPlacement> placements, String requesterEmail) {
+        Event event = eventRepository.findById(eventId)
+                .orElseThrow(() -> new RuntimeException("Esemény nem található!"));
+        if (placements.isEmpty()) return 0;
+
+        Map<Long, Shift> shiftsById = shiftRepository.findBoardByEventId(eventId).stream()
+                .collect(Collectors.toMap(Shift::getId, s -> s));
+        Set<Long> approvedUserIds = new HashSet<>();
+        for (Object[] row : applicationRepository.findIdRowsByEventId(eventId)) {
+            if (row[2] == ApplicationStatus.APPROVED) approvedUserIds.add((Long) row[0]);
+        }
+
+        Set<Long> candidateIds = placements.stream().map(RosterDTO.RosterPlacement::userId).collect(Collectors.toSet());
+        Map<Long, User> users = userRepository.findAllById(candidateIds).stream()
+                .collect(Collectors.toMap(User::getId, u -> u));
+        ShiftIntervalIndex index = ShiftIntervalIndex.of(shiftAssignmentRepository.findWithShiftByUserIdIn(candidateIds))
+                .addAll(loadPersonalCommitments(candidateIds));
+
+        Map<Long, List<RosterDTO.RosterPlacement>> byShift = placements.stream()
+                .collect(Collectors.groupingBy(RosterDTO.RosterPlacement::shiftId, LinkedHashMap::new, Collectors.toList()));
+
+        List<AssignmentConflictDTO> conflicts = new ArrayList<>();
+        for (Map.Entry<Long, List<RosterDTO.RosterPlacement>> entry : byShift.entrySet()) {
+            Shift shift = shiftsById.get(entry.getKey());
+            if (shift == null) {
+                entry.getValue().forEach(p -> conflicts.add(new AssignmentConflictDTO(p.userId(), p.userName(),
+                        "A műszak (" + p.shiftName() + ") már nem létezik!")));
+                continue;
+            }
+
+            long freeNormal = shift.getMaxVolunteers() - shift.getAssignments().stream().filter(a -> !a.isBackup()).count();
+            long freeBackup = shift.getMaxBackupVolunteers() - shift.getAssignments().stream().filter(ShiftAssignment::isBackup).count();
+            Set<Long> alreadyOnShift = shift.getAssignments().stream().map(ShiftAssignment::getUserId).collect(Collectors.toSet());
+            boolean isNight = isNightShift(shift.getStartTime(), shift.getEndTime());
+            Set<Long> seen = new HashSet<>();
+
+            for (RosterDTO.RosterPlacement placement : entry.getValue()) {
+                User user = users.get(placement.userId());
+                String name = user != null ? user.getName() : placement.userName();
+                if (!approvedUserIds.contains(placement.userId())) {
+                    conflicts.add(new AssignmentConflictDTO(placement.userId(), name, "A jelentkezés már nincs elfogadva!"));
+                    continue;
+                }
+                if (shift.getType() != ShiftType.MEETING && (placement.backup() ? --freeBackup : --freeNormal) < 0) {
+                    conflicts.add(new AssignmentConflictDTO(placement.userId(), name, placement.backup()
+                            ? "A beugró/készenléti létszámkeret betelt: " + shift.getName()
+                            : "A rendes műszak betelt: " + shift.getName()));
+                    continue;
+                }
+
+                int before = conflicts.size();
+                collectConflicts(shift, placement.userId(), user, isNight, index, alreadyOnShift, seen, conflicts);
+                // A javaslat saját beosztásai egymással is ütközhetnek (ha közben változtak a műszakok)
+                if (conflicts.size() == before) index.add(placement.userId(), shift);
+            }
+        }
+
+        if (!conflicts.isEmpty()) {
+            throw new AssignmentConflictException(conflicts);
+        }
+
+        for (Map.Entry<Long, List<RosterDTO.RosterPlacement>> entry : byShift.entrySet()) {
+            Shift shift = shiftsById.get(entry.getKey());
+            entry.getValue().forEach(p -> addPendingAssignment(shift, p.userId(), p.backup()));
+        }
+        List<Shift> touched = byShift.keySet().stream().map(shiftsById::get).toList();
+        shiftRepository.saveAll(touched);
+        touched.forEach(this::refreshMealAllowances);
+        touched.forEach(this::refreshMyShiftViews);
+
+        Long orgId = event.getOrganization() != null ? event.getOrganization().getId() : null;
+        long preferredCount = placements.stream().filter(RosterDTO.RosterPlacement::preferred).count();
+        auditLogService.logAction(requesterEmail, "ROSTER_COMMIT", "Automatikus beosztás: " + event.getTitle(),
+                placements.size() + " beosztás " + touched.size() + " műszakba (" + preferredCount + " preferált területen)", orgId);
+
+        return placements.size();
+    }
+
+    /**
+     * A felhasználók személyes elfoglaltságai (Mester) beosztásként, az ütközésvizsgálathoz.
+     */
+    public List<ShiftAssignment> loadPersonalCommitments(Set<Long> userIds) {
+        if (userIds.isEmpty()) return List.of();
+        String originalTenant = TenantContext.getCurrentTenant();
+        try {
+            TenantContext.setCurrentTenant(null);
+            return self.fetchPersonalCommitmentsInMaster(userIds);
+        } finally {
+            TenantContext.setCurrentTenant(originalTenant);
+        }
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public List<ShiftAssignment> fetchPersonalCommitmentsInMaster(Set<Long> userIds) {
+        return shiftRepository.findByTypeWithAssignmentsForUsers(ShiftType.PERSONAL, userIds).stream()
+                .flatMap(shift -> shift.getAssignments().stream())
+                .filter(assignment -> userIds.contains(assignment.getUserId()))
+                .collect(Collectors.toList());
+    }
+
     @Transactional
     public void removeUserFromShift(Long shiftId, Long applicationId, String requesterEmail) {
         Shift shift = shiftRepository.findById(shiftId).orElseThrow(() -> new RuntimeException("Műszak nem található!"));
@@ -377,6 +525,10 @@ public class ShiftService {
         shift.getAssignments().remove(assignment);
         shiftAssignmentRepository.delete(assignment);
         shiftRepository.save(shift);
+        volunteerStatsService.onAssignmentsRemoved(shift, List.of(assignment));
+        refreshMealAllowances(shift);
+        refreshMyShiftViews(shift);
+        myShiftView.invalidateUsers(List.of(application.getUserId()));
 
         Long orgId = shift.getEvent() != null ? shift.getEvent().getOrganization().getId() : null;
         String areaName = shift.getWorkArea() != null ? shift.getWorkArea().getName() : "Globális Gyűlés";
@@ -442,6 +594,7 @@ public class ShiftService {
                 .build();
 
         Shift saved = shiftRepository.save(shift);
+        statisticsService.invalidateEventStats(saved.getEvent().getId());
 
         Long orgId = workArea != null ? workArea.getEvent().getOrganization().getId() : null;
         String areaName = workArea != null ? workArea.getName() : "Globális";
@@ -481,6 +634,7 @@ public class ShiftService {
 
         shiftAssignmentRepository.save(assignment);
         savedShift.getAssignments().add(assignment);
+        myShiftView.invalidateUsers(List.of(user.getId()));
 
         auditLogService.logAction(userEmail, "CREATE_PERSONAL_SHIFT", "Személyes elfoglaltság rögzítve",
                 "Megnevezés: " + dto.description() + " | Idő: " + dto.startTime(), null);
@@ -498,6 +652,9 @@ public class ShiftService {
         }
 
         String oldStats = "Idő: " + shift.getStartTime() + " - " + shift.getEndTime() + " (Max: " + shift.getMaxVolunteers() + ")";
+        LocalDateTime oldStartTime = shift.getStartTime();
+        LocalDateTime oldEndTime = shift.getEndTime();
+        ShiftType oldType = shift.getType();
 
         shift.setName(dto.name());
         shift.setStartTime(dto.startTime());
@@ -514,6 +671,13 @@ public class ShiftService {
         if (dto.description() != null) shift.setDescription(dto.description());
 
         Shift updated = shiftRepository.save(shift);
+        volunteerStatsService.onShiftRescheduled(updated, oldType, oldStartTime, oldEndTime);
+        refreshMealAllowances(updated);
+        refreshMyShiftViews(updated);
+        if (updated.getEvent() != null && oldStartTime != null) {
+            cateringSummaryService.invalidateDay(updated.getEvent().getId(), oldStartTime.toLocalDate());
+            cateringStreamHub.publishResync(updated.getEvent().getId(), oldStartTime.toLocalDate());
+        }
 
         Long orgId = updated.getEvent() != null ? updated.getEvent().getOrganization().getId() : null;
         String areaName = updated.getWorkArea() != null ? updated.getWorkArea().getName() : "Globális Gyűlés";
@@ -542,7 +706,10 @@ public class ShiftService {
             auditLogService.logAction(requesterEmail, "DELETE_SHIFT", "Műszak/Gyűlés törölve: " + areaName, "Az idősáv törlésre került.", orgId);
         }
 
+        refreshMyShiftViews(shift);
+        volunteerStatsService.onAssignmentsRemoved(shift, shift.getAssignments());
         shiftRepository.delete(shift);
+        refreshMealAllowances(shift);
     }
 
     @Transactional
@@ -565,9 +732,28 @@ public class ShiftService {
 
         auditLogService.logAction(userEmail, "DELETE_PERSONAL_SHIFT", "Személyes elfoglaltság törölve az önkéntes által", "Megnevezés: " + shift.getDescription(), null);
 
+        refreshMyShiftViews(shift);
         shiftRepository.delete(shift);
     }
 
+    // A beosztások/étkezésszámok változása után a napi étkezési keretet, a konyhai számlálókat
+    // és az esemény statisztikáját (betöltöttség) újra kell tölteni
+    private void refreshMealAllowances(Shift shift) {
+        if (shift != null && shift.getEvent() != null) {
+            mealAllowanceLedger.invalidateAllowances(shift.getEvent().getId());
+            statisticsService.invalidateEventStats(shift.getEvent().getId());
+            if (shift.getStartTime() != null) {
+                cateringSummaryService.invalidateDay(shift.getEvent().getId(), shift.getStartTime().toLocalDate());
+                cateringStreamHub.publishResync(shift.getEvent().getId(), shift.getStartTime().toLocalDate());
+            }
+        }
+    }
+
+    // A műszak minden beosztottjának "Műszakjaim" nézete elavul (saját sor vagy a munkatárs-lista változott)
+    private void refreshMyShiftViews(Shift shift) {
+        myShiftView.invalidateUsers(shift.getAssignments().stream().map(ShiftAssignment::getUserId).collect(Collectors.toList()));
+    }
+
     private void validateShiftTimes(LocalDateTime startTime, LocalDateTime endTime, Event event) {
         if (startTime == null || endTime == null) {
             throw new RuntimeException("Kérlek, adj meg egy érvényes kezdési és befejezési időpontot a műszakhoz!");
@@ -580,7 +766,7 @@ public class ShiftService {
         }
     }
 
-    private boolean isNightShift(LocalDateTime start, LocalDateTime end) {
+    static boolean isNightShift(LocalDateTime start, LocalDateTime end) {
         LocalDateTime current = start;
         while (current.isBefore(end)) {
             int hour = current.getHour();
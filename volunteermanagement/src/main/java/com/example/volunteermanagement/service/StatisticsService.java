@@ -1,22 +1,34 @@
 package com.example.volunteermanagement.service;
 
+import com.example.volunteermanagement.cache.TtlCache;
 import com.example.volunteermanagement.tenant.TenantContext;
+import com.example.volunteermanagement.tenant.TenantFanOutExecutor;
+import com.example.volunteermanagement.tenant.TenantFanOutResult;
 import com.example.volunteermanagement.dto.EventStatsDTO;
 import com.example.volunteermanagement.dto.MyStatsDTO;
+import com.example.volunteermanagement.dto.PartialResult;
 import com.example.volunteermanagement.model.*;
 import com.example.volunteermanagement.repository.*;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,18 +36,35 @@ import java.util.stream.Collectors;
 public class StatisticsService {
 
     private final UserRepository userRepository;
-    private final ShiftAssignmentRepository shiftAssignmentRepository;
     private final ApplicationRepository applicationRepository;
     private final ShiftRepository shiftRepository;
     private final OrganizationRepository organizationRepository;
     private final EventRepository eventRepository;
+    private final TenantFanOutExecutor tenantFanOutExecutor;
+    private final EventTenantDirectory eventTenantDirectory;
+    private final VolunteerStatsService volunteerStatsService;
 
     @Autowired
     @Lazy
     private StatisticsService self;
 
+    private record EventStatsKey(String tenantId, Long eventId) {}
+
+    @Value("${app.event-stats.max-size:500}")
+    private int eventStatsMaxSize;
+
+    @Value("${app.event-stats.ttl-ms:30000}")
+    private long eventStatsTtlMs;
+
+    private TtlCache<EventStatsKey, EventStatsDTO> eventStatsCache;
+
+    @PostConstruct
+    void init() {
+        eventStatsCache = new TtlCache<>("eventStats", eventStatsMaxSize, eventStatsTtlMs);
+    }
+
     @Transactional(readOnly = true)
-    public MyStatsDTO getMyStatistics(String email) {
+    public PartialResult<MyStatsDTO> getMyStatistics(String email) {
         User user = userRepository.findByEmail(email).orElseThrow();
 
         List<Organization> userOrgs;
@@ -52,71 +81,46 @@ public class StatisticsService {
         long totalUpcoming = 0;
         double totalHours = 0.0;
 
-        String originalTenant = TenantContext.getCurrentTenant();
-
-        try {
-            TenantContext.setCurrentTenant(null);
-            MyStatsDTO globalStats = self.calculateStatsForTenant(user);
-            totalCompleted += globalStats.completedShifts();
-            totalUpcoming += globalStats.upcomingShifts();
-            totalHours += globalStats.totalHoursWorked();
-
-            for (Organization org : userOrgs) {
-                if (org.getTenantId() != null && !org.getTenantId().trim().isEmpty()) {
-                    TenantContext.setCurrentTenant(org.getTenantId());
-
-                    MyStatsDTO tenantStats = self.calculateStatsForTenant(user);
-                    totalCompleted += tenantStats.completedShifts();
-                    totalUpcoming += tenantStats.upcomingShifts();
-                    totalHours += tenantStats.totalHoursWorked();
-                }
-            }
-        } finally {
-            TenantContext.setCurrentTenant(originalTenant);
+        // Mester (null) + a felhasználó összes Szigete, párhuzamosan
+        List<String> tenantIds = new ArrayList<>();
+        tenantIds.add(null);
+        userOrgs.stream()
+                .map(Organization::getTenantId)
+                .filter(t -> t != null && !t.trim().isEmpty())
+                .distinct()
+                .forEach(tenantIds::add);
+
+        // A kimaradt Szigetek számai hiányoznak az összegből: a válasz ezt a kimaradt bérlőkkel jelzi
+        TenantFanOutResult<MyStatsDTO> fanOut = tenantFanOutExecutor.runPerTenant(tenantIds, t -> self.calculateStatsForTenant(user));
+        for (MyStatsDTO tenantStats : fanOut.results().values()) {
+            totalCompleted += tenantStats.completedShifts();
+            totalUpcoming += tenantStats.upcomingShifts();
+            totalHours += tenantStats.totalHoursWorked();
         }
 
         totalHours = Math.round(totalHours * 10.0) / 10.0;
 
-        return new MyStatsDTO(totalCompleted, totalHours, totalUpcoming);
+        return new PartialResult<>(new MyStatsDTO(totalCompleted, totalHours, totalUpcoming), fanOut.failedTenants());
     }
 
-    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    // Az előre összesített számlálókból (egy sor); nem readOnly, mert hiányzó sornál itt épül fel
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
     public MyStatsDTO calculateStatsForTenant(User user) {
-        List<ShiftAssignment> assignments = shiftAssignmentRepository.findByUserId(user.getId());
-
-        long completed = 0;
-        long upcoming = 0;
-        double hours = 0;
-        LocalDateTime now = LocalDateTime.now();
-
-        for (ShiftAssignment assignment : assignments) {
-            Shift shift = assignment.getShift();
-            if (assignment.getStatus() == AssignmentStatus.CONFIRMED && shift.getType() != ShiftType.PERSONAL) {
-                if (shift.getEndTime().isBefore(now)) {
-                    completed++;
-                    long minutes = Duration.between(shift.getStartTime(), shift.getEndTime()).toMinutes();
-                    hours += (minutes / 60.0);
-                } else {
-                    upcoming++;
-                }
-            }
-        }
-        return new MyStatsDTO(completed, hours, upcoming);
+        return volunteerStatsService.read(user.getId());
     }
 
     @Transactional(readOnly = true)
     public EventStatsDTO getEventStatistics(Long eventId, String requesterEmail) {
+        // 1. Az esemény szervezetét és Szigetét a címtárból kérjük (csak gyorsítótár-hiánynál megy a Mesterhez)
+        EventTenantDirectory.EventRoute route = eventTenantDirectory.resolve(eventId)
+                .orElseThrow(() -> new RuntimeException("Esemény nem található a Mester adatbázisban!"));
+        Long orgId = route.organizationId();
+
         String originalTenant = TenantContext.getCurrentTenant();
 
         try {
-            // 1. Megkeressük az eseményt a Mester adatbázisban
             TenantContext.setCurrentTenant(null);
 
-            Event event = eventRepository.findById(eventId)
-                    .orElseThrow(() -> new RuntimeException("Esemény nem található a Mester adatbázisban!"));
-
-            Organization org = event.getOrganization();
-
             // =====================================================================
             // ÚJ: BIZTONSÁGI ELLENŐRZÉS (PORTÁS)
             // =====================================================================
@@ -124,10 +128,10 @@ public class StatisticsService {
             boolean isSysAdmin = user.getRole() == Role.SYS_ADMIN;
             boolean hasAccess = false;
 
-            if (org != null) {
+            if (orgId != null) {
                 hasAccess = user.getMemberships().stream()
                         .filter(m -> m.getOrganization() != null)
-                        .anyMatch(m -> m.getOrganization().getId().equals(org.getId()) &&
+                        .anyMatch(m -> m.getOrganization().getId().equals(orgId) &&
                                 m.getStatus() == MembershipStatus.APPROVED &&
                                 (m.getRole() == OrganizationRole.OWNER || m.getRole() == OrganizationRole.ORGANIZER));
             }
@@ -138,48 +142,98 @@ public class StatisticsService {
             }
             // =====================================================================
 
-            // 2. Ha van saját Tenantja, átugrunk oda!
-            if (org != null && org.getTenantId() != null && !org.getTenantId().trim().isEmpty()) {
-                TenantContext.setCurrentTenant(org.getTenantId());
-                return self.fetchEventStatsInTenant(eventId);
-            }
-
-            return self.fetchEventStatsInTenant(eventId);
+            // 2. Ha van saját Tenantja, átugrunk oda! (rövid ideig a gyorsítótárból szolgáljuk ki)
+            String tenantId = route.hasTenant() ? route.tenantId() : null;
+            TenantContext.setCurrentTenant(tenantId);
+            return eventStatsCache.get(new EventStatsKey(tenantId, eventId), key -> self.fetchEventStatsInTenant(eventId));
 
         } finally {
             TenantContext.setCurrentTenant(originalTenant);
         }
     }
 
+    // Két csoportosított lekérdezés: jóváhagyottak területenként, illetve műszakonként a megerősített létszám a kerethez képest
     @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
     public EventStatsDTO fetchEventStatsInTenant(Long eventId) {
-        List<Application> approvedApps = applicationRepository.findByEventId(eventId).stream()
-                .filter(app -> app.getStatus() == ApplicationStatus.APPROVED)
-                .toList();
+        long totalVolunteers = 0;
+        Map<String, Long> areaStats = new HashMap<>();
+        for (Object[] row : applicationRepository.countByAssignedAreaName(eventId, ApplicationStatus.APPROVED)) {
+            long count = ((Number) row[1]).longValue();
+            totalVolunteers += count;
+            if (row[0] != null) areaStats.put((String) row[0], count);
+        }
 
-        long totalVolunteers = approvedApps.size();
+        Map<Long, FillAccumulator> byArea = new LinkedHashMap<>();
+        Map<LocalDate, FillAccumulator> byDay = new TreeMap<>();
+        FillAccumulator total = new FillAccumulator(null, null, null);
+        for (Object[] row : shiftRepository.findFillRowsByEventId(eventId, ShiftType.WORK, AssignmentStatus.CONFIRMED)) {
+            Long areaId = (Long) row[1];
+            LocalDate day = ((LocalDateTime) row[3]).toLocalDate();
+            int capacity = ((Number) row[4]).intValue();
+            long confirmed = ((Number) row[5]).longValue();
+
+            total.add(capacity, confirmed);
+            byArea.computeIfAbsent(areaId, id -> new FillAccumulator(id, (String) row[2], null)).add(capacity, confirmed);
+            byDay.computeIfAbsent(day, d -> new FillAccumulator(null, null, d)).add(capacity, confirmed);
+        }
 
-        List<Shift> eventShifts = shiftRepository.findByEventId(eventId).stream()
-                .filter(s -> s.getType() == ShiftType.WORK)
+        List<EventStatsDTO.FillRate> areaRates = byArea.values().stream()
+                .map(FillAccumulator::toDto)
+                .sorted(Comparator.comparing(EventStatsDTO.FillRate::workAreaName, Comparator.nullsLast(String::compareTo)))
                 .toList();
+        List<EventStatsDTO.FillRate> dayRates = byDay.values().stream().map(FillAccumulator::toDto).toList();
 
-        long totalShifts = eventShifts.size();
-        long fullShifts = eventShifts.stream().filter(s -> {
-            long confirmedCount = s.getAssignments().stream()
-                    .filter(a -> !a.isBackup() && a.getStatus() == AssignmentStatus.CONFIRMED)
-                    .count();
-            return confirmedCount >= s.getMaxVolunteers();
-        }).count();
+        return new EventStatsDTO(totalVolunteers, total.shifts, total.fullShifts, areaStats, areaRates, dayRates);
+    }
 
-        Map<String, Long> areaStats = new HashMap<>();
-        for (Application app : approvedApps) {
-            if (app.getAssignedWorkArea() != null) {
-                String areaName = app.getAssignedWorkArea().getName();
-                areaStats.put(areaName, areaStats.getOrDefault(areaName, 0L) + 1);
-            }
+    /**
+     * A jelentkezések vagy beosztások változása után az esemény statisztikáját újra kell számolni.
+     * Azonnal és a commit után is eldobjuk, hogy a közben (még a régi adatból) betöltött érték se maradjon bent.
+     */
+    public void invalidateEventStats(Long eventId) {
+        if (eventId == null) return;
+        eventStatsCache.invalidateIf(key -> key.eventId().equals(eventId));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eventStatsCache.invalidateIf(key -> key.eventId().equals(eventId));
+                }
+            });
         }
+    }
 
-        return new EventStatsDTO(totalVolunteers, totalShifts, fullShifts, areaStats);
+    public Map<String, Object> getEventStatsCacheStats() {
+        return eventStatsCache.getStats();
+    }
+
+    // Egy csoport (terület / nap) összesítése; a túltöltött műszak csak a keretéig számít
+    private static final class FillAccumulator {
+        private final Long workAreaId;
+        private final String workAreaName;
+        private final LocalDate date;
+        private long shifts;
+        private long fullShifts;
+        private long capacity;
+        private long filled;
+
+        FillAccumulator(Long workAreaId, String workAreaName, LocalDate date) {
+            this.workAreaId = workAreaId;
+            this.workAreaName = workAreaName;
+            this.date = date;
+        }
+
+        void add(int maxVolunteers, long confirmed) {
+            shifts++;
+            if (confirmed >= maxVolunteers) fullShifts++;
+            capacity += Math.max(maxVolunteers, 0);
+            filled += Math.min(confirmed, Math.max(maxVolunteers, 0));
+        }
+
+        EventStatsDTO.FillRate toDto() {
+            double rate = capacity == 0 ? 0.0 : Math.round(filled * 1000.0 / capacity) / 1000.0;
+            return new EventStatsDTO.FillRate(workAreaId, workAreaName, date, shifts, fullShifts, capacity, filled, rate);
+        }
     }
 
     // =========================================================================
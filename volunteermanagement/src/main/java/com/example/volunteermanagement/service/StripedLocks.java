@@ -0,0 +1,34 @@
+package com.example.volunteermanagement.service;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Rögzített számú zár, a kulcs hash-e alapján kiosztva.
+ * Ugyanahhoz a kulcshoz (pl. önkénteshez) mindig ugyanaz a zár tartozik, a memóriaigény viszont
+ * nem nő a kulcsok számával, és a különböző kulcsok ritkán várnak egymásra.
+ */
+final class StripedLocks {
+
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    StripedLocks(int stripes) {
+        // Kettő hatványára kerekítünk, így a kiosztás egy maszkolás
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.locks = new ReentrantLock[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    ReentrantLock lockFor(Object key) {
+        int h = key != null ? key.hashCode() : 0;
+        h ^= (h >>> 16); // A felső bitek is számítsanak
+        return locks[h & mask];
+    }
+
+    int size() {
+        return locks.length;
+    }
+}
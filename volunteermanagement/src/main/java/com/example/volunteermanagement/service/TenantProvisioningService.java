@@ -1,6 +1,7 @@
 package com.example.volunteermanagement.service;
 
 import com.example.volunteermanagement.config.DataSourceConfig;
+import com.example.volunteermanagement.config.TenantSchemaUpdater;
 import com.example.volunteermanagement.model.Organization;
 import com.example.volunteermanagement.model.OrganizationMember;
 import com.example.volunteermanagement.model.User;
@@ -12,11 +13,14 @@ import org.springframework.stereotype.Service;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.PreparedStatement;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 @Service
 public class TenantProvisioningService {
@@ -30,12 +34,24 @@ public class TenantProvisioningService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ReplicationOutbox replicationOutbox;
+
+    @Autowired
+    private TenantSchemaUpdater tenantSchemaUpdater;
+
     public void createNewTenantDatabase(String tenantId, String dbName, Organization org, User admin, OrganizationMember member) {
-        // 1. Létrehozzuk az adatbázist
-        try (Connection connection = DriverManager.getConnection("jdbc:postgresql://localhost:5432/master_db", "postgres", "jelszo");
+        // 1. Létrehozzuk az adatbázist (séma módban a közös adatbázisban egy új sémát)
+        try (Connection connection = dataSourceConfig.openDirectProvisioningConnection();
              Statement statement = connection.createStatement()) {
-            statement.execute("CREATE DATABASE " + dbName);
-            System.out.println("✅ Új bérlői adatbázis létrehozva: " + dbName);
+            if (dataSourceConfig.isSchemaPerTenant()) {
+                String schema = dataSourceConfig.getTenantSchemaName(dbName);
+                statement.execute("CREATE SCHEMA IF NOT EXISTS \"" + schema + "\"");
+                System.out.println("✅ Új bérlői séma létrehozva: " + schema);
+            } else {
+                statement.execute("CREATE DATABASE " + dbName);
+                System.out.println("✅ Új bérlői adatbázis létrehozva: " + dbName);
+            }
         } catch (Exception e) {
             System.err.println("Hiba adatbázis létrehozásakor: " + e.getMessage());
         }
@@ -49,6 +65,9 @@ public class TenantProvisioningService {
         properties.put("hibernate.hbm2ddl.auto", "update");
         properties.put("hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect");
         properties.put("hibernate.physical_naming_strategy", "org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy");
+        if (dataSourceConfig.isSchemaPerTenant()) {
+            properties.put("hibernate.default_schema", dataSourceConfig.getTenantSchemaName(dbName));
+        }
 
         LocalContainerEntityManagerFactoryBean emfBean = entityManagerFactoryBuilder
                 .dataSource(newTenantDataSource)
@@ -58,6 +77,13 @@ public class TenantProvisioningService {
 
         emfBean.afterPropertiesSet();
 
+        // 3/b. A nem entitásként leképezett táblák, oszlopok és indexek (kirakat-sor, számlálók, egyedi indexek)
+        try {
+            tenantSchemaUpdater.applyTenantSchema(dbName);
+        } catch (Exception e) {
+            System.err.println("❌ Hiba az új bérlő sémájának kiegészítésekor (" + dbName + "): " + e.getMessage());
+        }
+
         // 4. Kezdeti adatok (Org, Admin, SysAdmin) másolása
         syncUserToTenantDatabase(dbName, admin, org, member);
 
@@ -72,61 +98,103 @@ public class TenantProvisioningService {
 
     // --- ÚJ: Ez a metódus másol át egy új tagot a szigetre ---
     public void syncUserToTenantDatabase(String dbName, User user, Organization org, OrganizationMember member) {
-        String url = "jdbc:postgresql://localhost:5432/" + dbName;
-        try (Connection conn = DriverManager.getConnection(url, "postgres", "jelszo")) {
-
-            // 1. Felhasználó beszúrása (vagy frissítése, ha már ott lenne)
-            String userSql = "INSERT INTO users (id, email, name, password, role) VALUES (?, ?, ?, ?, ?) " +
-                    "ON CONFLICT (id) DO UPDATE SET role = EXCLUDED.role";
-            try (PreparedStatement ps = conn.prepareStatement(userSql)) {
-                ps.setLong(1, user.getId());
-                ps.setString(2, user.getEmail());
-                ps.setString(3, user.getName());
-                ps.setString(4, user.getPassword());
-                ps.setString(5, user.getRole().name());
-                ps.executeUpdate();
-            }
+        Set<Long> failed = syncMembersToTenantDatabase(dbName, org, List.of(MemberSync.of(user, member)));
+        if (failed.isEmpty()) {
+            System.out.println("✅ Felhasználó (" + user.getEmail() + ") szinkronizálva a(z) " + dbName + " adatbázisba.");
+        }
+    }
 
-            // 2. Szervezet beszúrása (ha véletlen még nem lenne ott)
-            String orgSql = "INSERT INTO organizations (id, name, tenant_id) VALUES (?, ?, ?) ON CONFLICT (id) DO NOTHING";
-            try (PreparedStatement ps = conn.prepareStatement(orgSql)) {
-                ps.setLong(1, org.getId());
-                ps.setString(2, org.getName());
-                ps.setString(3, org.getTenantId());
-                ps.executeUpdate();
-            }
+    /**
+     * Egy szervezet több tagjának másolása a szigetre (felhasználó, szervezet, tagság upsert-ek)
+     * a replikációs soron keresztül: kötegelten, a bérlő poolján, és ha a sziget épp nem elérhető,
+     * a sor később újrapróbálja.
+     *
+     * @return azon felhasználók ID-i, akiknek a másolata még függőben van
+     */
+    public Set<Long> syncMembersToTenantDatabase(String dbName, Organization org, List<MemberSync> members) {
+        if (members.isEmpty()) return Set.of();
+        try {
+            replicationOutbox.enqueue(dbName, memberChanges(org, members));
+        } catch (Exception e) {
+            System.err.println("⚠️ Hiba a szinkronizáció során: " + e.getMessage());
+            Set<Long> failed = new LinkedHashSet<>();
+            members.forEach(m -> failed.add(m.userId()));
+            return failed;
+        }
+        return deliverMembers(dbName, org, members);
+    }
+
+    /**
+     * A tagok másolatainak sorba írása a hívó Mester tranzakciójában (a tagságok mentésével együtt commitol
+     * vagy vész el). A kézbesítést a commit után a {@link #deliverMembers} indítja.
+     */
+    public void enqueueMembersInCurrentTransaction(String dbName, Organization org, List<MemberSync> members) {
+        if (members.isEmpty()) return;
+        replicationOutbox.enqueueInCurrentTransaction(dbName, memberChanges(org, members));
+    }
+
+    /**
+     * A már sorba írt tagmásolatok kézbesítése a szigetre.
+     *
+     * @return azon felhasználók ID-i, akiknek a másolata még függőben van
+     */
+    public Set<Long> deliverMembers(String dbName, Organization org, List<MemberSync> members) {
+        if (members.isEmpty()) return Set.of();
+        List<ReplicationOutbox.Change> changes = memberChanges(org, members);
+        Map<String, Long> userIdByKey = new HashMap<>();
+        for (int i = 0; i < members.size(); i++) {
+            // A szervezet után tagonként a felhasználó és a tagság következik
+            userIdByKey.put(changes.get(1 + 2 * i).key(), members.get(i).userId());
+            userIdByKey.put(changes.get(2 + 2 * i).key(), members.get(i).userId());
+        }
 
-            // 3. Tagság beszúrása
-            String memSql = "INSERT INTO organization_members (id, organization_id, user_id, role, status) VALUES (?, ?, ?, ?, ?) " +
-                    "ON CONFLICT (id) DO UPDATE SET role = EXCLUDED.role, status = EXCLUDED.status";
-            try (PreparedStatement ps = conn.prepareStatement(memSql)) {
-                ps.setLong(1, member.getId());
-                ps.setLong(2, org.getId());
-                ps.setLong(3, user.getId());
-                ps.setString(4, member.getRole().name());
-                ps.setString(5, member.getStatus().name());
-                ps.executeUpdate();
+        try {
+            Set<String> pending = replicationOutbox.deliver(dbName);
+            Set<Long> failed = new LinkedHashSet<>();
+            pending.stream().map(userIdByKey::get).filter(Objects::nonNull).forEach(failed::add);
+            // A szervezet nélkül egyik tagság sem érvényes a szigeten
+            if (pending.contains(changes.get(0).key())) members.forEach(m -> failed.add(m.userId()));
+            if (!failed.isEmpty()) {
+                System.err.println("⚠️ " + failed.size() + " tag másolása függőben (" + dbName + "), a replikációs sor újrapróbálja.");
             }
-            System.out.println("✅ Felhasználó (" + user.getEmail() + ") szinkronizálva a(z) " + dbName + " adatbázisba.");
+            return failed;
         } catch (Exception e) {
             System.err.println("⚠️ Hiba a szinkronizáció során: " + e.getMessage());
+            Set<Long> failed = new LinkedHashSet<>();
+            members.forEach(m -> failed.add(m.userId()));
+            return failed;
+        }
+    }
+
+    private static List<ReplicationOutbox.Change> memberChanges(Organization org, List<MemberSync> members) {
+        List<ReplicationOutbox.Change> changes = new ArrayList<>();
+        changes.add(ReplicationOutbox.Change.organization(org));
+        for (MemberSync member : members) {
+            changes.add(ReplicationOutbox.Change.user(member.userId(), member.email(), member.name(),
+                    member.password(), member.userRole()));
+            changes.add(ReplicationOutbox.Change.membership(member.membershipId(), org.getId(),
+                    member.userId(), member.memberRole(), member.memberStatus()));
+        }
+        return changes;
+    }
+
+    /**
+     * Egy tag szinkronizálandó adatai (a Mesterből), entitások nélkül.
+     */
+    public record MemberSync(Long userId, String email, String name, String password, String userRole,
+                             Long membershipId, String memberRole, String memberStatus) {
+        public static MemberSync of(User user, OrganizationMember member) {
+            return new MemberSync(user.getId(), user.getEmail(), user.getName(), user.getPassword(), user.getRole().name(),
+                    member.getId(), member.getRole().name(), member.getStatus().name());
         }
     }
 
     private void copyUserOnly(String dbName, User user) {
-        String url = "jdbc:postgresql://localhost:5432/" + dbName;
-        try (Connection conn = DriverManager.getConnection(url, "postgres", "jelszo")) {
-            String sql = "INSERT INTO users (id, email, name, password, role) VALUES (?, ?, ?, ?, ?) ON CONFLICT (id) DO NOTHING";
-            try (PreparedStatement ps = conn.prepareStatement(sql)) {
-                ps.setLong(1, user.getId());
-                ps.setString(2, user.getEmail());
-                ps.setString(3, user.getName());
-                ps.setString(4, user.getPassword());
-                ps.setString(5, user.getRole().name());
-                ps.executeUpdate();
-            }
+        try {
+            replicationOutbox.replicateToTenant(dbName, List.of(ReplicationOutbox.Change.user(user.getId(), user.getEmail(),
+                    user.getName(), user.getPassword(), user.getRole().name())));
         } catch (Exception e) {
             System.err.println("⚠️ Hiba a SysAdmin másolásakor: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+}
@@ -28,6 +28,7 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final AuditLogService auditLogService;
+    private final AccessCacheInvalidator accessCacheInvalidator;
     private final ApplicationRepository applicationRepository;
     private final EmailService emailService;
     private final OrganizationRepository organizationRepository;
@@ -181,6 +182,7 @@ public class UserService {
 
         OrganizationRole oldRole = targetMembership.getRole();
         targetMembership.setRole(newRole);
+        accessCacheInvalidator.invalidateUser(targetUser.getEmail());
 
         auditLogService.logAction(
                 requesterEmail,
@@ -227,6 +229,7 @@ public class UserService {
 
         targetUser.getMemberships().remove(targetMembership);
         userRepository.save(targetUser);
+        accessCacheInvalidator.invalidateUser(targetUser.getEmail());
 
         auditLogService.logAction(
                 requesterEmail,
@@ -312,6 +315,7 @@ public class UserService {
         user.setPassword(passwordEncoder.encode(UUID.randomUUID().toString()));
 
         userRepository.save(user);
+        accessCacheInvalidator.invalidateUser(currentEmail);
 
         auditLogService.logAction(
                 currentEmail,
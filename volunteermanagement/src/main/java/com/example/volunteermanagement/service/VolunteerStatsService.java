@@ -0,0 +1,260 @@
+package com.example.volunteermanagement.service;
+
+import com.example.volunteermanagement.dto.MyStatsDTO;
+import com.example.volunteermanagement.model.AssignmentStatus;
+import com.example.volunteermanagement.model.Organization;
+import com.example.volunteermanagement.model.Shift;
+import com.example.volunteermanagement.model.ShiftAssignment;
+import com.example.volunteermanagement.model.ShiftType;
+import com.example.volunteermanagement.repository.OrganizationRepository;
+import com.example.volunteermanagement.tenant.TenantContext;
+import com.example.volunteermanagement.tenant.TenantFanOutExecutor;
+import com.example.volunteermanagement.tenant.TenantFanOutResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Önkéntesenkénti előre összesített statisztika (volunteer_stats, bérlőnként):
+ * teljesített műszakok száma és perce, valamint a közelgő műszakok száma (csak megerősített, nem személyes beosztások).
+ * <p>
+ * Minden sornak van egy vízjele (rolled_until): a nála korábban véget ért műszakok a teljesítettek, a többi a közelgők között van.
+ * A megerősítés/visszavonás, törlés és átütemezés a sor vízjeléhez mérve azonnal lépteti a számlálókat,
+ * a lejárt műszakokat pedig egy ütemezett görgetés (roll-forward) teszi át a közelgők közül a teljesítettek közé.
+ * Hiányzó vagy régi (app.volunteer-stats.rebuild-interval-ms) sort olvasáskor egy csoportosított lekérdezés újraépít.
+ * A léptetések a hívó bérlőjén (Szigetén) és tranzakciójában futnak.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VolunteerStatsService {
+
+    private static final String SELECT_SQL = "SELECT completed_shifts, completed_minutes, upcoming_shifts, built_at " +
+            "FROM volunteer_stats WHERE user_id = ?";
+    private static final String REBUILD_SQL = "INSERT INTO volunteer_stats " +
+            "(user_id, completed_shifts, completed_minutes, upcoming_shifts, rolled_until, built_at) " +
+            "SELECT ?, COUNT(*) FILTER (WHERE s.end_time < ?), " +
+            "COALESCE(SUM(FLOOR(EXTRACT(EPOCH FROM (s.end_time - s.start_time)) / 60)) FILTER (WHERE s.end_time < ?), 0), " +
+            "COUNT(*) FILTER (WHERE s.end_time >= ?), ?, ? " +
+            "FROM shift_assignments sa JOIN shifts s ON s.id = sa.shift_id " +
+            "WHERE sa.user_id = ? AND sa.status = 'CONFIRMED' AND s.type IS DISTINCT FROM 'PERSONAL' " +
+            "ON CONFLICT (user_id) DO UPDATE SET completed_shifts = EXCLUDED.completed_shifts, " +
+            "completed_minutes = EXCLUDED.completed_minutes, upcoming_shifts = EXCLUDED.upcoming_shifts, " +
+            "rolled_until = EXCLUDED.rolled_until, built_at = EXCLUDED.built_at";
+    // A sor saját vízjeléhez mérve: a vízjel előtt véget ért műszak teljesített, különben közelgő
+    private static final String APPLY_SQL = "UPDATE volunteer_stats SET " +
+            "completed_shifts = completed_shifts + CASE WHEN ? < rolled_until THEN ? ELSE 0 END, " +
+            "completed_minutes = completed_minutes + CASE WHEN ? < rolled_until THEN ? ELSE 0 END, " +
+            "upcoming_shifts = upcoming_shifts + CASE WHEN ? < rolled_until THEN 0 ELSE ? END " +
+            "WHERE user_id = ?";
+    // Hiányzó sornál egy elavultként megjelölt (a korszak elején épült) sort hozunk létre: a következő olvasás a beosztásokból építi fel
+    private static final String MARK_STALE_SQL = "INSERT INTO volunteer_stats " +
+            "(user_id, completed_shifts, completed_minutes, upcoming_shifts, rolled_until, built_at) VALUES (?, 0, 0, 0, ?, ?) " +
+            "ON CONFLICT (user_id) DO UPDATE SET built_at = EXCLUDED.built_at";
+    // A built_at oszlop NOT NULL: az elavult jelölés egy minden újraépítési intervallumnál régebbi időpont
+    static final Timestamp STALE_BUILT_AT = Timestamp.valueOf(LocalDateTime.of(1970, 1, 1, 0, 0));
+    private static final String ROLL_SQL = "UPDATE volunteer_stats vs SET " +
+            "completed_shifts = vs.completed_shifts + d.cnt, completed_minutes = vs.completed_minutes + d.mins, " +
+            "upcoming_shifts = vs.upcoming_shifts - d.cnt " +
+            "FROM (SELECT v.user_id, COUNT(*) AS cnt, COALESCE(SUM(FLOOR(EXTRACT(EPOCH FROM (s.end_time - s.start_time)) / 60)), 0) AS mins " +
+            "      FROM shifts s JOIN shift_assignments sa ON sa.shift_id = s.id JOIN volunteer_stats v ON v.user_id = sa.user_id " +
+            "      WHERE s.end_time >= ? AND s.end_time < ? AND s.end_time >= v.rolled_until " +
+            "        AND sa.status = 'CONFIRMED' AND s.type IS DISTINCT FROM 'PERSONAL' GROUP BY v.user_id) d " +
+            "WHERE vs.user_id = d.user_id";
+    private static final String DELETE_EVENT_USERS_SQL = "DELETE FROM volunteer_stats WHERE user_id IN (" +
+            "SELECT sa.user_id FROM shift_assignments sa JOIN shifts s ON s.id = sa.shift_id " +
+            "LEFT JOIN work_area wa ON wa.id = s.work_area_id WHERE s.event_id = ? OR wa.event_id = ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final OrganizationRepository organizationRepository;
+    private final TenantFanOutExecutor tenantFanOutExecutor;
+
+    @Autowired
+    @Lazy
+    private VolunteerStatsService self;
+
+    // Ennyi idő után olvasáskor akkor is újraépítjük a sort, ha nem jött léptetés (pl. egy elveszett frissítés miatt)
+    @Value("${app.volunteer-stats.rebuild-interval-ms:86400000}")
+    private long rebuildIntervalMs;
+
+    private final AtomicLong reads = new AtomicLong();
+    private final AtomicLong rebuilds = new AtomicLong();
+    private final AtomicLong incrementalUpdates = new AtomicLong();
+    private final AtomicLong rolledVolunteers = new AtomicLong();
+    private final AtomicLong lastRollMillis = new AtomicLong();
+    private final AtomicLong driftRepairs = new AtomicLong();
+
+    // --- Olvasás ---
+
+    public MyStatsDTO read(Long userId) {
+        reads.incrementAndGet();
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(SELECT_SQL, userId);
+        if (rows.isEmpty() || isStale((Timestamp) rows.get(0).get("built_at")) || hasDrifted(userId, rows.get(0))) {
+            rebuild(userId);
+            rows = jdbcTemplate.queryForList(SELECT_SQL, userId);
+        }
+
+        Map<String, Object> row = rows.get(0);
+        long minutes = ((Number) row.get("completed_minutes")).longValue();
+        return new MyStatsDTO(((Number) row.get("completed_shifts")).longValue(), minutes / 60.0,
+                ((Number) row.get("upcoming_shifts")).longValue());
+    }
+
+    private boolean isStale(Timestamp builtAt) {
+        return builtAt.toLocalDateTime().isBefore(LocalDateTime.now().minusNanos(rebuildIntervalMs * 1_000_000L));
+    }
+
+    // Negatív számláló csak elcsúszott léptetésből lehet: nem takarjuk el, hanem naplózzuk és újraépítjük
+    private boolean hasDrifted(Long userId, Map<String, Object> row) {
+        boolean drifted = ((Number) row.get("completed_shifts")).longValue() < 0
+                || ((Number) row.get("completed_minutes")).longValue() < 0
+                || ((Number) row.get("upcoming_shifts")).longValue() < 0;
+        if (drifted) {
+            driftRepairs.incrementAndGet();
+            log.warn("⚠️ Elcsúszott statisztika számláló (felhasználó #{}): {} - újraépítés", userId, row);
+        }
+        return drifted;
+    }
+
+    private void rebuild(Long userId) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update(REBUILD_SQL, userId, now, now, now, now, now, userId);
+        rebuilds.incrementAndGet();
+    }
+
+    // --- Léptetés a változásoknál ---
+
+    /**
+     * Egy beosztás státusza változott: a megerősítettbe be- vagy onnan kilépés számít.
+     */
+    public void onStatusChange(Shift shift, Long userId, AssignmentStatus before, AssignmentStatus after) {
+        boolean wasConfirmed = before == AssignmentStatus.CONFIRMED;
+        boolean isConfirmed = after == AssignmentStatus.CONFIRMED;
+        if (wasConfirmed != isConfirmed) {
+            apply(userId, shift.getType(), shift.getStartTime(), shift.getEndTime(), isConfirmed ? 1 : -1);
+        }
+    }
+
+    /**
+     * Beosztások megszűnése (eltávolítás, a műszak törlése): a megerősítettek kikerülnek a számlálókból.
+     */
+    public void onAssignmentsRemoved(Shift shift, Collection<ShiftAssignment> assignments) {
+        for (ShiftAssignment assignment : assignments) {
+            if (assignment.getStatus() == AssignmentStatus.CONFIRMED) {
+                apply(assignment.getUserId(), shift.getType(), shift.getStartTime(), shift.getEndTime(), -1);
+            }
+        }
+    }
+
+    /**
+     * A műszak időpontja (vagy típusa) változott: a megerősített beosztottaknál a régi idősávot kivesszük, az újat betesszük.
+     */
+    public void onShiftRescheduled(Shift shift, ShiftType oldType, LocalDateTime oldStart, LocalDateTime oldEnd) {
+        if (oldType == shift.getType() && Objects.equals(oldStart, shift.getStartTime())
+                && Objects.equals(oldEnd, shift.getEndTime())) return;
+        for (ShiftAssignment assignment : shift.getAssignments()) {
+            if (assignment.getStatus() == AssignmentStatus.CONFIRMED) {
+                apply(assignment.getUserId(), oldType, oldStart, oldEnd, -1);
+                apply(assignment.getUserId(), shift.getType(), shift.getStartTime(), shift.getEndTime(), 1);
+            }
+        }
+    }
+
+    /**
+     * Tömeges változás (pl. az esemény törlése vagy területeinek eltávolítása): az érintettek sorai újraépülnek.
+     * A beosztások törlése előtt kell hívni.
+     */
+    public void invalidateEvent(Long eventId) {
+        jdbcTemplate.update(DELETE_EVENT_USERS_SQL, eventId, eventId);
+    }
+
+    // Ha a felhasználónak még nincs sora, létrehozzuk elavultként, így egy közben futó újraépítés eredménye sem marad érvényben
+    private void apply(Long userId, ShiftType type, LocalDateTime start, LocalDateTime end, int delta) {
+        if (type == ShiftType.PERSONAL || start == null || end == null) return;
+        Timestamp endTs = Timestamp.valueOf(end);
+        long minutes = Duration.between(start, end).toMinutes() * delta;
+        int updated = jdbcTemplate.update(APPLY_SQL, endTs, delta, endTs, minutes, endTs, delta, userId);
+        if (updated == 0) {
+            jdbcTemplate.update(MARK_STALE_SQL, userId, Timestamp.valueOf(LocalDateTime.now()), STALE_BUILT_AT);
+        }
+        incrementalUpdates.incrementAndGet();
+    }
+
+    // --- Görgetés: a lejárt műszakok átkerülnek a teljesítettek közé ---
+
+    @Scheduled(fixedDelayString = "${app.volunteer-stats.roll-interval-ms:300000}")
+    public void rollForwardAllTenants() {
+        long started = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+
+        List<String> tenantIds = new ArrayList<>();
+        tenantIds.add(null);
+        String originalTenant = TenantContext.getCurrentTenant();
+        try {
+            TenantContext.setCurrentTenant(null);
+            organizationRepository.findAll().stream()
+                    .map(Organization::getTenantId)
+                    .filter(t -> t != null && !t.trim().isEmpty())
+                    .distinct()
+                    .forEach(tenantIds::add);
+        } finally {
+            TenantContext.setCurrentTenant(originalTenant);
+        }
+
+        // A kimaradt Sziget sorai a saját vízjelüknél maradnak, így a következő görgetés pótolja őket
+        TenantFanOutResult<Integer> rolled = tenantFanOutExecutor.runPerTenant(tenantIds, t -> self.rollForwardInTenant(now));
+        if (rolled.isPartial()) {
+            log.warn("⚠️ Statisztika görgetés kimaradt bérlők: {}", rolled.failedTenants());
+        }
+        int total = rolled.results().values().stream().mapToInt(Integer::intValue).sum();
+        rolledVolunteers.addAndGet(total);
+        lastRollMillis.set((System.nanoTime() - started) / 1_000_000L);
+        if (total > 0) {
+            log.info("📊 Statisztika görgetés: {} önkéntes számlálója frissült ({} ms)", total, lastRollMillis.get());
+        }
+    }
+
+    /**
+     * Egy bérlő görgetése a megadott időpontig. A tábla zárolása megvárja a folyamatban lévő léptetéseket,
+     * és a görgetés végéig feltartja az újakat, így egy közben megerősített beosztás sem csúszhat ki mindkettőből.
+     *
+     * @return a frissített önkéntesek száma
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public Integer rollForwardInTenant(LocalDateTime until) {
+        Timestamp untilTs = Timestamp.valueOf(until);
+        jdbcTemplate.execute("LOCK TABLE volunteer_stats IN SHARE ROW EXCLUSIVE MODE");
+
+        Timestamp oldest = jdbcTemplate.queryForObject(
+                "SELECT MIN(rolled_until) FROM volunteer_stats WHERE rolled_until < ?", Timestamp.class, untilTs);
+        if (oldest == null) return 0;
+
+        int updated = jdbcTemplate.update(ROLL_SQL, oldest, untilTs);
+        jdbcTemplate.update("UPDATE volunteer_stats SET rolled_until = ? WHERE rolled_until < ?", untilTs, untilTs);
+        return updated;
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("reads", reads.get());
+        metrics.put("rebuilds", rebuilds.get());
+        metrics.put("incrementalUpdates", incrementalUpdates.get());
+        metrics.put("rolledVolunteers", rolledVolunteers.get());
+        metrics.put("lastRollMillis", lastRollMillis.get());
+        metrics.put("driftRepairs", driftRepairs.get());
+        return metrics;
+    }
+}
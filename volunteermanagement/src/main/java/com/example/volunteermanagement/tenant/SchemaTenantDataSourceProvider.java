@@ -0,0 +1,109 @@
+package com.example.volunteermanagement.tenant;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Séma/bérlő mód: minden bérlő ugyanabban az adatbázisban, saját sémában él,
+ * és egyetlen közös poolon osztoznak. A bérlőt a kapcsolat kikérésekor
+ * a search_path beállításával választjuk ki.
+ */
+public class SchemaTenantDataSourceProvider implements TenantDataSourceProvider {
+
+    // A tenant ID-k a szervezet nevéből generált [a-z0-9_] azonosítók, így biztonságosan idézhetők
+    private static final Pattern SAFE_SCHEMA = Pattern.compile("[a-z0-9_]+");
+
+    private final HikariDataSource sharedPool;
+    private final Map<String, SchemaDataSource> tenants = new ConcurrentHashMap<>();
+    private final AtomicLong schemaSwitches = new AtomicLong();
+
+    public SchemaTenantDataSourceProvider(HikariDataSource sharedPool) {
+        this.sharedPool = sharedPool;
+    }
+
+    public static String toSchemaName(String tenantId) {
+        if (tenantId == null || !SAFE_SCHEMA.matcher(tenantId).matches()) {
+            throw new IllegalArgumentException("Érvénytelen bérlői séma név: " + tenantId);
+        }
+        return tenantId;
+    }
+
+    public void registerTenant(String tenantId) {
+        tenants.put(tenantId, new SchemaDataSource(sharedPool, toSchemaName(tenantId), schemaSwitches));
+    }
+
+    @Override
+    public DataSource getDataSource(String tenantId) {
+        return tenantId != null ? tenants.get(tenantId) : null;
+    }
+
+    @Override
+    public void unregisterTenant(String tenantId) {
+        tenants.remove(tenantId);
+    }
+
+    // A közös pool mindig nyitva van
+    @Override
+    public boolean hasOpenPool(String tenantId) {
+        return tenantId != null && tenants.containsKey(tenantId);
+    }
+
+    @Override
+    public void maintain() {
+        // A közös pool méretezését és a tétlen kapcsolatokat maga a Hikari kezeli
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        HikariPoolMXBean pool = sharedPool.getHikariPoolMXBean();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("mode", "SCHEMA");
+        metrics.put("registeredTenants", tenants.size());
+        metrics.put("maxPoolSize", sharedPool.getMaximumPoolSize());
+        metrics.put("active", pool != null ? pool.getActiveConnections() : 0);
+        metrics.put("idle", pool != null ? pool.getIdleConnections() : 0);
+        metrics.put("waiting", pool != null ? pool.getThreadsAwaitingConnection() : 0);
+        metrics.put("schemaSwitches", schemaSwitches.get());
+        return metrics;
+    }
+
+    /**
+     * A közös pool egy bérlőre "szűkített" nézete: minden kikéréskor beállítja a search_path-t.
+     * Csak a bérlő sémáját tesszük bele (public nélkül), hogy hiányzó tábla esetén se csússzunk át máshová.
+     */
+    static final class SchemaDataSource extends DelegatingDataSource {
+
+        private final String setSearchPathSql;
+        private final AtomicLong schemaSwitches;
+
+        SchemaDataSource(DataSource sharedPool, String schema, AtomicLong schemaSwitches) {
+            super(sharedPool);
+            this.setSearchPathSql = "SET search_path TO \"" + schema + "\"";
+            this.schemaSwitches = schemaSwitches;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection connection = super.getConnection();
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(setSearchPathSql);
+                schemaSwitches.incrementAndGet();
+                return connection;
+            } catch (SQLException e) {
+                connection.close();
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.volunteermanagement.tenant;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * A bérlők kapcsolatainak forrása a lift (TenantRoutingDataSource) számára.
+ * Két megvalósítás van: adatbázis/bérlő (saját poolok) és séma/bérlő (egy közös pool).
+ */
+public interface TenantDataSourceProvider {
+
+    /**
+     * A bérlő DataSource-a, vagy null, ha a bérlő nem ismert.
+     */
+    DataSource getDataSource(String tenantId);
+
+    void unregisterTenant(String tenantId);
+
+    /**
+     * Van-e már élő kapcsolat-forrása a bérlőnek (anélkül, hogy most nyitnánk egyet).
+     */
+    boolean hasOpenPool(String tenantId);
+
+    /**
+     * Időszakos karbantartás (tétlen erőforrások, méretezés).
+     */
+    void maintain();
+
+    Map<String, Object> getMetrics();
+}
@@ -0,0 +1,158 @@
+package com.example.volunteermanagement.tenant;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Több bérlőn (Szigeten) átívelő lekérdezések párhuzamos futtatása.
+ * Minden feladat a saját szálán a saját bérlőjére állítja a TenantContext-et,
+ * bérlőnként időkorláttal fut, az eredményeket pedig a bemenet sorrendjében fésüljük össze.
+ * Az időtúllépő vagy hibára futó bérlőt naplózzuk és a kimaradt bérlők között adjuk vissza, a többi eredménye megmarad;
+ * a hívó dönti el, hogy a hiányos eredményt jelzi-e vagy hibával tér vissza.
+ */
+@Component
+@Slf4j
+public class TenantFanOutExecutor {
+
+    @Value("${app.fanout.pool-size:16}")
+    private int poolSize;
+
+    @Value("${app.fanout.queue-capacity:256}")
+    private int queueCapacity;
+
+    @Value("${app.fanout.tenant-timeout-ms:5000}")
+    private long tenantTimeoutMs;
+
+    private ThreadPoolExecutor executor;
+
+    private final AtomicLong tasksSubmitted = new AtomicLong();
+    private final AtomicLong tasksTimedOut = new AtomicLong();
+    private final AtomicLong tasksFailed = new AtomicLong();
+
+    @PostConstruct
+    void start() {
+        AtomicInteger threadCounter = new AtomicInteger();
+        // Java 17: virtuális szálak helyett korlátos, démon szálas pool.
+        // Ha a sor is megtelt, a hívó szál maga futtatja a feladatot (nincs eldobás, nincs holtpont).
+        executor = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "tenant-fanout-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * A feladatot minden megadott bérlőn lefuttatja (null = Mester adatbázis).
+     * Visszatérés: bérlő -> eredmény a bemenet sorrendjében, és a hibára futott vagy időtúllépő bérlők listája.
+     */
+    public <T> TenantFanOutResult<T> runPerTenant(Collection<String> tenantIds, Function<String, T> task) {
+        List<String> tenants = new ArrayList<>(tenantIds);
+        Map<String, T> results = new LinkedHashMap<>();
+        List<String> failed = new ArrayList<>();
+        if (tenants.isEmpty()) return new TenantFanOutResult<>(results, failed);
+
+        // Egyetlen bérlőnél nem éri meg a szálváltás
+        if (tenants.size() == 1) {
+            String tenantId = tenants.get(0);
+            tasksSubmitted.incrementAndGet();
+            try {
+                results.put(tenantId, runInTenant(tenantId, task));
+            } catch (RuntimeException e) {
+                tasksFailed.incrementAndGet();
+                failed.add(tenantId);
+                log.warn("⚠️ Bérlői lekérdezés hiba ({}): {}", tenantLabel(tenantId), e.getMessage());
+            }
+            return new TenantFanOutResult<>(results, failed);
+        }
+
+        List<Future<T>> futures = new ArrayList<>(tenants.size());
+        List<Long> deadlines = new ArrayList<>(tenants.size());
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(tenantTimeoutMs);
+
+        for (String tenantId : tenants) {
+            deadlines.add(System.nanoTime() + timeoutNanos);
+            tasksSubmitted.incrementAndGet();
+            futures.add(executor.submit(() -> runInTenant(tenantId, task)));
+        }
+
+        for (int i = 0; i < futures.size(); i++) {
+            String tenantId = tenants.get(i);
+            Future<T> future = futures.get(i);
+            try {
+                long waitNanos = Math.max(0, deadlines.get(i) - System.nanoTime());
+                results.put(tenantId, future.get(waitNanos, TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                tasksTimedOut.incrementAndGet();
+                failed.add(tenantId);
+                log.warn("⏱️ Bérlői lekérdezés időtúllépés ({} ms): {}", tenantTimeoutMs, tenantLabel(tenantId));
+            } catch (ExecutionException e) {
+                tasksFailed.incrementAndGet();
+                failed.add(tenantId);
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                log.warn("⚠️ Bérlői lekérdezés hiba ({}): {}", tenantLabel(tenantId), cause.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.subList(i, futures.size()).forEach(f -> f.cancel(true));
+                failed.addAll(tenants.subList(i, tenants.size()));
+                break;
+            }
+        }
+        return new TenantFanOutResult<>(results, failed);
+    }
+
+    // A futtató szál (worker vagy a hívó) eredeti kontextusát mindig visszaállítjuk
+    private static <T> T runInTenant(String tenantId, Function<String, T> task) {
+        String originalTenant = TenantContext.getCurrentTenant();
+        try {
+            TenantContext.setCurrentTenant(tenantId);
+            return task.apply(tenantId);
+        } finally {
+            TenantContext.setCurrentTenant(originalTenant);
+        }
+    }
+
+    private static String tenantLabel(String tenantId) {
+        return tenantId != null ? tenantId : "master";
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("poolSize", poolSize);
+        metrics.put("activeThreads", executor.getActiveCount());
+        metrics.put("queued", executor.getQueue().size());
+        metrics.put("tasksSubmitted", tasksSubmitted.get());
+        metrics.put("tasksTimedOut", tasksTimedOut.get());
+        metrics.put("tasksFailed", tasksFailed.get());
+        return metrics;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.volunteermanagement.tenant;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Egy több bérlős lekérdezés eredménye: a sikeres bérlők eredményei (a bemenet sorrendjében),
+ * valamint azok a bérlők, amelyek hibára futottak vagy nem válaszoltak időben (null = Mester adatbázis).
+ */
+public record TenantFanOutResult<T>(Map<String, T> results, List<String> failedTenants) {
+
+    public TenantFanOutResult {
+        results = Collections.unmodifiableMap(results);
+        failedTenants = List.copyOf(failedTenants.stream().map(t -> t != null ? t : "master").toList());
+    }
+
+    // Igaz, ha legalább egy bérlő kimaradt, vagyis az összefésült eredmény nem teljes
+    public boolean isPartial() {
+        return !failedTenants.isEmpty();
+    }
+}
@@ -0,0 +1,333 @@
+package com.example.volunteermanagement.tenant;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bérlői (Sziget) kapcsolat-poolok kezelője.
+ *  - A poolok lustán, az első használatkor nyílnak meg.
+ *  - A méretüket a legutóbbi terhelés alapján időnként újraosztjuk (min/max között).
+ *  - Az összes bérlői kapcsolat száma nem lépheti túl a globális plafont: ha elfogyott a keret,
+ *    az új pool a tétlenek lezárására vár (legfeljebb poolWaitMillis ideig), utána elutasítjuk.
+ *  - A hosszan tétlen poolokat lezárjuk (a következő kérés újra megnyitja).
+ */
+@Slf4j
+public class TenantPoolManager implements TenantDataSourceProvider {
+
+    /**
+     * Egy bérlő kapcsolati adatai (regisztráció), pool nélkül.
+     */
+    public record TenantTarget(String jdbcUrl, String username, String password) {}
+
+    public record Settings(
+            int minPoolSize,
+            int initialPoolSize,
+            int maxPoolSize,
+            int maxTotalConnections,
+            long idleCloseMillis,
+            long connectionIdleTimeoutMillis,
+            long poolWaitMillis
+    ) {}
+
+    private final Settings settings;
+    private final Map<String, TenantTarget> registeredTenants = new ConcurrentHashMap<>();
+    private final Map<String, TenantPool> openPools = new ConcurrentHashMap<>();
+
+    private final AtomicLong poolsOpened = new AtomicLong();
+    private final AtomicLong poolsClosed = new AtomicLong();
+    private final AtomicLong poolsRefused = new AtomicLong();
+
+    public TenantPoolManager(Settings settings) {
+        this.settings = settings;
+    }
+
+    public void registerTenant(String tenantId, TenantTarget target) {
+        registeredTenants.put(tenantId, target);
+    }
+
+    @Override
+    public void unregisterTenant(String tenantId) {
+        registeredTenants.remove(tenantId);
+        TenantPool pool = openPools.remove(tenantId);
+        if (pool != null) closePool(pool);
+    }
+
+    @Override
+    public boolean hasOpenPool(String tenantId) {
+        return tenantId != null && openPools.containsKey(tenantId);
+    }
+
+    public boolean isRegistered(String tenantId) {
+        return registeredTenants.containsKey(tenantId);
+    }
+
+    /**
+     * A bérlő DataSource-a (szükség esetén most nyitjuk meg a poolt), vagy null, ha nem ismert bérlő.
+     */
+    @Override
+    public DataSource getDataSource(String tenantId) {
+        if (tenantId == null || !registeredTenants.containsKey(tenantId)) return null;
+
+        TenantPool pool = openPools.get(tenantId);
+        if (pool != null) return pool;
+
+        // Nyitás (és az esetleges keret-felszabadítás) egyszerre csak egy szálon
+        synchronized (this) {
+            pool = openPools.get(tenantId);
+            if (pool == null) {
+                pool = openPool(tenantId, reserveBudget(tenantId));
+                openPools.put(tenantId, pool);
+            }
+            return pool;
+        }
+    }
+
+    // --- Pool nyitás / zárás ---
+
+    /**
+     * Keret egy új poolnak (legalább a minimum). Ha nincs, a legrégebben használt tétlen poolokat
+     * zárjuk le; ha így sem elég, a zárásokra várunk, végül elutasítjuk a nyitást.
+     * A hívó a kezelő monitorát tartja (a wait közben elengedi).
+     */
+    private int reserveBudget(String tenantId) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(settings.poolWaitMillis());
+        while (true) {
+            int free = settings.maxTotalConnections() - totalAllocatedConnections();
+            while (free < settings.minPoolSize() && evictLeastRecentlyUsedIdle(tenantId)) {
+                free = settings.maxTotalConnections() - totalAllocatedConnections();
+            }
+            if (free >= settings.minPoolSize()) {
+                return Math.min(Math.max(settings.initialPoolSize(), settings.minPoolSize()), free);
+            }
+
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                poolsRefused.incrementAndGet();
+                throw new RuntimeException("Elfogyott a bérlői kapcsolat-keret (" + settings.maxTotalConnections()
+                        + "), a(z) " + tenantId + " poolja most nem nyitható meg. Próbáld újra később!");
+            }
+            try {
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Megszakítva a bérlői kapcsolat-keretre várva: " + tenantId, e);
+            }
+        }
+    }
+
+    private TenantPool openPool(String tenantId, int size) {
+        TenantTarget target = registeredTenants.get(tenantId);
+
+        HikariDataSource ds = new HikariDataSource();
+        ds.setPoolName("tenant-" + tenantId);
+        ds.setJdbcUrl(target.jdbcUrl());
+        ds.setUsername(target.username());
+        ds.setPassword(target.password());
+        ds.setDriverClassName("org.postgresql.Driver");
+        ds.setMaximumPoolSize(size);
+        // 0 minimum: a tétlen kapcsolatokat a Hikari magától leépíti
+        ds.setMinimumIdle(0);
+        ds.setIdleTimeout(settings.connectionIdleTimeoutMillis());
+
+        poolsOpened.incrementAndGet();
+        log.info("🔌 Bérlői pool megnyitva: {} (max {} kapcsolat)", tenantId, size);
+        return new TenantPool(tenantId, ds, this);
+    }
+
+    private void closePool(TenantPool pool) {
+        pool.dataSource.close();
+        poolsClosed.incrementAndGet();
+        log.info("💤 Bérlői pool lezárva: {}", pool.tenantId);
+        // A keretre váró nyitások újra próbálkozhatnak
+        synchronized (this) {
+            notifyAll();
+        }
+    }
+
+    private boolean evictLeastRecentlyUsedIdle(String exceptTenantId) {
+        return openPools.values().stream()
+                .filter(p -> !p.tenantId.equals(exceptTenantId) && p.activeConnections() == 0)
+                .min(Comparator.comparingLong(p -> p.lastUsedNanos.get()))
+                .map(p -> {
+                    if (!openPools.remove(p.tenantId, p)) return false;
+                    closePool(p);
+                    return true;
+                })
+                .orElse(false);
+    }
+
+    private int totalAllocatedConnections() {
+        return openPools.values().stream().mapToInt(TenantPool::maxPoolSize).sum();
+    }
+
+    // --- Időszakos karbantartás: tétlen poolok zárása és a keret újraosztása ---
+
+    @Override
+    public void maintain() {
+        long now = System.nanoTime();
+        long idleLimit = TimeUnit.MILLISECONDS.toNanos(settings.idleCloseMillis());
+
+        for (TenantPool pool : new ArrayList<>(openPools.values())) {
+            boolean idle = now - pool.lastUsedNanos.get() > idleLimit;
+            if (idle && pool.activeConnections() == 0 && openPools.remove(pool.tenantId, pool)) {
+                closePool(pool);
+            }
+        }
+
+        rebalance();
+    }
+
+    // Igény = az ablakban mért csúcs (aktív + várakozó) + 1 tartalék, a min/max korlátok közé szorítva.
+    // Minden pool a minimumát kapja (ezt a nyitás már lefoglalta), a maradék keretet a minimum feletti
+    // igények arányában osztjuk szét, így az összeg sosem lépi túl a globális plafont.
+    // A nyitással egy monitoron fut, hogy a kettő ne számoljon egymás elől.
+    synchronized void rebalance() {
+        List<TenantPool> pools = new ArrayList<>(openPools.values());
+        if (pools.isEmpty()) return;
+
+        Map<TenantPool, Integer> extraDemand = new LinkedHashMap<>();
+        int totalExtra = 0;
+        for (TenantPool pool : pools) {
+            int peak = pool.peakDemand.getAndSet(0);
+            int wanted = clamp(peak + 1, settings.minPoolSize(), settings.maxPoolSize());
+            extraDemand.put(pool, wanted - settings.minPoolSize());
+            totalExtra += wanted - settings.minPoolSize();
+        }
+
+        int spare = Math.max(0, settings.maxTotalConnections() - pools.size() * settings.minPoolSize());
+        double scale = totalExtra > spare ? (double) spare / totalExtra : 1.0;
+
+        extraDemand.forEach((pool, extra) -> {
+            int target = settings.minPoolSize() + (int) Math.floor(extra * scale);
+            if (target != pool.maxPoolSize()) {
+                pool.dataSource.getHikariConfigMXBean().setMaximumPoolSize(target);
+            }
+        });
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    // --- Metrikák ---
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("mode", "DATABASE");
+        metrics.put("registeredTenants", registeredTenants.size());
+        metrics.put("openPools", openPools.size());
+        metrics.put("allocatedConnections", totalAllocatedConnections());
+        metrics.put("maxTotalConnections", settings.maxTotalConnections());
+        metrics.put("poolsOpened", poolsOpened.get());
+        metrics.put("poolsClosed", poolsClosed.get());
+        metrics.put("poolsRefused", poolsRefused.get());
+
+        Map<String, Object> perTenant = new TreeMap<>();
+        openPools.values().forEach(p -> perTenant.put(p.tenantId, p.getMetrics()));
+        metrics.put("tenants", perTenant);
+        return metrics;
+    }
+
+    /**
+     * Egy megnyitott bérlői pool, ami méri a kapcsolat-kérések idejét és a terhelést.
+     */
+    static final class TenantPool extends DelegatingDataSource {
+
+        private final String tenantId;
+        private final HikariDataSource dataSource;
+        private final TenantPoolManager manager;
+
+        private final AtomicLong lastUsedNanos = new AtomicLong(System.nanoTime());
+        private final AtomicInteger peakDemand = new AtomicInteger();
+        private final AtomicLong acquireCount = new AtomicLong();
+        private final AtomicLong totalAcquireNanos = new AtomicLong();
+        private final AtomicLong maxAcquireNanos = new AtomicLong();
+
+        TenantPool(String tenantId, HikariDataSource dataSource, TenantPoolManager manager) {
+            super(dataSource);
+            this.tenantId = tenantId;
+            this.dataSource = dataSource;
+            this.manager = manager;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (dataSource.isClosed()) {
+                return reopen();
+            }
+
+            lastUsedNanos.set(System.nanoTime());
+            long started = System.nanoTime();
+            Connection connection;
+            try {
+                connection = dataSource.getConnection();
+            } catch (SQLException e) {
+                // Az ellenőrzés és a kérés között zárta le a karbantartás: friss poolon újrapróbáljuk
+                if (!dataSource.isClosed()) throw e;
+                return reopen();
+            }
+            long elapsed = System.nanoTime() - started;
+
+            acquireCount.incrementAndGet();
+            totalAcquireNanos.addAndGet(elapsed);
+            maxAcquireNanos.accumulateAndGet(elapsed, Math::max);
+
+            HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+            if (pool != null) {
+                int load = pool.getActiveConnections() + pool.getThreadsAwaitingConnection();
+                peakDemand.accumulateAndGet(load, Math::max);
+            }
+            return connection;
+        }
+
+        // Közben tétlenség miatt lezártuk: kérünk egy frisset a kezelőtől
+        private Connection reopen() throws SQLException {
+            DataSource reopened = manager.getDataSource(tenantId);
+            if (reopened == null) throw new SQLException("Ismeretlen vagy törölt bérlő: " + tenantId);
+            if (reopened == this) throw new SQLException("A bérlő poolja le van zárva: " + tenantId);
+            return reopened.getConnection();
+        }
+
+        int maxPoolSize() {
+            return dataSource.getMaximumPoolSize();
+        }
+
+        int activeConnections() {
+            HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+            return pool != null ? pool.getActiveConnections() : 0;
+        }
+
+        Map<String, Object> getMetrics() {
+            HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+            long acquires = acquireCount.get();
+
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("maxPoolSize", maxPoolSize());
+            m.put("active", pool != null ? pool.getActiveConnections() : 0);
+            m.put("idle", pool != null ? pool.getIdleConnections() : 0);
+            m.put("waiting", pool != null ? pool.getThreadsAwaitingConnection() : 0);
+            m.put("acquires", acquires);
+            m.put("avgAcquireMs", acquires == 0 ? 0.0 : (totalAcquireNanos.get() / (double) acquires) / 1_000_000.0);
+            m.put("maxAcquireMs", TimeUnit.NANOSECONDS.toMillis(maxAcquireNanos.get()));
+            m.put("idleForSeconds", TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - lastUsedNanos.get()));
+            return m;
+        }
+    }
+}
@@ -2,12 +2,35 @@ package com.example.volunteermanagement.tenant;
 
 import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
 
+import javax.sql.DataSource;
+
 public class TenantRoutingDataSource extends AbstractRoutingDataSource {
 
+    // A bérlői kapcsolatokat nem előre töltjük be, hanem a szolgáltatótól kérjük el
+    // (adatbázis/bérlő módban lusta pool-nyitás, séma/bérlő módban közös pool + search_path)
+    private TenantDataSourceProvider tenantDataSourceProvider;
+
+    public void setTenantDataSourceProvider(TenantDataSourceProvider tenantDataSourceProvider) {
+        this.tenantDataSourceProvider = tenantDataSourceProvider;
+    }
+
     @Override
     protected Object determineCurrentLookupKey() {
         // Itt mondjuk meg a Springnek, hogy mi az aktuális Tenant ID,
         // amit a TenantInterceptor az előbb beállított!
         return TenantContext.getCurrentTenant();
     }
-}
\ No newline at end of file
+
+    @Override
+    protected DataSource determineTargetDataSource() {
+        Object tenantId = determineCurrentLookupKey();
+        if (tenantDataSourceProvider != null && tenantId != null) {
+            DataSource tenantDataSource = tenantDataSourceProvider.getDataSource(tenantId.toString());
+            if (tenantDataSource != null) {
+                return tenantDataSource;
+            }
+        }
+        // Mester ("master" kulcs / null) vagy ismeretlen bérlő: a régi viselkedés (alapértelmezett = Mester)
+        return super.determineTargetDataSource();
+    }
+}
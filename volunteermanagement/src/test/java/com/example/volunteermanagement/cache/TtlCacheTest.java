@@ -0,0 +1,85 @@
+package com.example.volunteermanagement.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A korlátos, lejáratos gyorsítótár: a null érték is találat, a lejárt bejegyzés újratöltődik,
+ * a méretkorlát túllépésekor a lejártak, majd a bejegyzések tizede távozik.
+ */
+class TtlCacheTest {
+
+    @Test
+    void loaderRunsOnceAndNullIsCachedToo() {
+        TtlCache<String, Long> cache = new TtlCache<>("test", 10, 60_000);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertNull(cache.get("nincs-szervezet", k -> { loads.incrementAndGet(); return null; }));
+        assertNull(cache.get("nincs-szervezet", k -> { loads.incrementAndGet(); return 1L; }));
+
+        assertEquals(1, loads.get());
+        assertEquals(1L, cache.getStats().get("hits"));
+        assertEquals(1L, cache.getStats().get("misses"));
+    }
+
+    @Test
+    void expiredEntriesAreReloadedAndDroppedOnRead() throws InterruptedException {
+        TtlCache<String, String> cache = new TtlCache<>("test", 10, 30);
+        cache.put("k", "régi");
+
+        Thread.sleep(60);
+
+        assertNull(cache.getIfPresent("k"));
+        assertEquals(0, cache.size());
+        assertEquals("új", cache.get("k", k -> "új"));
+    }
+
+    @Test
+    void perEntryTtlIsCappedByTheCacheTtl() throws InterruptedException {
+        TtlCache<String, String> cache = new TtlCache<>("test", 10, 30);
+        cache.put("hosszú", "érték", 60_000);
+        cache.put("nulla", "érték", 0);
+
+        assertNull(cache.getIfPresent("nulla"));
+        Thread.sleep(60);
+        assertNull(cache.getIfPresent("hosszú"));
+    }
+
+    @Test
+    void fullCacheEvictsExpiredFirstThenATenth() throws InterruptedException {
+        TtlCache<Integer, Integer> cache = new TtlCache<>("test", 20, 60_000);
+        for (int i = 0; i < 5; i++) cache.put(i, i, 20);
+        Thread.sleep(40);
+        for (int i = 5; i < 20; i++) cache.put(i, i);
+
+        // Betelt: a lejárt 5 elég helyet ad, friss bejegyzést nem dobunk
+        cache.put(20, 20);
+        assertEquals(16, cache.size());
+        for (int i = 5; i <= 20; i++) assertEquals(i, cache.getIfPresent(i));
+
+        for (int i = 21; i < 25; i++) cache.put(i, i);
+        // Megint betelt, lejárt nincs: a tizede (2) távozik, hogy az új beférjen
+        cache.put(25, 25);
+        assertEquals(19, cache.size());
+        assertEquals(7L, cache.getStats().get("evictions"));
+    }
+
+    @Test
+    void invalidationByKeyAndByValue() {
+        TtlCache<String, String> cache = new TtlCache<>("test", 10, 60_000);
+        cache.put("a@test.hu", "szervezet-1");
+        cache.put("b@test.hu", "szervezet-2");
+        cache.put("c@test.hu", "szervezet-2");
+
+        cache.invalidate("a@test.hu");
+        cache.invalidateValues("szervezet-2"::equals);
+
+        assertEquals(0, cache.size());
+        cache.put("d@test.hu", "x");
+        cache.invalidateIf(k -> k.startsWith("d"));
+        assertNull(cache.getIfPresent("d@test.hu"));
+    }
+}
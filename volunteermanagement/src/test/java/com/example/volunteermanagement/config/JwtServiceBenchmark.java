@@ -0,0 +1,80 @@
+package com.example.volunteermanagement.config;
+
+import com.example.volunteermanagement.model.Role;
+import com.example.volunteermanagement.model.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * A régi (claim-enként újraépített parser, háromszoros parse) és az új (egyetlen parse, közös parser)
+ * token-ellenőrzés összehasonlítása, különböző méretű (egyedi claim-eket hordozó) tokenekkel.
+ *
+ * Futtatás: mvn test-compile, majd a main metódus (IDE-ből vagy exec-kel a teszt classpath-on).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    @Param({"0", "3", "20"})
+    public int customClaimCount;
+
+    private JwtService jwtService;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService();
+        user = User.builder().id(1L).name("Teszt Önkéntes").email("onkentes@example.com").role(Role.USER).build();
+
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(JwtService.ROLE_CLAIM, Role.USER.name());
+        IntStream.range(0, customClaimCount).forEach(i -> claims.put("custom_" + i, "fesztival_szervezet_" + i));
+        token = jwtService.generateToken(claims, user);
+    }
+
+    @Benchmark
+    public boolean legacyTripleParse() {
+        // A korábbi szűrő: extractUsername + isTokenValid (extractUsername + extractExpiration)
+        String username = legacyExtract(token, Claims::getSubject);
+        String again = legacyExtract(token, Claims::getSubject);
+        Date expiration = legacyExtract(token, Claims::getExpiration);
+        return username != null && again.equals(user.getUsername()) && !expiration.before(new Date());
+    }
+
+    @Benchmark
+    public JwtService.TokenClaims singleParse() {
+        return jwtService.parseToken(token);
+    }
+
+    private static <T> T legacyExtract(String token, java.util.function.Function<Claims, T> resolver) {
+        Claims claims = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(JwtService.SECRET_KEY)))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+        return resolver.apply(claims);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtServiceBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
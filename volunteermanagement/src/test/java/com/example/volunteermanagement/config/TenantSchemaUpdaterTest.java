@@ -0,0 +1,114 @@
+package com.example.volunteermanagement.config;
+
+import com.example.volunteermanagement.repository.OrganizationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * A futás közben kiépített bérlő sémája: ugyanaz a DDL fut rá, mint induláskor a meglévő bérlőkre,
+ * a bérlő közvetlen kapcsolatán (a pool megnyitása nélkül).
+ */
+class TenantSchemaUpdaterTest {
+
+    private static final String DB_NAME = "uj_sziget_7_db";
+
+    private DataSourceConfig dataSourceConfig;
+    private JdbcTemplate sharedJdbcTemplate;
+    private Connection connection;
+    private final List<String> executed = new ArrayList<>();
+    private TenantSchemaUpdater updater;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dataSourceConfig = mock(DataSourceConfig.class);
+        sharedJdbcTemplate = mock(JdbcTemplate.class);
+        connection = mock(Connection.class);
+
+        Statement statement = mock(Statement.class);
+        when(statement.execute(anyString())).thenAnswer(inv -> {
+            executed.add(inv.getArgument(0));
+            return false;
+        });
+        when(connection.createStatement()).thenReturn(statement);
+
+        // Az oszlop-ellenőrzés mindig "még nincs ilyen oszlop" (friss bérlő)
+        when(connection.prepareStatement(anyString())).thenAnswer(inv -> {
+            PreparedStatement ps = mock(PreparedStatement.class);
+            when(ps.executeQuery()).thenAnswer(q -> columnCountResult(0));
+            return ps;
+        });
+        when(dataSourceConfig.openDirectTenantConnection(DB_NAME)).thenReturn(connection);
+
+        updater = new TenantSchemaUpdater(mock(OrganizationRepository.class), sharedJdbcTemplate, dataSourceConfig);
+    }
+
+    @Test
+    void runtimeTenantGetsEventOutboxOnItsDirectConnection() throws Exception {
+        updater.applyTenantSchema(DB_NAME);
+
+        assertTrue(executedContains("CREATE TABLE IF NOT EXISTS event_outbox"));
+        verify(dataSourceConfig).openDirectTenantConnection(DB_NAME);
+        verify(dataSourceConfig, never()).openTenantConnection(anyString());
+        verifyNoInteractions(sharedJdbcTemplate);
+        verify(connection).close();
+    }
+
+    @Test
+    void runtimeTenantGetsRedemptionSlotColumnsAndIndex() throws Exception {
+        updater.applyTenantSchema(DB_NAME);
+
+        assertTrue(executedContains("ALTER TABLE meal_consumption_log ADD COLUMN meal_date DATE"));
+        assertTrue(executedContains("ALTER TABLE meal_consumption_log ADD COLUMN redemption_slot INTEGER"));
+        assertTrue(executedContains("CREATE UNIQUE INDEX IF NOT EXISTS ux_meal_log_redemption_slot"));
+    }
+
+    @Test
+    void runtimeTenantGetsClientScanIdColumnAndIndex() throws Exception {
+        updater.applyTenantSchema(DB_NAME);
+
+        assertTrue(executedContains("ALTER TABLE meal_consumption_log ADD COLUMN client_scan_id VARCHAR(100)"));
+        assertTrue(executedContains("CREATE UNIQUE INDEX IF NOT EXISTS ux_meal_log_client_scan_id"));
+    }
+
+    @Test
+    void runtimeTenantGetsCateringCountersAndServedIndex() throws Exception {
+        updater.applyTenantSchema(DB_NAME);
+
+        assertTrue(executedContains("CREATE TABLE IF NOT EXISTS catering_summary_counters"));
+        assertTrue(executedContains("CREATE INDEX IF NOT EXISTS ix_meal_log_event_consumed"));
+    }
+
+    @Test
+    void runtimeTenantGetsVolunteerStatsTable() throws Exception {
+        updater.applyTenantSchema(DB_NAME);
+
+        assertTrue(executedContains("CREATE TABLE IF NOT EXISTS volunteer_stats"));
+    }
+
+    private boolean executedContains(String fragment) {
+        return executed.stream().anyMatch(sql -> sql.contains(fragment));
+    }
+
+    private static ResultSet columnCountResult(int count) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        ResultSetMetaData meta = mock(ResultSetMetaData.class);
+        when(meta.getColumnCount()).thenReturn(1);
+        when(rs.getMetaData()).thenReturn(meta);
+        when(rs.next()).thenReturn(true, false);
+        when(rs.getInt(1)).thenReturn(count);
+        return rs;
+    }
+}
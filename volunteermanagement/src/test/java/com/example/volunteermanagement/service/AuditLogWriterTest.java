@@ -0,0 +1,204 @@
+package com.example.volunteermanagement.service;
+
+import com.example.volunteermanagement.config.DataSourceConfig;
+import com.example.volunteermanagement.model.AuditLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * A kötegelt naplóíró: túlcsordulási szabályok, kötegelt kiírás leállításkor,
+ * és a hiányzó szervezetnevek egyetlen lekérdezéssel pótolva.
+ */
+class AuditLogWriterTest {
+
+    private JdbcTemplate master;
+    private AuditLogWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        master = mock(JdbcTemplate.class);
+        writer = new AuditLogWriter(mock(DataSourceConfig.class));
+        ReflectionTestUtils.setField(writer, "masterJdbcTemplate", master);
+        ReflectionTestUtils.setField(writer, "queueCapacity", 2);
+        ReflectionTestUtils.setField(writer, "batchSize", 2);
+        ReflectionTestUtils.setField(writer, "flushIntervalMs", 50L);
+        ReflectionTestUtils.setField(writer, "blockTimeoutMs", 10L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        writer.stop();
+    }
+
+    @Test
+    void dropNewestKeepsTheQueuedEntries() {
+        BlockingQueue<AuditLog> queue = withoutWriterThread(AuditLogWriter.OverflowPolicy.DROP_NEWEST);
+
+        writer.submit(entry("a"));
+        writer.submit(entry("b"));
+        writer.submit(entry("c"));
+
+        assertEquals(List.of("a", "b"), queue.stream().map(AuditLog::getAction).toList());
+        assertEquals(1L, writer.getMetrics().get("dropped"));
+    }
+
+    @Test
+    void dropOldestMakesRoomForTheNewEntry() {
+        BlockingQueue<AuditLog> queue = withoutWriterThread(AuditLogWriter.OverflowPolicy.DROP_OLDEST);
+
+        writer.submit(entry("a"));
+        writer.submit(entry("b"));
+        writer.submit(entry("c"));
+
+        assertEquals(List.of("b", "c"), queue.stream().map(AuditLog::getAction).toList());
+        assertEquals(1L, writer.getMetrics().get("dropped"));
+        assertEquals(3L, writer.getMetrics().get("enqueued"));
+    }
+
+    @Test
+    void blockGivesUpAfterTheTimeout() {
+        withoutWriterThread(AuditLogWriter.OverflowPolicy.BLOCK);
+
+        writer.submit(entry("a"));
+        writer.submit(entry("b"));
+        writer.submit(entry("c"));
+
+        assertEquals(1L, writer.getMetrics().get("dropped"));
+    }
+
+    @Test
+    void callerRunsWritesTheOverflowSynchronously() throws Exception {
+        withoutWriterThread(AuditLogWriter.OverflowPolicy.CALLER_RUNS);
+
+        writer.submit(entry("a"));
+        writer.submit(entry("b"));
+        writer.submit(entry("c"));
+
+        assertEquals(List.of("c"), actions(writtenBatches().get(0)));
+        assertEquals(0L, writer.getMetrics().get("dropped"));
+        assertEquals(1L, writer.getMetrics().get("written"));
+    }
+
+    @Test
+    void stopFlushesEverythingLeftInBatches() throws Exception {
+        ReflectionTestUtils.setField(writer, "queueCapacity", 10);
+        BlockingQueue<AuditLog> queue = withoutWriterThread(AuditLogWriter.OverflowPolicy.DROP_NEWEST);
+        for (String action : List.of("a", "b", "c", "d", "e")) writer.submit(entry(action));
+
+        writer.stop();
+
+        assertTrue(queue.isEmpty());
+        List<List<AuditLog>> batches = writtenBatches();
+        assertEquals(List.of(List.of("a", "b"), List.of("c", "d"), List.of("e")), batches.stream().map(this::actions).toList());
+        assertEquals(5L, writer.getMetrics().get("written"));
+    }
+
+    @Test
+    void missingOrganizationNamesAreResolvedInOneQuery() throws Exception {
+        ReflectionTestUtils.setField(writer, "queueCapacity", 10);
+        ReflectionTestUtils.setField(writer, "batchSize", 10);
+        withoutWriterThread(AuditLogWriter.OverflowPolicy.DROP_NEWEST);
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getLong("id")).thenReturn(7L);
+            when(rs.getString("name")).thenReturn("Fesztivál Egyesület");
+            handler.processRow(rs);
+            return null;
+        }).when(master).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+
+        AuditLog named = entry("named");
+        named.setOrganizationId(8L);
+        named.setOrganizationName("Már ismert");
+        AuditLog first = entry("first");
+        first.setOrganizationId(7L);
+        AuditLog second = entry("second");
+        second.setOrganizationId(7L);
+        writer.submit(named);
+        writer.submit(first);
+        writer.submit(second);
+        writer.stop();
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Object[]> ids = ArgumentCaptor.forClass(Object[].class);
+        verify(master, times(1)).query(sql.capture(), any(RowCallbackHandler.class), ids.capture());
+        assertTrue(sql.getValue().endsWith("WHERE id IN (?)"));
+        assertArrayEquals(new Object[]{7L}, ids.getValue());
+
+        List<PreparedStatement> statements = bind(writtenBatches().get(0));
+        verify(statements.get(0)).setString(6, "Már ismert");
+        verify(statements.get(1)).setString(6, "Fesztivál Egyesület");
+        verify(statements.get(2)).setString(6, "Fesztivál Egyesület");
+    }
+
+    @Test
+    void backgroundThreadFlushesAfterTheInterval() {
+        ReflectionTestUtils.setField(writer, "overflowPolicy", AuditLogWriter.OverflowPolicy.DROP_NEWEST);
+        writer.start();
+
+        writer.submit(entry("a"));
+
+        verify(master, timeout(2_000)).batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    // --- Segédek ---
+
+    // A sort a háttérszál nélkül hozzuk létre, így a túlcsordulás és a leállításkori kiírás determinisztikus
+    @SuppressWarnings("unchecked")
+    private BlockingQueue<AuditLog> withoutWriterThread(AuditLogWriter.OverflowPolicy policy) {
+        ReflectionTestUtils.setField(writer, "overflowPolicy", policy);
+        BlockingQueue<AuditLog> queue = new ArrayBlockingQueue<>((int) ReflectionTestUtils.getField(writer, "queueCapacity"));
+        ReflectionTestUtils.setField(writer, "queue", queue);
+        return queue;
+    }
+
+    private static AuditLog entry(String action) {
+        return AuditLog.builder().timestamp(LocalDateTime.now()).userEmail("teszt@test.hu").action(action).target("/api").build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<AuditLog>> writtenBatches() {
+        ArgumentCaptor<Collection<AuditLog>> batches = ArgumentCaptor.forClass(Collection.class);
+        verify(master, atLeastOnce()).batchUpdate(anyString(), batches.capture(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        List<List<AuditLog>> result = new ArrayList<>();
+        batches.getAllValues().forEach(batch -> result.add(new ArrayList<>(batch)));
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<PreparedStatement> bind(List<AuditLog> batch) throws Exception {
+        ArgumentCaptor<ParameterizedPreparedStatementSetter<AuditLog>> setter =
+                ArgumentCaptor.forClass(ParameterizedPreparedStatementSetter.class);
+        verify(master, atLeastOnce()).batchUpdate(anyString(), anyCollection(), anyInt(), setter.capture());
+        List<PreparedStatement> statements = new ArrayList<>();
+        for (AuditLog entry : batch) {
+            PreparedStatement ps = mock(PreparedStatement.class);
+            setter.getValue().setValues(ps, entry);
+            statements.add(ps);
+        }
+        return statements;
+    }
+
+    private List<String> actions(List<AuditLog> batch) {
+        return batch.stream().map(AuditLog::getAction).toList();
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.volunteermanagement.service;
+
+import com.example.volunteermanagement.dto.CateringDTO;
+import com.example.volunteermanagement.model.DietCategory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * A catering dashboard napi listájának összefésülése generált adatokon (alapból 5000 önkéntes):
+ * a régi, önkéntesenként a teljes napi naplót és a saját válaszait végigszűrő megoldás
+ * szemben a csoportosított sorok hash-alapú összefésülésével.
+ * A régi megoldás önkéntesenkénti 5 lekérdezését (N+1) ez nem is méri, csak a memóriabeli részt.
+ *
+ * Futtatás: mvn test-compile, majd a main metódus (IDE-ből vagy exec-kel a teszt classpath-on).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CateringDashboardBenchmark {
+
+    @Param({"2000", "5000"})
+    public int volunteerCount;
+
+    private List<CateringDashboardAssembler.VolunteerRow> volunteers;
+    private Map<Long, int[]> allowances;
+    private List<CateringDashboardAssembler.AnswerRow> answers;
+    private List<CateringDashboardAssembler.ScanRow> scans;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        LocalDateTime day = LocalDate.now().atTime(7, 0);
+        String[] diets = {"Normál menü", "Vegetáriánus", "Vegán", "Gluténmentes", "Laktózmentes"};
+
+        volunteers = new ArrayList<>(volunteerCount);
+        allowances = new HashMap<>();
+        answers = new ArrayList<>();
+        scans = new ArrayList<>();
+        long scanId = 1;
+
+        for (long userId = 1; userId <= volunteerCount; userId++) {
+            volunteers.add(new CateringDashboardAssembler.VolunteerRow(userId, "Önkéntes " + userId, "Pult " + (userId % 40)));
+            int[] allowance = {random.nextInt(2), 1, random.nextInt(2)};
+            allowances.put(userId, allowance);
+
+            answers.add(new CateringDashboardAssembler.AnswerRow(userId, "Pólóméret", "L"));
+            answers.add(new CateringDashboardAssembler.AnswerRow(userId, "Milyen menüt kérsz?", diets[random.nextInt(diets.length)]));
+            answers.add(new CateringDashboardAssembler.AnswerRow(userId, "Érkezés napja", "Péntek"));
+
+            if (allowance[0] > 0 && random.nextBoolean()) {
+                scans.add(new CateringDashboardAssembler.ScanRow(scanId++, userId, "BREAKFAST", day.plusMinutes(random.nextInt(180)), "Pultos"));
+            }
+            if (random.nextInt(10) < 8) {
+                scans.add(new CateringDashboardAssembler.ScanRow(scanId++, userId, "LUNCH", day.plusHours(5).plusMinutes(random.nextInt(180)), "Pultos"));
+            }
+        }
+        scans.sort(Comparator.comparing(CateringDashboardAssembler.ScanRow::consumedAt));
+    }
+
+    @Benchmark
+    public List<CateringDTO.CateringVolunteer> legacyNestedFilter() {
+        List<CateringDTO.CateringVolunteer> result = new ArrayList<>();
+        for (CateringDashboardAssembler.VolunteerRow volunteer : volunteers) {
+            // A régi getDietaryPreference: a saját válaszok bejárása (itt a teljes listából szűrve)
+            String diet = answers.stream()
+                    .filter(a -> a.userId().equals(volunteer.userId()))
+                    .filter(a -> CateringDashboardAssembler.isDietQuestion(a.questionText()))
+                    .map(CateringDashboardAssembler.AnswerRow::answerText)
+                    .filter(a -> a != null && !a.trim().isEmpty())
+                    .findFirst()
+                    .orElse(DietCategory.NORMAL.getLabel());
+
+            int[] allowance = allowances.get(volunteer.userId());
+            List<String> eligibleMeals = new ArrayList<>();
+            if (allowance[0] > 0) eligibleMeals.add("BREAKFAST");
+            if (allowance[1] > 0) eligibleMeals.add("LUNCH");
+            if (allowance[2] > 0) eligibleMeals.add("DINNER");
+
+            // A régi megoldás: a teljes napi naplót minden önkéntesnél végigszűrjük
+            List<CateringDTO.MealScanHistory> userScans = scans.stream()
+                    .filter(s -> s.volunteerId().equals(volunteer.userId()))
+                    .map(s -> new CateringDTO.MealScanHistory(s.id(), s.mealType(), s.consumedAt().toString(), s.scannedByName()))
+                    .collect(Collectors.toList());
+
+            result.add(new CateringDTO.CateringVolunteer(volunteer.userId(), volunteer.name(), volunteer.workAreaName(), diet,
+                    DietCategory.fromAnswer(diet).name(), eligibleMeals, userScans));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<CateringDTO.CateringVolunteer> hashJoin() {
+        // Élesben a menük a diéta-indexből jönnek; itt a felépítését is mérjük
+        Map<Long, DietIndex.DietEntry> diets = new HashMap<>();
+        CateringDashboardAssembler.dietsByUser(answers).forEach((userId, answer) -> diets.put(userId, DietIndex.DietEntry.of(answer)));
+        return CateringDashboardAssembler.assemble(volunteers, allowances, diets, scans);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CateringDashboardBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.volunteermanagement.service;
+
+import com.example.volunteermanagement.config.DataSourceConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * A növekményes egyeztetés: vízjel nélkül mindent, vízjellel csak a később változottakat viszi át (id szerinti
+ * lapozással), és az új vízjel a futás kezdete mínusz az átfedés, nem a látott legnagyobb időbélyeg.
+ */
+class EventOutboxRelayTest {
+
+    private static final String TENANT = "sziget";
+    private static final long OVERLAP_MS = 60_000;
+    private static final String STATE_SQL = "INSERT INTO event_replication_state (tenant_id, reconciled_until) VALUES (?, ?) " +
+            "ON CONFLICT (tenant_id) DO UPDATE SET reconciled_until = EXCLUDED.reconciled_until";
+
+    private DataSourceConfig dataSourceConfig;
+    private JdbcTemplate master;
+    private ReplicationOutbox replicationOutbox;
+    private ExecutorService relayExecutor;
+    private EventOutboxRelay relay;
+
+    private Connection conn;
+    private PreparedStatement select;
+    private String selectSql;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        dataSourceConfig = mock(DataSourceConfig.class);
+        master = mock(JdbcTemplate.class);
+        replicationOutbox = mock(ReplicationOutbox.class);
+        relayExecutor = Executors.newSingleThreadExecutor();
+
+        relay = new EventOutboxRelay(mock(JdbcTemplate.class), dataSourceConfig, replicationOutbox);
+        ReflectionTestUtils.setField(relay, "batchSize", 2);
+        ReflectionTestUtils.setField(relay, "reconcileOverlapMs", OVERLAP_MS);
+        ReflectionTestUtils.setField(relay, "masterJdbcTemplate", master);
+        ReflectionTestUtils.setField(relay, "relayExecutor", relayExecutor);
+
+        when(master.queryForList(startsWith("SELECT tenant_id FROM organizations"), eq(String.class))).thenReturn(List.of(TENANT));
+        conn = mock(Connection.class);
+        select = mock(PreparedStatement.class);
+        when(conn.prepareStatement(anyString())).thenAnswer(invocation -> {
+            selectSql = invocation.getArgument(0);
+            return select;
+        });
+        when(dataSourceConfig.openBackgroundTenantConnection(TENANT + "_db")).thenReturn(conn);
+    }
+
+    @AfterEach
+    void tearDown() {
+        relayExecutor.shutdownNow();
+    }
+
+    @Test
+    void firstRunCopiesEverythingPageByPage() throws Exception {
+        watermark(null);
+        // Teli első lap (2 sor), majd egy rövidebb: a második lap az első lap utolsó ID-ja után folytatódik
+        ResultSet firstPage = events(3, 8);
+        ResultSet secondPage = events(11);
+        when(select.executeQuery()).thenReturn(firstPage, secondPage);
+
+        LocalDateTime before = LocalDateTime.now();
+        relay.reconcileAll();
+        LocalDateTime after = LocalDateTime.now();
+
+        assertFalse(selectSql.contains("updated_at >"));
+        verify(select).setLong(1, 0L);
+        verify(select).setLong(1, 8L);
+        verify(replicationOutbox, times(2)).enqueue(eq(ReplicationOutbox.MASTER), anyList());
+        assertEquals(3L, relay.getMetrics().get("reconciled"));
+
+        Timestamp until = storedWatermark();
+        assertFalse(until.toLocalDateTime().isBefore(before.minusNanos(OVERLAP_MS * 1_000_000)));
+        assertFalse(until.toLocalDateTime().isAfter(after.minusNanos(OVERLAP_MS * 1_000_000)));
+    }
+
+    @Test
+    void laterRunsOnlyLookAtChangesSinceTheWatermark() throws Exception {
+        Timestamp since = Timestamp.valueOf(LocalDateTime.now().minusMinutes(20));
+        watermark(since);
+        ResultSet page = events(5);
+        when(select.executeQuery()).thenReturn(page);
+
+        relay.reconcileAll();
+
+        assertTrue(selectSql.contains("updated_at > ? OR deleted_at > ?"));
+        verify(select).setTimestamp(2, since);
+        verify(select).setTimestamp(3, since);
+        verify(select).setInt(4, 2);
+        // Az új vízjel nem a régi és nem a látott sorok ideje, hanem a futás kezdete az átfedéssel
+        assertTrue(storedWatermark().after(since));
+    }
+
+    @Test
+    void failedTenantKeepsItsWatermark() throws Exception {
+        watermark(Timestamp.valueOf(LocalDateTime.now().minusMinutes(20)));
+        when(select.executeQuery()).thenThrow(new SQLException("a sziget nem elérhető"));
+
+        String report = relay.reconcileAll();
+
+        assertTrue(report.contains("Hibás szigetek: 1"));
+        verify(master, never()).update(eq(STATE_SQL), any(Object[].class));
+        verify(replicationOutbox, never()).enqueue(anyString(), anyList());
+    }
+
+    // --- Segédek ---
+
+    private void watermark(Timestamp since) {
+        when(master.queryForList(startsWith("SELECT reconciled_until"), eq(Timestamp.class), eq(TENANT)))
+                .thenReturn(since != null ? List.of(since) : List.of());
+    }
+
+    private Timestamp storedWatermark() {
+        ArgumentCaptor<Object> until = ArgumentCaptor.forClass(Object.class);
+        verify(master).update(eq(STATE_SQL), eq(TENANT), until.capture());
+        return (Timestamp) until.getValue();
+    }
+
+    // Élő (nem törölt) események csak ID-val; a többi oszlop null / 0
+    private static ResultSet events(long... ids) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        int[] cursor = {-1};
+        when(rs.next()).thenAnswer(invocation -> ++cursor[0] < ids.length);
+        when(rs.getLong("id")).thenAnswer(invocation -> ids[cursor[0]]);
+        return rs;
+    }
+}
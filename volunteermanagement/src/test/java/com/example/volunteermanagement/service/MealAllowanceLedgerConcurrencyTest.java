@@ -0,0 +1,112 @@
+package com.example.volunteermanagement.service;
+
+import com.example.volunteermanagement.model.AssignmentStatus;
+import com.example.volunteermanagement.model.MealType;
+import com.example.volunteermanagement.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Terheléses teszt: 50 párhuzamos szkennelés ugyanarra az önkéntesre sem adhat ki többet a keretnél.
+ */
+class MealAllowanceLedgerConcurrencyTest {
+
+    private static final Long EVENT_ID = 1L;
+    private static final Long VOLUNTEER_ID = 7L;
+    private static final int PARALLEL_SCANS = 50;
+    private static final int LUNCH_ALLOWANCE = 2;
+
+    private MealAllowanceLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        ShiftAssignmentRepository shiftAssignmentRepository = mock(ShiftAssignmentRepository.class);
+        MealConsumptionLogRepository mealLogRepository = mock(MealConsumptionLogRepository.class);
+        EventTeamMemberRepository eventTeamMemberRepository = mock(EventTeamMemberRepository.class);
+        EventRepository eventRepository = mock(EventRepository.class);
+
+        when(eventRepository.existsById(EVENT_ID)).thenReturn(true);
+        List<Object[]> allowanceRows = new ArrayList<>();
+        allowanceRows.add(new Object[]{VOLUNTEER_ID, 0L, (long) LUNCH_ALLOWANCE, 0L});
+        when(shiftAssignmentRepository.sumMealsPerUserForDay(eq(EVENT_ID), any(LocalDateTime.class), any(LocalDateTime.class), eq(AssignmentStatus.CONFIRMED)))
+                .thenReturn(allowanceRows);
+        when(mealLogRepository.findSlotRowsPerVolunteerAndType(eq(EVENT_ID), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(Collections.emptyList());
+        when(eventTeamMemberRepository.findByEventId(EVENT_ID)).thenReturn(Collections.emptyList());
+
+        ledger = new MealAllowanceLedger(shiftAssignmentRepository, mealLogRepository, eventTeamMemberRepository,
+                eventRepository, mock(UserRepository.class));
+        ReflectionTestUtils.setField(ledger, "refreshMs", 300_000L);
+    }
+
+    @Test
+    void parallelScansNeverExceedAllowance() throws Exception {
+        List<MealAllowanceLedger.ScanDecision> decisions = scanInParallel(PARALLEL_SCANS);
+
+        List<MealAllowanceLedger.ScanDecision> accepted = decisions.stream()
+                .filter(MealAllowanceLedger.ScanDecision::accepted)
+                .toList();
+
+        assertEquals(LUNCH_ALLOWANCE, accepted.size());
+        // Minden elfogadott kiadás más sorszámot kapott (ezt védi a DB egyedi index is)
+        Set<Integer> slots = Set.copyOf(accepted.stream().map(MealAllowanceLedger.ScanDecision::slot).toList());
+        assertEquals(Set.of(1, 2), slots);
+        assertEquals(PARALLEL_SCANS - LUNCH_ALLOWANCE, decisions.stream().filter(d -> !d.accepted()).count());
+    }
+
+    @Test
+    void releasedPortionCanBeRedeemedExactlyOnceAgain() throws Exception {
+        assertEquals(LUNCH_ALLOWANCE, scanInParallel(PARALLEL_SCANS).stream().filter(MealAllowanceLedger.ScanDecision::accepted).count());
+
+        // Egy visszavont kiadás után pontosan egy újabb fér bele, akárhány pult próbálkozik
+        ledger.releaseAfterCommit(EVENT_ID, VOLUNTEER_ID, MealType.LUNCH, LocalDate.now(), 1);
+
+        List<MealAllowanceLedger.ScanDecision> again = scanInParallel(PARALLEL_SCANS);
+        List<MealAllowanceLedger.ScanDecision> accepted = again.stream().filter(MealAllowanceLedger.ScanDecision::accepted).toList();
+        assertEquals(1, accepted.size());
+        assertEquals(LUNCH_ALLOWANCE, accepted.get(0).consumed());
+        assertEquals(1, accepted.get(0).slot());
+    }
+
+    private List<MealAllowanceLedger.ScanDecision> scanInParallel(int scans) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(scans);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger ready = new AtomicInteger();
+        try {
+            List<Future<MealAllowanceLedger.ScanDecision>> futures = new ArrayList<>();
+            for (int i = 0; i < scans; i++) {
+                futures.add(pool.submit(() -> {
+                    ready.incrementAndGet();
+                    start.await();
+                    return ledger.tryConsume(EVENT_ID, VOLUNTEER_ID, MealType.LUNCH);
+                }));
+            }
+            while (ready.get() < scans) {
+                Thread.onSpinWait();
+            }
+            start.countDown();
+
+            List<MealAllowanceLedger.ScanDecision> decisions = new ArrayList<>();
+            for (Future<MealAllowanceLedger.ScanDecision> future : futures) {
+                decisions.add(future.get(10, TimeUnit.SECONDS));
+            }
+            return decisions;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.volunteermanagement.service;
+
+import com.example.volunteermanagement.model.AssignmentStatus;
+import com.example.volunteermanagement.model.MealType;
+import com.example.volunteermanagement.repository.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * A kiadási sorszámok (slot) a ténylegesen foglaltakból jönnek: egy visszavonás vagy visszagörgetés
+ * hagyta lyuk után sem kaphat egy új kiadás már foglalt sorszámot.
+ */
+class MealAllowanceLedgerSlotTest {
+
+    private static final Long EVENT_ID = 1L;
+    private static final Long VOLUNTEER_ID = 7L;
+    private static final int LUNCH_ALLOWANCE = 3;
+
+    private MealConsumptionLogRepository mealLogRepository;
+    private MealAllowanceLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        ShiftAssignmentRepository shiftAssignmentRepository = mock(ShiftAssignmentRepository.class);
+        mealLogRepository = mock(MealConsumptionLogRepository.class);
+        EventTeamMemberRepository eventTeamMemberRepository = mock(EventTeamMemberRepository.class);
+        EventRepository eventRepository = mock(EventRepository.class);
+
+        when(eventRepository.existsById(EVENT_ID)).thenReturn(true);
+        List<Object[]> allowanceRows = new ArrayList<>();
+        allowanceRows.add(new Object[]{VOLUNTEER_ID, 0L, (long) LUNCH_ALLOWANCE, 0L});
+        when(shiftAssignmentRepository.sumMealsPerUserForDay(eq(EVENT_ID), any(LocalDateTime.class), any(LocalDateTime.class), eq(AssignmentStatus.CONFIRMED)))
+                .thenReturn(allowanceRows);
+        when(mealLogRepository.findSlotRowsPerVolunteerAndType(eq(EVENT_ID), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(Collections.emptyList());
+        when(eventTeamMemberRepository.findByEventId(EVENT_ID)).thenReturn(Collections.emptyList());
+
+        ledger = new MealAllowanceLedger(shiftAssignmentRepository, mealLogRepository, eventTeamMemberRepository,
+                eventRepository, mock(UserRepository.class));
+        ReflectionTestUtils.setField(ledger, "refreshMs", 300_000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void undoOfAnOlderSlotIsReusedByTheNextScan() {
+        assertEquals(1, ledger.tryConsume(EVENT_ID, VOLUNTEER_ID, MealType.LUNCH).slot());
+        assertEquals(2, ledger.tryConsume(EVENT_ID, VOLUNTEER_ID, MealType.LUNCH).slot());
+        assertEquals(3, ledger.tryConsume(EVENT_ID, VOLUNTEER_ID, MealType.LUNCH).slot());
+
+        // Az offline szinkron miatt a "legutóbbi" (időrendben) sor az 1-es sorszámú: azt vonjuk vissza
+        ledger.releaseAfterCommit(EVENT_ID, VOLUNTEER_ID, MealType.LUNCH, LocalDate.now(), 1);
+
+        MealAllowanceLedger.ScanDecision rescan = ledger.tryConsume(EVENT_ID, VOLUNTEER_ID, MealType.LUNCH);
+        assertTrue(rescan.accepted());
+        assertEquals(1, rescan.slot());
+        assertEquals(LUNCH_ALLOWANCE, rescan.consumed());
+        assertFalse(ledger.tryConsume(EVENT_ID, VOLUNTEER_ID, MealType.LUNCH).accepted());
+    }
+
+    @Test
+    void rolledBackLowerSlotLeavesAGapThatIsFilledFirst() {
+        TransactionSynchronizationManager.initSynchronization();
+        MealAllowanceLedger.ScanDecision first = ledger.tryConsume(EVENT_ID, VOLUNTEER_ID, MealType.LUNCH);
+        List<TransactionSynchronization> firstTx = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+
+        MealAllowanceLedger.ScanDecision second = ledger.tryConsume(EVENT_ID, VOLUNTEER_ID, MealType.LUNCH);
+        assertEquals(1, first.slot());
+        assertEquals(2, second.slot());
+
+        // Az 1-es sorszámú mentés a 2-es commitja után görgetődik vissza
+        firstTx.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertEquals(1, ledger.tryConsume(EVENT_ID, VOLUNTEER_ID, MealType.LUNCH).slot());
+        assertEquals(3, ledger.tryConsume(EVENT_ID, VOLUNTEER_ID, MealType.LUNCH).slot());
+    }
+
+    @Test
+    void resyncAfterAGapInTheDatabaseSkipsTakenSlots() {
+        // A DB-ben csak a 2-es sorszám foglalt (az 1-es sort visszavonták egy másik példányon)
+        List<Object[]> slotRows = new ArrayList<>();
+        slotRows.add(new Object[]{VOLUNTEER_ID, MealType.LUNCH, 2, 1L, LocalDateTime.now().minusMinutes(5)});
+        when(mealLogRepository.findSlotRowsPerVolunteerAndType(eq(EVENT_ID), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(slotRows);
+        ledger.resync(EVENT_ID);
+
+        MealAllowanceLedger.ScanDecision next = ledger.tryConsume(EVENT_ID, VOLUNTEER_ID, MealType.LUNCH);
+        assertEquals(1, next.slot());
+        assertEquals(2, next.consumed());
+        assertEquals(3, ledger.tryConsume(EVENT_ID, VOLUNTEER_ID, MealType.LUNCH).slot());
+        assertFalse(ledger.tryConsume(EVENT_ID, VOLUNTEER_ID, MealType.LUNCH).accepted());
+    }
+}
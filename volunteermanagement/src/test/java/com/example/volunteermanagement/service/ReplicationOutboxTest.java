@@ -0,0 +1,168 @@
+package com.example.volunteermanagement.service;
+
+import com.example.volunteermanagement.config.DataSourceConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * A kézbesítés lezárása: a bérlet a lefoglaláskor kitolja a sort, sikernél csak a kézbesített verzió törlődik,
+ * a közben frissült sor azonnal újra esedékes lesz, a hibás pedig exponenciálisan később.
+ */
+class ReplicationOutboxTest {
+
+    private static final String TARGET = "sziget_db";
+    private static final String DELETE_SQL = "DELETE FROM replication_outbox WHERE id = ? AND version = ?";
+    private static final long LEASE_MS = 120_000;
+    private static final long RETRY_MS = 5_000;
+
+    private DataSourceConfig dataSourceConfig;
+    private JdbcTemplate master;
+    private ReplicationOutbox outbox;
+
+    @BeforeEach
+    void setUp() {
+        dataSourceConfig = mock(DataSourceConfig.class);
+        master = mock(JdbcTemplate.class);
+        outbox = new ReplicationOutbox(dataSourceConfig, new ObjectMapper().findAndRegisterModules(), mock(JdbcTemplate.class));
+        ReflectionTestUtils.setField(outbox, "batchSize", 500);
+        ReflectionTestUtils.setField(outbox, "retryIntervalMs", RETRY_MS);
+        ReflectionTestUtils.setField(outbox, "maxBackoffMs", 300_000L);
+        ReflectionTestUtils.setField(outbox, "leaseMs", LEASE_MS);
+        ReflectionTestUtils.setField(outbox, "masterJdbcTemplate", master);
+    }
+
+    @Test
+    void claimLeasesRowsUntilNowPlusLease() throws Exception {
+        claimReturns();
+
+        outbox.deliver(TARGET);
+
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(master).query(startsWith("UPDATE replication_outbox SET next_attempt_at"), any(RowMapper.class), args.capture());
+        Timestamp leasedUntil = (Timestamp) args.getValue()[0];
+        Timestamp dueBefore = (Timestamp) args.getValue()[1];
+        assertEquals(LEASE_MS, leasedUntil.getTime() - dueBefore.getTime());
+        assertEquals(TARGET, args.getValue()[2]);
+    }
+
+    @Test
+    void completeDeletesDeliveredVersionAndRequeuesRowsChangedMeanwhile() throws Exception {
+        claimReturns(row(1, 0, 3), row(2, 0, 7));
+        targetAccepts();
+        // A 2-es sor a kézbesítés közben új állapotot kapott (a verziója már nem 7): nem törlődik
+        when(master.batchUpdate(eq(DELETE_SQL), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenReturn(new int[][]{{1, 0}});
+
+        outbox.deliver(TARGET);
+
+        List<PreparedStatement> deletes = bindAll(DELETE_SQL);
+        verify(deletes.get(0)).setLong(1, 1L);
+        verify(deletes.get(0)).setLong(2, 3L);
+        verify(deletes.get(1)).setLong(1, 2L);
+        verify(deletes.get(1)).setLong(2, 7L);
+
+        List<PreparedStatement> requeued = bindAll("UPDATE replication_outbox SET attempts = 0, last_error = NULL, next_attempt_at = ? WHERE id = ?");
+        assertEquals(1, requeued.size());
+        verify(requeued.get(0)).setLong(2, 2L);
+        assertEquals(2L, outbox.getMetrics().get("delivered"));
+    }
+
+    @Test
+    void failedDeliveryBacksOffExponentially() throws Exception {
+        claimReturns(row(5, 2, 0));
+        when(dataSourceConfig.openTenantConnection(TARGET)).thenThrow(new SQLException("a sziget nem elérhető"));
+
+        long before = System.currentTimeMillis();
+        outbox.deliver(TARGET);
+        long after = System.currentTimeMillis();
+
+        verify(master, never()).batchUpdate(eq(DELETE_SQL), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        List<PreparedStatement> rescheduled = bindAll("UPDATE replication_outbox SET attempts = attempts + 1, next_attempt_at = ?, last_error = ? WHERE id = ?");
+        ArgumentCaptor<Timestamp> next = ArgumentCaptor.forClass(Timestamp.class);
+        verify(rescheduled.get(0)).setTimestamp(eq(1), next.capture());
+        verify(rescheduled.get(0)).setLong(3, 5L);
+
+        // 2 korábbi próbálkozás után: 5 s << 2 = 20 s
+        long delay = RETRY_MS << 2;
+        assertTrue(next.getValue().getTime() >= before + delay - 1000 && next.getValue().getTime() <= after + delay + 1000);
+    }
+
+    // --- Segédek ---
+
+    private record Row(long id, int attempts, long version) {}
+
+    private static Row row(long id, int attempts, long version) {
+        return new Row(id, attempts, version);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void claimReturns(Row... rows) throws SQLException {
+        when(master.query(startsWith("UPDATE replication_outbox SET next_attempt_at"), any(RowMapper.class), any(Object[].class)))
+                .thenAnswer(invocation -> {
+                    RowMapper<Object> mapper = invocation.getArgument(1);
+                    List<Object> mapped = new ArrayList<>();
+                    for (int i = 0; i < rows.length; i++) {
+                        mapped.add(mapper.mapRow(resultSet(rows[i]), i));
+                    }
+                    return mapped;
+                });
+    }
+
+    private static ResultSet resultSet(Row row) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("id")).thenReturn(row.id());
+        when(rs.getString("target")).thenReturn(TARGET);
+        when(rs.getString("kind")).thenReturn("USER");
+        when(rs.getString("entity_key")).thenReturn(String.valueOf(row.id()));
+        when(rs.getString("payload")).thenReturn("{\"id\":" + row.id() + ",\"email\":\"u" + row.id() + "@test.hu\","
+                + "\"name\":\"Teszt\",\"password\":\"x\",\"role\":\"USER\"}");
+        when(rs.getInt("attempts")).thenReturn(row.attempts());
+        when(rs.getLong("version")).thenReturn(row.version());
+        return rs;
+    }
+
+    private void targetAccepts() throws SQLException {
+        Connection conn = mock(Connection.class);
+        PreparedStatement ps = mock(PreparedStatement.class);
+        when(conn.getAutoCommit()).thenReturn(true);
+        when(conn.prepareStatement(anyString())).thenReturn(ps);
+        when(ps.executeBatch()).thenReturn(new int[]{1, 1});
+        when(dataSourceConfig.openTenantConnection(TARGET)).thenReturn(conn);
+    }
+
+    // A kötegelt UPDATE/DELETE beállítóját soronként egy-egy PreparedStatement mockra futtatjuk
+    @SuppressWarnings("unchecked")
+    private List<PreparedStatement> bindAll(String sql) throws SQLException {
+        ArgumentCaptor<Collection<Object>> rows = ArgumentCaptor.forClass(Collection.class);
+        ArgumentCaptor<ParameterizedPreparedStatementSetter<Object>> setter =
+                ArgumentCaptor.forClass(ParameterizedPreparedStatementSetter.class);
+        verify(master).batchUpdate(eq(sql), rows.capture(), anyInt(), setter.capture());
+
+        List<PreparedStatement> statements = new ArrayList<>();
+        for (Object row : rows.getValue()) {
+            PreparedStatement ps = mock(PreparedStatement.class);
+            setter.getValue().setValues(ps, row);
+            statements.add(ps);
+        }
+        return statements;
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.volunteermanagement.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A tervező kemény korlátai: a műszak létszámkerete (rendes + beugró), az átfedő műszakok kizárása
+ * és a jelöltenkénti műszakszám; ezeken belül a preferált terület előnyt élvez.
+ */
+class RosterSolverTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2026, 7, 10, 0, 0);
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void fillsNormalSlotsBeforeBackupAndNeverExceedsCapacity() {
+        List<RosterSolver.ShiftSlot> shifts = List.of(shift(0, 8, 12, 2, 1));
+        List<RosterSolver.Candidate> candidates = new ArrayList<>();
+        for (int c = 0; c < 5; c++) candidates.add(candidate(c, new int[]{0}));
+
+        RosterSolver.Result result = solve(shifts, candidates, 3);
+
+        assertEquals(3, result.placements().size());
+        assertEquals(2, result.placements().stream().filter(p -> !p.backup()).count());
+        assertEquals(1, result.placements().stream().filter(RosterSolver.Placement::backup).count());
+        assertEquals(2 * RosterSolver.NORMAL_SLOT_POINTS + RosterSolver.BACKUP_SLOT_POINTS, result.score());
+    }
+
+    @Test
+    void neverPlacesAVolunteerIntoOverlappingShifts() {
+        // 10-12 és 11-13 átfed, a 12-14 csak érinti az elsőt (nem átfedés)
+        List<RosterSolver.ShiftSlot> shifts = List.of(shift(0, 10, 12, 1, 0), shift(1, 11, 13, 1, 0), shift(2, 12, 14, 1, 0));
+
+        RosterSolver.Result result = solve(shifts, List.of(candidate(0, new int[]{0, 1, 2})), 3);
+
+        List<Integer> placed = result.placements().stream().map(RosterSolver.Placement::shift).toList();
+        assertEquals(2, placed.size());
+        assertFalse(placed.contains(0) && placed.contains(1));
+        assertTrue(placed.contains(2));
+    }
+
+    @Test
+    void respectsTheMaximumShiftsPerVolunteer() {
+        List<RosterSolver.ShiftSlot> shifts = new ArrayList<>();
+        for (int s = 0; s < 5; s++) shifts.add(shift(s, 2 * s, 2 * s + 1, 3, 0));
+
+        RosterSolver.Result result = solve(shifts, List.of(candidate(0, new int[]{0, 1, 2, 3, 4})), 2);
+
+        assertEquals(2, result.placements().size());
+    }
+
+    @Test
+    void preferredAreaWinsTheLastSlot() {
+        BitSet prefers = new BitSet();
+        prefers.set(0);
+        List<RosterSolver.Candidate> candidates = List.of(
+                candidate(0, new int[]{0}),
+                new RosterSolver.Candidate(2L, 2L, "Preferáló", new int[]{0}, prefers));
+
+        RosterSolver.Result result = solve(List.of(shift(0, 8, 12, 1, 0)), candidates, 1);
+
+        assertEquals(1, result.placements().size());
+        assertEquals(1, result.placements().get(0).candidate());
+        assertTrue(result.placements().get(0).preferred());
+    }
+
+    @Test
+    void randomInstancesKeepAllHardConstraints() {
+        Random random = new Random(42);
+        int maxPerVolunteer = 3;
+        List<RosterSolver.ShiftSlot> shifts = new ArrayList<>();
+        for (int s = 0; s < 40; s++) {
+            int start = random.nextInt(20);
+            shifts.add(shift(s, start, start + 1 + random.nextInt(4), random.nextInt(4), random.nextInt(2)));
+        }
+        List<RosterSolver.Candidate> candidates = new ArrayList<>();
+        for (int c = 0; c < 60; c++) {
+            int[] eligible = random.ints(0, shifts.size()).distinct().limit(1 + random.nextInt(10)).toArray();
+            BitSet prefers = new BitSet();
+            for (int s : eligible) if (random.nextBoolean()) prefers.set(s);
+            candidates.add(new RosterSolver.Candidate((long) c, (long) c, "Jelölt " + c, eligible, prefers));
+        }
+
+        RosterSolver.Result result = solve(shifts, candidates, maxPerVolunteer);
+
+        int[] normal = new int[shifts.size()];
+        int[] backup = new int[shifts.size()];
+        List<List<Integer>> byCandidate = new ArrayList<>();
+        for (int c = 0; c < candidates.size(); c++) byCandidate.add(new ArrayList<>());
+        int score = 0;
+        for (RosterSolver.Placement p : result.placements()) {
+            if (p.backup()) backup[p.shift()]++; else normal[p.shift()]++;
+            byCandidate.get(p.candidate()).add(p.shift());
+            assertTrue(contains(candidates.get(p.candidate()).eligibleShifts(), p.shift()));
+            score += (p.backup() ? RosterSolver.BACKUP_SLOT_POINTS : RosterSolver.NORMAL_SLOT_POINTS)
+                    + (p.preferred() ? RosterSolver.PREFERENCE_POINTS : 0);
+        }
+        assertEquals(score, result.score());
+
+        for (int s = 0; s < shifts.size(); s++) {
+            assertTrue(normal[s] <= shifts.get(s).freeNormal(), "rendes helyek túllépve: " + s);
+            assertTrue(backup[s] <= shifts.get(s).freeBackup(), "beugró helyek túllépve: " + s);
+        }
+        for (List<Integer> placed : byCandidate) {
+            assertTrue(placed.size() <= maxPerVolunteer);
+            for (int i = 0; i < placed.size(); i++) {
+                for (int j = i + 1; j < placed.size(); j++) {
+                    RosterSolver.ShiftSlot a = shifts.get(placed.get(i));
+                    RosterSolver.ShiftSlot b = shifts.get(placed.get(j));
+                    assertFalse(a.start().isBefore(b.end()) && b.start().isBefore(a.end()), "átfedő beosztás");
+                }
+            }
+        }
+    }
+
+    // --- Segédek ---
+
+    private RosterSolver.Result solve(List<RosterSolver.ShiftSlot> shifts, List<RosterSolver.Candidate> candidates, int maxPerVolunteer) {
+        RosterSolver solver = new RosterSolver(shifts, candidates, maxPerVolunteer);
+        return solver.solve(executor, 2, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(300), 7L);
+    }
+
+    private static RosterSolver.ShiftSlot shift(int index, int startHour, int endHour, int normal, int backup) {
+        return new RosterSolver.ShiftSlot((long) index, "Műszak " + index, 1L, "Terület",
+                DAY.plusHours(startHour), DAY.plusHours(endHour), normal, backup);
+    }
+
+    private static RosterSolver.Candidate candidate(int index, int[] eligible) {
+        return new RosterSolver.Candidate((long) index, (long) index, "Jelölt " + index, eligible, new BitSet());
+    }
+
+    private static boolean contains(int[] values, int value) {
+        for (int v : values) if (v == value) return true;
+        return false;
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.volunteermanagement.service;
+
+import com.example.volunteermanagement.dto.AssignedUserDTO;
+import com.example.volunteermanagement.dto.ShiftDTO;
+import com.example.volunteermanagement.model.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+/**
+ * A műszaktábla (getShiftsByEvent) betöltése generált adatokon: alapból 500 műszak × 20 beosztás,
+ * mellette a bérlő más eseményeinek műszakjai.
+ * A régi megoldás: findAll() + szűrés Java-ban, beosztásonként egy felhasználó- és egy jelentkezés-lekérdezés;
+ * az új: eseményre szűkített, fetch join-os lekérdezés és tömeges név/jelentkezés lekérdezés.
+ * Az adatbázis-körutakat a roundTripMicros paraméter szimulálja (0 = csak a memóriabeli rész),
+ * a lekérdezések száma a queryCount számlálóban látszik.
+ *
+ * Futtatás: mvn test-compile, majd a main metódus (IDE-ből vagy exec-kel a teszt classpath-on).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class ShiftBoardBenchmark {
+
+    private static final long EVENT_ID = 1L;
+
+    @Param({"500"})
+    public int shiftCount;
+
+    @Param({"20"})
+    public int assignmentsPerShift;
+
+    // A bérlő többi eseményének műszakjai (ezeket a régi findAll() is betölti)
+    @Param({"2000"})
+    public int otherEventShiftCount;
+
+    @Param({"0", "100"})
+    public long roundTripMicros;
+
+    private List<Shift> allTenantShifts;
+    private List<Shift> eventShifts;
+    private Map<Long, User> usersById;
+    private Map<Long, ShiftBoardAssembler.UserRow> userRows;
+    private Map<Long, List<Application>> applicationsByUser;
+    private List<Object[]> applicationIdRows;
+    private List<EventTeamMember> teamMembers;
+
+    private final AtomicLong queryCount = new AtomicLong();
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        Event event = Event.builder().id(EVENT_ID).title("Fesztivál").build();
+        Event otherEvent = Event.builder().id(2L).title("Másik esemény").build();
+        int userCount = Math.max(1, shiftCount * assignmentsPerShift / 5);
+
+        usersById = new HashMap<>();
+        userRows = new HashMap<>();
+        applicationsByUser = new HashMap<>();
+        applicationIdRows = new ArrayList<>();
+        for (long userId = 1; userId <= userCount; userId++) {
+            User user = User.builder().id(userId).name("Önkéntes " + userId).email("onkentes" + userId + "@example.com").build();
+            usersById.put(userId, user);
+            userRows.put(userId, new ShiftBoardAssembler.UserRow(userId, user.getName(), user.getEmail()));
+
+            Application app = Application.builder().id(userId).userId(userId).event(event).status(ApplicationStatus.APPROVED).build();
+            applicationsByUser.put(userId, List.of(app));
+            applicationIdRows.add(new Object[]{userId, userId, ApplicationStatus.APPROVED});
+        }
+
+        teamMembers = new ArrayList<>();
+        for (long userId = 1; userId <= 5; userId++) {
+            EventTeamMember member = new EventTeamMember();
+            member.setUserId(userId);
+            member.setRole(EventRole.COORDINATOR);
+            teamMembers.add(member);
+        }
+
+        eventShifts = generateShifts(event, shiftCount, 1, userCount, random);
+        allTenantShifts = new ArrayList<>(eventShifts);
+        allTenantShifts.addAll(generateShifts(otherEvent, otherEventShiftCount, shiftCount + 1, userCount, random));
+        Collections.shuffle(allTenantShifts, random);
+    }
+
+    private List<Shift> generateShifts(Event event, int count, long firstId, int userCount, Random random) {
+        List<Shift> shifts = new ArrayList<>(count);
+        LocalDateTime start = LocalDateTime.of(2026, 7, 10, 8, 0);
+        for (int i = 0; i < count; i++) {
+            WorkArea area = WorkArea.builder().id((long) (i % 40) + event.getId() * 1000).name("Pult " + (i % 40)).event(event).build();
+            Shift shift = Shift.builder()
+                    .id(firstId + i).name("Műszak " + i).workArea(area)
+                    .startTime(start.plusHours(i % 72)).endTime(start.plusHours(i % 72 + 4))
+                    .maxVolunteers(assignmentsPerShift).type(ShiftType.WORK)
+                    .build();
+            for (int a = 0; a < assignmentsPerShift; a++) {
+                shift.getAssignments().add(ShiftAssignment.builder()
+                        .id(shift.getId() * 100 + a).shift(shift)
+                        .userId((long) (random.nextInt(userCount) + 1))
+                        .status(AssignmentStatus.CONFIRMED)
+                        .build());
+            }
+            shifts.add(shift);
+        }
+        return shifts;
+    }
+
+    private void roundTrip() {
+        queryCount.incrementAndGet();
+        if (roundTripMicros > 0) {
+            LockSupport.parkNanos(roundTripMicros * 1000);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportQueries() {
+        System.out.println("  lekérdezések: " + queryCount.getAndSet(0));
+    }
+
+    @Benchmark
+    public List<ShiftDTO> legacyPerAssignmentLookups() {
+        // findAll() + szűrés az összes műszakon
+        roundTrip();
+        List<Shift> shifts = allTenantShifts.stream()
+                .filter(s -> (s.getWorkArea() != null && s.getWorkArea().getEvent().getId().equals(EVENT_ID)) ||
+                        (s.getEvent() != null && s.getEvent().getId().equals(EVENT_ID)))
+                .collect(Collectors.toList());
+
+        roundTrip();
+        List<Long> leaderIds = teamMembers.stream()
+                .filter(tm -> tm.getRole() == EventRole.ORGANIZER || tm.getRole() == EventRole.COORDINATOR)
+                .map(EventTeamMember::getUserId)
+                .collect(Collectors.toList());
+
+        return shifts.stream().map(shift -> {
+            roundTrip(); // a beosztások lusta betöltése műszakonként
+            List<AssignedUserDTO> assignedUsers = shift.getAssignments().stream()
+                    .filter(assignment -> !leaderIds.contains(assignment.getUserId()))
+                    .map(assignment -> {
+                        roundTrip();
+                        User user = usersById.get(assignment.getUserId());
+                        roundTrip();
+                        Long appId = applicationsByUser.getOrDefault(assignment.getUserId(), List.of()).stream()
+                                .map(Application::getId).findFirst().orElse(null);
+
+                        return new AssignedUserDTO(appId, assignment.getUserId(),
+                                user != null ? user.getName() : "Ismeretlen",
+                                user != null ? user.getEmail() : "Ismeretlen",
+                                assignment.getStatus().name(), assignment.getMessage(), assignment.isBackup());
+                    }).collect(Collectors.toList());
+
+            return new ShiftDTO(shift.getId(), shift.getWorkArea() != null ? shift.getWorkArea().getId() : null,
+                    shift.getWorkArea() != null ? shift.getWorkArea().getName() : "Globális",
+                    shift.getName(), shift.getStartTime(), shift.getEndTime(), shift.getMaxVolunteers(), shift.getMaxBackupVolunteers(),
+                    shift.getProvidedBreakfasts(), shift.getProvidedLunches(), shift.getProvidedDinners(),
+                    shift.getType().name(), shift.getDescription(), assignedUsers);
+        }).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<ShiftDTO> setBased() {
+        roundTrip();
+        Map<Long, Long> applicationIds = new HashMap<>();
+        for (Object[] row : applicationIdRows) {
+            applicationIds.putIfAbsent((Long) row[0], (Long) row[1]);
+        }
+
+        roundTrip();
+        Set<Long> leaderIds = teamMembers.stream()
+                .filter(tm -> tm.getRole() == EventRole.ORGANIZER || tm.getRole() == EventRole.COORDINATOR)
+                .map(EventTeamMember::getUserId)
+                .collect(Collectors.toSet());
+
+        roundTrip(); // műszakok a területtel és a beosztásokkal (fetch join)
+        Set<Long> assignedUserIds = ShiftBoardAssembler.assignedUserIds(eventShifts, leaderIds);
+
+        roundTrip(); // a beosztottak nevei egy IN lekérdezéssel
+        Map<Long, ShiftBoardAssembler.UserRow> users = new HashMap<>(assignedUserIds.size() * 2);
+        for (Long userId : assignedUserIds) {
+            users.put(userId, userRows.get(userId));
+        }
+
+        return ShiftBoardAssembler.eventBoard(eventShifts, leaderIds, users, applicationIds);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ShiftBoardBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.volunteermanagement.service;
+
+import com.example.volunteermanagement.model.AssignmentStatus;
+import com.example.volunteermanagement.model.Shift;
+import com.example.volunteermanagement.model.ShiftType;
+import com.example.volunteermanagement.repository.OrganizationRepository;
+import com.example.volunteermanagement.tenant.TenantFanOutExecutor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * A léptetés hiányzó sornál: a sor elavultként (NOT NULL built_at-tel) jön létre, és az első olvasás újraépíti.
+ */
+class VolunteerStatsServiceTest {
+
+    private static final long USER_ID = 42L;
+    private static final long REBUILD_INTERVAL_MS = 86_400_000L;
+
+    private JdbcTemplate jdbcTemplate;
+    private VolunteerStatsService service;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        service = new VolunteerStatsService(jdbcTemplate, mock(OrganizationRepository.class), mock(TenantFanOutExecutor.class));
+        ReflectionTestUtils.setField(service, "rebuildIntervalMs", REBUILD_INTERVAL_MS);
+    }
+
+    @Test
+    void confirmingWithoutRowInsertsStaleRowWithNonNullBuiltAt() {
+        when(jdbcTemplate.update(startsWith("UPDATE volunteer_stats SET"), any(Object[].class))).thenReturn(0);
+
+        service.onStatusChange(shift(), USER_ID, AssignmentStatus.PENDING, AssignmentStatus.CONFIRMED);
+
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate).update(startsWith("INSERT INTO volunteer_stats"), args.capture());
+        Object[] values = args.getValue();
+        assertEquals(USER_ID, values[0]);
+        assertNotNull(values[1]);
+        assertEquals(VolunteerStatsService.STALE_BUILT_AT, values[2]);
+    }
+
+    @Test
+    void existingRowIsUpdatedWithoutInsert() {
+        when(jdbcTemplate.update(startsWith("UPDATE volunteer_stats SET"), any(Object[].class))).thenReturn(1);
+
+        service.onStatusChange(shift(), USER_ID, AssignmentStatus.PENDING, AssignmentStatus.CONFIRMED);
+
+        verify(jdbcTemplate, never()).update(startsWith("INSERT INTO volunteer_stats"), any(Object[].class));
+    }
+
+    @Test
+    void staleMarkedRowIsRebuiltOnRead() {
+        Map<String, Object> stale = row(VolunteerStatsService.STALE_BUILT_AT);
+        Map<String, Object> rebuilt = row(Timestamp.valueOf(LocalDateTime.now()));
+        rebuilt.put("completed_shifts", 3L);
+        when(jdbcTemplate.queryForList(startsWith("SELECT completed_shifts"), eq(USER_ID)))
+                .thenReturn(List.of(stale), List.of(rebuilt));
+
+        assertEquals(3L, service.read(USER_ID).completedShifts());
+
+        verify(jdbcTemplate).update(startsWith("INSERT INTO volunteer_stats"), any(Object[].class));
+    }
+
+    private static Shift shift() {
+        Shift shift = new Shift();
+        shift.setType(ShiftType.WORK);
+        shift.setStartTime(LocalDateTime.now().plusDays(1));
+        shift.setEndTime(LocalDateTime.now().plusDays(1).plusHours(4));
+        return shift;
+    }
+
+    private static Map<String, Object> row(Timestamp builtAt) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("completed_shifts", 0L);
+        row.put("completed_minutes", 0L);
+        row.put("upcoming_shifts", 0L);
+        row.put("built_at", builtAt);
+        return row;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.volunteermanagement.tenant;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A hibára futó vagy időtúllépő bérlő nem tűnhet el csendben: a hívó a kimaradt bérlők között kapja vissza.
+ */
+class TenantFanOutExecutorTest {
+
+    private TenantFanOutExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new TenantFanOutExecutor();
+        ReflectionTestUtils.setField(executor, "poolSize", 4);
+        ReflectionTestUtils.setField(executor, "queueCapacity", 16);
+        ReflectionTestUtils.setField(executor, "tenantTimeoutMs", 200L);
+        executor.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.stop();
+    }
+
+    @Test
+    void failedAndTimedOutTenantsAreReported() {
+        TenantFanOutResult<String> result = executor.runPerTenant(Arrays.asList(null, "ok", "broken", "slow"), tenantId -> {
+            if ("broken".equals(tenantId)) throw new IllegalStateException("nincs kapcsolat");
+            if ("slow".equals(tenantId)) sleep(2_000);
+            return String.valueOf(TenantContext.getCurrentTenant());
+        });
+
+        assertEquals(List.of("null", "ok"), List.copyOf(result.results().values()));
+        assertTrue(result.isPartial());
+        assertEquals(List.of("broken", "slow"), result.failedTenants());
+    }
+
+    @Test
+    void singleTenantFailureIsReportedAsMaster() {
+        TenantFanOutResult<String> result = executor.runPerTenant(Arrays.asList((String) null), tenantId -> {
+            throw new IllegalStateException("nincs kapcsolat");
+        });
+
+        assertTrue(result.results().isEmpty());
+        assertEquals(List.of("master"), result.failedTenants());
+    }
+
+    @Test
+    void completeRunIsNotPartial() {
+        TenantFanOutResult<Integer> result = executor.runPerTenant(List.of("a", "b"), String::length);
+
+        assertFalse(result.isPartial());
+        assertEquals(2, result.results().size());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
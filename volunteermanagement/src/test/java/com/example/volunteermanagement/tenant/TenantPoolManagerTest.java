@@ -0,0 +1,79 @@
+package com.example.volunteermanagement.tenant;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A globális kapcsolat-keret: a poolok nyitása és az újraosztás sem lépheti túl a plafont.
+ * (A Hikari pool lustán csatlakozik, így a teszthez nem kell adatbázis.)
+ */
+class TenantPoolManagerTest {
+
+    private static final int MIN = 2;
+    private static final int INITIAL = 3;
+    private static final int MAX_TOTAL = 6;
+
+    private TenantPoolManager manager;
+
+    @BeforeEach
+    void setUp() {
+        manager = new TenantPoolManager(new TenantPoolManager.Settings(MIN, INITIAL, 10, MAX_TOTAL, 600_000, 60_000, 50));
+        for (String tenant : List.of("a", "b", "c", "d")) {
+            manager.registerTenant(tenant, new TenantPoolManager.TenantTarget("jdbc:postgresql://localhost:1/" + tenant, "u", "p"));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        List.of("a", "b", "c", "d").forEach(manager::unregisterTenant);
+    }
+
+    @Test
+    void newPoolsGetOnlyWhatIsLeftOfTheBudget() {
+        manager.getDataSource("a");
+        manager.getDataSource("b");
+
+        // 3 + 3 = 6: a keret elfogyott, a következő nyitás a legrégebben használt tétlent zárja le
+        assertEquals(MAX_TOTAL, allocated());
+        DataSource c = manager.getDataSource("c");
+
+        assertNotNull(c);
+        assertEquals(2, metrics().get("openPools"));
+        assertTrue(allocated() <= MAX_TOTAL);
+        assertEquals(1L, metrics().get("poolsClosed"));
+    }
+
+    @Test
+    void rebalanceNeverRaisesPoolsAboveTheBudget() {
+        manager.getDataSource("a");
+        manager.getDataSource("b");
+        manager.getDataSource("c");
+
+        manager.rebalance();
+
+        assertTrue(allocated() <= MAX_TOTAL, "kiosztva: " + allocated());
+        @SuppressWarnings("unchecked")
+        Map<String, Map<String, Object>> tenants = (Map<String, Map<String, Object>>) metrics().get("tenants");
+        tenants.values().forEach(pool -> assertTrue((int) pool.get("maxPoolSize") >= MIN));
+    }
+
+    @Test
+    void unknownTenantHasNoPool() {
+        assertNull(manager.getDataSource("ismeretlen"));
+    }
+
+    private int allocated() {
+        return (int) metrics().get("allocatedConnections");
+    }
+
+    private Map<String, Object> metrics() {
+        return manager.getMetrics();
+    }
+}